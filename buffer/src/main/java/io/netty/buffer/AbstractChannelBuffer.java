@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 
 /**
@@ -29,11 +30,82 @@ import java.nio.charset.Charset;
  */
 public abstract class AbstractChannelBuffer implements ChannelBuffer {
 
+    private static final AtomicIntegerFieldUpdater<AbstractChannelBuffer> refCntUpdater =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractChannelBuffer.class, "refCnt");
+
+    private volatile int refCnt = 1;
+
     private int readerIndex;
     private int writerIndex;
     private int markedReaderIndex;
     private int markedWriterIndex;
 
+    @Override
+    public int refCnt() {
+        return refCnt;
+    }
+
+    @Override
+    public ChannelBuffer retain() {
+        return retain(1);
+    }
+
+    @Override
+    public ChannelBuffer retain(int increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("increment: " + increment + " (expected: > 0)");
+        }
+
+        for (;;) {
+            int refCnt = this.refCnt;
+            if (refCnt == 0) {
+                throw new IllegalStateException("refCnt: 0");
+            }
+            if (refCnt > Integer.MAX_VALUE - increment) {
+                throw new IllegalStateException("refCnt overflow: " + refCnt + " + " + increment);
+            }
+            if (refCntUpdater.compareAndSet(this, refCnt, refCnt + increment)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        return release(1);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        if (decrement <= 0) {
+            throw new IllegalArgumentException("decrement: " + decrement + " (expected: > 0)");
+        }
+
+        for (;;) {
+            int refCnt = this.refCnt;
+            if (refCnt < decrement) {
+                throw new IllegalStateException("refCnt: " + refCnt + ", decrement: " + decrement);
+            }
+
+            if (refCntUpdater.compareAndSet(this, refCnt, refCnt - decrement)) {
+                if (refCnt == decrement) {
+                    deallocate();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Called once {@link #refCnt()} reaches {@code 0}.  The default
+     * implementation does nothing because the memory of most buffers is
+     * reclaimed by the garbage collector.
+     */
+    protected void deallocate() {
+        // Do nothing by default.
+    }
+
     @Override
     public int readerIndex() {
         return readerIndex;
@@ -124,7 +124,7 @@ public class BigEndianHeapChannelBuffer extends HeapChannelBuffer {
 
     @Override
     public ChannelBuffer duplicate() {
-        return new BigEndianHeapChannelBuffer(array, readerIndex(), writerIndex());
+        return new DuplicatedChannelBuffer(this);
     }
 
     @Override
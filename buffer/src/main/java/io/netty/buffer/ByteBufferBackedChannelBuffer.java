@@ -51,14 +51,6 @@ public class ByteBufferBackedChannelBuffer extends AbstractChannelBuffer {
         writerIndex(capacity);
     }
 
-    private ByteBufferBackedChannelBuffer(ByteBufferBackedChannelBuffer buffer) {
-        this.buffer = buffer.buffer;
-        tmpBuf = this.buffer.duplicate();
-        order = buffer.order;
-        capacity = buffer.capacity;
-        setIndex(buffer.readerIndex(), buffer.writerIndex());
-    }
-
     @Override
     public ChannelBufferFactory factory() {
         if (buffer.isDirect()) {
@@ -301,15 +293,13 @@ public class ByteBufferBackedChannelBuffer extends AbstractChannelBuffer {
             if (index >= 0 && length == 0) {
                 return ChannelBuffers.EMPTY_BUFFER;
             }
-            return new ByteBufferBackedChannelBuffer(
-                    ((ByteBuffer) tmpBuf.clear().position(
-                            index).limit(index + length)).order(order()));
+            return new SlicedChannelBuffer(this, index, length);
         }
     }
 
     @Override
     public ChannelBuffer duplicate() {
-        return new ByteBufferBackedChannelBuffer(this);
+        return new DuplicatedChannelBuffer(this);
     }
 
     @Override
@@ -202,6 +202,20 @@ import java.nio.charset.UnsupportedCharsetException;
  * In case a completely fresh copy of an existing buffer is required, please
  * call {@link #copy()} method instead.
  *
+ * <h3>Reference counting</h3>
+ *
+ * A buffer starts with the reference count of {@code 1}.  {@link #retain()}
+ * increases the reference count, and {@link #release()} decreases it.  When
+ * the reference count reaches {@code 0}, the buffer is deallocated and its
+ * memory can be reused by the {@link ChannelBufferFactory} which created it,
+ * such as {@link PooledChannelBufferFactory}.  Accessing a deallocated buffer
+ * yields undefined behavior.
+ * <p>
+ * A derived buffer does not have its own reference count.  It shares the
+ * reference count of the buffer it was derived from.  A composite buffer
+ * created by {@link ChannelBuffers#wrappedBuffer(ChannelBuffer...)} takes the
+ * ownership of its components and releases them when it is deallocated.
+ *
  * <h3>Conversion to existing JDK types</h3>
  *
  * <h4>Byte array</h4>
@@ -253,6 +267,50 @@ public interface ChannelBuffer extends Comparable<ChannelBuffer> {
      */
     boolean isDirect();
 
+    /**
+     * Returns the reference count of this buffer.  If {@code 0}, it means
+     * this buffer has been deallocated.
+     */
+    int refCnt();
+
+    /**
+     * Increases the reference count of this buffer by {@code 1}.
+     *
+     * @return this buffer
+     * @throws IllegalStateException if this buffer has been deallocated already
+     */
+    ChannelBuffer retain();
+
+    /**
+     * Increases the reference count of this buffer by the specified
+     * {@code increment}.
+     *
+     * @return this buffer
+     * @throws IllegalStateException if this buffer has been deallocated already
+     */
+    ChannelBuffer retain(int increment);
+
+    /**
+     * Decreases the reference count of this buffer by {@code 1} and
+     * deallocates this buffer if the reference count reaches {@code 0}.
+     *
+     * @return {@code true} if and only if the reference count became {@code 0}
+     *         and this buffer has been deallocated
+     * @throws IllegalStateException if this buffer has been deallocated already
+     */
+    boolean release();
+
+    /**
+     * Decreases the reference count of this buffer by the specified
+     * {@code decrement} and deallocates this buffer if the reference count
+     * reaches {@code 0}.
+     *
+     * @return {@code true} if and only if the reference count became {@code 0}
+     *         and this buffer has been deallocated
+     * @throws IllegalStateException if this buffer has been deallocated already
+     */
+    boolean release(int decrement);
+
     /**
      * Returns the {@code readerIndex} of this buffer.
      */
@@ -97,9 +97,21 @@ public final class ChannelBuffers {
     public static final ByteOrder LITTLE_ENDIAN = ByteOrder.LITTLE_ENDIAN;
 
     /**
-     * A buffer whose capacity is {@code 0}.
+     * A buffer whose capacity is {@code 0}.  It is shared, and therefore
+     * {@link ChannelBuffer#retain()} and {@link ChannelBuffer#release()} have
+     * no effect on it.
      */
-    public static final ChannelBuffer EMPTY_BUFFER = new BigEndianHeapChannelBuffer(0);
+    public static final ChannelBuffer EMPTY_BUFFER = new BigEndianHeapChannelBuffer(0) {
+        @Override
+        public ChannelBuffer retain(int increment) {
+            return this;
+        }
+
+        @Override
+        public boolean release(int decrement) {
+            return false;
+        }
+    };
 
     private static final char[] HEXDUMP_TABLE = new char[256 * 4];
 
@@ -321,7 +333,9 @@ public final class ChannelBuffers {
     /**
      * Creates a new buffer which wraps the specified buffer's readable bytes.
      * A modification on the specified buffer's content will be visible to the
-     * returned buffer.
+     * returned buffer.  The returned buffer shares the reference count of the
+     * specified buffer, so {@linkplain ChannelBuffer#release() releasing} it
+     * releases the specified buffer.
      */
     public static ChannelBuffer wrappedBuffer(ChannelBuffer buffer) {
         if (buffer.readable()) {
@@ -389,6 +403,12 @@ public final class ChannelBuffers {
      * Creates a new composite buffer which wraps the readable bytes of the
      * specified buffers without copying them.  A modification on the content
      * of the specified buffers will be visible to the returned buffer.
+     * <p>
+     * The returned buffer takes the ownership of the specified buffers:
+     * {@linkplain ChannelBuffer#release() releasing} it releases them, or the
+     * components of a specified composite buffer.  If you keep using a buffer
+     * after wrapping it, {@linkplain ChannelBuffer#retain() retain} it before
+     * calling this method.  A buffer which is never released is unaffected.
      *
      * @throws IllegalArgumentException
      *         if the specified buffers' endianness are different from each
@@ -26,23 +26,41 @@ import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
  * A virtual buffer which shows multiple buffers as a single merged buffer.  It
  * is recommended to use {@link ChannelBuffers#wrappedBuffer(ChannelBuffer...)}
  * instead of calling the constructor explicitly.
+ * <p>
+ * A composite buffer takes the ownership of the specified buffers and
+ * releases them when it is deallocated.  Components which share a reference
+ * count, such as the slices of the same buffer, are released only once.
+ * The buffers derived from a composite buffer share its reference count.
  */
 public class CompositeChannelBuffer extends AbstractChannelBuffer {
 
     private final ByteOrder order;
+    private final CompositeChannelBuffer root;
+    private final ChannelBuffer[] ownedComponents;
     private ChannelBuffer[] components;
     private int[] indices;
     private int lastAccessedComponentId;
 
     public CompositeChannelBuffer(ByteOrder endianness, List<ChannelBuffer> buffers) {
         order = endianness;
+        root = this;
+        setComponents(buffers);
+        ownedComponents = components;
+    }
+
+    private CompositeChannelBuffer(ByteOrder endianness, List<ChannelBuffer> buffers, CompositeChannelBuffer root) {
+        order = endianness;
+        this.root = root;
+        ownedComponents = null;
         setComponents(buffers);
     }
 
@@ -131,11 +149,72 @@ public class CompositeChannelBuffer extends AbstractChannelBuffer {
 
     private CompositeChannelBuffer(CompositeChannelBuffer buffer) {
         order = buffer.order;
+        root = buffer.root;
+        ownedComponents = null;
         components = buffer.components.clone();
         indices = buffer.indices.clone();
         setIndex(buffer.readerIndex(), buffer.writerIndex());
     }
 
+    @Override
+    public int refCnt() {
+        if (root != this) {
+            return root.refCnt();
+        }
+        return super.refCnt();
+    }
+
+    @Override
+    public ChannelBuffer retain(int increment) {
+        if (root != this) {
+            root.retain(increment);
+            return this;
+        }
+        return super.retain(increment);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        if (root != this) {
+            return root.release(decrement);
+        }
+        return super.release(decrement);
+    }
+
+    @Override
+    protected void deallocate() {
+        Map<ChannelBuffer, Boolean> released =
+                new IdentityHashMap<ChannelBuffer, Boolean>(ownedComponents.length);
+        for (ChannelBuffer c: ownedComponents) {
+            ChannelBuffer owner = refCntOwner(c);
+            if (released.put(owner, Boolean.TRUE) == null) {
+                owner.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer which holds the reference count of the specified
+     * buffer.  A derived buffer delegates its reference count to its parent.
+     */
+    private static ChannelBuffer refCntOwner(ChannelBuffer buf) {
+        for (;;) {
+            if (buf instanceof LeakAwareChannelBuffer) {
+                // Its release() closes the leak, so it must not be skipped.
+                return buf;
+            }
+            if (buf instanceof CompositeChannelBuffer) {
+                return ((CompositeChannelBuffer) buf).root;
+            }
+            if (buf instanceof SlicedChannelBuffer || buf instanceof DuplicatedChannelBuffer ||
+                buf instanceof TruncatedChannelBuffer || buf instanceof ReadOnlyChannelBuffer) {
+                buf = ((WrappedChannelBuffer) buf).unwrap();
+            } else {
+                return buf;
+            }
+        }
+    }
+
     @Override
     public ChannelBufferFactory factory() {
         return HeapChannelBufferFactory.getInstance(order());
@@ -595,10 +674,8 @@ public class CompositeChannelBuffer extends AbstractChannelBuffer {
         switch (components.size()) {
         case 0:
             return ChannelBuffers.EMPTY_BUFFER;
-        case 1:
-            return components.get(0);
         default:
-            return new CompositeChannelBuffer(order(), components);
+            return new CompositeChannelBuffer(order(), components, root);
         }
     }
 
@@ -51,6 +51,22 @@ public class DuplicatedChannelBuffer extends AbstractChannelBuffer implements Wr
         return buffer;
     }
 
+    @Override
+    public int refCnt() {
+        return buffer.refCnt();
+    }
+
+    @Override
+    public ChannelBuffer retain(int increment) {
+        buffer.retain(increment);
+        return this;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return buffer.release(decrement);
+    }
+
     @Override
     public ChannelBufferFactory factory() {
         return buffer.factory();
@@ -84,9 +84,41 @@ public class DynamicChannelBuffer extends AbstractChannelBuffer {
 
         ChannelBuffer newBuffer = factory().getBuffer(order(), newCapacity);
         newBuffer.writeBytes(buffer, 0, writerIndex());
+        buffer.release();
         buffer = newBuffer;
     }
 
+    /**
+     * Replaces the underlying buffer with a new one of the specified capacity
+     * if this buffer has no readable bytes and its capacity is greater than
+     * the specified one, so that a buffer which grew to hold a burst of data
+     * does not keep the memory forever.  The {@code readerIndex} and the
+     * {@code writerIndex} are reset to {@code 0} then.  As with
+     * {@link #discardReadBytes()}, the content of the buffers derived from
+     * this buffer is undefined afterwards.
+     *
+     * @return {@code true} if and only if the capacity has been reduced
+     */
+    public boolean trim(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        if (readable() || capacity() <= capacity) {
+            return false;
+        }
+
+        ChannelBuffer newBuffer = factory().getBuffer(order(), capacity);
+        buffer.release();
+        buffer = newBuffer;
+        clear();
+        return true;
+    }
+
+    @Override
+    protected void deallocate() {
+        buffer.release();
+    }
+
     @Override
     public ChannelBufferFactory factory() {
         return factory;
@@ -301,6 +333,7 @@ public class DynamicChannelBuffer extends AbstractChannelBuffer {
     @Override
     public ChannelBuffer copy(int index, int length) {
         DynamicChannelBuffer copiedBuffer = new DynamicChannelBuffer(order(), Math.max(length, 64), factory());
+        copiedBuffer.buffer.release();
         copiedBuffer.buffer = buffer.copy(index, length);
         copiedBuffer.setIndex(0, length);
         return copiedBuffer;
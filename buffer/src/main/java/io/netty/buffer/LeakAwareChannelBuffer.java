@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.ResourceLeak;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * A buffer sampled by a {@link io.netty.util.ResourceLeakDetector}.  It
+ * records its bulk accesses and closes its {@link ResourceLeak} when
+ * deallocated.  Access to a single primitive value is not recorded because
+ * it is too frequent to be useful.
+ */
+final class LeakAwareChannelBuffer extends DuplicatedChannelBuffer {
+
+    private final ResourceLeak leak;
+
+    LeakAwareChannelBuffer(ChannelBuffer buffer, ResourceLeak leak) {
+        super(buffer);
+        this.leak = leak;
+    }
+
+    @Override
+    public ChannelBuffer retain(int increment) {
+        leak.record();
+        return super.retain(increment);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        boolean deallocated = super.release(decrement);
+        if (deallocated) {
+            leak.close();
+        } else {
+            leak.record();
+        }
+        return deallocated;
+    }
+
+    @Override
+    public ChannelBuffer duplicate() {
+        leak.record();
+        // Derive from this buffer so that it stays reachable while its
+        // derived buffers are in use.
+        return new DuplicatedChannelBuffer(this);
+    }
+
+    @Override
+    public ChannelBuffer slice(int index, int length) {
+        leak.record();
+        return new SlicedChannelBuffer(this, index, length);
+    }
+
+    @Override
+    public ChannelBuffer copy(int index, int length) {
+        leak.record();
+        return super.copy(index, length);
+    }
+
+    @Override
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        leak.record();
+        super.getBytes(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        leak.record();
+        super.getBytes(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getBytes(int index, ByteBuffer dst) {
+        leak.record();
+        super.getBytes(index, dst);
+    }
+
+    @Override
+    public void getBytes(int index, OutputStream out, int length) throws IOException {
+        leak.record();
+        super.getBytes(index, out, length);
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        leak.record();
+        return super.getBytes(index, out, length);
+    }
+
+    @Override
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        leak.record();
+        super.setBytes(index, src, srcIndex, length);
+    }
+
+    @Override
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        leak.record();
+        super.setBytes(index, src, srcIndex, length);
+    }
+
+    @Override
+    public void setBytes(int index, ByteBuffer src) {
+        leak.record();
+        super.setBytes(index, src);
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        leak.record();
+        return super.setBytes(index, in, length);
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        leak.record();
+        return super.setBytes(index, in, length);
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        leak.record();
+        return super.nioBuffer(index, length);
+    }
+}
@@ -124,7 +124,7 @@ public class LittleEndianHeapChannelBuffer extends HeapChannelBuffer {
 
     @Override
     public ChannelBuffer duplicate() {
-        return new LittleEndianHeapChannelBuffer(array, readerIndex(), writerIndex());
+        return new DuplicatedChannelBuffer(this);
     }
 
     @Override
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of {@link PoolChunk}s which serves the allocation requests of the
+ * threads bound to it.  The requested capacity is normalized into one of the
+ * following size classes:
+ * <ul>
+ * <li>tiny - less than 512 bytes, rounded up to a multiple of 16,
+ *     served from a {@link PoolSubpage}</li>
+ * <li>small - 512 bytes or more but less than a page, rounded up to a power
+ *     of two, served from a {@link PoolSubpage}</li>
+ * <li>normal - a page or more up to the chunk size, rounded up to a power
+ *     of two, served from a run of pages by the buddy allocator of a
+ *     {@link PoolChunk}</li>
+ * <li>huge - larger than the chunk size, not pooled at all</li>
+ * </ul>
+ */
+final class PoolArena {
+
+    private final boolean direct;
+    final int pageSize;
+    private final int maxOrder;
+    private final int chunkSize;
+    private final int subpageOverflowMask;
+
+    private final PoolSubpage[] tinySubpagePools;
+    private final PoolSubpage[] smallSubpagePools;
+    private final List<PoolChunk> chunks = new ArrayList<PoolChunk>();
+
+    PoolArena(boolean direct, int pageSize, int maxOrder) {
+        this.direct = direct;
+        this.pageSize = pageSize;
+        this.maxOrder = maxOrder;
+        chunkSize = pageSize << maxOrder;
+        subpageOverflowMask = ~(pageSize - 1);
+
+        tinySubpagePools = new PoolSubpage[512 >>> 4];
+        for (int i = 0; i < tinySubpagePools.length; i ++) {
+            tinySubpagePools[i] = newSubpagePoolHead();
+        }
+
+        smallSubpagePools = new PoolSubpage[log2(pageSize) - 9];
+        for (int i = 0; i < smallSubpagePools.length; i ++) {
+            smallSubpagePools[i] = newSubpagePoolHead();
+        }
+    }
+
+    private PoolSubpage newSubpagePoolHead() {
+        PoolSubpage head = new PoolSubpage(pageSize);
+        head.prev = head;
+        head.next = head;
+        return head;
+    }
+
+    boolean isDirect() {
+        return direct;
+    }
+
+    ChannelBuffer allocate(PooledChannelBufferFactory factory, ByteOrder order, int reqCapacity) {
+        final int normCapacity = normalizeCapacity(reqCapacity);
+        if (normCapacity > chunkSize) {
+            // Huge allocations are not pooled.
+            return new PooledChannelBuffer(factory, this, null, -1, newMemory(reqCapacity).order(order));
+        }
+
+        PoolChunk chunk = null;
+        long handle = -1;
+        ByteBuffer memory;
+        synchronized (this) {
+            if ((normCapacity & subpageOverflowMask) == 0) {
+                PoolSubpage head = findSubpagePoolHead(normCapacity);
+                PoolSubpage s = head.next;
+                if (s != head) {
+                    chunk = s.chunk;
+                    handle = s.allocate();
+                }
+            }
+
+            if (handle < 0) {
+                for (PoolChunk c: chunks) {
+                    handle = c.allocate(normCapacity);
+                    if (handle >= 0) {
+                        chunk = c;
+                        break;
+                    }
+                }
+            }
+
+            if (handle < 0) {
+                chunk = new PoolChunk(this, newMemory(chunkSize), pageSize, maxOrder);
+                handle = chunk.allocate(normCapacity);
+                chunks.add(chunk);
+            }
+
+            int offset = chunk.offset(handle);
+            memory = chunk.memory.duplicate();
+            memory.limit(offset + reqCapacity).position(offset);
+        }
+
+        return new PooledChannelBuffer(factory, this, chunk, handle, memory.order(order));
+    }
+
+    synchronized void free(PoolChunk chunk, long handle) {
+        chunk.free(handle);
+        if (chunk.isUnused() && chunks.size() > 1) {
+            // Keep at least one chunk so that the next allocation does not
+            // have to allocate a new chunk again.
+            chunks.remove(chunk);
+        }
+    }
+
+    PoolSubpage findSubpagePoolHead(int elemSize) {
+        if (elemSize < 512) {
+            return tinySubpagePools[elemSize >>> 4];
+        } else {
+            return smallSubpagePools[log2(elemSize) - 9];
+        }
+    }
+
+    int normalizeCapacity(int reqCapacity) {
+        if (reqCapacity > chunkSize) {
+            return reqCapacity;
+        }
+
+        if (reqCapacity >= 512) {
+            // Round up to the next power of two.
+            int normalizedCapacity = reqCapacity - 1;
+            normalizedCapacity |= normalizedCapacity >>>  1;
+            normalizedCapacity |= normalizedCapacity >>>  2;
+            normalizedCapacity |= normalizedCapacity >>>  4;
+            normalizedCapacity |= normalizedCapacity >>>  8;
+            normalizedCapacity |= normalizedCapacity >>> 16;
+            return normalizedCapacity + 1;
+        }
+
+        // Round up to the next multiple of 16.
+        if ((reqCapacity & 15) == 0) {
+            return reqCapacity;
+        }
+        return (reqCapacity & ~15) + 16;
+    }
+
+    /**
+     * Returns the number of the chunks allocated by this arena.
+     */
+    synchronized int numChunks() {
+        return chunks.size();
+    }
+
+    private ByteBuffer newMemory(int capacity) {
+        if (direct) {
+            return ByteBuffer.allocateDirect(capacity);
+        } else {
+            return ByteBuffer.allocate(capacity);
+        }
+    }
+
+    static int log2(int val) {
+        return 31 - Integer.numberOfLeadingZeros(val);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A large chunk of memory which is split into runs of pages by a buddy
+ * allocator.  A run of one page can be split further into the elements of
+ * a {@link PoolSubpage}.
+ * <p>
+ * The chunk is represented as a complete binary tree of depth
+ * {@code maxOrder} whose leaves are pages.  {@code memoryMap[id]} holds the
+ * depth of the shallowest node which is free in the subtree rooted at
+ * {@code id}, or {@code maxOrder + 1} if nothing in the subtree is free.
+ * All access must be guarded by the lock of the owning {@link PoolArena}.
+ */
+final class PoolChunk {
+
+    final PoolArena arena;
+    final ByteBuffer memory;
+
+    private final byte[] memoryMap;
+    private final byte[] depthMap;
+    private final PoolSubpage[] subpages;
+    private final int pageSize;
+    private final int pageShifts;
+    private final int maxOrder;
+    private final int chunkSize;
+    private final int log2ChunkSize;
+    private final int maxSubpageAllocs;
+    private final byte unusable;
+
+    private int freeBytes;
+
+    PoolChunk(PoolArena arena, ByteBuffer memory, int pageSize, int maxOrder) {
+        this.arena = arena;
+        this.memory = memory;
+        this.pageSize = pageSize;
+        this.maxOrder = maxOrder;
+        pageShifts = PoolArena.log2(pageSize);
+        chunkSize = pageSize << maxOrder;
+        log2ChunkSize = PoolArena.log2(chunkSize);
+        maxSubpageAllocs = 1 << maxOrder;
+        unusable = (byte) (maxOrder + 1);
+        freeBytes = chunkSize;
+
+        memoryMap = new byte[maxSubpageAllocs << 1];
+        depthMap = new byte[memoryMap.length];
+        int memoryMapIndex = 1;
+        for (int d = 0; d <= maxOrder; d ++) {
+            int depth = 1 << d;
+            for (int p = 0; p < depth; p ++) {
+                memoryMap[memoryMapIndex] = (byte) d;
+                depthMap[memoryMapIndex] = (byte) d;
+                memoryMapIndex ++;
+            }
+        }
+
+        subpages = new PoolSubpage[maxSubpageAllocs];
+    }
+
+    /**
+     * Returns the handle of the allocated run or subpage element, or
+     * {@code -1} if this chunk has no room for the specified capacity.
+     */
+    long allocate(int normCapacity) {
+        if ((normCapacity & ~(pageSize - 1)) != 0) {
+            return allocateRun(normCapacity);
+        } else {
+            return allocateSubpage(normCapacity);
+        }
+    }
+
+    void free(long handle) {
+        int memoryMapIdx = (int) handle;
+        int bitmapIdx = (int) (handle >>> 32);
+
+        if (bitmapIdx != 0) {
+            PoolSubpage subpage = subpages[memoryMapIdx ^ maxSubpageAllocs];
+            PoolSubpage head = arena.findSubpagePoolHead(subpage.elemSize);
+            if (subpage.free(head, bitmapIdx & 0x3FFFFFFF)) {
+                return;
+            }
+        }
+
+        freeBytes += runLength(memoryMapIdx);
+        memoryMap[memoryMapIdx] = depthMap[memoryMapIdx];
+        updateParentsFree(memoryMapIdx);
+    }
+
+    /**
+     * Returns the offset of the memory region denoted by the specified handle.
+     */
+    int offset(long handle) {
+        int memoryMapIdx = (int) handle;
+        int bitmapIdx = (int) (handle >>> 32);
+        if (bitmapIdx == 0) {
+            return runOffset(memoryMapIdx);
+        }
+
+        PoolSubpage subpage = subpages[memoryMapIdx ^ maxSubpageAllocs];
+        return subpage.runOffset + (bitmapIdx & 0x3FFFFFFF) * subpage.elemSize;
+    }
+
+    boolean isUnused() {
+        return freeBytes == chunkSize;
+    }
+
+    private long allocateRun(int normCapacity) {
+        int d = maxOrder - (PoolArena.log2(normCapacity) - pageShifts);
+        int id = allocateNode(d);
+        if (id < 0) {
+            return id;
+        }
+        freeBytes -= runLength(id);
+        return id;
+    }
+
+    private long allocateSubpage(int normCapacity) {
+        int id = allocateNode(maxOrder);
+        if (id < 0) {
+            return id;
+        }
+        freeBytes -= pageSize;
+
+        PoolSubpage head = arena.findSubpagePoolHead(normCapacity);
+        int subpageIdx = id ^ maxSubpageAllocs;
+        PoolSubpage subpage = subpages[subpageIdx];
+        if (subpage == null) {
+            subpage = new PoolSubpage(head, this, id, runOffset(id), pageSize, normCapacity);
+            subpages[subpageIdx] = subpage;
+        } else {
+            subpage.init(head, normCapacity);
+        }
+        return subpage.allocate();
+    }
+
+    private int allocateNode(int d) {
+        if (memoryMap[1] > d) {
+            return -1;
+        }
+
+        // Descend towards depth d, preferring the left child.
+        int id = 1;
+        int initial = -(1 << d);
+        byte val = memoryMap[id];
+        while (val < d || (id & initial) == 0) {
+            id <<= 1;
+            val = memoryMap[id];
+            if (val > d) {
+                id ^= 1;
+                val = memoryMap[id];
+            }
+        }
+
+        memoryMap[id] = unusable;
+        updateParentsAlloc(id);
+        return id;
+    }
+
+    private void updateParentsAlloc(int id) {
+        while (id > 1) {
+            int parentId = id >>> 1;
+            byte val1 = memoryMap[id];
+            byte val2 = memoryMap[id ^ 1];
+            memoryMap[parentId] = val1 < val2 ? val1 : val2;
+            id = parentId;
+        }
+    }
+
+    private void updateParentsFree(int id) {
+        int logChild = depthMap[id] + 1;
+        while (id > 1) {
+            int parentId = id >>> 1;
+            byte val1 = memoryMap[id];
+            byte val2 = memoryMap[id ^ 1];
+            logChild --;
+
+            if (val1 == logChild && val2 == logChild) {
+                // Both buddies are free; merge them.
+                memoryMap[parentId] = (byte) (logChild - 1);
+            } else {
+                memoryMap[parentId] = val1 < val2 ? val1 : val2;
+            }
+            id = parentId;
+        }
+    }
+
+    private int runLength(int id) {
+        return 1 << log2ChunkSize - depthMap[id];
+    }
+
+    private int runOffset(int id) {
+        int shift = id ^ 1 << depthMap[id];
+        return shift * runLength(id);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+/**
+ * A page of a {@link PoolChunk} which is split into the elements of the same
+ * size (slab allocation).  Used for the tiny and small size classes.  All
+ * access must be guarded by the lock of the owning {@link PoolArena}.
+ */
+final class PoolSubpage {
+
+    final PoolChunk chunk;
+    final int memoryMapIdx;
+    final int runOffset;
+    private final int pageSize;
+    private final long[] bitmap;
+
+    PoolSubpage prev;
+    PoolSubpage next;
+
+    boolean doNotDestroy;
+    int elemSize;
+    private int maxNumElems;
+    private int bitmapLength;
+    private int nextAvail;
+    private int numAvail;
+
+    /**
+     * Creates the head of a subpage pool.
+     */
+    PoolSubpage(int pageSize) {
+        chunk = null;
+        memoryMapIdx = -1;
+        runOffset = -1;
+        elemSize = -1;
+        this.pageSize = pageSize;
+        bitmap = null;
+    }
+
+    PoolSubpage(PoolSubpage head, PoolChunk chunk, int memoryMapIdx, int runOffset, int pageSize, int elemSize) {
+        this.chunk = chunk;
+        this.memoryMapIdx = memoryMapIdx;
+        this.runOffset = runOffset;
+        this.pageSize = pageSize;
+        // The smallest element is 16 bytes, and a long holds 64 bits.
+        bitmap = new long[pageSize >>> 10];
+        init(head, elemSize);
+    }
+
+    void init(PoolSubpage head, int elemSize) {
+        doNotDestroy = true;
+        this.elemSize = elemSize;
+        maxNumElems = numAvail = pageSize / elemSize;
+        nextAvail = 0;
+        bitmapLength = maxNumElems >>> 6;
+        if ((maxNumElems & 63) != 0) {
+            bitmapLength ++;
+        }
+
+        for (int i = 0; i < bitmapLength; i ++) {
+            bitmap[i] = 0;
+        }
+
+        addToPool(head);
+    }
+
+    /**
+     * Returns the handle of the allocated element, or {@code -1} if this
+     * subpage is exhausted.
+     */
+    long allocate() {
+        if (numAvail == 0 || !doNotDestroy) {
+            return -1;
+        }
+
+        final int bitmapIdx = nextAvail();
+        bitmap[bitmapIdx >>> 6] |= 1L << (bitmapIdx & 63);
+
+        if (-- numAvail == 0) {
+            removeFromPool();
+        }
+
+        return 0x4000000000000000L | (long) bitmapIdx << 32 | memoryMapIdx;
+    }
+
+    /**
+     * Returns {@code true} if this subpage is still in use, or {@code false}
+     * if it has become empty and the page can be returned to its chunk.
+     */
+    boolean free(PoolSubpage head, int bitmapIdx) {
+        bitmap[bitmapIdx >>> 6] ^= 1L << (bitmapIdx & 63);
+        nextAvail = bitmapIdx;
+
+        if (numAvail ++ == 0) {
+            addToPool(head);
+            return true;
+        }
+
+        if (numAvail != maxNumElems) {
+            return true;
+        }
+
+        if (prev == next) {
+            // Keep the last subpage of this size class around to avoid thrashing.
+            return true;
+        }
+
+        doNotDestroy = false;
+        removeFromPool();
+        return false;
+    }
+
+    private int nextAvail() {
+        int nextAvail = this.nextAvail;
+        if (nextAvail >= 0) {
+            this.nextAvail = -1;
+            return nextAvail;
+        }
+
+        for (int i = 0; i < bitmapLength; i ++) {
+            long bits = bitmap[i];
+            if (~bits != 0) {
+                int bitmapIdx = i << 6 | Long.numberOfTrailingZeros(~bits);
+                if (bitmapIdx < maxNumElems) {
+                    return bitmapIdx;
+                }
+            }
+        }
+
+        throw new IllegalStateException("Should not reach here");
+    }
+
+    private void addToPool(PoolSubpage head) {
+        prev = head;
+        next = head.next;
+        next.prev = this;
+        head.next = this;
+    }
+
+    private void removeFromPool() {
+        prev.next = next;
+        next.prev = prev;
+        next = null;
+        prev = null;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer allocated by {@link PooledChannelBufferFactory}.  Its memory is a
+ * region of a {@link PoolChunk} which is returned to the {@link PoolArena}
+ * it was allocated from when the buffer is {@linkplain #release() released}.
+ */
+final class PooledChannelBuffer extends ByteBufferBackedChannelBuffer {
+
+    private final PooledChannelBufferFactory factory;
+    private final PoolArena arena;
+    private final PoolChunk chunk;
+    private final long handle;
+
+    PooledChannelBuffer(
+            PooledChannelBufferFactory factory, PoolArena arena, PoolChunk chunk, long handle, ByteBuffer memory) {
+        super(memory);
+        this.factory = factory;
+        this.arena = arena;
+        this.chunk = chunk;
+        this.handle = handle;
+        clear();
+    }
+
+    @Override
+    public ChannelBufferFactory factory() {
+        return factory;
+    }
+
+    @Override
+    protected void deallocate() {
+        if (chunk != null) {
+            arena.free(chunk, handle);
+        }
+        // Huge buffers are not pooled; leave them to the garbage collector.
+    }
+}
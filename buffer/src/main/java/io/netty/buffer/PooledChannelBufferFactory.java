@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.ResourceLeak;
+import io.netty.util.ResourceLeakDetector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ChannelBufferFactory} which allocates its buffers from a pool of
+ * heap or direct memory so that the memory of a buffer can be reused once
+ * the buffer is {@linkplain ChannelBuffer#release() released}.
+ * <p>
+ * The pool consists of a fixed number of arenas.  Each thread is bound to
+ * one arena when it allocates a buffer for the first time, so that the event
+ * loop threads rarely contend with each other.  An arena allocates large
+ * chunks of memory ({@code pageSize << maxOrder} bytes, 16 MiB by default)
+ * and splits them into runs of pages with a buddy allocator.  Requests
+ * smaller than a page are served from the pages which are split into the
+ * elements of the same size class (tiny: multiples of 16 bytes up to 496
+ * bytes, small: powers of two from 512 bytes up to half a page).  Requests
+ * larger than a chunk are not pooled.
+ * <p>
+ * A buffer which is not released is simply garbage-collected along with the
+ * chunk it belongs to once the chunk is dropped from the pool, but its
+ * memory is never reused by the pool until then.  To find such leaks, some
+ * of the allocated buffers are tracked by a {@link ResourceLeakDetector}
+ * which logs where a leaked buffer was allocated and accessed lastly.  The
+ * sampling interval is specified with the system property
+ * {@code io.netty.leakDetection.samplingInterval}.
+ */
+public class PooledChannelBufferFactory extends AbstractChannelBufferFactory {
+
+    private static final int DEFAULT_NUM_ARENAS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int DEFAULT_PAGE_SIZE = 8192;
+    private static final int DEFAULT_MAX_ORDER = 11;
+
+    static final ResourceLeakDetector<ChannelBuffer> leakDetector =
+        new ResourceLeakDetector<ChannelBuffer>(ChannelBuffer.class);
+
+    private static final PooledChannelBufferFactory HEAP_INSTANCE_BE =
+        new PooledChannelBufferFactory(false, ByteOrder.BIG_ENDIAN);
+
+    private static final PooledChannelBufferFactory HEAP_INSTANCE_LE =
+        new PooledChannelBufferFactory(HEAP_INSTANCE_BE, ByteOrder.LITTLE_ENDIAN);
+
+    private static final PooledChannelBufferFactory DIRECT_INSTANCE_BE =
+        new PooledChannelBufferFactory(true, ByteOrder.BIG_ENDIAN);
+
+    private static final PooledChannelBufferFactory DIRECT_INSTANCE_LE =
+        new PooledChannelBufferFactory(DIRECT_INSTANCE_BE, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Returns the shared factory of pooled heap buffers whose default
+     * {@link ByteOrder} is {@link ByteOrder#BIG_ENDIAN}.
+     */
+    public static ChannelBufferFactory getInstance() {
+        return HEAP_INSTANCE_BE;
+    }
+
+    /**
+     * Returns the shared factory of pooled heap buffers with the specified
+     * default {@link ByteOrder}.
+     */
+    public static ChannelBufferFactory getInstance(ByteOrder defaultEndianness) {
+        if (defaultEndianness == ByteOrder.BIG_ENDIAN) {
+            return HEAP_INSTANCE_BE;
+        } else if (defaultEndianness == ByteOrder.LITTLE_ENDIAN) {
+            return HEAP_INSTANCE_LE;
+        } else if (defaultEndianness == null) {
+            throw new NullPointerException("defaultEndianness");
+        } else {
+            throw new IllegalStateException("Should not reach here");
+        }
+    }
+
+    /**
+     * Returns the shared factory of pooled direct buffers whose default
+     * {@link ByteOrder} is {@link ByteOrder#BIG_ENDIAN}.
+     */
+    public static ChannelBufferFactory getDirectInstance() {
+        return DIRECT_INSTANCE_BE;
+    }
+
+    /**
+     * Returns the shared factory of pooled direct buffers with the specified
+     * default {@link ByteOrder}.
+     */
+    public static ChannelBufferFactory getDirectInstance(ByteOrder defaultEndianness) {
+        if (defaultEndianness == ByteOrder.BIG_ENDIAN) {
+            return DIRECT_INSTANCE_BE;
+        } else if (defaultEndianness == ByteOrder.LITTLE_ENDIAN) {
+            return DIRECT_INSTANCE_LE;
+        } else if (defaultEndianness == null) {
+            throw new NullPointerException("defaultEndianness");
+        } else {
+            throw new IllegalStateException("Should not reach here");
+        }
+    }
+
+    private final boolean direct;
+    private final PoolArena[] arenas;
+    private final AtomicInteger nextArenaIndex;
+    private final ThreadLocal<PoolArena> threadArena;
+
+    /**
+     * Creates a new factory whose default {@link ByteOrder} is
+     * {@link ByteOrder#BIG_ENDIAN}.
+     *
+     * @param direct {@code true} to pool direct buffers, {@code false} to pool heap buffers
+     */
+    public PooledChannelBufferFactory(boolean direct) {
+        this(direct, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Creates a new factory with the specified default {@link ByteOrder}.
+     *
+     * @param direct {@code true} to pool direct buffers, {@code false} to pool heap buffers
+     * @param defaultOrder the default {@link ByteOrder} of this factory
+     */
+    public PooledChannelBufferFactory(boolean direct, ByteOrder defaultOrder) {
+        this(direct, defaultOrder, DEFAULT_NUM_ARENAS, DEFAULT_PAGE_SIZE, DEFAULT_MAX_ORDER);
+    }
+
+    /**
+     * Creates a new factory with the specified default {@link ByteOrder}.
+     *
+     * @param direct {@code true} to pool direct buffers, {@code false} to pool heap buffers
+     * @param defaultOrder the default {@link ByteOrder} of this factory
+     * @param nArenas the number of the arenas the threads are bound to
+     * @param pageSize the size of a page, which must be a power of two
+     *                 greater than or equal to {@code 4096}
+     * @param maxOrder the depth of the buddy tree of a chunk;
+     *                 a chunk is {@code pageSize << maxOrder} bytes
+     */
+    public PooledChannelBufferFactory(
+            boolean direct, ByteOrder defaultOrder, int nArenas, int pageSize, int maxOrder) {
+        super(defaultOrder);
+        if (nArenas <= 0) {
+            throw new IllegalArgumentException("nArenas: " + nArenas + " (expected: > 0)");
+        }
+        if (pageSize < 4096 || (pageSize & pageSize - 1) != 0) {
+            throw new IllegalArgumentException(
+                    "pageSize: " + pageSize + " (expected: power of 2 and >= 4096)");
+        }
+        if (maxOrder < 0 || maxOrder > 14) {
+            throw new IllegalArgumentException("maxOrder: " + maxOrder + " (expected: 0-14)");
+        }
+        if ((long) pageSize << maxOrder > 1 << 30) {
+            throw new IllegalArgumentException(
+                    "pageSize (" + pageSize + ") << maxOrder (" + maxOrder + ") must not exceed " + (1 << 30));
+        }
+
+        this.direct = direct;
+        arenas = new PoolArena[nArenas];
+        for (int i = 0; i < arenas.length; i ++) {
+            arenas[i] = new PoolArena(direct, pageSize, maxOrder);
+        }
+        nextArenaIndex = new AtomicInteger();
+        threadArena = new ThreadLocal<PoolArena>() {
+            @Override
+            protected PoolArena initialValue() {
+                return arenas[Math.abs(nextArenaIndex.getAndIncrement() % arenas.length)];
+            }
+        };
+    }
+
+    /**
+     * Creates a new factory which shares the pool of the specified factory.
+     */
+    private PooledChannelBufferFactory(PooledChannelBufferFactory parent, ByteOrder defaultOrder) {
+        super(defaultOrder);
+        direct = parent.direct;
+        arenas = parent.arenas;
+        nextArenaIndex = parent.nextArenaIndex;
+        threadArena = parent.threadArena;
+    }
+
+    /**
+     * Returns {@code true} if and only if this factory allocates direct buffers.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteOrder order, int capacity) {
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        if (capacity == 0) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+
+        ChannelBuffer buf = threadArena.get().allocate(this, order, capacity);
+        ResourceLeak leak = leakDetector.open(buf);
+        if (leak != null) {
+            buf = new LeakAwareChannelBuffer(buf, leak);
+        }
+        return buf;
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteOrder order, byte[] array, int offset, int length) {
+        if (array == null) {
+            throw new NullPointerException("array");
+        }
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("offset: " + offset);
+        }
+        if (length == 0) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+        if (offset + length > array.length) {
+            throw new IndexOutOfBoundsException("length: " + length);
+        }
+
+        ChannelBuffer buf = getBuffer(order, length);
+        buf.writeBytes(array, offset, length);
+        return buf;
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteBuffer nioBuffer) {
+        ChannelBuffer buf = getBuffer(nioBuffer.order(), nioBuffer.remaining());
+        int pos = nioBuffer.position();
+        buf.writeBytes(nioBuffer);
+        nioBuffer.position(pos);
+        return buf;
+    }
+
+    /**
+     * Returns the arena the current thread is bound to.
+     */
+    PoolArena threadArena() {
+        return threadArena.get();
+    }
+}
@@ -0,0 +1,988 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.DetectionUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * A dynamic capacity buffer which keeps its content as a queue of component
+ * buffers.  It is meant to be used as an outbound buffer which is filled by
+ * the writer and drained from its head.
+ * <p>
+ * Unlike {@link DynamicChannelBuffer}, this buffer never copies its content
+ * to expand itself.  It appends a new component instead.  Moreover,
+ * {@link #addBuffer(ChannelBuffer)} appends the readable bytes of a buffer
+ * as a component by reference, without copying them at all, and
+ * {@link #getBytes(int, GatheringByteChannel, int)} writes all components
+ * with a single gathering write.  The components which were read completely
+ * are released by {@link #discardReadBytes()}.
+ * <p>
+ * The bytes which were appended by reference must not be overwritten.  Do
+ * not move the {@code writerIndex} backwards past them to write something
+ * else.
+ */
+public class QueueBackedChannelBuffer extends AbstractChannelBuffer {
+
+    private static final int MIN_COMPONENT_CAPACITY = 256;
+    private static final int MAX_COMPONENT_CAPACITY = 65536;
+    private static final int COPY_THRESHOLD = 1024;
+
+    private final ChannelBufferFactory factory;
+    private ChannelBuffer[] components = new ChannelBuffer[4];
+    private int[] indices = new int[components.length + 1];
+    private int componentCount;
+    private int lastAccessedComponentId;
+    // true if the last component was allocated by this buffer and can be written to.
+    private boolean ownsLastComponent;
+
+    public QueueBackedChannelBuffer() {
+        this(ByteOrder.BIG_ENDIAN);
+    }
+
+    public QueueBackedChannelBuffer(ByteOrder endianness) {
+        this(HeapChannelBufferFactory.getInstance(endianness));
+    }
+
+    /**
+     * Creates a new buffer whose writable components are allocated by the
+     * specified factory.  The byte order of this buffer is the default byte
+     * order of the factory.
+     */
+    public QueueBackedChannelBuffer(ChannelBufferFactory factory) {
+        if (factory == null) {
+            throw new NullPointerException("factory");
+        }
+        this.factory = factory;
+    }
+
+    /**
+     * Appends the readable bytes of the specified buffer to this buffer and
+     * increases the {@code writerIndex} by the number of the appended bytes.
+     * The indexes of the specified buffer are not modified.
+     * <p>
+     * This buffer takes the ownership of the specified buffer.  The content
+     * of the specified buffer is appended by reference and the buffer is
+     * released once its bytes are discarded, so the caller must not modify
+     * the specified buffer after calling this method.  A small buffer is
+     * copied and released immediately because it is cheaper than adding a
+     * new component.
+     */
+    public void addBuffer(ChannelBuffer buffer) {
+        if (buffer == null) {
+            throw new NullPointerException("buffer");
+        }
+
+        int length = buffer.readableBytes();
+        if (length < COPY_THRESHOLD || buffer.order() != order()) {
+            writeBytes(buffer, buffer.readerIndex(), length);
+            buffer.release();
+            return;
+        }
+
+        if (capacity() + length < 0) {
+            throw new IllegalStateException("buffer capacity over 2GiB");
+        }
+
+        trim();
+        addComponent(buffer.slice(buffer.readerIndex(), length));
+        ownsLastComponent = false;
+        writerIndex(capacity());
+    }
+
+    /**
+     * Returns the number of the components this buffer consists of.
+     */
+    public int numComponents() {
+        return componentCount;
+    }
+
+    /**
+     * Removes the readable bytes from this buffer and returns them as a new
+     * buffer which takes over the components by reference, without copying.
+     * This buffer becomes empty and allocates a new component on the next
+     * write, so the caller can hand the returned buffer to another thread
+     * and keep writing to this buffer.
+     */
+    public QueueBackedChannelBuffer detachReadableBytes() {
+        QueueBackedChannelBuffer detached = new QueueBackedChannelBuffer(factory);
+        if (!readable()) {
+            clear();
+            return detached;
+        }
+
+        // Drop the writable bytes at the tail and the bytes which were read already.
+        trim();
+        discardReadBytes();
+
+        detached.components = components;
+        detached.indices = indices;
+        detached.componentCount = componentCount;
+        detached.writerIndex(detached.capacity());
+
+        components = new ChannelBuffer[4];
+        indices = new int[components.length + 1];
+        componentCount = 0;
+        lastAccessedComponentId = 0;
+        ownsLastComponent = false;
+        setIndex(0, 0);
+        markReaderIndex();
+        markWriterIndex();
+        return detached;
+    }
+
+    @Override
+    public void ensureWritableBytes(int minWritableBytes) {
+        if (minWritableBytes <= writableBytes()) {
+            return;
+        }
+
+        trim();
+        int newComponentCapacity = Math.max(
+                minWritableBytes,
+                Math.min(Math.max(capacity(), MIN_COMPONENT_CAPACITY), MAX_COMPONENT_CAPACITY));
+        if (capacity() + newComponentCapacity < 0) {
+            throw new IllegalStateException("buffer capacity over 2GiB");
+        }
+
+        addComponent(factory.getBuffer(order(), newComponentCapacity));
+        ownsLastComponent = true;
+    }
+
+    /**
+     * Removes the writable bytes at the tail so that the capacity of this
+     * buffer becomes equal to its {@code writerIndex}.
+     */
+    private void trim() {
+        int writerIndex = writerIndex();
+        if (writerIndex == capacity()) {
+            return;
+        }
+
+        int lastComponentId = componentCount - 1;
+        while (lastComponentId >= 0 && indices[lastComponentId] >= writerIndex) {
+            components[lastComponentId].release();
+            components[lastComponentId] = null;
+            lastComponentId --;
+        }
+        componentCount = lastComponentId + 1;
+
+        if (lastComponentId >= 0) {
+            components[lastComponentId] = components[lastComponentId].slice(
+                    0, writerIndex - indices[lastComponentId]);
+            indices[componentCount] = writerIndex;
+        }
+
+        lastAccessedComponentId = 0;
+        ownsLastComponent = false;
+    }
+
+    private void addComponent(ChannelBuffer c) {
+        if (componentCount == components.length) {
+            ChannelBuffer[] newComponents = new ChannelBuffer[componentCount << 1];
+            int[] newIndices = new int[newComponents.length + 1];
+            System.arraycopy(components, 0, newComponents, 0, componentCount);
+            System.arraycopy(indices, 0, newIndices, 0, componentCount + 1);
+            components = newComponents;
+            indices = newIndices;
+        }
+
+        components[componentCount] = c;
+        indices[componentCount + 1] = indices[componentCount] + c.capacity();
+        componentCount ++;
+    }
+
+    @Override
+    public void clear() {
+        // Keep the last component only if it is writable so that it is
+        // reused by the next write.
+        int lastComponentId = componentCount - 1;
+        if (lastComponentId >= 0 && ownsLastComponent) {
+            ChannelBuffer last = components[lastComponentId];
+            for (int i = 0; i < lastComponentId; i ++) {
+                components[i].release();
+                components[i] = null;
+            }
+            components[lastComponentId] = null;
+            components[0] = last;
+            indices[1] = last.capacity();
+            componentCount = 1;
+        } else {
+            releaseComponents();
+        }
+
+        lastAccessedComponentId = 0;
+        setIndex(0, 0);
+        markReaderIndex();
+        markWriterIndex();
+    }
+
+    @Override
+    public void discardReadBytes() {
+        final int localReaderIndex = readerIndex();
+        if (localReaderIndex == 0) {
+            return;
+        }
+
+        final int localWriterIndex = writerIndex();
+        if (localReaderIndex == localWriterIndex) {
+            clear();
+            return;
+        }
+
+        // Release the components which were read completely.
+        int firstComponentId = componentId(localReaderIndex);
+        for (int i = 0; i < firstComponentId; i ++) {
+            components[i].release();
+        }
+        System.arraycopy(components, firstComponentId, components, 0, componentCount - firstComponentId);
+        for (int i = componentCount - firstComponentId; i < componentCount; i ++) {
+            components[i] = null;
+        }
+        componentCount -= firstComponentId;
+
+        // Slice the first component if it was read partially.
+        int adjustment = localReaderIndex - indices[firstComponentId];
+        if (adjustment != 0) {
+            ChannelBuffer first = components[0];
+            components[0] = first.slice(adjustment, first.capacity() - adjustment);
+        }
+
+        // Rebuild the component lookup table.
+        for (int i = 1; i <= componentCount; i ++) {
+            indices[i] = indices[i - 1] + components[i - 1].capacity();
+        }
+        lastAccessedComponentId = 0;
+
+        // Reset the index markers to get the index marker values.
+        int localMarkedReaderIndex = localReaderIndex;
+        try {
+            resetReaderIndex();
+            localMarkedReaderIndex = readerIndex();
+        } catch (IndexOutOfBoundsException e) {
+            // ignore
+        }
+        int localMarkedWriterIndex = localWriterIndex;
+        try {
+            resetWriterIndex();
+            localMarkedWriterIndex = writerIndex();
+        } catch (IndexOutOfBoundsException e) {
+            // ignore
+        }
+
+        setIndex(
+                Math.max(localMarkedReaderIndex - localReaderIndex, 0),
+                Math.max(localMarkedWriterIndex - localReaderIndex, 0));
+        markReaderIndex();
+        markWriterIndex();
+        setIndex(0, localWriterIndex - localReaderIndex);
+    }
+
+    @Override
+    protected void deallocate() {
+        releaseComponents();
+    }
+
+    private void releaseComponents() {
+        for (int i = 0; i < componentCount; i ++) {
+            components[i].release();
+            components[i] = null;
+        }
+        componentCount = 0;
+        indices[0] = 0;
+        ownsLastComponent = false;
+    }
+
+    @Override
+    public ChannelBufferFactory factory() {
+        return factory;
+    }
+
+    @Override
+    public ByteOrder order() {
+        return factory.getDefaultOrder();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return false;
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int arrayOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int capacity() {
+        return indices[componentCount];
+    }
+
+    @Override
+    public byte getByte(int index) {
+        int componentId = componentId(index);
+        return components[componentId].getByte(index - indices[componentId]);
+    }
+
+    @Override
+    public short getShort(int index) {
+        int componentId = componentId(index);
+        if (index + 2 <= indices[componentId + 1]) {
+            return components[componentId].getShort(index - indices[componentId]);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            return (short) ((getByte(index) & 0xff) << 8 | getByte(index + 1) & 0xff);
+        } else {
+            return (short) (getByte(index) & 0xff | (getByte(index + 1) & 0xff) << 8);
+        }
+    }
+
+    @Override
+    public int getUnsignedMedium(int index) {
+        int componentId = componentId(index);
+        if (index + 3 <= indices[componentId + 1]) {
+            return components[componentId].getUnsignedMedium(index - indices[componentId]);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            return (getShort(index) & 0xffff) << 8 | getByte(index + 2) & 0xff;
+        } else {
+            return getShort(index) & 0xFFFF | (getByte(index + 2) & 0xFF) << 16;
+        }
+    }
+
+    @Override
+    public int getInt(int index) {
+        int componentId = componentId(index);
+        if (index + 4 <= indices[componentId + 1]) {
+            return components[componentId].getInt(index - indices[componentId]);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            return (getShort(index) & 0xffff) << 16 | getShort(index + 2) & 0xffff;
+        } else {
+            return getShort(index) & 0xFFFF | (getShort(index + 2) & 0xFFFF) << 16;
+        }
+    }
+
+    @Override
+    public long getLong(int index) {
+        int componentId = componentId(index);
+        if (index + 8 <= indices[componentId + 1]) {
+            return components[componentId].getLong(index - indices[componentId]);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            return (getInt(index) & 0xffffffffL) << 32 | getInt(index + 4) & 0xffffffffL;
+        } else {
+            return getInt(index) & 0xFFFFFFFFL | (getInt(index + 4) & 0xFFFFFFFFL) << 32;
+        }
+    }
+
+    @Override
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        if (index < 0 || index > capacity() - length || dstIndex > dst.length - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to read - Needs "
+                    + (index + length) + ", maximum is " + capacity() + " or "
+                    + dst.length);
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        while (length > 0) {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            s.getBytes(index - adjustment, dst, dstIndex, localLength);
+            index += localLength;
+            dstIndex += localLength;
+            length -= localLength;
+            i ++;
+        }
+    }
+
+    @Override
+    public void getBytes(int index, ByteBuffer dst) {
+        int limit = dst.limit();
+        int length = dst.remaining();
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be read - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        try {
+            while (length > 0) {
+                ChannelBuffer s = components[i];
+                int adjustment = indices[i];
+                int localLength = Math.min(length, s.capacity() - (index - adjustment));
+                dst.limit(dst.position() + localLength);
+                s.getBytes(index - adjustment, dst);
+                index += localLength;
+                length -= localLength;
+                i ++;
+            }
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        if (index < 0 || index > capacity() - length || dstIndex > dst.capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be read - Needs "
+                    + (index + length) + " or " + (dstIndex + length) + ", maximum is "
+                    + capacity() + " or " + dst.capacity());
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        while (length > 0) {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            s.getBytes(index - adjustment, dst, dstIndex, localLength);
+            index += localLength;
+            dstIndex += localLength;
+            length -= localLength;
+            i ++;
+        }
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length)
+            throws IOException {
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be read - needs "
+                    + (index + length) + ", maximum of " + capacity());
+        }
+        if (length == 0) {
+            return 0;
+        }
+
+        if (DetectionUtil.javaVersion() < 7) {
+            // XXX Gathering write is not supported because of a known issue.
+            //     See http://bugs.sun.com/view_bug.do?bug_id=6210541
+            return out.write(copiedNioBuffer(index, length));
+        } else {
+            long writtenBytes = out.write(nioBuffers(index, length));
+            if (writtenBytes > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            } else {
+                return (int) writtenBytes;
+            }
+        }
+    }
+
+    @Override
+    public void getBytes(int index, OutputStream out, int length)
+            throws IOException {
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be read - needs "
+                    + (index + length) + ", maximum of " + capacity());
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        while (length > 0) {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            s.getBytes(index - adjustment, out, localLength);
+            index += localLength;
+            length -= localLength;
+            i ++;
+        }
+    }
+
+    @Override
+    public void setByte(int index, int value) {
+        int componentId = componentId(index);
+        components[componentId].setByte(index - indices[componentId], value);
+    }
+
+    @Override
+    public void setShort(int index, int value) {
+        int componentId = componentId(index);
+        if (index + 2 <= indices[componentId + 1]) {
+            components[componentId].setShort(index - indices[componentId], value);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            setByte(index, (byte) (value >>> 8));
+            setByte(index + 1, (byte) value);
+        } else {
+            setByte(index    , (byte) value);
+            setByte(index + 1, (byte) (value >>> 8));
+        }
+    }
+
+    @Override
+    public void setMedium(int index, int value) {
+        int componentId = componentId(index);
+        if (index + 3 <= indices[componentId + 1]) {
+            components[componentId].setMedium(index - indices[componentId], value);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            setShort(index, (short) (value >> 8));
+            setByte(index + 2, (byte) value);
+        } else {
+            setShort(index    , (short) value);
+            setByte(index + 2, (byte) (value >>> 16));
+        }
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        int componentId = componentId(index);
+        if (index + 4 <= indices[componentId + 1]) {
+            components[componentId].setInt(index - indices[componentId], value);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            setShort(index, (short) (value >>> 16));
+            setShort(index + 2, (short) value);
+        } else {
+            setShort(index    , (short) value);
+            setShort(index + 2, (short) (value >>> 16));
+        }
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        int componentId = componentId(index);
+        if (index + 8 <= indices[componentId + 1]) {
+            components[componentId].setLong(index - indices[componentId], value);
+        } else if (order() == ByteOrder.BIG_ENDIAN) {
+            setInt(index, (int) (value >>> 32));
+            setInt(index + 4, (int) value);
+        } else {
+            setInt(index    , (int) value);
+            setInt(index + 4, (int) (value >>> 32));
+        }
+    }
+
+    @Override
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        if (index < 0 || index > capacity() - length || srcIndex > src.length - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to read - needs "
+                    + (index + length) + " or " + (srcIndex + length) + ", maximum is "
+                    + capacity() + " or " + src.length);
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        while (length > 0) {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            s.setBytes(index - adjustment, src, srcIndex, localLength);
+            index += localLength;
+            srcIndex += localLength;
+            length -= localLength;
+            i ++;
+        }
+    }
+
+    @Override
+    public void setBytes(int index, ByteBuffer src) {
+        int limit = src.limit();
+        int length = src.remaining();
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be written - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        try {
+            while (length > 0) {
+                ChannelBuffer s = components[i];
+                int adjustment = indices[i];
+                int localLength = Math.min(length, s.capacity() - (index - adjustment));
+                src.limit(src.position() + localLength);
+                s.setBytes(index - adjustment, src);
+                index += localLength;
+                length -= localLength;
+                i ++;
+            }
+        } finally {
+            src.limit(limit);
+        }
+    }
+
+    @Override
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        if (index < 0 || index > capacity() - length || srcIndex > src.capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to be written - Needs "
+                    + (index + length) + " or " + (srcIndex + length) + ", maximum is "
+                    + capacity() + " or " + src.capacity());
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int i = componentId(index);
+        while (length > 0) {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            s.setBytes(index - adjustment, src, srcIndex, localLength);
+            index += localLength;
+            srcIndex += localLength;
+            length -= localLength;
+            i ++;
+        }
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length)
+            throws IOException {
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to write - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (index == capacity()) {
+            return 0;
+        }
+
+        int i = componentId(index);
+        int readBytes = 0;
+        do {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            int localReadBytes = s.setBytes(index - adjustment, in, localLength);
+            if (localReadBytes < 0) {
+                if (readBytes == 0) {
+                    return -1;
+                } else {
+                    break;
+                }
+            }
+
+            index += localReadBytes;
+            length -= localReadBytes;
+            readBytes += localReadBytes;
+            if (localReadBytes == localLength) {
+                i ++;
+            }
+        } while (length > 0);
+
+        return readBytes;
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length)
+            throws IOException {
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to write - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (index == capacity()) {
+            return 0;
+        }
+
+        int i = componentId(index);
+        int readBytes = 0;
+        do {
+            ChannelBuffer s = components[i];
+            int adjustment = indices[i];
+            int localLength = Math.min(length, s.capacity() - (index - adjustment));
+            int localReadBytes = s.setBytes(index - adjustment, in, localLength);
+            if (localReadBytes < 0) {
+                if (readBytes == 0) {
+                    return -1;
+                } else {
+                    break;
+                }
+            }
+
+            index += localReadBytes;
+            length -= localReadBytes;
+            readBytes += localReadBytes;
+            if (localReadBytes == localLength) {
+                i ++;
+            } else {
+                break;
+            }
+        } while (length > 0);
+
+        return readBytes;
+    }
+
+    @Override
+    public void writeByte(int value) {
+        ensureWritableBytes(1);
+        super.writeByte(value);
+    }
+
+    @Override
+    public void writeShort(int value) {
+        ensureWritableBytes(2);
+        super.writeShort(value);
+    }
+
+    @Override
+    public void writeMedium(int value) {
+        ensureWritableBytes(3);
+        super.writeMedium(value);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        ensureWritableBytes(4);
+        super.writeInt(value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        ensureWritableBytes(8);
+        super.writeLong(value);
+    }
+
+    @Override
+    public void writeBytes(byte[] src, int srcIndex, int length) {
+        ensureWritableBytes(length);
+        super.writeBytes(src, srcIndex, length);
+    }
+
+    @Override
+    public void writeBytes(ChannelBuffer src, int srcIndex, int length) {
+        ensureWritableBytes(length);
+        super.writeBytes(src, srcIndex, length);
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer src) {
+        ensureWritableBytes(src.remaining());
+        super.writeBytes(src);
+    }
+
+    @Override
+    public int writeBytes(InputStream in, int length) throws IOException {
+        ensureWritableBytes(length);
+        return super.writeBytes(in, length);
+    }
+
+    @Override
+    public int writeBytes(ScatteringByteChannel in, int length)
+            throws IOException {
+        ensureWritableBytes(length);
+        return super.writeBytes(in, length);
+    }
+
+    @Override
+    public void writeZero(int length) {
+        ensureWritableBytes(length);
+        super.writeZero(length);
+    }
+
+    @Override
+    public ChannelBuffer duplicate() {
+        return new DuplicatedChannelBuffer(this);
+    }
+
+    @Override
+    public ChannelBuffer copy(int index, int length) {
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to copy - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+
+        ChannelBuffer dst = factory().getBuffer(order(), length);
+        getBytes(index, dst, 0, length);
+        dst.writerIndex(length);
+        return dst;
+    }
+
+    @Override
+    public ChannelBuffer slice(int index, int length) {
+        if (index == 0) {
+            if (length == 0) {
+                return ChannelBuffers.EMPTY_BUFFER;
+            }
+            return new TruncatedChannelBuffer(this, length);
+        } else {
+            if (length == 0) {
+                return ChannelBuffers.EMPTY_BUFFER;
+            }
+            return new SlicedChannelBuffer(this, index, length);
+        }
+    }
+
+    /**
+     * Returns {@code true} if and only if the readable bytes of this buffer
+     * fall inside a single component which has an NIO buffer.
+     *
+     * @see #nioBuffer(int, int)
+     */
+    @Override
+    public boolean hasNioBuffer() {
+        return hasNioBuffer(readerIndex(), readableBytes());
+    }
+
+    private boolean hasNioBuffer(int index, int length) {
+        if (length == 0) {
+            return true;
+        }
+
+        int componentId = componentId(index);
+        return index + length <= indices[componentId + 1] && components[componentId].hasNioBuffer();
+    }
+
+    /**
+     * Exposes the specified region as an NIO buffer if the region falls
+     * inside a single component.  The writable bytes at the tail always do,
+     * because {@link #ensureWritableBytes(int)} allocates them as one new
+     * component, so an NIO buffer can be written into this buffer in place.
+     *
+     * @throws UnsupportedOperationException
+     *         if the specified region spans more than one component or the
+     *         component has no NIO buffer
+     */
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        if (length < 0 || index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to convert - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (length == 0) {
+            return ByteBuffer.allocate(0).order(order());
+        }
+        if (!hasNioBuffer(index, length)) {
+            throw new UnsupportedOperationException(
+                    "no single NIO buffer for the region: " + index + ", " + length);
+        }
+
+        int componentId = componentId(index);
+        return components[componentId].nioBuffer(index - indices[componentId], length);
+    }
+
+    private ByteBuffer copiedNioBuffer(int index, int length) {
+        ByteBuffer[] buffers = nioBuffers(index, length);
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+
+        ByteBuffer merged = ByteBuffer.allocate(length).order(order());
+        for (ByteBuffer b: buffers) {
+            merged.put(b);
+        }
+        merged.flip();
+        return merged;
+    }
+
+    private ByteBuffer[] nioBuffers(int index, int length) {
+        return nioBuffers(index, length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Converts the specified region of this buffer into an array of NIO
+     * buffers, one per component, so that they are written with a single
+     * {@link GatheringByteChannel#write(ByteBuffer[])}.  At most
+     * {@code maxCount} NIO buffers are returned, so the returned buffers may
+     * cover only the beginning of the specified region.  The returned buffers
+     * share the content of this buffer.
+     */
+    public ByteBuffer[] nioBuffers(int index, int length, int maxCount) {
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("maxCount: " + maxCount + " (expected: > 0)");
+        }
+        if (index < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException("Too many bytes to convert - Needs "
+                    + (index + length) + ", maximum is " + capacity());
+        }
+        if (length == 0) {
+            return new ByteBuffer[0];
+        }
+
+        int componentId = componentId(index);
+        int lastComponentId = componentId(index + length - 1);
+        ByteBuffer[] buffers = new ByteBuffer[Math.min(lastComponentId - componentId + 1, maxCount)];
+
+        for (int i = 0; i < buffers.length; i ++) {
+            ChannelBuffer c = components[componentId + i];
+            int adjustment = indices[componentId + i];
+            int localLength = Math.min(length, c.capacity() - (index - adjustment));
+            buffers[i] = toNioBuffer(c, index - adjustment, localLength);
+            index += localLength;
+            length -= localLength;
+        }
+
+        return buffers;
+    }
+
+    private static ByteBuffer toNioBuffer(ChannelBuffer buf, int index, int length) {
+        if (buf.hasNioBuffer()) {
+            return buf.nioBuffer(index, length);
+        } else {
+            return buf.copy(index, length).nioBuffer(0, length);
+        }
+    }
+
+    private int componentId(int index) {
+        int lastComponentId = lastAccessedComponentId;
+        if (lastComponentId < componentCount &&
+            index >= indices[lastComponentId] && index < indices[lastComponentId + 1]) {
+            return lastComponentId;
+        }
+
+        if (index < 0 || index >= capacity()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index + ", maximum: " + capacity());
+        }
+
+        // Binary search because the number of the components can grow large.
+        int low = 0;
+        int high = componentCount - 1;
+        for (;;) {
+            int mid = low + high >>> 1;
+            if (index < indices[mid]) {
+                high = mid - 1;
+            } else if (index >= indices[mid + 1]) {
+                low = mid + 1;
+            } else {
+                lastAccessedComponentId = mid;
+                return mid;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        String result = super.toString();
+        result = result.substring(0, result.length() - 1);
+        return result + ", components=" + componentCount + ")";
+    }
+}
@@ -58,6 +58,22 @@ public class SlicedChannelBuffer extends AbstractChannelBuffer implements Wrappe
         return buffer;
     }
 
+    @Override
+    public int refCnt() {
+        return buffer.refCnt();
+    }
+
+    @Override
+    public ChannelBuffer retain(int increment) {
+        buffer.retain(increment);
+        return this;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return buffer.release(decrement);
+    }
+
     @Override
     public ChannelBufferFactory factory() {
         return buffer.factory();
@@ -1615,4 +1615,24 @@ public abstract class AbstractChannelBufferTest {
         buffer.readerIndex(buffer.writerIndex());
         buffer.discardReadBytes();
     }
+
+    @Test
+    public void testDerivedBuffersShareReferenceCount() {
+        ChannelBuffer slice = buffer.slice(1, 10);
+        ChannelBuffer duplicate = buffer.duplicate();
+        assertEquals(1, buffer.refCnt());
+        assertEquals(1, slice.refCnt());
+        assertEquals(1, duplicate.refCnt());
+
+        assertSame(buffer, buffer.retain());
+        assertEquals(2, slice.refCnt());
+        assertEquals(2, duplicate.refCnt());
+
+        assertSame(slice, slice.retain(2));
+        assertEquals(4, buffer.refCnt());
+
+        assertFalse(duplicate.release(2));
+        assertFalse(slice.release());
+        assertEquals(1, buffer.refCnt());
+    }
 }
@@ -336,4 +336,16 @@ public abstract class AbstractCompositeChannelBufferTest extends
                 wrappedBuffer(order, new byte[] { 0, 1, 2, 3, 4, 6, 7, 8, 5, 9, 10, 11 }, 6, 5));
         assertFalse(ChannelBuffers.equals(a, b));
     }
+
+    @Test
+    public void testSlicesOfSameBufferReleasedOnce() {
+        ChannelBuffer a = wrappedBuffer(order, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        ChannelBuffer b = wrappedBuffer(order, new byte[] { 11, 12 });
+        ChannelBuffer composite = wrappedBuffer(a.slice(0, 4), b, a.slice(4, 6), a.duplicate());
+        assertEquals(22, composite.readableBytes());
+
+        assertTrue(composite.release());
+        assertEquals(0, a.refCnt());
+        assertEquals(0, b.refCnt());
+    }
 }
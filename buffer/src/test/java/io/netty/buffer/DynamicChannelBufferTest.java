@@ -65,4 +65,23 @@ public class DynamicChannelBufferTest extends AbstractChannelBufferTest {
         buf.writerIndex(10);
         buf.readerIndex(10);
     }
+
+    @Test
+    public void shouldTrimOnlyWhenEmpty() {
+        DynamicChannelBuffer buf = new DynamicChannelBuffer(ByteOrder.BIG_ENDIAN, 16);
+        buf.writeZero(4096);
+        assertTrue(buf.capacity() >= 4096);
+        assertFalse(buf.trim(64));
+
+        buf.skipBytes(4096);
+        assertTrue(buf.trim(64));
+        assertEquals(64, buf.capacity());
+        assertEquals(0, buf.readerIndex());
+        assertEquals(0, buf.writerIndex());
+        assertFalse(buf.trim(64));
+        assertFalse(buf.trim(1024));
+
+        buf.writeInt(42);
+        assertEquals(42, buf.readInt());
+    }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import static org.junit.Assert.*;
+import io.netty.util.ResourceLeakDetector;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests pooled channel buffers
+ */
+public class PooledChannelBufferTest extends AbstractChannelBufferTest {
+
+    private ChannelBuffer buffer;
+
+    @Override
+    protected ChannelBuffer newBuffer(int length) {
+        buffer = PooledChannelBufferFactory.getDirectInstance(ByteOrder.LITTLE_ENDIAN).getBuffer(length);
+        assertSame(ByteOrder.LITTLE_ENDIAN, buffer.order());
+        assertEquals(0, buffer.writerIndex());
+        assertEquals(length, buffer.capacity());
+        return buffer;
+    }
+
+    @Override
+    protected ChannelBuffer[] components() {
+        return new ChannelBuffer[] { buffer };
+    }
+
+    @Test
+    public void testFactory() {
+        ChannelBufferFactory factory = PooledChannelBufferFactory.getInstance();
+        ChannelBuffer buf = factory.getBuffer(100);
+        assertFalse(buf.isDirect());
+        assertSame(factory, buf.factory());
+        assertSame(factory, buf.slice(1, 10).factory());
+        assertSame(factory, buf.duplicate().factory());
+        assertTrue(buf.release());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleRelease() {
+        ChannelBuffer buf = new PooledChannelBufferFactory(false).getBuffer(100);
+        assertTrue(buf.release());
+        buf.release();
+    }
+
+    @Test
+    public void testMemoryIsReused() {
+        PooledChannelBufferFactory factory = new PooledChannelBufferFactory(false, ByteOrder.BIG_ENDIAN, 1, 8192, 4);
+        int[] capacities = { 1, 16, 100, 496, 512, 1000, 4096, 8192, 10000, 65536 };
+        for (int capacity: capacities) {
+            ChannelBuffer a = factory.getBuffer(capacity);
+            int offset = a.arrayOffset();
+            assertTrue(a.release());
+
+            ChannelBuffer b = factory.getBuffer(capacity);
+            assertSame(a.array(), b.array());
+            assertEquals(offset, b.arrayOffset());
+            assertTrue(b.release());
+        }
+        assertEquals(1, factory.threadArena().numChunks());
+    }
+
+    @Test
+    public void testNoOverlap() {
+        PooledChannelBufferFactory factory = new PooledChannelBufferFactory(false, ByteOrder.BIG_ENDIAN, 1, 8192, 4);
+        allocateAndRelease(factory);
+        int numChunks = factory.threadArena().numChunks();
+
+        // The second round must be served from the chunks allocated by the first round.
+        allocateAndRelease(factory);
+        assertEquals(numChunks, factory.threadArena().numChunks());
+    }
+
+    private static void allocateAndRelease(ChannelBufferFactory factory) {
+        int[] capacities = { 16, 48, 500, 700, 3000, 8192, 20000 };
+        List<ChannelBuffer> buffers = new ArrayList<ChannelBuffer>();
+        for (int i = 0; i < 200; i ++) {
+            ChannelBuffer buf = factory.getBuffer(capacities[i % capacities.length]);
+            buf.writerIndex(buf.capacity());
+            for (int j = 0; j < buf.capacity(); j ++) {
+                buf.setByte(j, i);
+            }
+            buffers.add(buf);
+        }
+
+        for (int i = 0; i < buffers.size(); i ++) {
+            ChannelBuffer buf = buffers.get(i);
+            for (int j = 0; j < buf.capacity(); j ++) {
+                assertEquals((byte) i, buf.getByte(j));
+            }
+            assertTrue(buf.release());
+        }
+    }
+
+    @Test
+    public void testHugeBuffer() {
+        PooledChannelBufferFactory factory = new PooledChannelBufferFactory(true, ByteOrder.BIG_ENDIAN, 1, 4096, 0);
+        ChannelBuffer buf = factory.getBuffer(4097);
+        assertTrue(buf.isDirect());
+        assertEquals(4097, buf.capacity());
+        assertTrue(buf.release());
+        assertEquals(0, factory.threadArena().numChunks());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        final AtomicInteger leaks = new AtomicInteger();
+        ResourceLeakDetector<ChannelBuffer> detector = new ResourceLeakDetector<ChannelBuffer>(ChannelBuffer.class) {
+            @Override
+            protected void reportLeak(String resourceType, String records) {
+                assertTrue(records.contains("allocateLeakAwareBuffer"));
+                leaks.incrementAndGet();
+            }
+        };
+        detector.samplingInterval(1);
+        PooledChannelBufferFactory factory = new PooledChannelBufferFactory(false);
+
+        // A released buffer must not be reported.
+        ChannelBuffer buf = allocateLeakAwareBuffer(factory, detector);
+        buf.writeBytes(new byte[16]);
+        assertTrue(buf.release());
+        buf = null;
+        for (int i = 0; i < 10; i ++) {
+            System.gc();
+            Thread.sleep(10);
+            allocateLeakAwareBuffer(factory, detector).release();
+        }
+        assertEquals(0, leaks.get());
+
+        // A buffer garbage-collected without being released must be reported.
+        for (int i = 0; i < 100 && leaks.get() == 0; i ++) {
+            allocateLeakAwareBuffer(factory, detector);
+            System.gc();
+            Thread.sleep(10);
+            allocateLeakAwareBuffer(factory, detector).release();
+        }
+        assertTrue(leaks.get() > 0);
+    }
+
+    private static ChannelBuffer allocateLeakAwareBuffer(
+            ChannelBufferFactory factory, ResourceLeakDetector<ChannelBuffer> detector) {
+        ChannelBuffer buf = factory.getBuffer(16);
+        return new LeakAwareChannelBuffer(buf, detector.open(buf));
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests queue-backed channel buffers
+ */
+public class QueueBackedChannelBufferTest extends AbstractChannelBufferTest {
+
+    private QueueBackedChannelBuffer buffer;
+    private List<ChannelBuffer> components;
+
+    @Override
+    protected ChannelBuffer newBuffer(int length) {
+        buffer = new QueueBackedChannelBuffer();
+        components = new ArrayList<ChannelBuffer>();
+        for (int i = 0; i < 4; i ++) {
+            ChannelBuffer c = ChannelBuffers.buffer(length / 4);
+            c.writerIndex(c.capacity());
+            components.add(c);
+            buffer.addBuffer(c);
+        }
+        buffer.writerIndex(0);
+
+        assertEquals(4, buffer.numComponents());
+        assertEquals(0, buffer.readerIndex());
+        assertEquals(length, buffer.capacity());
+        return buffer;
+    }
+
+    @Override
+    protected ChannelBuffer[] components() {
+        return components.toArray(new ChannelBuffer[components.size()]);
+    }
+
+    @Override
+    protected boolean discardReadBytesDoesNotMoveWritableBytes() {
+        return false;
+    }
+
+    @Override
+    @Test
+    public void testStreamTransfer2() throws Exception {
+        // clear() releases the components added by reference, so replace
+        // them with a writable component which is kept by clear().
+        int capacity = buffer.capacity();
+        buffer.clear();
+        assertEquals(0, buffer.capacity());
+        buffer.ensureWritableBytes(capacity);
+        assertEquals(capacity, buffer.capacity());
+        super.testStreamTransfer2();
+    }
+
+    @Test
+    public void testAddBufferByReference() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        buf.writeBytes(new byte[] { 1, 2, 3 });
+
+        ChannelBuffer a = ChannelBuffers.buffer(2048);
+        a.writeZero(2048);
+        a.readerIndex(1024);
+        buf.addBuffer(a);
+
+        // The readable bytes of the added buffer are not copied.
+        assertEquals(2, buf.numComponents());
+        assertEquals(1024, a.readerIndex());
+        assertEquals(3 + 1024, buf.writerIndex());
+        assertEquals(buf.writerIndex(), buf.capacity());
+        a.setByte(1024, 42);
+        assertEquals(42, buf.getByte(3));
+
+        // The bytes written after the added buffer go to a new component.
+        buf.writeByte(4);
+        assertEquals(3, buf.numComponents());
+        assertEquals(4, buf.getByte(3 + 1024));
+        assertEquals(0, a.getByte(0));
+    }
+
+    @Test
+    public void testSmallBufferIsCopied() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        ChannelBuffer a = ChannelBuffers.wrappedBuffer(new byte[] { 1, 2, 3 });
+        buf.addBuffer(a);
+        assertEquals(1, buf.numComponents());
+        assertEquals(0, a.refCnt());
+
+        a = ChannelBuffers.wrappedBuffer(new byte[] { 4, 5 });
+        buf.addBuffer(a);
+        assertEquals(1, buf.numComponents());
+        assertEquals(ChannelBuffers.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5 }), buf);
+    }
+
+    @Test
+    public void testDiscardReadBytesReleasesComponents() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        ChannelBuffer a = ChannelBuffers.buffer(1024);
+        a.writeZero(1024);
+        ChannelBuffer b = ChannelBuffers.buffer(1024);
+        b.writeZero(1024);
+        buf.addBuffer(a);
+        buf.addBuffer(b);
+
+        buf.readerIndex(1025);
+        buf.discardReadBytes();
+        assertEquals(0, a.refCnt());
+        assertEquals(1, b.refCnt());
+        assertEquals(1, buf.numComponents());
+        assertEquals(1023, buf.readableBytes());
+
+        buf.skipBytes(1023);
+        buf.discardReadBytes();
+        assertEquals(0, b.refCnt());
+        assertEquals(0, buf.numComponents());
+        assertEquals(0, buf.capacity());
+    }
+
+    @Test
+    public void testClearKeepsWritableComponent() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        buf.writeInt(42);
+        int capacity = buf.capacity();
+        buf.skipBytes(4);
+        buf.clear();
+        assertEquals(1, buf.numComponents());
+        assertEquals(capacity, buf.capacity());
+    }
+
+    @Test
+    public void testDetachReadableBytes() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        ChannelBuffer a = ChannelBuffers.buffer(2048);
+        a.writeZero(2048);
+        buf.writeInt(42);
+        buf.addBuffer(a);
+        buf.writeInt(43);
+        buf.skipBytes(4);
+
+        QueueBackedChannelBuffer detached = buf.detachReadableBytes();
+        assertEquals(0, buf.readableBytes());
+        assertEquals(0, buf.capacity());
+        assertEquals(0, buf.numComponents());
+        assertEquals(2048 + 4, detached.readableBytes());
+        assertEquals(detached.writerIndex(), detached.capacity());
+        assertEquals(43, detached.getInt(2048));
+
+        // The components were moved by reference.
+        a.setByte(0, 1);
+        assertEquals(1, detached.getByte(0));
+
+        // The original buffer is still writable and does not share anything.
+        buf.writeInt(44);
+        assertEquals(44, buf.readInt());
+        assertEquals(43, detached.getInt(2048));
+
+        assertTrue(detached.release());
+        assertEquals(0, a.refCnt());
+        assertEquals(0, buf.detachReadableBytes().readableBytes());
+    }
+
+    @Test
+    public void testRelease() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        ChannelBuffer a = ChannelBuffers.buffer(1024);
+        a.writeZero(1024);
+        buf.addBuffer(a);
+        buf.writeLong(0);
+        assertTrue(buf.release());
+        assertEquals(0, a.refCnt());
+    }
+
+    @Test
+    public void testNioBuffers() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        for (int i = 0; i < 3; i ++) {
+            ChannelBuffer c = ChannelBuffers.buffer(1024);
+            c.writeZero(1024);
+            buf.addBuffer(c);
+        }
+
+        ByteBuffer[] nioBuffers = buf.nioBuffers(1000, 2048, 2);
+        assertEquals(2, nioBuffers.length);
+        assertEquals(24, nioBuffers[0].remaining());
+        assertEquals(1024, nioBuffers[1].remaining());
+
+        nioBuffers = buf.nioBuffers(1000, 2048, 16);
+        assertEquals(3, nioBuffers.length);
+        assertEquals(1000, nioBuffers[2].remaining());
+
+        assertEquals(0, buf.nioBuffers(0, 0, 16).length);
+    }
+
+    @Test
+    public void testNioBufferOfWritableBytes() {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        assertEquals(0, buf.nioBuffer(buf.writerIndex(), buf.writableBytes()).remaining());
+
+        ChannelBuffer a = ChannelBuffers.buffer(2048);
+        a.writeZero(2048);
+        buf.addBuffer(a);
+        buf.ensureWritableBytes(8);
+
+        // Write through the NIO buffer as SslHandler does.
+        ByteBuffer out = buf.nioBuffer(buf.writerIndex(), buf.writableBytes());
+        assertEquals(buf.writableBytes(), out.remaining());
+        out.putLong(42);
+        buf.writerIndex(buf.writerIndex() + 8);
+        assertEquals(42, buf.getLong(2048));
+
+        // The readable bytes span two components until the first is read.
+        assertFalse(buf.hasNioBuffer());
+        buf.readerIndex(2048);
+        assertTrue(buf.hasNioBuffer());
+        assertEquals(42, buf.nioBuffer().getLong());
+
+        try {
+            buf.nioBuffer(2040, 16);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testGatheringWrite() throws Exception {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        byte[] expected = new byte[4096 + 7];
+        for (int i = 0; i < expected.length; i ++) {
+            expected[i] = (byte) i;
+        }
+        buf.writeBytes(expected, 0, 1);
+        buf.addBuffer(ChannelBuffers.wrappedBuffer(expected, 1, 2048));
+        buf.writeBytes(expected, 2049, 2);
+        buf.addBuffer(ChannelBuffers.wrappedBuffer(expected, 2051, 2048));
+        buf.writeBytes(expected, 4099, 4);
+        assertEquals(5, buf.numComponents());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final WritableByteChannel ch = Channels.newChannel(out);
+        GatheringByteChannel gch = new GatheringByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return ch.write(src);
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                long written = 0;
+                for (int i = offset; i < offset + length; i ++) {
+                    written += ch.write(srcs[i]);
+                }
+                return written;
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs) throws IOException {
+                return write(srcs, 0, srcs.length);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                // NOOP
+            }
+        };
+
+        assertEquals(expected.length, buf.readBytes(gch, buf.readableBytes()));
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGatheringWriteOutOfBounds() throws Exception {
+        QueueBackedChannelBuffer buf = new QueueBackedChannelBuffer();
+        buf.addBuffer(ChannelBuffers.wrappedBuffer(new byte[8]));
+        buf.getBytes(buf.capacity() - 4, (GatheringByteChannel) null, 8);
+    }
+}
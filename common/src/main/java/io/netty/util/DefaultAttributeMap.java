@@ -15,35 +15,87 @@
  */
 package io.netty.util;
 
-import java.util.IdentityHashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+/**
+ * The default {@link AttributeMap} implementation, which never blocks.
+ * <p>
+ * The attributes are kept in a small array of buckets which is created on
+ * the first {@link #attr(AttributeKey)} call.  Each bucket is a linked list
+ * which only grows at its head with a compare-and-set, so that a lookup is
+ * a plain traversal without any lock, and only the threads which add an
+ * attribute to the same bucket at the same time retry.
+ */
 public class DefaultAttributeMap implements AttributeMap {
 
+    // Keep the table small - most maps hold only a few attributes.
+    private static final int BUCKET_SIZE = 4;
+    private static final int MASK = BUCKET_SIZE - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, AtomicReferenceArray> updater =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, AtomicReferenceArray.class, "attributes");
+
     // Initialize lazily to reduce memory consumption.
-    private Map<AttributeKey<?>, Attribute<?>> map;
+    private volatile AtomicReferenceArray<DefaultAttribute<?>> attributes;
 
     @Override
-    public synchronized <T> Attribute<T> attr(AttributeKey<T> key) {
-        Map<AttributeKey<?>, Attribute<?>> map = this.map;
-        if (map == null) {
+    @SuppressWarnings("unchecked")
+    public <T> Attribute<T> attr(AttributeKey<T> key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+
+        AtomicReferenceArray<DefaultAttribute<?>> attributes = this.attributes;
+        if (attributes == null) {
             // Not using ConcurrentHashMap due to high memory consumption.
-            map = this.map = new IdentityHashMap<AttributeKey<?>, Attribute<?>>(2);
+            attributes = new AtomicReferenceArray<DefaultAttribute<?>>(BUCKET_SIZE);
+            if (!updater.compareAndSet(this, null, attributes)) {
+                attributes = this.attributes;
+            }
         }
 
-        Attribute<T> attr = (Attribute<T>) map.get(key);
-        if (attr == null) {
-            attr = new DefaultAttribute<T>();
-            map.put(key, attr);
+        int i = index(key);
+        DefaultAttribute<T> newAttr = null;
+        for (;;) {
+            DefaultAttribute<?> head = attributes.get(i);
+            for (DefaultAttribute<?> a = head; a != null; a = a.next) {
+                if (a.key == key) {
+                    return (Attribute<T>) a;
+                }
+            }
+
+            // Not found - try to add a new attribute in front of the current head.
+            if (newAttr == null) {
+                newAttr = new DefaultAttribute<T>(key);
+            }
+            newAttr.next = head;
+            if (attributes.compareAndSet(i, head, newAttr)) {
+                return newAttr;
+            }
+            // Another thread added an attribute to the same bucket - look again.
         }
-        return attr;
     }
 
-    private class DefaultAttribute<T> extends AtomicReference<T> implements Attribute<T> {
+    private static int index(AttributeKey<?> key) {
+        // AttributeKey uses the identity hash code.
+        return key.hashCode() & MASK;
+    }
+
+    private static final class DefaultAttribute<T> extends AtomicReference<T> implements Attribute<T> {
 
         private static final long serialVersionUID = -2661411462200283011L;
 
+        private final AttributeKey<T> key;
+        // Written only before the attribute is published to the bucket.
+        private DefaultAttribute<?> next;
+
+        DefaultAttribute(AttributeKey<T> key) {
+            this.key = key;
+        }
+
         @Override
         public T setIfAbsent(T value) {
             if (compareAndSet(null, value)) {
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+/**
+ * Tracks a resource opened by {@link ResourceLeakDetector#open(Object)}.
+ */
+public interface ResourceLeak {
+
+    /**
+     * Records the caller's current stack trace so that the
+     * {@link ResourceLeakDetector} can tell where the leaked resource was
+     * accessed lastly.
+     */
+    void record();
+
+    /**
+     * Closes the leak so that {@link ResourceLeakDetector} does not warn
+     * about the leaked resource.
+     *
+     * @return {@code true} if called first time, {@code false} if called already
+     */
+    boolean close();
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detects the resources which were garbage-collected without being closed,
+ * such as a pooled buffer which was not released.
+ * <p>
+ * Tracking every resource is too expensive for production use, so only one
+ * out of {@link #samplingInterval()} resources is tracked.  The default
+ * sampling interval is {@code 113} and can be changed with the system
+ * property {@code io.netty.leakDetection.samplingInterval} or
+ * {@link #samplingInterval(int)}.  {@code 0} disables the detection and
+ * {@code 1} tracks every resource.  When a tracked resource is leaked, the
+ * stack trace of its creation and its last few {@linkplain ResourceLeak#record() accesses}
+ * are logged at the {@code ERROR} level.
+ */
+public class ResourceLeakDetector<T> {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
+
+    private static final int DEFAULT_SAMPLING_INTERVAL;
+
+    static {
+        int samplingInterval = SystemPropertyUtil.get("io.netty.leakDetection.samplingInterval", 113);
+        if (samplingInterval < 0) {
+            logger.warn(
+                    "io.netty.leakDetection.samplingInterval: " + samplingInterval +
+                    " (expected: >= 0) - using 113 instead");
+            samplingInterval = 113;
+        }
+        DEFAULT_SAMPLING_INTERVAL = samplingInterval;
+    }
+
+    private static final int MAX_RECORDS = 4;
+    private static final String NEWLINE = SystemPropertyUtil.get("line.separator", "\n");
+
+    private final String resourceType;
+    private final ReferenceQueue<Object> refQueue = new ReferenceQueue<Object>();
+    private final ConcurrentMap<DefaultResourceLeak, Boolean> activeLeaks =
+            new ConcurrentHashMap<DefaultResourceLeak, Boolean>();
+    private final ConcurrentMap<String, Boolean> reportedLeaks = new ConcurrentHashMap<String, Boolean>();
+
+    private volatile int samplingInterval = DEFAULT_SAMPLING_INTERVAL;
+    private final AtomicInteger leakCheckCnt = new AtomicInteger();
+
+    public ResourceLeakDetector(Class<?> resourceType) {
+        if (resourceType == null) {
+            throw new NullPointerException("resourceType");
+        }
+        this.resourceType = resourceType.getSimpleName();
+    }
+
+    /**
+     * Returns the number of the resources opened per tracked resource.
+     */
+    public int samplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Sets the number of the resources opened per tracked resource.
+     * {@code 0} disables the detection.
+     */
+    public void samplingInterval(int samplingInterval) {
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException(
+                    "samplingInterval: " + samplingInterval + " (expected: >= 0)");
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Creates a new {@link ResourceLeak} which is expected to be closed via
+     * {@link ResourceLeak#close()} before the specified resource is
+     * garbage-collected.
+     *
+     * @return {@code null} if the specified resource is not tracked
+     */
+    public ResourceLeak open(T obj) {
+        int samplingInterval = this.samplingInterval;
+        if (samplingInterval == 0) {
+            return null;
+        }
+
+        // The counter wraps around at Integer.MAX_VALUE, which only shifts
+        // the resources which are sampled.
+        if ((leakCheckCnt.getAndIncrement() & Integer.MAX_VALUE) % samplingInterval != 0) {
+            return null;
+        }
+
+        reportLeaks();
+        return new DefaultResourceLeak(obj, refQueue, activeLeaks);
+    }
+
+    private void reportLeaks() {
+        for (;;) {
+            DefaultResourceLeak ref = (DefaultResourceLeak) refQueue.poll();
+            if (ref == null) {
+                break;
+            }
+
+            ref.clear();
+            if (!ref.close()) {
+                continue;
+            }
+
+            String records = ref.toString();
+            if (reportedLeaks.putIfAbsent(records, Boolean.TRUE) == null) {
+                reportLeak(resourceType, records);
+            }
+        }
+    }
+
+    /**
+     * Reports a leaked resource.  The default implementation logs it at
+     * the {@code ERROR} level.
+     *
+     * @param resourceType the simple name of the resource type
+     * @param records the stack traces of the creation and the last accesses
+     *                of the leaked resource
+     */
+    protected void reportLeak(String resourceType, String records) {
+        if (logger.isErrorEnabled()) {
+            logger.error(
+                    "LEAK: " + resourceType + " was garbage-collected without being released. " +
+                    "Recent access records:" + records);
+        }
+    }
+
+    // Not an inner class, so that the reference polled from the queue can be
+    // cast without an unchecked warning.
+    private static final class DefaultResourceLeak extends PhantomReference<Object> implements ResourceLeak {
+
+        private final ConcurrentMap<DefaultResourceLeak, Boolean> activeLeaks;
+        private final String creationRecord;
+        private final Deque<String> lastRecords = new ArrayDeque<String>();
+
+        DefaultResourceLeak(
+                Object referent, ReferenceQueue<Object> refQueue,
+                ConcurrentMap<DefaultResourceLeak, Boolean> activeLeaks) {
+            super(referent, refQueue);
+            this.activeLeaks = activeLeaks;
+            creationRecord = newRecord();
+            activeLeaks.put(this, Boolean.TRUE);
+        }
+
+        @Override
+        public void record() {
+            String value = newRecord();
+            synchronized (lastRecords) {
+                if (lastRecords.size() == MAX_RECORDS) {
+                    lastRecords.removeFirst();
+                }
+                lastRecords.add(value);
+            }
+        }
+
+        @Override
+        public boolean close() {
+            return activeLeaks.remove(this) != null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            synchronized (lastRecords) {
+                int i = lastRecords.size();
+                for (String r: lastRecords) {
+                    buf.append(NEWLINE).append('#').append(i --).append(':').append(NEWLINE).append(r);
+                }
+            }
+            buf.append(NEWLINE).append("Created at:").append(NEWLINE).append(creationRecord);
+            return buf.toString();
+        }
+    }
+
+    private static String newRecord() {
+        StackTraceElement[] array = new Throwable().getStackTrace();
+        StringBuilder buf = new StringBuilder(4096);
+        // Skip the frames of the detector itself.
+        for (int i = 2; i < array.length; i ++) {
+            buf.append('\t').append(array[i]).append(NEWLINE);
+        }
+        return buf.toString();
+    }
+}
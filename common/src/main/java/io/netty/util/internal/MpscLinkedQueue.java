@@ -0,0 +1,363 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free linked queue which allows many threads to insert elements but
+ * only one thread to retrieve them, such as the task queue of an event loop.
+ * <p>
+ * An insertion costs one atomic exchange of the tail and never retries,
+ * unlike the queues which allow multiple consumers.  The consumer thread,
+ * which owns the head of the queue, retrieves elements without contending
+ * with the producers.  It can also {@linkplain #take() block} until an
+ * element is inserted or {@linkplain #drainTo(Collection, int) retrieve many
+ * elements} at once.
+ * <p>
+ * The queue is unbounded by default.  If it is created with a capacity,
+ * {@link #offer(Object)} returns {@code false} once the queue is full, so
+ * that the caller can reject the element the way it wants.
+ * <p>
+ * The following methods must be called only by the consumer thread:
+ * {@link #poll()}, {@link #peek()}, {@link #take()},
+ * {@link #poll(long, TimeUnit)} and {@link #drainTo(Collection, int)}.
+ * The other methods are thread-safe, but {@link #size()}, {@link #isEmpty()}
+ * and {@link #iterator()} are only weakly consistent when called by a
+ * producer thread.
+ */
+public final class MpscLinkedQueue<E> extends AbstractQueue<E> {
+
+    private final int capacity;
+    private final AtomicInteger size;
+    private final AtomicReference<Node<E>> tail;
+    // Accessed only by the consumer thread.
+    private Node<E> head;
+    private volatile Thread waiter;
+
+    /**
+     * Creates a new unbounded queue.
+     */
+    public MpscLinkedQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new queue which holds at most the specified number of elements.
+     */
+    public MpscLinkedQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "capacity: " + capacity + " (expected: > 0)");
+        }
+        this.capacity = capacity;
+        if (capacity == Integer.MAX_VALUE) {
+            // No need to keep track of the size.
+            size = null;
+        } else {
+            size = new AtomicInteger();
+        }
+
+        Node<E> stub = new Node<E>(null);
+        head = stub;
+        tail = new AtomicReference<Node<E>>(stub);
+    }
+
+    /**
+     * Returns the maximum number of the elements this queue can hold, or
+     * {@link Integer#MAX_VALUE} if this queue is unbounded.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("e");
+        }
+
+        AtomicInteger size = this.size;
+        if (size != null) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+        }
+
+        Node<E> node = new Node<E>(e);
+        Node<E> prev = tail.getAndSet(node);
+        // Until the next line, the consumer cannot see the new node and the
+        // nodes inserted after it.  It will spin or wait until it sees them.
+        prev.next = node;
+
+        Thread waiter = this.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        for (;;) {
+            Node<E> next = head.next;
+            if (next == null) {
+                return null;
+            }
+
+            head = next;
+            E e = claim(next);
+            if (e != null) {
+                return e;
+            }
+            // Removed by remove(Object) - try the next node.
+        }
+    }
+
+    @Override
+    public E peek() {
+        for (;;) {
+            Node<E> next = head.next;
+            if (next == null) {
+                return null;
+            }
+
+            E e = next.get();
+            if (e != null) {
+                return e;
+            }
+
+            // Removed by remove(Object) - skip the node.
+            head = next;
+        }
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting until an element
+     * is inserted if necessary.
+     */
+    public E take() throws InterruptedException {
+        E e = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        assert e != null;
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the
+     * specified time until an element is inserted if necessary.
+     *
+     * @return the head of this queue, or {@code null} if the specified
+     *         time elapses before an element is inserted
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+
+        long timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos <= 0) {
+            return null;
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiter = Thread.currentThread();
+        try {
+            for (;;) {
+                // Check again after setting the waiter so that a producer
+                // which did not see the waiter is not missed.
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+
+                if (tail.get() != head) {
+                    // A producer is linking a new node - it will be visible soon.
+                    Thread.yield();
+                    continue;
+                }
+
+                if (timeoutNanos == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remainingNanos);
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Removes at most the specified number of elements from this queue and
+     * adds them to the specified collection.
+     *
+     * @return the number of the elements transferred
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException("c");
+        }
+        if (c == this) {
+            throw new IllegalArgumentException("c: this queue");
+        }
+
+        int n = 0;
+        Node<E> head = this.head;
+        while (n < maxElements) {
+            Node<E> next = head.next;
+            if (next == null) {
+                break;
+            }
+
+            head = next;
+            E e = next.getAndSet(null);
+            if (e != null) {
+                c.add(e);
+                n ++;
+            }
+        }
+        this.head = head;
+
+        if (n != 0 && size != null) {
+            size.addAndGet(-n);
+        }
+        return n;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+
+        // Do not unlink the node because only the consumer can modify the
+        // links.  Clear the element instead and let the consumer skip it.
+        for (Node<E> n = head.next; n != null; n = n.next) {
+            if (n.get() == o && n.compareAndSet((E) o, null)) {
+                if (size != null) {
+                    size.decrementAndGet();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Node<E> n = head.next; n != null; n = n.next) {
+            if (n.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        if (size != null) {
+            return Math.max(0, size.get());
+        }
+
+        int count = 0;
+        for (Node<E> n = head.next; n != null; n = n.next) {
+            if (n.get() != null) {
+                count ++;
+                if (count == Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Node<E> node = head;
+            private E next = findNext();
+
+            private E findNext() {
+                for (;;) {
+                    node = node.next;
+                    if (node == null) {
+                        return null;
+                    }
+                    E e = node.get();
+                    if (e != null) {
+                        return e;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                E e = next;
+                if (e == null) {
+                    throw new NoSuchElementException();
+                }
+                next = findNext();
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    private E claim(Node<E> node) {
+        // Compete with remove(Object) which may be called by a producer.
+        E e = node.getAndSet(null);
+        if (e != null && size != null) {
+            size.decrementAndGet();
+        }
+        return e;
+    }
+
+    private static final class Node<E> extends AtomicReference<E> {
+        private static final long serialVersionUID = -5016744669618591716L;
+
+        volatile Node<E> next;
+
+        Node(E value) {
+            super(value);
+        }
+    }
+}
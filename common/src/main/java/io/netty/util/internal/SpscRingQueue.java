@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An unbounded queue which allows only one thread to insert elements and
+ * only one other thread to retrieve them, such as the bridge between two
+ * handlers which run in different event loops.
+ * <p>
+ * The elements are kept in a ring whose slots are claimed and freed without
+ * any atomic read-modify-write operation: the producer inserts an element
+ * only into an empty slot and the consumer empties a slot once it has taken
+ * its element.  When the ring is full, the producer continues with a new
+ * ring, twice as large up to a limit, and the consumer switches to it once
+ * it has drained the old one.  A ring is reused as long as the consumer
+ * keeps up, so that an insertion usually allocates nothing.
+ * <p>
+ * {@link #offer(Object)} must be called only by the producer thread, and
+ * {@link #poll()} and {@link #isEmpty()} only by the consumer thread.
+ */
+public final class SpscRingQueue<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final int DEFAULT_MAX_CAPACITY = 1024;
+
+    private final int maxCapacity;
+
+    // Accessed only by the producer thread.
+    private Ring producerRing;
+    private int producerIndex;
+
+    // Accessed only by the consumer thread.
+    private Ring consumerRing;
+    private int consumerIndex;
+
+    /**
+     * Creates a new queue with the default ring capacities.
+     */
+    public SpscRingQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Creates a new queue whose first ring holds {@code initialCapacity}
+     * elements and whose ring grows up to {@code maxCapacity} elements.
+     * Both values are rounded up to a power of two.
+     */
+    public SpscRingQueue(int initialCapacity, int maxCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "initialCapacity: " + initialCapacity + " (expected: > 0)");
+        }
+        if (maxCapacity < initialCapacity) {
+            throw new IllegalArgumentException(
+                    "maxCapacity: " + maxCapacity + " (expected: >= initialCapacity(" + initialCapacity + "))");
+        }
+
+        this.maxCapacity = roundUp(maxCapacity);
+        Ring ring = new Ring(roundUp(initialCapacity));
+        producerRing = ring;
+        consumerRing = ring;
+    }
+
+    private static int roundUp(int capacity) {
+        int n = 1;
+        while (n < capacity) {
+            n <<= 1;
+            if (n <= 0) {
+                throw new IllegalArgumentException("capacity too large: " + capacity);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue.
+     */
+    public void offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("e");
+        }
+
+        Ring ring = producerRing;
+        int index = producerIndex & ring.mask;
+        if (ring.slots.get(index) == null) {
+            ring.slots.lazySet(index, e);
+            producerIndex ++;
+            return;
+        }
+
+        // The ring is full - continue with a new ring.  The old ring is never
+        // written again, so the consumer can switch once it has drained it.
+        Ring newRing = new Ring(Math.min(ring.slots.length() << 1, maxCapacity));
+        newRing.slots.lazySet(0, e);
+        producerRing = newRing;
+        producerIndex = 1;
+        ring.next = newRing;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code null}
+     * if this queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        for (;;) {
+            Ring ring = consumerRing;
+            int index = consumerIndex & ring.mask;
+            Object e = ring.slots.get(index);
+            if (e != null) {
+                ring.slots.lazySet(index, null);
+                consumerIndex ++;
+                return (E) e;
+            }
+
+            if (!switchRing(ring, index)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     */
+    public boolean isEmpty() {
+        for (;;) {
+            Ring ring = consumerRing;
+            int index = consumerIndex & ring.mask;
+            if (ring.slots.get(index) != null) {
+                return false;
+            }
+
+            if (!switchRing(ring, index)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Switches to the next ring if the producer has moved on to it and the
+     * current ring has been drained.
+     */
+    private boolean switchRing(Ring ring, int index) {
+        Ring next = ring.next;
+        if (next == null) {
+            return false;
+        }
+
+        // The producer wrote its last element into the current ring before it
+        // published the next ring, so look at the slot again.
+        if (ring.slots.get(index) != null) {
+            return true;
+        }
+
+        consumerRing = next;
+        consumerIndex = 0;
+        return true;
+    }
+
+    private static final class Ring {
+        final AtomicReferenceArray<Object> slots;
+        final int mask;
+        volatile Ring next;
+
+        Ring(int capacity) {
+            slots = new AtomicReferenceArray<Object>(capacity);
+            mask = capacity - 1;
+        }
+    }
+}
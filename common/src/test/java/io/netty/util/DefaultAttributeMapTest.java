@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DefaultAttributeMap}.
+ */
+public class DefaultAttributeMapTest {
+
+    @Test
+    public void testGetSetAndRemove() {
+        AttributeKey<String> key = new AttributeKey<String>("DefaultAttributeMapTest.testGetSetAndRemove");
+        DefaultAttributeMap map = new DefaultAttributeMap();
+        Attribute<String> attr = map.attr(key);
+        assertSame(attr, map.attr(key));
+        assertNull(attr.get());
+
+        assertNull(attr.setIfAbsent("foo"));
+        assertEquals("foo", attr.setIfAbsent("bar"));
+        assertEquals("foo", map.attr(key).get());
+
+        attr.remove();
+        assertNull(map.attr(key).get());
+    }
+
+    @Test
+    public void testManyKeys() {
+        // More keys than buckets so that some of them share a bucket.
+        int numKeys = 64;
+        @SuppressWarnings("unchecked")
+        AttributeKey<Integer>[] keys = new AttributeKey[numKeys];
+        DefaultAttributeMap map = new DefaultAttributeMap();
+        for (int i = 0; i < numKeys; i ++) {
+            keys[i] = new AttributeKey<Integer>("DefaultAttributeMapTest.testManyKeys." + i);
+            map.attr(keys[i]).set(i);
+        }
+        for (int i = 0; i < numKeys; i ++) {
+            assertEquals(i, (int) map.attr(keys[i]).get());
+        }
+
+        // Attributes are not shared between maps.
+        assertNull(new DefaultAttributeMap().attr(keys[0]).get());
+    }
+
+    @Test
+    public void testConcurrentAttr() throws Exception {
+        final int numThreads = 8;
+        final int numKeys = 32;
+        @SuppressWarnings("unchecked")
+        final AttributeKey<Object>[] keys = new AttributeKey[numKeys];
+        for (int i = 0; i < numKeys; i ++) {
+            keys[i] = new AttributeKey<Object>("DefaultAttributeMapTest.testConcurrentAttr." + i);
+        }
+
+        for (int round = 0; round < 100; round ++) {
+            final DefaultAttributeMap map = new DefaultAttributeMap();
+            final AtomicReferenceArray<Attribute<Object>> seen =
+                    new AtomicReferenceArray<Attribute<Object>>(numKeys);
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(numThreads);
+            final Throwable[] failure = new Throwable[1];
+            for (int t = 0; t < numThreads; t ++) {
+                new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            for (int i = 0; i < numKeys; i ++) {
+                                Attribute<Object> attr = map.attr(keys[i]);
+                                if (!seen.compareAndSet(i, null, attr) && seen.get(i) != attr) {
+                                    throw new AssertionError("different attributes for the same key");
+                                }
+                            }
+                        } catch (Throwable t) {
+                            synchronized (failure) {
+                                failure[0] = t;
+                            }
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }.start();
+            }
+            start.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            synchronized (failure) {
+                assertNull(failure[0]);
+            }
+        }
+    }
+}
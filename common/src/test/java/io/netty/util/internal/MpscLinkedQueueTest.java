@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MpscLinkedQueue}.
+ */
+public class MpscLinkedQueueTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 10; i ++) {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(10, queue.size());
+        assertEquals(0, (int) queue.peek());
+        for (int i = 0; i < 10; i ++) {
+            assertEquals(i, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRemove() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>(3);
+        Integer a = 1;
+        Integer b = 2;
+        Integer c = 3;
+        queue.add(a);
+        queue.add(b);
+        queue.add(c);
+
+        assertTrue(queue.remove(b));
+        assertFalse(queue.remove(b));
+        assertEquals(2, queue.size());
+
+        assertTrue(queue.remove(a));
+        assertEquals(c, queue.peek());
+        assertEquals(c, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testBounded() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>(2);
+        assertEquals(2, queue.capacity());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(2, queue.size());
+
+        assertEquals(1, (int) queue.poll());
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+    }
+
+    @Test
+    public void testDrainTo() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>(16);
+        for (int i = 0; i < 10; i ++) {
+            queue.add(i);
+        }
+        queue.remove(Integer.valueOf(3));
+
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(4, queue.drainTo(drained, 4));
+        assertEquals(4, (int) drained.get(3));
+        assertEquals(5, queue.size());
+        assertEquals(5, queue.drainTo(drained, Integer.MAX_VALUE));
+        assertEquals(9, drained.size());
+        assertEquals(9, (int) drained.get(8));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPollWithTimeout() throws Exception {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>();
+        long startTime = System.nanoTime();
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test(timeout = 10000)
+    public void testMultipleProducers() throws Exception {
+        final int producers = 4;
+        final int elementsPerProducer = 100000;
+        final MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>();
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < producers; i ++) {
+            final int producer = i;
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < elementsPerProducer; j ++) {
+                        queue.add(producer * elementsPerProducer + j);
+                    }
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        start.countDown();
+
+        // The elements inserted by the same producer must retain their order.
+        int[] last = new int[producers];
+        for (int i = 0; i < producers; i ++) {
+            last[i] = -1;
+        }
+        for (int i = 0; i < producers * elementsPerProducer; i ++) {
+            int e = queue.take();
+            int producer = e / elementsPerProducer;
+            int j = e % elementsPerProducer;
+            assertEquals(last[producer] + 1, j);
+            last[producer] = j;
+        }
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SpscRingQueue}.
+ */
+public class SpscRingQueueTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(4, 8);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        // Wrap around the first ring a few times.
+        for (int i = 0; i < 10; i ++) {
+            queue.offer(i);
+            queue.offer(i + 100);
+            assertFalse(queue.isEmpty());
+            assertEquals(i, (int) queue.poll());
+            assertEquals(i + 100, (int) queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testGrow() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(2, 4);
+        // Fill more than the maximum ring capacity so that the rings are chained.
+        for (int i = 0; i < 20; i ++) {
+            queue.offer(i);
+        }
+        for (int i = 0; i < 20; i ++) {
+            assertFalse(queue.isEmpty());
+            assertEquals(i, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        try {
+            new SpscRingQueue<Object>(0, 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new SpscRingQueue<Object>(8, 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testProducerAndConsumer() throws Exception {
+        final SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(4, 64);
+        final int numElements = 1000000;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < numElements;) {
+                        Integer e = queue.poll();
+                        if (e == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        assertEquals(i, e.intValue());
+                        i ++;
+                    }
+                    assertTrue(queue.isEmpty());
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        consumer.start();
+
+        for (int i = 0; i < numElements; i ++) {
+            queue.offer(i);
+        }
+
+        consumer.join(30000);
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get());
+    }
+}
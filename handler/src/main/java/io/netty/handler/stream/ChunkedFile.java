@@ -26,7 +26,7 @@ import java.io.RandomAccessFile;
  * <p>
  * If your operating system supports
  * <a href="http://en.wikipedia.org/wiki/Zero-copy">zero-copy file transfer</a>
- * such as {@code sendfile()}, you might want to use {@link FileRegion} instead.
+ * such as {@code sendfile()}, you might want to use {@link io.netty.channel.FileRegion} instead.
  */
 public class ChunkedFile implements ChunkedInput {
 
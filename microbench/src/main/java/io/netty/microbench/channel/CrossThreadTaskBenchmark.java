@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventExecutor;
+import io.netty.channel.EventExecutor;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoop;
+import io.netty.channel.local.LocalServerChannel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast application threads hand work over to an event loop,
+ * by {@code execute()} and by {@code write()}.  Both go through the task
+ * queue of the event loop.  Run it on this revision and on one before the
+ * task queue was changed to compare the two queues end to end.
+ * <p>
+ * Every {@value #SYNC_INTERVAL}th call waits for the event loop to catch up,
+ * so that the pending tasks do not pile up without a limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(4)
+@Fork(1)
+public class CrossThreadTaskBenchmark {
+
+    private static final int SYNC_INTERVAL = 1024;
+
+    private static final Runnable TASK = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    private static final Object MESSAGE = new Object();
+
+    private EventExecutor group;
+    private EventExecutor executor;
+    private EventLoop clientLoop;
+    private ServerBootstrap sb;
+    private Channel channel;
+
+    @State(Scope.Thread)
+    public static class Caller {
+        int calls;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        group = new DefaultEventExecutor(1);
+        executor = group.unsafe().nextChild();
+
+        sb = new ServerBootstrap();
+        sb.eventLoop(new LocalEventLoop(), new LocalEventLoop())
+          .channel(new LocalServerChannel())
+          .localAddress(LocalAddress.ANY)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundMessageHandlerAdapter<Object>() {
+                      @Override
+                      public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                          // Discard.
+                      }
+                  });
+              }
+          });
+        LocalAddress addr = (LocalAddress) sb.bind().sync().channel().localAddress();
+
+        clientLoop = new LocalEventLoop();
+        channel = new LocalChannel();
+        clientLoop.register(channel).sync();
+        channel.connect(addr).sync();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        clientLoop.shutdown();
+        sb.shutdown();
+        group.shutdown();
+    }
+
+    @Benchmark
+    public void execute(Caller caller) throws Exception {
+        if (++ caller.calls == SYNC_INTERVAL) {
+            caller.calls = 0;
+            executor.submit(TASK).get();
+        } else {
+            executor.execute(TASK);
+        }
+    }
+
+    @Benchmark
+    public void write(Caller caller) throws Exception {
+        ChannelFuture future = channel.write(MESSAGE);
+        if (++ caller.calls == SYNC_INTERVAL) {
+            caller.calls = 0;
+            future.sync();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventExecutor;
+import io.netty.channel.EventExecutor;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoop;
+import io.netty.channel.local.LocalServerChannel;
+
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the message throughput of a handler which runs in the event loop
+ * of its channel with the one of a handler which was added with its own
+ * {@link EventExecutor}, whose messages pass through the inbound bridge of
+ * its context.  Each invocation sends {@value #BATCH_SIZE} messages over a
+ * local channel and waits until the handler has received all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HandlerBridgeBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "inline", "offloaded" })
+    public String handlerType;
+
+    private EventExecutor executor;
+    private EventLoop clientLoop;
+    private ServerBootstrap sb;
+    private Channel channel;
+    volatile Channel childChannel;
+    private Runnable writeTask;
+    volatile CountDownLatch received;
+
+    @Setup
+    public void setup() throws Exception {
+        final boolean offloaded = "offloaded".equals(handlerType);
+        if (offloaded) {
+            executor = new DefaultEventExecutor(1);
+        }
+
+        sb = new ServerBootstrap();
+        sb.eventLoop(new LocalEventLoop(), new LocalEventLoop())
+          .channel(new LocalServerChannel())
+          .localAddress(LocalAddress.ANY)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  childChannel = ch;
+                  ch.pipeline().addLast(executor, new ChannelInboundMessageHandlerAdapter<Object>() {
+                      @Override
+                      public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                          received.countDown();
+                      }
+                  });
+              }
+          });
+        LocalAddress addr = (LocalAddress) sb.bind().sync().channel().localAddress();
+
+        clientLoop = new LocalEventLoop();
+        channel = new LocalChannel();
+        clientLoop.register(channel).sync();
+        channel.connect(addr).sync();
+
+        // Write the whole batch with one flush from the event loop, so that
+        // the writer does not dominate the measurement.
+        writeTask = new Runnable() {
+            @Override
+            public void run() {
+                Queue<Object> out = channel.pipeline().outboundMessageBuffer();
+                for (int i = 0; i < BATCH_SIZE; i ++) {
+                    out.add(MESSAGE);
+                }
+                channel.flush();
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        // Let the handler see the closure before its executor is shut down.
+        childChannel.closeFuture().sync();
+        clientLoop.shutdown();
+        sb.shutdown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void receive() throws Exception {
+        CountDownLatch received = new CountDownLatch(BATCH_SIZE);
+        this.received = received;
+        channel.eventLoop().execute(writeTask);
+        received.await();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.internal;
+
+import io.netty.util.internal.MpscLinkedQueue;
+import io.netty.util.internal.QueueFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Compares {@link MpscLinkedQueue} with the queue {@link QueueFactory}
+ * creates, which event loops used as their task queue before.  Three
+ * producer threads offer tasks, as application threads do when they call
+ * {@code execute()}, and a single consumer thread retrieves them, as the
+ * event loop does.  The consumer either polls one task at a time or drains
+ * them in batches.  The producers pause while more than
+ * {@value #MAX_PENDING_TASKS} tasks are pending, so that a slow consumer
+ * does not let the queue grow without a limit.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TaskQueueBenchmark {
+
+    private static final int MAX_PENDING_TASKS = 65536;
+    private static final int PRODUCER_BATCH_SIZE = 1024;
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private static final Runnable TASK = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Param({ "mpsc", "factory" })
+    public String queueType;
+
+    private Queue<Runnable> queue;
+    private final AtomicLong produced = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final List<Runnable> batch = new ArrayList<Runnable>(DRAIN_BATCH_SIZE);
+
+    @State(Scope.Thread)
+    public static class Producer {
+        int offered;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        if ("mpsc".equals(queueType)) {
+            queue = new MpscLinkedQueue<Runnable>();
+        } else {
+            queue = QueueFactory.createQueue();
+        }
+        produced.set(0);
+        consumed.set(0);
+    }
+
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(3)
+    public boolean pollOffer(Producer producer, Control control) {
+        return offer(producer, control);
+    }
+
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(1)
+    public Runnable poll() {
+        Runnable task = queue.poll();
+        if (task != null) {
+            consumed.lazySet(consumed.get() + 1);
+        }
+        return task;
+    }
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(3)
+    public boolean drainOffer(Producer producer, Control control) {
+        return offer(producer, control);
+    }
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(1)
+    public int drain() {
+        int n;
+        if (queue instanceof MpscLinkedQueue) {
+            n = ((MpscLinkedQueue<Runnable>) queue).drainTo(batch, DRAIN_BATCH_SIZE);
+        } else {
+            n = ((BlockingQueue<Runnable>) queue).drainTo(batch, DRAIN_BATCH_SIZE);
+        }
+        batch.clear();
+        consumed.lazySet(consumed.get() + n);
+        return n;
+    }
+
+    private boolean offer(Producer producer, Control control) {
+        // Update the shared counter only once per batch to keep it off the
+        // measured path.
+        if (++ producer.offered == PRODUCER_BATCH_SIZE) {
+            producer.offered = 0;
+            long pending = produced.addAndGet(PRODUCER_BATCH_SIZE) - consumed.get();
+            while (pending > MAX_PENDING_TASKS && !control.stopMeasurement) {
+                Thread.yield();
+                pending = produced.get() - consumed.get();
+            }
+        }
+        return queue.offer(TASK);
+    }
+}
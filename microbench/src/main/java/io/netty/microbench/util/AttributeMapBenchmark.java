@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.AttributeMap;
+import io.netty.util.DefaultAttributeMap;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@code attr(key).get()} of {@link DefaultAttributeMap} with the
+ * previous implementation, which synchronized on the map, from one thread
+ * and from four threads which share the same map.  The map holds a few
+ * attributes, as the map of a channel usually does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AttributeMapBenchmark {
+
+    private static final AttributeKey<Object> KEY = new AttributeKey<Object>("AttributeMapBenchmark.KEY");
+    private static final AttributeKey<?>[] OTHER_KEYS = {
+        new AttributeKey<Object>("AttributeMapBenchmark.OTHER_KEY_1"),
+        new AttributeKey<Object>("AttributeMapBenchmark.OTHER_KEY_2"),
+        new AttributeKey<Object>("AttributeMapBenchmark.OTHER_KEY_3"),
+    };
+
+    @Param({ "default", "synchronized" })
+    public String mapType;
+
+    private AttributeMap map;
+
+    @Setup
+    public void setup() {
+        if ("default".equals(mapType)) {
+            map = new DefaultAttributeMap();
+        } else {
+            map = new SynchronizedAttributeMap();
+        }
+        for (AttributeKey<?> key: OTHER_KEYS) {
+            map.attr(key);
+        }
+        map.attr(KEY).set(Boolean.TRUE);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object uncontendedGet() {
+        return map.attr(KEY).get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object contendedGet() {
+        return map.attr(KEY).get();
+    }
+
+    /**
+     * The {@link AttributeMap} which {@link DefaultAttributeMap} replaced.
+     */
+    private static final class SynchronizedAttributeMap implements AttributeMap {
+
+        private Map<AttributeKey<?>, Attribute<?>> map;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> Attribute<T> attr(AttributeKey<T> key) {
+            Map<AttributeKey<?>, Attribute<?>> map = this.map;
+            if (map == null) {
+                map = this.map = new IdentityHashMap<AttributeKey<?>, Attribute<?>>(2);
+            }
+
+            Attribute<T> attr = (Attribute<T>) map.get(key);
+            if (attr == null) {
+                attr = new SimpleAttribute<T>();
+                map.put(key, attr);
+            }
+            return attr;
+        }
+    }
+
+    private static final class SimpleAttribute<T> extends AtomicReference<T> implements Attribute<T> {
+
+        private static final long serialVersionUID = 2472208962106437045L;
+
+        @Override
+        public T setIfAbsent(T value) {
+            if (compareAndSet(null, value)) {
+                return null;
+            }
+            return get();
+        }
+
+        @Override
+        public void remove() {
+            set(null);
+        }
+    }
+}
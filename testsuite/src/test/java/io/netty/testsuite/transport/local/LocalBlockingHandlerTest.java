@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.local;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventExecutor;
+import io.netty.channel.EventLoop;
+import io.netty.channel.VirtualThreadEventExecutor;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoop;
+import io.netty.channel.local.LocalServerChannel;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs a handler which blocks in a {@link VirtualThreadEventExecutor}.
+ */
+public class LocalBlockingHandlerTest {
+
+    private static final int REQUESTS = 10000;
+
+    private ServerBootstrap sb;
+    private EventLoop clientLoop;
+    private EventExecutor executor;
+    private final List<Channel> channels = new ArrayList<Channel>();
+    final List<Channel> childChannels = Collections.synchronizedList(new ArrayList<Channel>());
+    final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+
+    @Before
+    public void init() {
+        executor = new VirtualThreadEventExecutor();
+        clientLoop = new LocalEventLoop();
+        sb = new ServerBootstrap();
+        sb.eventLoop(new LocalEventLoop(), new LocalEventLoop())
+          .channel(new LocalServerChannel())
+          .localAddress(LocalAddress.ANY);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        for (Channel ch: channels) {
+            ch.close().sync();
+        }
+        // Let the handlers see the closure before the executor is shut down.
+        synchronized (childChannels) {
+            for (Channel ch: childChannels) {
+                ch.closeFuture().sync();
+            }
+        }
+        sb.shutdown();
+        clientLoop.shutdown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentBlockingRequests() throws Throwable {
+        Assume.assumeTrue(VirtualThreadEventExecutor.isSupported());
+
+        // Every request blocks until all requests are blocked, which never
+        // happens with a fixed pool of platform threads.
+        final CountDownLatch blocked = new CountDownLatch(REQUESTS);
+        final CountDownLatch done = new CountDownLatch(REQUESTS);
+        LocalAddress addr = bind(new HandlerFactory() {
+            @Override
+            public ChannelHandler newHandler() {
+                return new TestHandler() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        blocked.countDown();
+                        blocked.await();
+                        done.countDown();
+                    }
+                };
+            }
+        });
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        for (int i = 0; i < REQUESTS; i ++) {
+            connect(addr).write(Integer.valueOf(i));
+        }
+
+        await(done);
+        // Virtual threads are not counted as live threads.
+        assertTrue(
+                "peak thread count: " + threads.getPeakThreadCount(),
+                threads.getPeakThreadCount() < REQUESTS / 10);
+    }
+
+    @Test(timeout = 60000)
+    public void testManyBlockingRequests() throws Throwable {
+        // Runs with platform threads as well when virtual threads are not
+        // supported.  Each request blocks for a while, and the requests wait
+        // for a free thread instead of starting a thread each.
+        final Set<Thread> handlerThreads =
+                Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        final CountDownLatch done = new CountDownLatch(REQUESTS);
+        LocalAddress addr = bind(new HandlerFactory() {
+            @Override
+            public ChannelHandler newHandler() {
+                return new TestHandler() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        handlerThreads.add(Thread.currentThread());
+                        Thread.sleep(1);
+                        done.countDown();
+                    }
+                };
+            }
+        });
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        for (int i = 0; i < REQUESTS; i ++) {
+            connect(addr).write(Integer.valueOf(i));
+        }
+
+        await(done);
+        assertTrue(
+                "peak thread count: " + threads.getPeakThreadCount(),
+                threads.getPeakThreadCount() < REQUESTS / 10);
+        if (!VirtualThreadEventExecutor.isSupported()) {
+            // The default pool has two threads per processor.
+            assertTrue(
+                    "handler threads: " + handlerThreads.size(),
+                    handlerThreads.size() <= Runtime.getRuntime().availableProcessors() * 2);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testOrderedBlockingRequests() throws Throwable {
+        // Runs with platform threads as well when virtual threads are not supported.
+        final int connections = 16;
+        final int requests = 32;
+        final CountDownLatch done = new CountDownLatch(connections * requests);
+        LocalAddress addr = bind(new HandlerFactory() {
+            @Override
+            public ChannelHandler newHandler() {
+                return new TestHandler() {
+                    private int next;
+
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        Thread.sleep(1);
+                        assertEquals(next ++, ((Integer) msg).intValue());
+                        done.countDown();
+                    }
+                };
+            }
+        });
+
+        for (int i = 0; i < connections; i ++) {
+            Channel ch = connect(addr);
+            for (int j = 0; j < requests; j ++) {
+                ch.write(Integer.valueOf(j));
+            }
+        }
+
+        await(done);
+    }
+
+    private LocalAddress bind(final HandlerFactory factory) {
+        sb.childHandler(new ChannelInitializer<LocalChannel>() {
+            @Override
+            public void initChannel(LocalChannel ch) throws Exception {
+                childChannels.add(ch);
+                ch.pipeline().addLast(executor, factory.newHandler());
+            }
+        });
+        return (LocalAddress) sb.bind().syncUninterruptibly().channel().localAddress();
+    }
+
+    private Channel connect(LocalAddress addr) throws Exception {
+        Channel ch = new LocalChannel();
+        clientLoop.register(ch).sync();
+        ch.connect(addr).sync();
+        channels.add(ch);
+        return ch;
+    }
+
+    private void await(CountDownLatch latch) throws Throwable {
+        while (!latch.await(10, TimeUnit.MILLISECONDS)) {
+            if (exception.get() != null) {
+                throw exception.get();
+            }
+        }
+        if (exception.get() != null) {
+            throw exception.get();
+        }
+    }
+
+    private interface HandlerFactory {
+        ChannelHandler newHandler();
+    }
+
+    private abstract class TestHandler extends ChannelInboundMessageHandlerAdapter<Object> {
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            exception.compareAndSet(null, cause);
+            ctx.close();
+        }
+    }
+}
@@ -17,14 +17,18 @@ package io.netty.testsuite.transport.socket;
 
 import static org.junit.Assert.*;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ChannelBuffer;
 import io.netty.buffer.ChannelBuffers;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.socket.DatagramPacket;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -67,4 +71,109 @@ public class DatagramUnicastTest extends AbstractDatagramTest {
         sc.close().sync();
         cc.close().sync();
     }
+
+    @Test
+    public void testPooledReceiveBuffer() throws Throwable {
+        run();
+    }
+
+    public void testPooledReceiveBuffer(Bootstrap sb, Bootstrap cb) throws Throwable {
+        final int count = 16;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        sb.option(ChannelOption.UDP_RECEIVE_BUFFER_POOLED, true);
+        sb.handler(new ChannelInboundMessageHandlerAdapter<DatagramPacket>() {
+            private int expected;
+
+            @Override
+            public void messageReceived(
+                    ChannelHandlerContext ctx,
+                    DatagramPacket msg) throws Exception {
+                try {
+                    Assert.assertEquals(8, msg.data().readableBytes());
+                    Assert.assertEquals(expected, msg.data().readInt());
+                    Assert.assertEquals(~expected, msg.data().readInt());
+                    expected ++;
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                } finally {
+                    msg.data().release();
+                }
+                latch.countDown();
+            }
+        });
+
+        cb.handler(new ChannelInboundMessageHandlerAdapter<DatagramPacket>() {
+            @Override
+            public void messageReceived(
+                    ChannelHandlerContext ctx,
+                    DatagramPacket msg) throws Exception {
+                // Nothing will be sent.
+            }
+        });
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.bind().sync().channel();
+
+        for (int i = 0; i < count; i ++) {
+            ChannelBuffer data = ChannelBuffers.buffer(8);
+            data.writeInt(i);
+            data.writeInt(~i);
+            cc.write(new DatagramPacket(data, addr)).sync();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        sc.close().sync();
+        cc.close().sync();
+    }
+
+    @Test
+    public void testBatchSend() throws Throwable {
+        run();
+    }
+
+    public void testBatchSend(Bootstrap sb, Bootstrap cb) throws Throwable {
+        final int count = 64;
+        final CountDownLatch latch = new CountDownLatch(count);
+
+        sb.option(ChannelOption.UDP_BATCH_SIZE, 8);
+        sb.handler(new ChannelInboundMessageHandlerAdapter<DatagramPacket>() {
+            @Override
+            public void messageReceived(
+                    ChannelHandlerContext ctx,
+                    DatagramPacket msg) throws Exception {
+                Assert.assertEquals(4, msg.data().readableBytes());
+                latch.countDown();
+            }
+        });
+
+        cb.option(ChannelOption.UDP_BATCH_SIZE, 8);
+        cb.handler(new ChannelInboundMessageHandlerAdapter<DatagramPacket>() {
+            @Override
+            public void messageReceived(
+                    ChannelHandlerContext ctx,
+                    DatagramPacket msg) throws Exception {
+                // Nothing will be sent.
+            }
+        });
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.bind().sync().channel();
+        assertEquals(8, cc.config().getOption(ChannelOption.UDP_BATCH_SIZE).intValue());
+
+        // Queue all packets before they are flushed so that they are sent in batches.
+        ChannelFuture lastFuture = null;
+        for (int i = 0; i < count; i ++) {
+            lastFuture = cc.write(new DatagramPacket(ChannelBuffers.copyInt(i), addr));
+        }
+        lastFuture.sync();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        sc.close().sync();
+        cc.close().sync();
+    }
 }
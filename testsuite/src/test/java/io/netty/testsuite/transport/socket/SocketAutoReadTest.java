@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.ChannelBuffers;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundStreamHandlerAdapter;
+import io.netty.channel.ChannelOption;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SocketAutoReadTest extends AbstractSocketTest {
+
+    static final Random random = new Random();
+    static final byte[] data = new byte[1024];
+
+    static {
+        random.nextBytes(data);
+    }
+
+    @Test
+    public void testAutoReadOff() throws Throwable {
+        run();
+    }
+
+    public void testAutoReadOff(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        TestHandler sh = new TestHandler();
+        TestHandler ch = new TestHandler();
+
+        sb.childHandler(sh);
+        sb.childOption(ChannelOption.AUTO_READ, false);
+        cb.handler(ch);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        cc.write(ChannelBuffers.wrappedBuffer(data)).sync();
+        while (sh.channel == null) {
+            Thread.sleep(1);
+        }
+
+        // Nothing must be read until it is requested.
+        Thread.sleep(200);
+        assertEquals(0, sh.counter);
+        assertFalse(sh.channel.config().isAutoRead());
+
+        // Each read() lets the channel read once.
+        while (sh.counter < data.length) {
+            if (sh.exception.get() != null) {
+                break;
+            }
+            sh.channel.read();
+            Thread.sleep(10);
+        }
+
+        // Enabling auto-read again resumes reading without a request.
+        if (sh.exception.get() == null) {
+            sh.channel.config().setAutoRead(true);
+            cc.write(ChannelBuffers.wrappedBuffer(data)).sync();
+            while (sh.counter < data.length * 2) {
+                if (sh.exception.get() != null || ch.exception.get() != null) {
+                    break;
+                }
+                Thread.sleep(1);
+            }
+        }
+
+        sh.channel.close().sync();
+        ch.channel.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null && !(sh.exception.get() instanceof IOException)) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null && !(ch.exception.get() instanceof IOException)) {
+            throw ch.exception.get();
+        }
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+    }
+
+    @Test
+    public void testReadRequestedBeforeData() throws Throwable {
+        run();
+    }
+
+    public void testReadRequestedBeforeData(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        TestHandler sh = new TestHandler();
+        TestHandler ch = new TestHandler();
+
+        sb.childHandler(sh);
+        sb.childOption(ChannelOption.AUTO_READ, false);
+        cb.handler(ch);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        while (sh.channel == null) {
+            Thread.sleep(1);
+        }
+
+        // A read requested before any data arrives must not be lost, even if
+        // the data arrives later than the read timeout of a blocking socket.
+        sh.channel.read();
+        Thread.sleep(1500);
+        cc.write(ChannelBuffers.wrappedBuffer(data)).sync();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sh.counter == 0 && System.currentTimeMillis() < deadline) {
+            if (sh.exception.get() != null || ch.exception.get() != null) {
+                break;
+            }
+            Thread.sleep(1);
+        }
+
+        sh.channel.close().sync();
+        ch.channel.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+        assertTrue("the requested read was lost", sh.counter > 0);
+    }
+
+    private static class TestHandler extends ChannelInboundStreamHandlerAdapter {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx)
+                throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void inboundBufferUpdated(
+                ChannelHandlerContext ctx, ChannelBuffer in)
+                throws Exception {
+            byte[] actual = new byte[in.readableBytes()];
+            in.readBytes(actual);
+
+            int lastIdx = counter;
+            for (int i = 0; i < actual.length; i ++) {
+                assertEquals(data[(i + lastIdx) % data.length], actual[i]);
+            }
+            counter += actual.length;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx,
+                Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
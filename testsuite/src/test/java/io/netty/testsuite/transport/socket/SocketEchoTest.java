@@ -23,6 +23,7 @@ import io.netty.buffer.ChannelBuffers;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundStreamHandlerAdapter;
+import io.netty.channel.ChannelOption;
 
 import java.io.IOException;
 import java.util.Random;
@@ -44,6 +45,17 @@ public class SocketEchoTest extends AbstractSocketTest {
         run();
     }
 
+    @Test
+    public void testSimpleEchoWithWriteByReference() throws Throwable {
+        run();
+    }
+
+    public void testSimpleEchoWithWriteByReference(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        sb.childOption(ChannelOption.WRITE_BY_REFERENCE, true);
+        cb.option(ChannelOption.WRITE_BY_REFERENCE, true);
+        testSimpleEcho(sb, cb);
+    }
+
     public void testSimpleEcho(ServerBootstrap sb, Bootstrap cb) throws Throwable {
         EchoHandler sh = new EchoHandler();
         EchoHandler ch = new EchoHandler();
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.ChannelBuffers;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundStreamHandlerAdapter;
+import io.netty.channel.DefaultFileRegion;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SocketFileRegionTest extends AbstractSocketTest {
+
+    private static final Random random = new Random();
+    static final byte[] data = new byte[1048576 * 10];
+
+    static {
+        random.nextBytes(data);
+    }
+
+    @Test
+    public void testFileRegion() throws Throwable {
+        run();
+    }
+
+    public void testFileRegion(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+
+        TestHandler sh = new TestHandler();
+        TestHandler ch = new TestHandler();
+
+        sb.childHandler(sh);
+        cb.handler(ch);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        // Write some data before the file region to make sure the region
+        // is transferred after the data which was written before it.
+        cc.write(ChannelBuffers.wrappedBuffer(data, 0, 1024));
+        ChannelFuture f = cc.sendFile(new DefaultFileRegion(
+                new FileInputStream(file).getChannel(), 1024, data.length - 1024, true));
+
+        awaitTransfer(sc, sh, ch, f);
+    }
+
+    @Test
+    public void testFileRegionBetweenWrites() throws Throwable {
+        run();
+    }
+
+    public void testFileRegionBetweenWrites(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+
+        TestHandler sh = new TestHandler();
+        TestHandler ch = new TestHandler();
+
+        sb.childHandler(sh);
+        cb.handler(ch);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        // The data before the region is larger than the socket send buffer,
+        // so it is still being flushed when the data after the region is
+        // written.  The latter must wait until the region is transferred.
+        final int regionStart = data.length / 2;
+        final int regionEnd = data.length * 3 / 4;
+        cc.write(ChannelBuffers.wrappedBuffer(data, 0, regionStart));
+        ChannelFuture f = cc.sendFile(new DefaultFileRegion(
+                new FileInputStream(file).getChannel(), regionStart, regionEnd - regionStart, true));
+        cc.write(ChannelBuffers.wrappedBuffer(data, regionEnd, data.length - regionEnd));
+
+        awaitTransfer(sc, sh, ch, f);
+    }
+
+    private static void awaitTransfer(
+            Channel sc, TestHandler sh, TestHandler ch, ChannelFuture f) throws Throwable {
+        while (sh.counter < data.length) {
+            if (sh.exception.get() != null) {
+                break;
+            }
+            if (ch.exception.get() != null) {
+                break;
+            }
+
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+
+        if (sh.exception.get() == null && ch.exception.get() == null) {
+            f.sync();
+        }
+
+        sh.channel.close().sync();
+        ch.channel.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null && !(sh.exception.get() instanceof IOException)) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null && !(ch.exception.get() instanceof IOException)) {
+            throw ch.exception.get();
+        }
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+    }
+
+    @Test
+    public void testFileRegionEndedPrematurely() throws Throwable {
+        run();
+    }
+
+    public void testFileRegionEndedPrematurely(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data, 0, 65536);
+        out.close();
+
+        sb.childHandler(new TestHandler());
+        cb.handler(new TestHandler());
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        // The region is longer than the file, so the transfer must fail
+        // instead of waiting for the missing bytes forever.
+        ChannelFuture f = cc.sendFile(new DefaultFileRegion(
+                new FileInputStream(file).getChannel(), 0, 65536 + 1024, true));
+        assertTrue(f.await(5, TimeUnit.SECONDS));
+        assertTrue(f.cause() instanceof EOFException);
+
+        cc.close().sync();
+        sc.close().sync();
+    }
+
+    private static class TestHandler extends ChannelInboundStreamHandlerAdapter {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx)
+                throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void inboundBufferUpdated(
+                ChannelHandlerContext ctx, ChannelBuffer in)
+                throws Exception {
+            byte[] actual = new byte[in.readableBytes()];
+            in.readBytes(actual);
+
+            int lastIdx = counter;
+            for (int i = 0; i < actual.length; i ++) {
+                assertEquals(data[i + lastIdx], actual[i]);
+            }
+            counter += actual.length;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx,
+                Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ChannelBuffer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundStreamHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.nio.NioEventLoop;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.testsuite.util.TestUtils;
+import io.netty.util.SocketAddresses;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class SocketReusePortTest {
+
+    @Test
+    public void testReusePort() throws Exception {
+        NioServerSocketChannel ch1 = new NioServerSocketChannel();
+        NioServerSocketChannel ch2 = new NioServerSocketChannel();
+        final int numClients = 32;
+        final CountDownLatch latch = new CountDownLatch(numClients);
+        final Set<EventLoop> childLoops =
+                Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<EventLoop, Boolean>()));
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.eventLoop(new NioEventLoop(2), new NioEventLoop(1))
+          .channel(ch1)
+          .reusePortChannels(ch2)
+          .localAddress(new InetSocketAddress(SocketAddresses.LOCALHOST, TestUtils.getFreePort()))
+          .childHandler(new ChildHandler(childLoops, latch));
+
+        try {
+            try {
+                ch1.config().setReusePort(true);
+            } catch (ChannelException e) {
+                // SO_REUSEPORT is not supported by the platform.
+                Assume.assumeNoException(e);
+            }
+
+            sb.bind().sync();
+
+            assertTrue(ch1.config().isReusePort());
+            assertTrue(ch2.config().isReusePort());
+            assertTrue(ch1.isActive());
+            assertTrue(ch2.isActive());
+            assertEquals(ch1.localAddress(), ch2.localAddress());
+            assertNotSame(ch1.eventLoop(), ch2.eventLoop());
+
+            for (int i = 0; i < numClients; i ++) {
+                Socket s = new Socket(ch1.localAddress().getAddress(), ch1.localAddress().getPort());
+                s.close();
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            // The accepted channels must be served by the acceptor event loops only.
+            for (EventLoop l: childLoops) {
+                assertTrue(l == ch1.eventLoop() || l == ch2.eventLoop());
+            }
+
+            ch1.close().sync();
+            ch2.closeFuture().sync();
+        } finally {
+            sb.shutdown();
+        }
+    }
+
+    private static class ChildHandler extends ChannelInitializer<Channel> {
+        private final Set<EventLoop> childLoops;
+        private final CountDownLatch latch;
+
+        ChildHandler(Set<EventLoop> childLoops, CountDownLatch latch) {
+            this.childLoops = childLoops;
+            this.latch = latch;
+        }
+
+        @Override
+        public void initChannel(Channel ch) throws Exception {
+            childLoops.add(ch.eventLoop());
+            ch.pipeline().addLast(new ChannelInboundStreamHandlerAdapter() {
+                @Override
+                public void inboundBufferUpdated(ChannelHandlerContext ctx, ChannelBuffer in) throws Exception {
+                    in.skipBytes(in.readableBytes());
+                }
+            });
+            latch.countDown();
+        }
+    }
+}
@@ -18,6 +18,11 @@ package io.netty.testsuite.transport.socket;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.socket.epoll.Epoll;
+import io.netty.channel.socket.epoll.EpollDatagramChannel;
+import io.netty.channel.socket.epoll.EpollEventLoop;
+import io.netty.channel.socket.epoll.EpollServerSocketChannel;
+import io.netty.channel.socket.epoll.EpollSocketChannel;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioEventLoop;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -40,6 +45,16 @@ final class SocketTestPermutation {
         // Make the list of ServerBootstrap factories.
         List<Factory<ServerBootstrap>> sbfs =
                 new ArrayList<Factory<ServerBootstrap>>();
+        if (Epoll.isAvailable()) {
+            sbfs.add(new Factory<ServerBootstrap>() {
+                @Override
+                public ServerBootstrap newInstance() {
+                    return new ServerBootstrap().
+                                    eventLoop(new EpollEventLoop(), new EpollEventLoop()).
+                                    channel(new EpollServerSocketChannel());
+                }
+            });
+        }
         sbfs.add(new Factory<ServerBootstrap>() {
             @Override
             public ServerBootstrap newInstance() {
@@ -60,6 +75,14 @@ final class SocketTestPermutation {
         // Make the list of Bootstrap factories.
         List<Factory<Bootstrap>> cbfs =
                 new ArrayList<Factory<Bootstrap>>();
+        if (Epoll.isAvailable()) {
+            cbfs.add(new Factory<Bootstrap>() {
+                @Override
+                public Bootstrap newInstance() {
+                    return new Bootstrap().eventLoop(new EpollEventLoop()).channel(new EpollSocketChannel());
+                }
+            });
+        }
         cbfs.add(new Factory<Bootstrap>() {
             @Override
             public Bootstrap newInstance() {
@@ -98,6 +121,7 @@ final class SocketTestPermutation {
         }
 
         // Remove the OIO-OIO case which often leads to a dead lock by its nature.
+        // The OIO factories are always the last ones.
         list.remove(list.size() - 1);
 
         return list;
@@ -110,6 +134,14 @@ final class SocketTestPermutation {
         // Make the list of Bootstrap factories.
         List<Factory<Bootstrap>> bfs =
                 new ArrayList<Factory<Bootstrap>>();
+        if (Epoll.isAvailable()) {
+            bfs.add(new Factory<Bootstrap>() {
+                @Override
+                public Bootstrap newInstance() {
+                    return new Bootstrap().eventLoop(new EpollEventLoop()).channel(new EpollDatagramChannel());
+                }
+            });
+        }
         bfs.add(new Factory<Bootstrap>() {
             @Override
             public Bootstrap newInstance() {
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.ChannelBuffers;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundStreamHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SocketWritabilityTest extends AbstractSocketTest {
+
+    static final byte[] data = new byte[1048576 * 16];
+
+    @Test
+    public void testWritabilityChanged() throws Throwable {
+        run();
+    }
+
+    public void testWritabilityChanged(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        TestHandler sh = new TestHandler();
+        TestHandler ch = new TestHandler();
+
+        sb.childHandler(sh);
+        cb.handler(ch);
+        cb.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, 64 * 1024);
+        cb.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, 32 * 1024);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+        assertTrue(cc.isWritable());
+
+        ChannelFuture f = cc.write(ChannelBuffers.wrappedBuffer(data));
+
+        while (sh.counter < data.length) {
+            if (sh.exception.get() != null) {
+                break;
+            }
+            if (ch.exception.get() != null) {
+                break;
+            }
+
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+
+        if (sh.exception.get() == null && ch.exception.get() == null) {
+            f.sync();
+
+            // The channel must have become writable again once everything was flushed.
+            assertTrue(cc.isWritable());
+            assertEquals(0, ch.writabilityChanges.get() % 2);
+            if (cc instanceof NioSocketChannel) {
+                // The NIO transport cannot write 16 MiB at once.
+                assertTrue(ch.writabilityChanges.get() >= 2);
+            }
+        }
+
+        sh.channel.close().sync();
+        ch.channel.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null && !(sh.exception.get() instanceof IOException)) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null && !(ch.exception.get() instanceof IOException)) {
+            throw ch.exception.get();
+        }
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+    }
+
+    private static class TestHandler extends ChannelInboundStreamHandlerAdapter {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        final AtomicInteger writabilityChanges = new AtomicInteger();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx)
+                throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            // Every change must flip the writability.
+            boolean writable = writabilityChanges.incrementAndGet() % 2 == 0;
+            assertEquals(writable, ctx.channel().isWritable());
+        }
+
+        @Override
+        public void inboundBufferUpdated(
+                ChannelHandlerContext ctx, ChannelBuffer in)
+                throws Exception {
+            counter += in.readableBytes();
+            in.skipBytes(in.readableBytes());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx,
+                Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,822 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <errno.h>
+#include <limits.h>
+#include <sched.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+#include <unistd.h>
+#include <arpa/inet.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+#include <sys/socket.h>
+#include <sys/types.h>
+#include <sys/uio.h>
+
+#define NATIVE(name) Java_io_netty_channel_socket_epoll_Native_##name
+
+/*
+ * The size of the address returned to the Java side:
+ * a 16-byte IPv6 (or IPv4-mapped) address, a 4-byte scope ID and a 4-byte port.
+ */
+#define ADDRESS_LENGTH 24
+
+#ifndef IOV_MAX
+#define IOV_MAX 1024
+#endif
+
+static jclass ioExceptionClass;
+static jclass connectExceptionClass;
+static jclass outOfMemoryErrorClass;
+
+static jfieldID positionFieldId;
+static jfieldID limitFieldId;
+static jfieldID heapArrayFieldId;
+static jfieldID heapOffsetFieldId;
+
+/* AF_INET6 if the IPv6 dual-stack sockets are available, AF_INET otherwise. */
+static int socketFamily;
+
+static void throwException(JNIEnv *env, jclass exceptionClass, const char *op, int err) {
+    char msg[256];
+    snprintf(msg, sizeof(msg), "%s() failed: %s", op, strerror(err));
+    (*env)->ThrowNew(env, exceptionClass, msg);
+}
+
+static void throwIOException(JNIEnv *env, const char *op, int err) {
+    throwException(env, ioExceptionClass, op, err);
+}
+
+static jclass findGlobalClass(JNIEnv *env, const char *name) {
+    jclass localClass = (*env)->FindClass(env, name);
+    if (localClass == NULL) {
+        return NULL;
+    }
+    jclass globalClass = (*env)->NewGlobalRef(env, localClass);
+    (*env)->DeleteLocalRef(env, localClass);
+    return globalClass;
+}
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    ioExceptionClass = findGlobalClass(env, "java/io/IOException");
+    connectExceptionClass = findGlobalClass(env, "java/net/ConnectException");
+    outOfMemoryErrorClass = findGlobalClass(env, "java/lang/OutOfMemoryError");
+    if (ioExceptionClass == NULL || connectExceptionClass == NULL || outOfMemoryErrorClass == NULL) {
+        return JNI_ERR;
+    }
+
+    jclass bufferClass = (*env)->FindClass(env, "java/nio/Buffer");
+    jclass byteBufferClass = (*env)->FindClass(env, "java/nio/ByteBuffer");
+    if (bufferClass == NULL || byteBufferClass == NULL) {
+        return JNI_ERR;
+    }
+    positionFieldId = (*env)->GetFieldID(env, bufferClass, "position", "I");
+    limitFieldId = (*env)->GetFieldID(env, bufferClass, "limit", "I");
+    heapArrayFieldId = (*env)->GetFieldID(env, byteBufferClass, "hb", "[B");
+    heapOffsetFieldId = (*env)->GetFieldID(env, byteBufferClass, "offset", "I");
+    if (positionFieldId == NULL || limitFieldId == NULL ||
+        heapArrayFieldId == NULL || heapOffsetFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    int fd = socket(AF_INET6, SOCK_STREAM, 0);
+    if (fd >= 0) {
+        socketFamily = AF_INET6;
+        close(fd);
+    } else {
+        socketFamily = AF_INET;
+    }
+
+    return JNI_VERSION_1_6;
+}
+
+JNIEXPORT void JNICALL JNI_OnUnload(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return;
+    }
+    (*env)->DeleteGlobalRef(env, ioExceptionClass);
+    (*env)->DeleteGlobalRef(env, connectExceptionClass);
+    (*env)->DeleteGlobalRef(env, outOfMemoryErrorClass);
+}
+
+/* ---- Addresses ---- */
+
+static int toSockaddr(
+        JNIEnv *env, jbyteArray address, jint scopeId, jint port,
+        struct sockaddr_storage *addr, socklen_t *addrLen) {
+    jsize len = (*env)->GetArrayLength(env, address);
+    memset(addr, 0, sizeof(struct sockaddr_storage));
+    if (socketFamily == AF_INET6) {
+        struct sockaddr_in6 *ip6 = (struct sockaddr_in6 *) addr;
+        ip6->sin6_family = AF_INET6;
+        ip6->sin6_port = htons((uint16_t) port);
+        ip6->sin6_scope_id = (uint32_t) scopeId;
+        if (len == 4) {
+            /* IPv4-mapped IPv6 address */
+            ip6->sin6_addr.s6_addr[10] = 0xff;
+            ip6->sin6_addr.s6_addr[11] = 0xff;
+            (*env)->GetByteArrayRegion(env, address, 0, 4, (jbyte *) &ip6->sin6_addr.s6_addr[12]);
+        } else {
+            (*env)->GetByteArrayRegion(env, address, 0, 16, (jbyte *) &ip6->sin6_addr.s6_addr);
+        }
+        *addrLen = sizeof(struct sockaddr_in6);
+    } else {
+        if (len != 4) {
+            throwIOException(env, "toSockaddr", EAFNOSUPPORT);
+            return -1;
+        }
+        struct sockaddr_in *ip4 = (struct sockaddr_in *) addr;
+        ip4->sin_family = AF_INET;
+        ip4->sin_port = htons((uint16_t) port);
+        (*env)->GetByteArrayRegion(env, address, 0, 4, (jbyte *) &ip4->sin_addr.s_addr);
+        *addrLen = sizeof(struct sockaddr_in);
+    }
+    return 0;
+}
+
+static void putInt(jbyte *buf, int offset, uint32_t value) {
+    buf[offset] = (jbyte) (value >> 24);
+    buf[offset + 1] = (jbyte) (value >> 16);
+    buf[offset + 2] = (jbyte) (value >> 8);
+    buf[offset + 3] = (jbyte) value;
+}
+
+/* Encodes the specified address into ADDRESS_LENGTH bytes. */
+static void fromSockaddr(const struct sockaddr_storage *addr, jbyte *buf) {
+    memset(buf, 0, ADDRESS_LENGTH);
+    if (addr->ss_family == AF_INET6) {
+        const struct sockaddr_in6 *ip6 = (const struct sockaddr_in6 *) addr;
+        memcpy(buf, &ip6->sin6_addr.s6_addr, 16);
+        putInt(buf, 16, ip6->sin6_scope_id);
+        putInt(buf, 20, ntohs(ip6->sin6_port));
+    } else {
+        const struct sockaddr_in *ip4 = (const struct sockaddr_in *) addr;
+        buf[10] = (jbyte) 0xff;
+        buf[11] = (jbyte) 0xff;
+        memcpy(buf + 12, &ip4->sin_addr.s_addr, 4);
+        putInt(buf, 20, ntohs(ip4->sin_port));
+    }
+}
+
+static jbyteArray newAddressArray(JNIEnv *env, const struct sockaddr_storage *addr) {
+    jbyte buf[ADDRESS_LENGTH];
+    fromSockaddr(addr, buf);
+    jbyteArray array = (*env)->NewByteArray(env, ADDRESS_LENGTH);
+    if (array != NULL) {
+        (*env)->SetByteArrayRegion(env, array, 0, ADDRESS_LENGTH, buf);
+    }
+    return array;
+}
+
+/* ---- Buffers ---- */
+
+/*
+ * Resolves the memory of a ByteBuffer.  A direct buffer is accessed via its
+ * address.  A heap buffer is accessed via its backing array, which must be
+ * pinned with GetPrimitiveArrayCritical() before the memory is accessed.
+ */
+typedef struct {
+    char *address;
+    jbyteArray array;
+    jint offset;
+} buffer_ref;
+
+static void resolveBuffer(JNIEnv *env, jobject buf, buffer_ref *ref) {
+    ref->address = (*env)->GetDirectBufferAddress(env, buf);
+    if (ref->address != NULL) {
+        ref->array = NULL;
+        ref->offset = 0;
+    } else {
+        ref->array = (*env)->GetObjectField(env, buf, heapArrayFieldId);
+        ref->offset = (*env)->GetIntField(env, buf, heapOffsetFieldId);
+    }
+}
+
+static char *pinBuffer(JNIEnv *env, buffer_ref *ref) {
+    if (ref->array == NULL) {
+        return ref->address;
+    }
+    char *base = (*env)->GetPrimitiveArrayCritical(env, ref->array, NULL);
+    if (base == NULL) {
+        return NULL;
+    }
+    return base + ref->offset;
+}
+
+static void unpinBuffer(JNIEnv *env, buffer_ref *ref, char *pinned, jint mode) {
+    if (ref->array != NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, ref->array, pinned - ref->offset, mode);
+    }
+}
+
+/* ---- epoll ---- */
+
+JNIEXPORT jint JNICALL NATIVE(epollCreate)(JNIEnv *env, jclass clazz) {
+    int efd = epoll_create1(EPOLL_CLOEXEC);
+    if (efd < 0) {
+        throwIOException(env, "epoll_create1", errno);
+    }
+    return efd;
+}
+
+JNIEXPORT jint JNICALL NATIVE(epollWait)(
+        JNIEnv *env, jclass clazz, jint efd, jlongArray events, jint timeout) {
+    int maxEvents = (*env)->GetArrayLength(env, events);
+    struct epoll_event ev[maxEvents];
+    int ready;
+    do {
+        ready = epoll_wait(efd, ev, maxEvents, timeout);
+    } while (ready < 0 && errno == EINTR && timeout == 0);
+
+    if (ready < 0) {
+        if (errno == EINTR) {
+            return 0;
+        }
+        throwIOException(env, "epoll_wait", errno);
+        return -1;
+    }
+
+    if (ready > 0) {
+        jlong packed[ready];
+        int i;
+        for (i = 0; i < ready; i ++) {
+            packed[i] = ((jlong) ev[i].data.fd << 32) | (jlong) ev[i].events;
+        }
+        (*env)->SetLongArrayRegion(env, events, 0, ready, packed);
+    }
+    return ready;
+}
+
+static void epollCtl(JNIEnv *env, jint efd, int op, jint fd, jint flags) {
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    ev.events = (uint32_t) flags;
+    ev.data.fd = fd;
+    if (epoll_ctl(efd, op, fd, &ev) < 0) {
+        throwIOException(env, "epoll_ctl", errno);
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(epollCtlAdd)(JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags) {
+    epollCtl(env, efd, EPOLL_CTL_ADD, fd, flags);
+}
+
+JNIEXPORT void JNICALL NATIVE(epollCtlMod)(JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags) {
+    epollCtl(env, efd, EPOLL_CTL_MOD, fd, flags);
+}
+
+JNIEXPORT void JNICALL NATIVE(epollCtlDel)(JNIEnv *env, jclass clazz, jint efd, jint fd) {
+    epollCtl(env, efd, EPOLL_CTL_DEL, fd, 0);
+}
+
+JNIEXPORT jint JNICALL NATIVE(eventFd)(JNIEnv *env, jclass clazz) {
+    int fd = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    if (fd < 0) {
+        throwIOException(env, "eventfd", errno);
+    }
+    return fd;
+}
+
+JNIEXPORT void JNICALL NATIVE(eventFdWrite)(JNIEnv *env, jclass clazz, jint fd, jlong value) {
+    uint64_t v = (uint64_t) value;
+    for (;;) {
+        if (write(fd, &v, sizeof(v)) >= 0) {
+            return;
+        }
+        if (errno == EINTR) {
+            continue;
+        }
+        if (errno == EAGAIN) {
+            /* The counter is about to overflow - the loop wakes up anyway. */
+            return;
+        }
+        throwIOException(env, "eventfd_write", errno);
+        return;
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(eventFdRead)(JNIEnv *env, jclass clazz, jint fd) {
+    uint64_t v;
+    while (read(fd, &v, sizeof(v)) < 0 && errno == EINTR) {
+        continue;
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(close)(JNIEnv *env, jclass clazz, jint fd) {
+    /* Do not retry on EINTR - the descriptor is released anyway on Linux. */
+    if (close(fd) < 0 && errno != EINTR) {
+        throwIOException(env, "close", errno);
+    }
+}
+
+/* ---- Threads ---- */
+
+JNIEXPORT void JNICALL NATIVE(schedSetAffinity)(JNIEnv *env, jclass clazz, jintArray cpus) {
+    jsize count = (*env)->GetArrayLength(env, cpus);
+    jint c[count > 0 ? count : 1];
+    (*env)->GetIntArrayRegion(env, cpus, 0, count, c);
+
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    jsize i;
+    for (i = 0; i < count; i ++) {
+        if (c[i] < 0 || c[i] >= CPU_SETSIZE) {
+            throwIOException(env, "sched_setaffinity", EINVAL);
+            return;
+        }
+        CPU_SET(c[i], &set);
+    }
+
+    /* pid 0 is the calling thread, not the whole process. */
+    if (sched_setaffinity(0, sizeof(set), &set) < 0) {
+        throwIOException(env, "sched_setaffinity", errno);
+    }
+}
+
+/* ---- Stream I/O ---- */
+
+JNIEXPORT jint JNICALL NATIVE(read)(
+        JNIEnv *env, jclass clazz, jint fd, jobject buf, jint pos, jint limit) {
+    if (limit <= pos) {
+        return 0;
+    }
+
+    buffer_ref ref;
+    resolveBuffer(env, buf, &ref);
+    char *base = pinBuffer(env, &ref);
+    if (base == NULL) {
+        (*env)->ThrowNew(env, outOfMemoryErrorClass, "failed to pin a heap buffer");
+        return -1;
+    }
+
+    ssize_t res;
+    do {
+        res = read(fd, base + pos, (size_t) (limit - pos));
+    } while (res < 0 && errno == EINTR);
+    int err = errno;
+    unpinBuffer(env, &ref, base, 0);
+
+    if (res > 0) {
+        return (jint) res;
+    }
+    if (res == 0) {
+        /* End of stream */
+        return -1;
+    }
+    if (err == EAGAIN || err == EWOULDBLOCK) {
+        return 0;
+    }
+    throwIOException(env, "read", err);
+    return -1;
+}
+
+JNIEXPORT jint JNICALL NATIVE(write)(
+        JNIEnv *env, jclass clazz, jint fd, jobject buf, jint pos, jint limit) {
+    if (limit <= pos) {
+        return 0;
+    }
+
+    buffer_ref ref;
+    resolveBuffer(env, buf, &ref);
+    char *base = pinBuffer(env, &ref);
+    if (base == NULL) {
+        (*env)->ThrowNew(env, outOfMemoryErrorClass, "failed to pin a heap buffer");
+        return -1;
+    }
+
+    ssize_t res;
+    do {
+        res = write(fd, base + pos, (size_t) (limit - pos));
+    } while (res < 0 && errno == EINTR);
+    int err = errno;
+    unpinBuffer(env, &ref, base, JNI_ABORT);
+
+    if (res >= 0) {
+        return (jint) res;
+    }
+    if (err == EAGAIN || err == EWOULDBLOCK) {
+        return 0;
+    }
+    throwIOException(env, "write", err);
+    return -1;
+}
+
+JNIEXPORT jlong JNICALL NATIVE(writev)(
+        JNIEnv *env, jclass clazz, jint fd, jobjectArray buffers, jint offset, jint length) {
+    if (length > IOV_MAX) {
+        length = IOV_MAX;
+    }
+    if (length <= 0) {
+        return 0;
+    }
+
+    /* Keep the local references of the buffers and their arrays. */
+    if ((*env)->PushLocalFrame(env, length * 2 + 8) < 0) {
+        return -1;
+    }
+
+    struct iovec iov[length];
+    buffer_ref refs[length];
+    jint positions[length];
+    char *bases[length];
+    int i;
+    for (i = 0; i < length; i ++) {
+        jobject buf = (*env)->GetObjectArrayElement(env, buffers, offset + i);
+        jint limit = (*env)->GetIntField(env, buf, limitFieldId);
+        positions[i] = (*env)->GetIntField(env, buf, positionFieldId);
+        resolveBuffer(env, buf, &refs[i]);
+        iov[i].iov_len = (size_t) (limit - positions[i]);
+    }
+
+    /* Pin the heap buffers.  No JNI calls are allowed until they are unpinned. */
+    int pinned;
+    for (pinned = 0; pinned < length; pinned ++) {
+        bases[pinned] = pinBuffer(env, &refs[pinned]);
+        if (bases[pinned] == NULL) {
+            break;
+        }
+        iov[pinned].iov_base = bases[pinned] + positions[pinned];
+    }
+
+    ssize_t res = -1;
+    int err = ENOMEM;
+    if (pinned == length) {
+        do {
+            res = writev(fd, iov, length);
+        } while (res < 0 && errno == EINTR);
+        err = errno;
+    }
+
+    for (i = pinned - 1; i >= 0; i --) {
+        unpinBuffer(env, &refs[i], bases[i], JNI_ABORT);
+    }
+    (*env)->PopLocalFrame(env, NULL);
+
+    if (res >= 0) {
+        return (jlong) res;
+    }
+    if (pinned != length) {
+        (*env)->ThrowNew(env, outOfMemoryErrorClass, "failed to pin a heap buffer");
+        return -1;
+    }
+    if (err == EAGAIN || err == EWOULDBLOCK) {
+        return 0;
+    }
+    throwIOException(env, "writev", err);
+    return -1;
+}
+
+/* ---- Datagram I/O ---- */
+
+JNIEXPORT jint JNICALL NATIVE(sendTo)(
+        JNIEnv *env, jclass clazz, jint fd, jobject buf, jint pos, jint limit,
+        jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    if (toSockaddr(env, address, scopeId, port, &addr, &addrLen) < 0) {
+        return -1;
+    }
+
+    buffer_ref ref;
+    resolveBuffer(env, buf, &ref);
+    char *base = pinBuffer(env, &ref);
+    if (base == NULL) {
+        (*env)->ThrowNew(env, outOfMemoryErrorClass, "failed to pin a heap buffer");
+        return -1;
+    }
+
+    ssize_t res;
+    do {
+        res = sendto(fd, base + pos, (size_t) (limit - pos), 0, (struct sockaddr *) &addr, addrLen);
+    } while (res < 0 && errno == EINTR);
+    int err = errno;
+    unpinBuffer(env, &ref, base, JNI_ABORT);
+
+    if (res >= 0) {
+        return (jint) res;
+    }
+    if (err == EAGAIN || err == EWOULDBLOCK) {
+        return -1;
+    }
+    throwIOException(env, "sendto", err);
+    return -1;
+}
+
+JNIEXPORT jint JNICALL NATIVE(recvFrom)(
+        JNIEnv *env, jclass clazz, jint fd, jobject buf, jint pos, jint limit, jbyteArray address) {
+    buffer_ref ref;
+    resolveBuffer(env, buf, &ref);
+    char *base = pinBuffer(env, &ref);
+    if (base == NULL) {
+        (*env)->ThrowNew(env, outOfMemoryErrorClass, "failed to pin a heap buffer");
+        return -1;
+    }
+
+    struct sockaddr_storage addr;
+    socklen_t addrLen = sizeof(addr);
+    ssize_t res;
+    do {
+        res = recvfrom(fd, base + pos, (size_t) (limit - pos), 0, (struct sockaddr *) &addr, &addrLen);
+    } while (res < 0 && errno == EINTR);
+    int err = errno;
+    unpinBuffer(env, &ref, base, 0);
+
+    if (res >= 0) {
+        jbyte encoded[ADDRESS_LENGTH];
+        fromSockaddr(&addr, encoded);
+        (*env)->SetByteArrayRegion(env, address, 0, ADDRESS_LENGTH, encoded);
+        return (jint) res;
+    }
+    if (err == EAGAIN || err == EWOULDBLOCK) {
+        return -1;
+    }
+    throwIOException(env, "recvfrom", err);
+    return -1;
+}
+
+/* ---- Sockets ---- */
+
+static jint newSocket(JNIEnv *env, int type) {
+    int fd = socket(socketFamily, type | SOCK_NONBLOCK | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        throwIOException(env, "socket", errno);
+        return -1;
+    }
+    if (socketFamily == AF_INET6) {
+        /* Accept IPv4 traffic as well. */
+        int optval = 0;
+        if (setsockopt(fd, IPPROTO_IPV6, IPV6_V6ONLY, &optval, sizeof(optval)) < 0) {
+            int err = errno;
+            close(fd);
+            throwIOException(env, "setsockopt", err);
+            return -1;
+        }
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL NATIVE(socketStreamFd)(JNIEnv *env, jclass clazz) {
+    return newSocket(env, SOCK_STREAM);
+}
+
+JNIEXPORT jint JNICALL NATIVE(socketDgramFd)(JNIEnv *env, jclass clazz) {
+    return newSocket(env, SOCK_DGRAM);
+}
+
+JNIEXPORT void JNICALL NATIVE(bind)(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    if (toSockaddr(env, address, scopeId, port, &addr, &addrLen) < 0) {
+        return;
+    }
+    if (bind(fd, (struct sockaddr *) &addr, addrLen) < 0) {
+        throwIOException(env, "bind", errno);
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(listen)(JNIEnv *env, jclass clazz, jint fd, jint backlog) {
+    if (listen(fd, backlog) < 0) {
+        throwIOException(env, "listen", errno);
+    }
+}
+
+JNIEXPORT jboolean JNICALL NATIVE(connect)(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    if (toSockaddr(env, address, scopeId, port, &addr, &addrLen) < 0) {
+        return JNI_FALSE;
+    }
+
+    int res;
+    do {
+        res = connect(fd, (struct sockaddr *) &addr, addrLen);
+    } while (res < 0 && errno == EINTR);
+
+    if (res == 0) {
+        return JNI_TRUE;
+    }
+    if (errno == EINPROGRESS) {
+        return JNI_FALSE;
+    }
+    throwException(env, errno == ECONNREFUSED? connectExceptionClass : ioExceptionClass, "connect", errno);
+    return JNI_FALSE;
+}
+
+JNIEXPORT void JNICALL NATIVE(finishConnect)(JNIEnv *env, jclass clazz, jint fd) {
+    int err = 0;
+    socklen_t len = sizeof(err);
+    if (getsockopt(fd, SOL_SOCKET, SO_ERROR, &err, &len) < 0) {
+        throwIOException(env, "getsockopt", errno);
+        return;
+    }
+    if (err != 0) {
+        throwException(env, connectExceptionClass, "connect", err);
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(disconnect)(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr addr;
+    memset(&addr, 0, sizeof(addr));
+    addr.sa_family = AF_UNSPEC;
+    if (connect(fd, &addr, sizeof(addr)) < 0 && errno != EAFNOSUPPORT) {
+        throwIOException(env, "connect", errno);
+    }
+}
+
+JNIEXPORT jint JNICALL NATIVE(accept)(JNIEnv *env, jclass clazz, jint fd) {
+    for (;;) {
+        int child = accept4(fd, NULL, NULL, SOCK_NONBLOCK | SOCK_CLOEXEC);
+        if (child >= 0) {
+            return child;
+        }
+        switch (errno) {
+        case EINTR:
+        case ECONNABORTED:
+            continue;
+        case EAGAIN:
+#if EAGAIN != EWOULDBLOCK
+        case EWOULDBLOCK:
+#endif
+            return -1;
+        default:
+            throwIOException(env, "accept", errno);
+            return -1;
+        }
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(shutdown)(JNIEnv *env, jclass clazz, jint fd, jboolean read, jboolean write) {
+    int how;
+    if (read && write) {
+        how = SHUT_RDWR;
+    } else if (read) {
+        how = SHUT_RD;
+    } else if (write) {
+        how = SHUT_WR;
+    } else {
+        return;
+    }
+    if (shutdown(fd, how) < 0 && errno != ENOTCONN) {
+        throwIOException(env, "shutdown", errno);
+    }
+}
+
+JNIEXPORT jbyteArray JNICALL NATIVE(localAddress)(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getsockname(fd, (struct sockaddr *) &addr, &len) < 0) {
+        return NULL;
+    }
+    return newAddressArray(env, &addr);
+}
+
+JNIEXPORT jbyteArray JNICALL NATIVE(remoteAddress)(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getpeername(fd, (struct sockaddr *) &addr, &len) < 0) {
+        return NULL;
+    }
+    return newAddressArray(env, &addr);
+}
+
+/* ---- Socket options ---- */
+
+static void setIntOption(JNIEnv *env, jint fd, int level, int optname, jint value) {
+    int optval = value;
+    if (setsockopt(fd, level, optname, &optval, sizeof(optval)) < 0) {
+        throwIOException(env, "setsockopt", errno);
+    }
+}
+
+static jint getIntOption(JNIEnv *env, jint fd, int level, int optname) {
+    int optval = 0;
+    socklen_t len = sizeof(optval);
+    if (getsockopt(fd, level, optname, &optval, &len) < 0) {
+        throwIOException(env, "getsockopt", errno);
+        return -1;
+    }
+    return optval;
+}
+
+#define INT_OPTION(name, level, optname) \
+    JNIEXPORT void JNICALL NATIVE(set##name)(JNIEnv *env, jclass clazz, jint fd, jint value) { \
+        setIntOption(env, fd, level, optname, value); \
+    } \
+    JNIEXPORT jint JNICALL NATIVE(get##name)(JNIEnv *env, jclass clazz, jint fd) { \
+        return getIntOption(env, fd, level, optname); \
+    }
+
+INT_OPTION(ReuseAddress, SOL_SOCKET, SO_REUSEADDR)
+INT_OPTION(ReusePort, SOL_SOCKET, SO_REUSEPORT)
+INT_OPTION(KeepAlive, SOL_SOCKET, SO_KEEPALIVE)
+INT_OPTION(Broadcast, SOL_SOCKET, SO_BROADCAST)
+INT_OPTION(ReceiveBufferSize, SOL_SOCKET, SO_RCVBUF)
+INT_OPTION(SendBufferSize, SOL_SOCKET, SO_SNDBUF)
+INT_OPTION(TcpNoDelay, IPPROTO_TCP, TCP_NODELAY)
+INT_OPTION(TcpCork, IPPROTO_TCP, TCP_CORK)
+INT_OPTION(TcpQuickAck, IPPROTO_TCP, TCP_QUICKACK)
+INT_OPTION(TrafficClass, IPPROTO_IP, IP_TOS)
+INT_OPTION(MulticastTtl, IPPROTO_IP, IP_MULTICAST_TTL)
+INT_OPTION(MulticastLoop, IPPROTO_IP, IP_MULTICAST_LOOP)
+
+JNIEXPORT void JNICALL NATIVE(setSoLinger)(JNIEnv *env, jclass clazz, jint fd, jint value) {
+    struct linger l;
+    l.l_onoff = value >= 0;
+    l.l_linger = value >= 0? value : 0;
+    if (setsockopt(fd, SOL_SOCKET, SO_LINGER, &l, sizeof(l)) < 0) {
+        throwIOException(env, "setsockopt", errno);
+    }
+}
+
+JNIEXPORT jint JNICALL NATIVE(getSoLinger)(JNIEnv *env, jclass clazz, jint fd) {
+    struct linger l;
+    socklen_t len = sizeof(l);
+    if (getsockopt(fd, SOL_SOCKET, SO_LINGER, &l, &len) < 0) {
+        throwIOException(env, "getsockopt", errno);
+        return -1;
+    }
+    return l.l_onoff? l.l_linger : -1;
+}
+
+/* ---- IPv4 multicast ---- */
+
+JNIEXPORT void JNICALL NATIVE(setMulticastInterface)(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray interfaceAddress, jint interfaceIndex) {
+    struct ip_mreqn mreqn;
+    memset(&mreqn, 0, sizeof(mreqn));
+    if (interfaceAddress != NULL) {
+        (*env)->GetByteArrayRegion(env, interfaceAddress, 0, 4, (jbyte *) &mreqn.imr_address.s_addr);
+    }
+    mreqn.imr_ifindex = interfaceIndex;
+    if (setsockopt(fd, IPPROTO_IP, IP_MULTICAST_IF, &mreqn, sizeof(mreqn)) < 0) {
+        throwIOException(env, "setsockopt", errno);
+    }
+}
+
+JNIEXPORT jbyteArray JNICALL NATIVE(getMulticastInterface)(JNIEnv *env, jclass clazz, jint fd) {
+    struct in_addr addr;
+    socklen_t len = sizeof(addr);
+    if (getsockopt(fd, IPPROTO_IP, IP_MULTICAST_IF, &addr, &len) < 0) {
+        throwIOException(env, "getsockopt", errno);
+        return NULL;
+    }
+    jbyteArray array = (*env)->NewByteArray(env, 4);
+    if (array != NULL) {
+        (*env)->SetByteArrayRegion(env, array, 0, 4, (jbyte *) &addr.s_addr);
+    }
+    return array;
+}
+
+static void updateMembership(
+        JNIEnv *env, int optname, jint fd, jbyteArray group, jbyteArray interfaceAddress, jint interfaceIndex) {
+    struct ip_mreqn mreqn;
+    memset(&mreqn, 0, sizeof(mreqn));
+    (*env)->GetByteArrayRegion(env, group, 0, 4, (jbyte *) &mreqn.imr_multiaddr.s_addr);
+    if (interfaceAddress != NULL) {
+        (*env)->GetByteArrayRegion(env, interfaceAddress, 0, 4, (jbyte *) &mreqn.imr_address.s_addr);
+    }
+    mreqn.imr_ifindex = interfaceIndex;
+    if (setsockopt(fd, IPPROTO_IP, optname, &mreqn, sizeof(mreqn)) < 0) {
+        throwIOException(env, "setsockopt", errno);
+    }
+}
+
+JNIEXPORT void JNICALL NATIVE(joinGroup)(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray group, jbyteArray interfaceAddress, jint interfaceIndex) {
+    updateMembership(env, IP_ADD_MEMBERSHIP, fd, group, interfaceAddress, interfaceIndex);
+}
+
+JNIEXPORT void JNICALL NATIVE(leaveGroup)(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray group, jbyteArray interfaceAddress, jint interfaceIndex) {
+    updateMembership(env, IP_DROP_MEMBERSHIP, fd, group, interfaceAddress, interfaceIndex);
+}
+
+JNIEXPORT jint JNICALL NATIVE(iovMax)(JNIEnv *env, jclass clazz) {
+    return IOV_MAX;
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The base class of the channels which are watched by an {@link EpollEventLoop}.
+ * <p>
+ * A channel is added to the {@code epoll} instance of its event loop lazily,
+ * when it first needs an event, because a socket which is neither connected
+ * nor listening reports {@code EPOLLHUP} regardless of its flags.
+ */
+abstract class AbstractEpollChannel extends AbstractChannel {
+
+    final int fd;
+    private final int readFlag;
+
+    /**
+     * The {@code epoll} flags of this channel except {@code EPOLLET}.
+     * Accessed only by the event loop.
+     */
+    private int flags;
+
+    /**
+     * Set by {@link EpollChildEventLoop} only.
+     */
+    boolean addedToEpoll;
+
+    private volatile boolean open = true;
+    private volatile boolean edgeTriggered = true;
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelFuture connectFuture;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private ConnectException connectTimeoutException;
+
+    AbstractEpollChannel(Channel parent, Integer id, int fd, int readFlag) {
+        super(parent, id);
+        this.fd = fd;
+        this.readFlag = readFlag;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return Native.decodeAddress(Native.localAddress(fd));
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return Native.decodeAddress(Native.remoteAddress(fd));
+    }
+
+    int epollFlags() {
+        return edgeTriggered? flags | Native.EPOLLET : flags;
+    }
+
+    boolean isFlagSet(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Adds the specified flag.  In edge-triggered mode, the channel is
+     * re-armed even if the flag is set already, so that the event loop is
+     * notified again if the channel is still ready.
+     */
+    final void setFlag(int flag) throws IOException {
+        if ((flags & flag) == 0) {
+            flags |= flag;
+            modifyEvents();
+        } else if (edgeTriggered) {
+            modifyEvents();
+        }
+    }
+
+    final void clearFlag(int flag) throws IOException {
+        if ((flags & flag) != 0) {
+            flags &= ~flag;
+            modifyEvents();
+        }
+    }
+
+    private void modifyEvents() throws IOException {
+        if (isOpen() && isRegistered()) {
+            ((EpollChildEventLoop) eventLoop()).modify(this);
+        }
+    }
+
+    /**
+     * Returns the flag this channel reads with, which is {@code 0} if
+     * {@linkplain io.netty.channel.ChannelConfig#isAutoRead() auto-read} is
+     * disabled.
+     */
+    final int readFlags() {
+        return config().isAutoRead()? readFlag : 0;
+    }
+
+    /**
+     * Stops watching the readiness for reading until {@link #doBeginRead()}
+     * is called.
+     */
+    final void removeReadFlag() throws IOException {
+        clearFlag(readFlag);
+    }
+
+    boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    void setEdgeTriggered(final boolean edgeTriggered) {
+        if (this.edgeTriggered == edgeTriggered) {
+            return;
+        }
+        this.edgeTriggered = edgeTriggered;
+        if (isRegistered()) {
+            // Apply the new mode to the epoll instance.  A channel which is
+            // not watched yet picks up the mode when it is added.
+            eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!addedToEpoll) {
+                        return;
+                    }
+                    try {
+                        modifyEvents();
+                    } catch (IOException e) {
+                        pipeline().fireExceptionCaught(e);
+                        unsafe().close(unsafe().voidFuture());
+                    }
+                }
+            });
+        }
+    }
+
+    boolean isConnectPending() {
+        return connectFuture != null;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof EpollChildEventLoop;
+    }
+
+    @Override
+    protected boolean isFlushPending() {
+        return (flags & Native.EPOLLOUT) != 0;
+    }
+
+    @Override
+    protected Runnable doRegister() throws Exception {
+        if (isActive()) {
+            flags |= readFlags();
+            ((EpollChildEventLoop) eventLoop()).modify(this);
+        }
+        return null;
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        ((EpollChildEventLoop) eventLoop()).remove(this);
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        setFlag(readFlag);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            // Forget the channel before closing the descriptor, which can be
+            // reused by a new channel as soon as it is closed.
+            if (isRegistered() && eventLoop().inEventLoop()) {
+                ((EpollChildEventLoop) eventLoop()).remove(this);
+            }
+        } finally {
+            Native.close(fd);
+        }
+    }
+
+    static InetSocketAddress checkResolvable(SocketAddress address) {
+        InetSocketAddress a = (InetSocketAddress) address;
+        if (a.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+        return a;
+    }
+
+    static void bind(int fd, SocketAddress localAddress) throws IOException {
+        InetSocketAddress a = checkResolvable(localAddress);
+        Native.bind(fd, a.getAddress().getAddress(), Native.scopeId(a.getAddress()), a.getPort());
+    }
+
+    static boolean connect(int fd, SocketAddress remoteAddress) throws IOException {
+        InetSocketAddress a = checkResolvable(remoteAddress);
+        return Native.connect(fd, a.getAddress().getAddress(), Native.scopeId(a.getAddress()), a.getPort());
+    }
+
+    /**
+     * Reads from the channel when {@code EPOLLIN} is reported.  In
+     * edge-triggered mode, an implementation which stops reading before the
+     * socket would block must call {@link #scheduleReadIfEdgeTriggered()},
+     * because the remaining data is not reported again.
+     */
+    abstract class AbstractEpollUnsafe extends AbstractUnsafe {
+
+        private final Runnable readTask = new Runnable() {
+            @Override
+            public void run() {
+                readPending = false;
+                if (isOpen() && isFlagSet(readFlag)) {
+                    epollInReady();
+                }
+            }
+        };
+        private boolean readPending;
+
+        abstract void epollInReady();
+
+        final void scheduleReadIfEdgeTriggered() {
+            if (edgeTriggered && config().isAutoRead() && !readPending) {
+                readPending = true;
+                eventLoop().execute(readTask);
+            }
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelFuture future) {
+            if (eventLoop().inEventLoop()) {
+                if (!ensureOpen(future)) {
+                    return;
+                }
+
+                try {
+                    if (connectFuture != null) {
+                        throw new IllegalStateException("connection attempt already made");
+                    }
+
+                    boolean wasActive = isActive();
+                    if (doConnect(remoteAddress, localAddress)) {
+                        future.setSuccess();
+                        if (!wasActive && isActive()) {
+                            pipeline().fireChannelActive();
+                        }
+                    } else {
+                        connectFuture = future;
+
+                        // Schedule connect timeout.
+                        int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                        if (connectTimeoutMillis > 0) {
+                            connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (connectTimeoutException == null) {
+                                        connectTimeoutException = new ConnectException("connection timed out");
+                                    }
+                                    ChannelFuture connectFuture = AbstractEpollChannel.this.connectFuture;
+                                    if (connectFuture != null &&
+                                        connectFuture.setFailure(connectTimeoutException)) {
+                                        pipeline().fireExceptionCaught(connectTimeoutException);
+                                        close(voidFuture());
+                                    }
+                                }
+                            }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                } catch (Throwable t) {
+                    future.setFailure(t);
+                    pipeline().fireExceptionCaught(t);
+                    closeIfClosed();
+                }
+            } else {
+                eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        connect(remoteAddress, localAddress, future);
+                    }
+                });
+            }
+        }
+
+        void finishConnect() {
+            assert eventLoop().inEventLoop();
+            assert connectFuture != null;
+            try {
+                boolean wasActive = isActive();
+                doFinishConnect();
+                connectFuture.setSuccess();
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+            } catch (Throwable t) {
+                connectFuture.setFailure(t);
+                pipeline().fireExceptionCaught(t);
+                close(voidFuture());
+            } finally {
+                if (connectTimeoutFuture != null) {
+                    connectTimeoutFuture.cancel(false);
+                }
+                connectFuture = null;
+            }
+        }
+    }
+
+    protected abstract boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception;
+    protected abstract void doFinishConnect() throws Exception;
+}
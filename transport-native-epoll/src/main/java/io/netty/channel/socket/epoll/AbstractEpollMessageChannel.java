@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelType;
+
+import java.io.IOException;
+import java.util.Queue;
+
+abstract class AbstractEpollMessageChannel extends AbstractEpollChannel {
+
+    AbstractEpollMessageChannel(Channel parent, Integer id, int fd) {
+        super(parent, id, fd, Native.EPOLLIN);
+    }
+
+    @Override
+    public ChannelType type() {
+        return ChannelType.MESSAGE;
+    }
+
+    @Override
+    protected Unsafe newUnsafe() {
+        return new EpollMessageUnsafe();
+    }
+
+    private final class EpollMessageUnsafe extends AbstractEpollUnsafe {
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+
+            final ChannelPipeline pipeline = pipeline();
+            boolean closed = false;
+            boolean read = false;
+            try {
+                if (!config().isAutoRead()) {
+                    // Consume the read request; the handler asks for the next read
+                    // via Channel.read() once it is ready for more messages.
+                    removeReadFlag();
+                }
+
+                final Queue<Object> msgBuf = pipeline.inboundMessageBuffer();
+
+                // Do not read more than maxMessagesPerRead messages so that
+                // the other channels of the event loop are not starved.
+                int maxMessagesPerRead = config().getMaxMessagesPerRead();
+                int totalReadAmount = 0;
+                for (;;) {
+                    int localReadAmount = doReadMessages(msgBuf, maxMessagesPerRead - totalReadAmount);
+                    if (localReadAmount > 0) {
+                        read = true;
+                        totalReadAmount += localReadAmount;
+                        if (totalReadAmount >= maxMessagesPerRead) {
+                            readLimitReached();
+                            // Not reported again in edge-triggered mode.
+                            scheduleReadIfEdgeTriggered();
+                            break;
+                        }
+                    } else if (localReadAmount == 0) {
+                        break;
+                    } else if (localReadAmount < 0) {
+                        closed = true;
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                if (read) {
+                    read = false;
+                    pipeline.fireInboundBufferUpdated();
+                }
+                pipeline.fireExceptionCaught(t);
+                if (t instanceof IOException) {
+                    close(voidFuture());
+                }
+            } finally {
+                if (read) {
+                    pipeline.fireInboundBufferUpdated();
+                }
+                if (closed && isOpen()) {
+                    close(voidFuture());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doFlushMessageBuffer(Queue<Object> buf) throws Exception {
+        final int writeSpinCount = config().getWriteSpinCount() - 1;
+        while (!buf.isEmpty()) {
+            boolean wrote = false;
+            for (int i = writeSpinCount; i >= 0; i --) {
+                int localFlushedAmount = doWriteMessages(buf, i == 0);
+                if (localFlushedAmount > 0) {
+                    wrote = true;
+                    break;
+                }
+            }
+
+            if (!wrote) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Invoked when a read operation stopped because it read
+     * {@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead() maxMessagesPerRead}
+     * messages, which usually means more messages are pending.
+     */
+    protected void readLimitReached() {
+        // NOOP
+    }
+
+    /**
+     * Reads messages into the specified buffer.
+     *
+     * @param maxMessages the number of the messages which can still be read
+     *                    in the current read operation, which is at least {@code 1}
+     * @return the number of the read messages, which must not exceed
+     *         {@code maxMessages}, {@code 0} if no message is pending, or
+     *         {@code -1} if the channel has been closed
+     */
+    protected abstract int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception;
+    protected abstract int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception;
+}
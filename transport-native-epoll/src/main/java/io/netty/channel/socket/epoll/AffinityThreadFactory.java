@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.MultithreadEventLoop;
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ThreadFactory} which pins the threads it creates to the specified
+ * sets of CPUs, one set after another, so that each child event loop of a
+ * {@link MultithreadEventLoop} stays on the same cores and its caches stay warm:
+ * <pre>
+ * // One event loop per NUMA node, each running only on the CPUs of its node.
+ * {@link AffinityThreadFactory} tf = {@link AffinityThreadFactory}.numaAware(null);
+ * {@link EventLoop} loop = new NioEventLoop(tf.cpuSets().size(), tf);
+ * </pre>
+ * The factory works with any transport, but a thread pins itself with
+ * {@code sched_setaffinity()} from the JNI library of the native epoll
+ * transport when it starts.  A CPU set is specified in the list format of
+ * the Linux kernel, such as {@code "0-3,8"}.  Pinning is best-effort: if the
+ * library is not {@linkplain Epoll#isAvailable() available}, the thread runs
+ * without affinity and a debug message is logged.
+ * <p>
+ * Pinning a loop to the CPUs of a NUMA node also keeps its memory on the node,
+ * because the memory a thread touches first is allocated from its local node
+ * and a {@link io.netty.buffer.PooledChannelBufferFactory} binds each thread to
+ * its own arena.  This factory does not move accepted channels between nodes.
+ * To keep them on the node of the loop which accepted them, bind one server
+ * channel per node with {@link io.netty.bootstrap.ServerBootstrap#reusePortChannels
+ * ServerBootstrap.reusePortChannels()}, which serves each accepted channel in
+ * the event loop of its server channel.
+ */
+public class AffinityThreadFactory implements ThreadFactory {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(AffinityThreadFactory.class);
+
+    private static final Pattern CPU_LIST_PATTERN = Pattern.compile("[0-9]+(-[0-9]+)?(,[0-9]+(-[0-9]+)?)*");
+    private static final File NODE_DIR = new File("/sys/devices/system/node");
+
+    /**
+     * Returns a new factory which pins each thread to the CPUs of a NUMA node,
+     * one node after another.  If the NUMA topology is not available, the
+     * threads are not pinned.
+     *
+     * @param delegate the factory which creates the threads, or {@code null}
+     *                 to use {@link Executors#defaultThreadFactory()}
+     */
+    public static AffinityThreadFactory numaAware(ThreadFactory delegate) {
+        List<String> cpuSets = numaNodeCpuSets();
+        if (cpuSets.isEmpty()) {
+            // Create one thread after another without pinning them.
+            return new AffinityThreadFactory(delegate, new int[][] { null }, new String[] { null });
+        }
+        return new AffinityThreadFactory(delegate, cpuSets.toArray(new String[cpuSets.size()]));
+    }
+
+    /**
+     * Returns the CPU sets of the NUMA nodes of this machine, or an empty list
+     * if the platform does not expose its NUMA topology.
+     */
+    public static List<String> numaNodeCpuSets() {
+        List<String> cpuSets = new ArrayList<String>();
+        String[] names = NODE_DIR.list();
+        if (names == null) {
+            return cpuSets;
+        }
+
+        Arrays.sort(names);
+        for (String name: names) {
+            if (!name.matches("node[0-9]+")) {
+                continue;
+            }
+            String cpuSet = readLine(new File(new File(NODE_DIR, name), "cpulist"));
+            if (cpuSet != null && CPU_LIST_PATTERN.matcher(cpuSet).matches()) {
+                cpuSets.add(cpuSet);
+            }
+        }
+        return cpuSets;
+    }
+
+    private final ThreadFactory delegate;
+    private final String[] cpuSets;
+    private final int[][] cpus;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * Creates a new factory.
+     *
+     * @param delegate the factory which creates the threads, or {@code null}
+     *                 to use {@link Executors#defaultThreadFactory()}
+     * @param cpuSets  the CPU sets the threads are pinned to, one after another
+     */
+    public AffinityThreadFactory(ThreadFactory delegate, String... cpuSets) {
+        this(delegate, parseCpuSets(cpuSets), cpuSets.clone());
+    }
+
+    private AffinityThreadFactory(ThreadFactory delegate, int[][] cpus, String[] cpuSets) {
+        if (delegate == null) {
+            delegate = Executors.defaultThreadFactory();
+        }
+        this.delegate = delegate;
+        this.cpuSets = cpuSets;
+        this.cpus = cpus;
+    }
+
+    private static int[][] parseCpuSets(String[] cpuSets) {
+        if (cpuSets == null) {
+            throw new NullPointerException("cpuSets");
+        }
+        if (cpuSets.length == 0) {
+            throw new IllegalArgumentException("cpuSets is empty.");
+        }
+
+        int[][] cpus = new int[cpuSets.length][];
+        for (int i = 0; i < cpuSets.length; i ++) {
+            String s = cpuSets[i];
+            if (s == null) {
+                throw new NullPointerException("cpuSets[" + i + ']');
+            }
+            if (!CPU_LIST_PATTERN.matcher(s).matches()) {
+                throw new IllegalArgumentException(
+                        "cpuSets: " + s + " (expected: a CPU list such as 0-3,8)");
+            }
+            cpus[i] = parseCpuList(s);
+        }
+        return cpus;
+    }
+
+    /**
+     * Converts a CPU list such as {@code "0-3,8"} into the CPU numbers.
+     */
+    static int[] parseCpuList(String cpuList) {
+        List<Integer> cpus = new ArrayList<Integer>();
+        for (String range: cpuList.split(",")) {
+            int dash = range.indexOf('-');
+            int first;
+            int last;
+            try {
+                if (dash < 0) {
+                    first = last = Integer.parseInt(range);
+                } else {
+                    first = Integer.parseInt(range.substring(0, dash));
+                    last = Integer.parseInt(range.substring(dash + 1));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cpuSets: " + cpuList + " (CPU number too large)");
+            }
+            if (first > last) {
+                throw new IllegalArgumentException("cpuSets: " + cpuList + " (reversed range: " + range + ')');
+            }
+            for (int cpu = first; cpu <= last; cpu ++) {
+                cpus.add(cpu);
+            }
+        }
+
+        int[] result = new int[cpus.size()];
+        for (int i = 0; i < result.length; i ++) {
+            result[i] = cpus.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the CPU sets the threads created by this factory are pinned to.
+     */
+    public List<String> cpuSets() {
+        return Arrays.asList(cpuSets.clone());
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+        final int index = Math.abs(nextIndex.getAndIncrement() % cpuSets.length);
+        final String cpuSet = cpuSets[index];
+        if (cpuSet == null) {
+            return delegate.newThread(r);
+        }
+
+        final int[] cpus = this.cpus[index];
+        return delegate.newThread(new Runnable() {
+            @Override
+            public void run() {
+                pin(cpuSet, cpus);
+                r.run();
+            }
+        });
+    }
+
+    /**
+     * Pins the current thread to the specified CPU set.
+     *
+     * @return {@code true} if and only if the current thread has been pinned
+     */
+    static boolean pin(String cpuSet) {
+        return pin(cpuSet, parseCpuList(cpuSet));
+    }
+
+    private static boolean pin(String cpuSet, int[] cpus) {
+        if (!Epoll.isAvailable()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("CPU affinity requires the native epoll transport.", Epoll.unavailabilityCause());
+            }
+            return false;
+        }
+
+        try {
+            Native.schedSetAffinity(cpus);
+            return true;
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to pin " + Thread.currentThread().getName() + " to CPU " + cpuSet, e);
+            }
+            return false;
+        }
+    }
+
+    private static String readLine(File file) {
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new FileReader(file));
+            String line = in.readLine();
+            return line == null? null : line.trim();
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+}
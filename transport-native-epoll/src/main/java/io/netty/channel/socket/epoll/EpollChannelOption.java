@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.ChannelOption;
+
+/**
+ * The {@link ChannelOption}s which are supported only by the native epoll
+ * transport.
+ */
+public final class EpollChannelOption<T> extends ChannelOption<T> {
+
+    /**
+     * {@code TCP_CORK}, which holds the partial frames until the option is
+     * cleared, so that many small writes go out as full segments.
+     */
+    public static final ChannelOption<Boolean> TCP_CORK =
+            new EpollChannelOption<Boolean>("TCP_CORK");
+
+    /**
+     * {@code TCP_QUICKACK}, which sends the ACKs immediately rather than
+     * delaying them.  The kernel may clear the option by itself, so it has to
+     * be set again if needed.
+     */
+    public static final ChannelOption<Boolean> TCP_QUICKACK =
+            new EpollChannelOption<Boolean>("TCP_QUICKACK");
+
+    /**
+     * Whether the channel is registered to epoll in edge-triggered mode
+     * ({@code EPOLLET}), which is the default.  Otherwise, the channel is
+     * registered in level-triggered mode.
+     */
+    public static final ChannelOption<Boolean> EPOLL_EDGE_TRIGGERED =
+            new EpollChannelOption<Boolean>("EPOLL_EDGE_TRIGGERED");
+
+    private EpollChannelOption(String name) {
+        super(name);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.socket.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link SingleThreadEventLoop} which waits for the readiness of its
+ * channels with {@code epoll_wait()}.  The registered channels are looked up
+ * by their file descriptors in an array, so that no object is created and no
+ * hash set is updated for a ready channel, unlike a JDK
+ * {@link java.nio.channels.Selector}.
+ */
+final class EpollChildEventLoop extends SingleThreadEventLoop {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(EpollChildEventLoop.class);
+
+    private static final int DEFAULT_MAX_EVENTS_AT_ONCE = 512;
+
+    private final int epollFd;
+    private final int eventFd;
+    private final long[] events;
+
+    /**
+     * The registered channels indexed by their file descriptors.
+     */
+    private AbstractEpollChannel[] channels = new AbstractEpollChannel[64];
+
+    /**
+     * Whether the event loop has been waken up since the last
+     * {@code epoll_wait()}, so that {@link #wakeup(boolean)} writes to the
+     * {@code eventfd} only once per round.  Unlike a JDK
+     * {@link java.nio.channels.Selector}, the {@code eventfd} remembers a
+     * wake-up which happens before {@code epoll_wait()}, so no wake-up is lost.
+     */
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+
+    private volatile int ioRatio = 50;
+
+    EpollChildEventLoop(ThreadFactory threadFactory, int maxEventsAtOnce) {
+        super(threadFactory);
+        if (maxEventsAtOnce < 0) {
+            throw new IllegalArgumentException(
+                    String.format("maxEventsAtOnce: %d (expected: >= 0)", maxEventsAtOnce));
+        }
+        if (maxEventsAtOnce == 0) {
+            maxEventsAtOnce = DEFAULT_MAX_EVENTS_AT_ONCE;
+        }
+        events = new long[maxEventsAtOnce];
+
+        int epollFd = -1;
+        int eventFd = -1;
+        boolean success = false;
+        try {
+            epollFd = Native.epollCreate();
+            eventFd = Native.eventFd();
+            Native.epollCtlAdd(epollFd, eventFd, Native.EPOLLIN);
+            success = true;
+        } catch (IOException e) {
+            throw new ChannelException("failed to create an epoll instance", e);
+        } finally {
+            if (!success) {
+                closeQuietly(epollFd);
+                closeQuietly(eventFd);
+            }
+        }
+        this.epollFd = epollFd;
+        this.eventFd = eventFd;
+    }
+
+    private static void closeQuietly(int fd) {
+        if (fd < 0) {
+            return;
+        }
+        try {
+            Native.close(fd);
+        } catch (IOException e) {
+            logger.warn("Failed to close a file descriptor.", e);
+        }
+    }
+
+    /**
+     * Starts watching the specified channel with its current
+     * {@linkplain AbstractEpollChannel#epollFlags() flags}, or updates the
+     * flags if it is watched already.
+     */
+    void modify(AbstractEpollChannel ch) throws IOException {
+        assert inEventLoop();
+        if (ch.addedToEpoll) {
+            Native.epollCtlMod(epollFd, ch.fd, ch.epollFlags());
+            return;
+        }
+
+        Native.epollCtlAdd(epollFd, ch.fd, ch.epollFlags());
+        ch.addedToEpoll = true;
+        int fd = ch.fd;
+        AbstractEpollChannel[] channels = this.channels;
+        if (fd >= channels.length) {
+            int newLength = channels.length;
+            while (newLength <= fd) {
+                newLength <<= 1;
+            }
+            AbstractEpollChannel[] newChannels = new AbstractEpollChannel[newLength];
+            System.arraycopy(channels, 0, newChannels, 0, channels.length);
+            this.channels = channels = newChannels;
+        }
+        channels[fd] = ch;
+    }
+
+    /**
+     * Stops watching the specified channel.  If the channel is closed
+     * already, its closed descriptor has been removed from the {@code epoll}
+     * instance by the kernel, so only the lookup table is updated.
+     */
+    void remove(AbstractEpollChannel ch) throws IOException {
+        assert inEventLoop();
+        if (!ch.addedToEpoll) {
+            return;
+        }
+
+        ch.addedToEpoll = false;
+        AbstractEpollChannel[] channels = this.channels;
+        if (channels[ch.fd] == ch) {
+            channels[ch.fd] = null;
+        }
+        if (ch.isOpen()) {
+            Native.epollCtlDel(epollFd, ch.fd);
+        }
+    }
+
+    @Override
+    protected void run() {
+        for (;;) {
+            wakenUp.set(false);
+
+            try {
+                int ready;
+                if (hasTasks()) {
+                    // Do not block if there are pending tasks.
+                    ready = Native.epollWait(epollFd, events, 0);
+                } else {
+                    // Block until the next scheduled task is due.  Round up
+                    // so that the loop does not wake up right before the deadline.
+                    long timeoutMillis = (delayNanos() + 999999) / 1000000;
+                    ready = Native.epollWait(epollFd, events, (int) Math.min(timeoutMillis, Integer.MAX_VALUE));
+                }
+
+                final long ioStartTime = System.nanoTime();
+                if (ready > 0) {
+                    processReady(ready);
+                }
+                final long ioTime = System.nanoTime() - ioStartTime;
+
+                final int ioRatio = this.ioRatio;
+                if (ioRatio == 100) {
+                    runAllTasks();
+                } else {
+                    runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                }
+
+                if (isShutdown()) {
+                    closeAll();
+                    if (peekTask() == null) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                logger.warn(
+                        "Unexpected exception in the epoll loop.", t);
+
+                // Prevent possible consecutive immediate failures that lead to
+                // excessive CPU consumption.
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void processReady(int ready) {
+        final long[] events = this.events;
+        for (int i = 0; i < ready; i ++) {
+            final long event = events[i];
+            final int fd = (int) (event >>> 32);
+            final int readyOps = (int) event;
+            if (fd == eventFd) {
+                Native.eventFdRead(eventFd);
+                continue;
+            }
+
+            // A channel closed by a preceding event is gone already.
+            AbstractEpollChannel[] channels = this.channels;
+            AbstractEpollChannel ch = fd < channels.length? channels[fd] : null;
+            if (ch != null) {
+                processReady(ch, readyOps);
+            }
+        }
+    }
+
+    private static void processReady(AbstractEpollChannel ch, int readyOps) {
+        final AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
+        if ((readyOps & (Native.EPOLLOUT | Native.EPOLLERR | Native.EPOLLHUP)) != 0) {
+            if (ch.isConnectPending()) {
+                // Either connected or failed to connect.
+                unsafe.finishConnect();
+            } else if ((readyOps & Native.EPOLLOUT) != 0 && ch.isFlagSet(Native.EPOLLOUT)) {
+                unsafe.flushNow();
+            }
+            if (!ch.isOpen()) {
+                return;
+            }
+        }
+
+        if ((readyOps & (Native.EPOLLIN | Native.EPOLLRDHUP | Native.EPOLLHUP | Native.EPOLLERR)) != 0) {
+            // An error or a hang-up is reported by the next read as well.
+            unsafe.epollInReady();
+        }
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in
+     * this event loop.
+     */
+    int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in this
+     * event loop.
+     */
+    void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException(
+                    String.format("ioRatio: %d (expected: 0 < ioRatio <= 100)", ioRatio));
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    private void closeAll() {
+        List<AbstractEpollChannel> channels = new ArrayList<AbstractEpollChannel>();
+        for (AbstractEpollChannel ch: this.channels) {
+            if (ch != null) {
+                channels.add(ch);
+            }
+        }
+
+        for (AbstractEpollChannel ch: channels) {
+            ch.unsafe().close(ch.unsafe().voidFuture());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        closeQuietly(eventFd);
+        closeQuietly(epollFd);
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && wakenUp.compareAndSet(false, true)) {
+            try {
+                Native.eventFdWrite(eventFd, 1L);
+            } catch (IOException e) {
+                logger.warn("Failed to wake up the event loop.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.ChannelBuffers;
+import io.netty.buffer.PooledChannelBufferFactory;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramChannelConfig;
+import io.netty.channel.socket.DatagramPacket;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.Queue;
+
+/**
+ * A {@link DatagramChannel} which sends and receives with {@code sendto()}
+ * and {@code recvfrom()} directly and is watched by {@code epoll}.  Only
+ * IPv4 multicast is supported, without source-specific membership.
+ */
+public final class EpollDatagramChannel extends AbstractEpollMessageChannel implements DatagramChannel {
+
+    /**
+     * The size of the pooled buffer which many received datagrams are sliced
+     * from when {@link DatagramChannelConfig#isReceiveBufferPooled()} is enabled.
+     */
+    private static final int POOLED_RECEIVE_BUFFER_SIZE = 65536;
+
+    private final EpollDatagramChannelConfig config;
+    private volatile boolean active;
+
+    // Accessed only by the event loop.
+    private final byte[] remoteAddressBuffer = Native.newAddressBuffer();
+    private ByteBuffer receiveBuffer;
+    private ChannelBuffer pooledReceiveBuffer;
+    private ByteBuffer sendBuffer;
+
+    private static int newSocket() {
+        Epoll.ensureAvailability();
+        try {
+            return Native.socketDgramFd();
+        } catch (IOException e) {
+            throw new ChannelException("Failed to open a socket.", e);
+        }
+    }
+
+    public EpollDatagramChannel() {
+        super(null, null, newSocket());
+        config = new EpollDatagramChannelConfig(this);
+    }
+
+    @Override
+    public EpollDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isOpen() && active;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        bind(fd, localAddress);
+        active = true;
+        setFlag(readFlags());
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            bind(fd, localAddress);
+        }
+
+        boolean success = false;
+        try {
+            connect(fd, remoteAddress);
+            active = true;
+            setFlag(readFlags());
+            success = true;
+            return true;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    @Override
+    protected void doFinishConnect() throws Exception {
+        throw new Error();
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        Native.disconnect(fd);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            super.doClose();
+        } finally {
+            ChannelBuffer pooled = pooledReceiveBuffer;
+            if (pooled != null) {
+                pooledReceiveBuffer = null;
+                pooled.release();
+            }
+        }
+    }
+
+    @Override
+    protected int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception {
+        // Do not read more than the read loop allows per readiness event.
+        DatagramChannelConfig config = config();
+        int maxPackets = Math.min(config.getBatchSize(), maxMessages);
+        boolean pooled = config.isReceiveBufferPooled();
+        int packetSize = config.getReceivePacketSize();
+        int receivedPackets = 0;
+        while (receivedPackets < maxPackets) {
+            boolean received;
+            if (pooled) {
+                received = receivePooled(buf, packetSize);
+            } else {
+                received = receive(buf, packetSize);
+            }
+            if (!received) {
+                break;
+            }
+            receivedPackets ++;
+        }
+        return receivedPackets;
+    }
+
+    private boolean receive(Queue<Object> buf, int packetSize) throws IOException {
+        ByteBuffer data = receiveBuffer;
+        if (data == null || data.capacity() != packetSize) {
+            receiveBuffer = data = ByteBuffer.allocateDirect(packetSize);
+        }
+
+        int length = Native.recvFrom(fd, data, 0, packetSize, remoteAddressBuffer);
+        if (length < 0) {
+            return false;
+        }
+
+        data.clear().limit(length);
+        ChannelBuffer content = ChannelBuffers.buffer(length);
+        content.writeBytes(data);
+        buf.add(new DatagramPacket(content, Native.decodeAddress(remoteAddressBuffer)));
+        return true;
+    }
+
+    private boolean receivePooled(Queue<Object> buf, int packetSize) throws IOException {
+        ChannelBuffer pooled = pooledReceiveBuffer;
+        if (pooled == null || pooled.writableBytes() < packetSize) {
+            if (pooled != null) {
+                // The datagrams sliced from the buffer keep it until they are released.
+                pooled.release();
+            }
+            pooledReceiveBuffer = pooled = PooledChannelBufferFactory.getDirectInstance().getBuffer(
+                    Math.max(packetSize, POOLED_RECEIVE_BUFFER_SIZE));
+        }
+
+        int index = pooled.writerIndex();
+        ByteBuffer data = pooled.nioBuffer(index, packetSize);
+        int length = Native.recvFrom(fd, data, data.position(), data.limit(), remoteAddressBuffer);
+        if (length < 0) {
+            return false;
+        }
+
+        ChannelBuffer content;
+        if (length == 0) {
+            content = ChannelBuffers.EMPTY_BUFFER;
+        } else {
+            pooled.writerIndex(index + length);
+            content = pooled.slice(index, length).retain();
+        }
+        buf.add(new DatagramPacket(content, Native.decodeAddress(remoteAddressBuffer)));
+        return true;
+    }
+
+    @Override
+    protected int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception {
+        final int maxPackets = config().getBatchSize();
+        int writtenPackets = 0;
+        while (writtenPackets < maxPackets) {
+            DatagramPacket packet = (DatagramPacket) buf.peek();
+            if (packet == null || !send(packet)) {
+                break;
+            }
+            buf.remove();
+            writtenPackets ++;
+        }
+
+        if (writtenPackets == 0) {
+            // Did not write a packet.
+            // 1) If 'lastSpin' is false, the caller will call this method again real soon.
+            // 2) If 'lastSpin' is true, the caller will not retry.
+            //    - Set EPOLLOUT so that the event loop calls flushNow() later.
+            if (lastSpin) {
+                setFlag(Native.EPOLLOUT);
+            }
+            return 0;
+        }
+
+        if (buf.isEmpty()) {
+            // Wrote the outbound buffer completely - clear EPOLLOUT.
+            clearFlag(Native.EPOLLOUT);
+        }
+        return writtenPackets;
+    }
+
+    private boolean send(DatagramPacket packet) throws IOException {
+        ChannelBuffer data = packet.data();
+        ByteBuffer nioData;
+        if (data.hasNioBuffer()) {
+            nioData = data.nioBuffer();
+        } else {
+            int length = data.readableBytes();
+            nioData = sendBuffer;
+            if (nioData == null || nioData.capacity() < length) {
+                sendBuffer = nioData = ByteBuffer.allocateDirect(
+                        Math.max(length, config().getReceivePacketSize()));
+            }
+            nioData.clear().limit(length);
+            data.getBytes(data.readerIndex(), nioData);
+            nioData.flip();
+        }
+
+        InetSocketAddress remoteAddress = checkResolvable(packet.remoteAddress());
+        InetAddress address = remoteAddress.getAddress();
+        return Native.sendTo(
+                fd, nioData, nioData.position(), nioData.limit(),
+                address.getAddress(), Native.scopeId(address), remoteAddress.getPort()) >= 0;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newFuture());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelFuture future) {
+        try {
+            return joinGroup(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    null, future);
+        } catch (SocketException e) {
+            future.setFailure(e);
+        }
+        return future;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newFuture());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelFuture future) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, future);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newFuture());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress source, ChannelFuture future) {
+        return updateMembership(true, multicastAddress, networkInterface, source, future);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newFuture());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelFuture future) {
+        try {
+            return leaveGroup(
+                    multicastAddress, NetworkInterface.getByInetAddress(localAddress().getAddress()), null, future);
+        } catch (SocketException e) {
+            future.setFailure(e);
+        }
+        return future;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newFuture());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelFuture future) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, future);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newFuture());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source,
+            ChannelFuture future) {
+        return updateMembership(false, multicastAddress, networkInterface, source, future);
+    }
+
+    private ChannelFuture updateMembership(
+            boolean join, InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress source, ChannelFuture future) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        if (source != null) {
+            future.setFailure(new UnsupportedOperationException("source-specific multicast"));
+            return future;
+        }
+        if (!(multicastAddress instanceof Inet4Address)) {
+            future.setFailure(new UnsupportedOperationException("IPv6 multicast"));
+            return future;
+        }
+
+        try {
+            byte[] interfaceAddress = ipv4Address(networkInterface);
+            if (join) {
+                Native.joinGroup(fd, multicastAddress.getAddress(), interfaceAddress, networkInterface.getIndex());
+            } else {
+                Native.leaveGroup(fd, multicastAddress.getAddress(), interfaceAddress, networkInterface.getIndex());
+            }
+            future.setSuccess();
+        } catch (Throwable t) {
+            future.setFailure(t);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the first IPv4 address of the specified interface, or
+     * {@code null} if it has none, in which case the interface is looked up
+     * by its index.
+     */
+    static byte[] ipv4Address(NetworkInterface networkInterface) {
+        Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
+        while (addresses.hasMoreElements()) {
+            InetAddress address = addresses.nextElement();
+            if (address instanceof Inet4Address) {
+                return address.getAddress();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newFuture());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock, ChannelFuture future) {
+        future.setFailure(new UnsupportedOperationException("source-specific multicast"));
+        return future;
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newFuture());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelFuture future) {
+        future.setFailure(new UnsupportedOperationException("source-specific multicast"));
+        return future;
+    }
+}
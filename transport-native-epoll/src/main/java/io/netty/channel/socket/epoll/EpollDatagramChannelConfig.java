@@ -0,0 +1,360 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import static io.netty.channel.ChannelOption.*;
+import static io.netty.channel.socket.epoll.EpollChannelOption.*;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.socket.DatagramChannelConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Map;
+
+/**
+ * The {@link DatagramChannelConfig} of an {@link EpollDatagramChannel}, which
+ * supports {@link EpollChannelOption#EPOLL_EDGE_TRIGGERED} in addition.
+ * The multicast options apply to IPv4 only.
+ */
+public final class EpollDatagramChannelConfig extends DefaultChannelConfig
+                                              implements DatagramChannelConfig {
+
+    private static final int DEFAULT_RECEIVE_PACKET_SIZE = 2048;
+    private static final int DEFAULT_BATCH_SIZE = 16;
+
+    private final EpollDatagramChannel channel;
+    private volatile NetworkInterface networkInterface;
+    private volatile int receivePacketSize = DEFAULT_RECEIVE_PACKET_SIZE;
+    private volatile boolean receiveBufferPooled;
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    EpollDatagramChannelConfig(EpollDatagramChannel channel) {
+        super(channel);
+        this.channel = channel;
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(
+                super.getOptions(),
+                SO_BROADCAST, SO_RCVBUF, SO_SNDBUF, SO_REUSEADDR, IP_MULTICAST_LOOP_DISABLED,
+                IP_MULTICAST_ADDR, IP_MULTICAST_IF, IP_MULTICAST_TTL, IP_TOS, UDP_RECEIVE_PACKET_SIZE,
+                UDP_RECEIVE_BUFFER_POOLED, UDP_BATCH_SIZE, EPOLL_EDGE_TRIGGERED);
+    }
+
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == SO_BROADCAST) {
+            return (T) Boolean.valueOf(isBroadcast());
+        }
+        if (option == SO_RCVBUF) {
+            return (T) Integer.valueOf(getReceiveBufferSize());
+        }
+        if (option == SO_SNDBUF) {
+            return (T) Integer.valueOf(getSendBufferSize());
+        }
+        if (option == UDP_RECEIVE_PACKET_SIZE) {
+            return (T) Integer.valueOf(getReceivePacketSize());
+        }
+        if (option == UDP_RECEIVE_BUFFER_POOLED) {
+            return (T) Boolean.valueOf(isReceiveBufferPooled());
+        }
+        if (option == UDP_BATCH_SIZE) {
+            return (T) Integer.valueOf(getBatchSize());
+        }
+        if (option == SO_REUSEADDR) {
+            return (T) Boolean.valueOf(isReuseAddress());
+        }
+        if (option == IP_MULTICAST_LOOP_DISABLED) {
+            return (T) Boolean.valueOf(isLoopbackModeDisabled());
+        }
+        if (option == IP_MULTICAST_ADDR) {
+            @SuppressWarnings("unchecked")
+            T i = (T) getInterface();
+            return i;
+        }
+        if (option == IP_MULTICAST_IF) {
+            @SuppressWarnings("unchecked")
+            T i = (T) getNetworkInterface();
+            return i;
+        }
+        if (option == IP_MULTICAST_TTL) {
+            return (T) Integer.valueOf(getTimeToLive());
+        }
+        if (option == IP_TOS) {
+            return (T) Integer.valueOf(getTrafficClass());
+        }
+        if (option == EPOLL_EDGE_TRIGGERED) {
+            return (T) Boolean.valueOf(isEdgeTriggered());
+        }
+
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == SO_BROADCAST) {
+            setBroadcast((Boolean) value);
+        } else if (option == SO_RCVBUF) {
+            setReceiveBufferSize((Integer) value);
+        } else if (option == SO_SNDBUF) {
+            setSendBufferSize((Integer) value);
+        } else if (option == SO_REUSEADDR) {
+            setReuseAddress((Boolean) value);
+        } else if (option == IP_MULTICAST_LOOP_DISABLED) {
+            setLoopbackModeDisabled((Boolean) value);
+        } else if (option == IP_MULTICAST_ADDR) {
+            setInterface((InetAddress) value);
+        } else if (option == IP_MULTICAST_IF) {
+            setNetworkInterface((NetworkInterface) value);
+        } else if (option == IP_MULTICAST_TTL) {
+            setTimeToLive((Integer) value);
+        } else if (option == IP_TOS) {
+            setTrafficClass((Integer) value);
+        } else if (option == UDP_RECEIVE_PACKET_SIZE) {
+            setReceivePacketSize((Integer) value);
+        } else if (option == UDP_RECEIVE_BUFFER_POOLED) {
+            setReceiveBufferPooled((Boolean) value);
+        } else if (option == UDP_BATCH_SIZE) {
+            setBatchSize((Integer) value);
+        } else if (option == EPOLL_EDGE_TRIGGERED) {
+            setEdgeTriggered((Boolean) value);
+        } else {
+            return super.setOption(option, value);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isBroadcast() {
+        try {
+            return Native.getBroadcast(channel.fd) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setBroadcast(boolean broadcast) {
+        try {
+            Native.setBroadcast(channel.fd, broadcast? 1 : 0);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public InetAddress getInterface() {
+        try {
+            return InetAddress.getByAddress(Native.getMulticastInterface(channel.fd));
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setInterface(InetAddress interfaceAddress) {
+        try {
+            Native.setMulticastInterface(channel.fd, interfaceAddress.getAddress(), 0);
+            networkInterface = null;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public boolean isLoopbackModeDisabled() {
+        try {
+            return Native.getMulticastLoop(channel.fd) == 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setLoopbackModeDisabled(boolean loopbackModeDisabled) {
+        try {
+            Native.setMulticastLoop(channel.fd, loopbackModeDisabled? 0 : 1);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public NetworkInterface getNetworkInterface() {
+        return networkInterface;
+    }
+
+    @Override
+    public void setNetworkInterface(NetworkInterface networkInterface) {
+        try {
+            Native.setMulticastInterface(channel.fd, null, networkInterface.getIndex());
+            this.networkInterface = networkInterface;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public boolean isReuseAddress() {
+        try {
+            return Native.getReuseAddress(channel.fd) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setReuseAddress(boolean reuseAddress) {
+        try {
+            Native.setReuseAddress(channel.fd, reuseAddress? 1 : 0);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public int getReceiveBufferSize() {
+        try {
+            return Native.getReceiveBufferSize(channel.fd);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        try {
+            Native.setReceiveBufferSize(channel.fd, receiveBufferSize);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public int getSendBufferSize() {
+        try {
+            return Native.getSendBufferSize(channel.fd);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setSendBufferSize(int sendBufferSize) {
+        try {
+            Native.setSendBufferSize(channel.fd, sendBufferSize);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public int getReceivePacketSize() {
+        return receivePacketSize;
+    }
+
+    @Override
+    public void setReceivePacketSize(int receivePacketSize) {
+        if (receivePacketSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("receivePacketSize: %d (expected: > 0)", receivePacketSize));
+        }
+        this.receivePacketSize = receivePacketSize;
+    }
+
+    @Override
+    public boolean isReceiveBufferPooled() {
+        return receiveBufferPooled;
+    }
+
+    @Override
+    public void setReceiveBufferPooled(boolean receiveBufferPooled) {
+        this.receiveBufferPooled = receiveBufferPooled;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("batchSize: %d (expected: > 0)", batchSize));
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int getTimeToLive() {
+        try {
+            return Native.getMulticastTtl(channel.fd);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setTimeToLive(int ttl) {
+        try {
+            Native.setMulticastTtl(channel.fd, ttl);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public int getTrafficClass() {
+        try {
+            return Native.getTrafficClass(channel.fd);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setTrafficClass(int trafficClass) {
+        try {
+            Native.setTrafficClass(channel.fd, trafficClass);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the channel is registered to {@code epoll} in
+     * edge-triggered mode, which is the default.
+     */
+    public boolean isEdgeTriggered() {
+        return channel.isEdgeTriggered();
+    }
+
+    /**
+     * Sets whether the channel is registered to {@code epoll} in
+     * edge-triggered mode or in level-triggered mode.
+     */
+    public void setEdgeTriggered(boolean edgeTriggered) {
+        channel.setEdgeTriggered(edgeTriggered);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.EventExecutor;
+import io.netty.channel.MultithreadEventLoop;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link MultithreadEventLoop} which watches its channels with Linux
+ * {@code epoll} rather than a JDK {@link java.nio.channels.Selector}.  It can
+ * only be used with the channels in this package.
+ */
+public class EpollEventLoop extends MultithreadEventLoop {
+
+    public EpollEventLoop() {
+        this(0);
+    }
+
+    public EpollEventLoop(int nThreads) {
+        this(nThreads, null);
+    }
+
+    public EpollEventLoop(int nThreads, ThreadFactory threadFactory) {
+        this(nThreads, threadFactory, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEventsAtOnce the maximum number of the events which are
+     *        retrieved by a single {@code epoll_wait()} call, or {@code 0}
+     *        to use the default value
+     */
+    public EpollEventLoop(int nThreads, ThreadFactory threadFactory, int maxEventsAtOnce) {
+        super(nThreads, threadFactory, maxEventsAtOnce);
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in
+     * the child event loops.  The default value is {@code 50}.
+     */
+    public int getIoRatio() {
+        return ((EpollChildEventLoop) children().get(0)).getIoRatio();
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the
+     * child event loops.
+     *
+     * @see io.netty.channel.socket.nio.NioEventLoop#setIoRatio(int)
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException(
+                    String.format("ioRatio: %d (expected: 0 < ioRatio <= 100)", ioRatio));
+        }
+        for (EventExecutor child: children()) {
+            ((EpollChildEventLoop) child).setIoRatio(ioRatio);
+        }
+    }
+
+    @Override
+    protected EventExecutor newChild(ThreadFactory threadFactory, Object... args) throws Exception {
+        Epoll.ensureAvailability();
+        int maxEventsAtOnce = 0;
+        if (args != null && args.length > 0 && args[0] != null) {
+            maxEventsAtOnce = (Integer) args[0];
+        }
+        return new EpollChildEventLoop(threadFactory, maxEventsAtOnce);
+    }
+}
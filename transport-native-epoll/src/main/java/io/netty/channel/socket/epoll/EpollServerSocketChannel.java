@@ -0,0 +1,235 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.ServerSocketChannelConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ServerSocketChannel} which accepts the connections with
+ * {@code accept4()} and watches the listening socket with {@code epoll}.
+ * The accepted connections are {@link EpollSocketChannel}s.
+ */
+public final class EpollServerSocketChannel extends AbstractEpollMessageChannel implements ServerSocketChannel {
+
+    private static final int DEFAULT_BACKLOG = 128;
+    private static final long ACCEPT_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final EpollServerSocketChannelConfig config;
+    private volatile boolean active;
+
+    // Written only by the event loop.
+    private volatile long acceptedConnections;
+    private volatile long readLimitHits;
+    private volatile long throttledAccepts;
+
+    /**
+     * The theoretical time the next connection is accepted at when the accept
+     * rate is limited.
+     *
+     * @see io.netty.channel.socket.nio.NioServerSocketChannel
+     */
+    private long nextAcceptNanos;
+    private boolean acceptSuspended;
+    // true if a read was requested while accepting is suspended.
+    private boolean readRequested;
+    private final Runnable resumeAcceptTask = new Runnable() {
+        @Override
+        public void run() {
+            acceptSuspended = false;
+            if (config().isAutoRead() || readRequested) {
+                readRequested = false;
+                unsafe().beginRead();
+            }
+        }
+    };
+
+    private static int newSocket() {
+        Epoll.ensureAvailability();
+        int fd;
+        try {
+            fd = Native.socketStreamFd();
+        } catch (IOException e) {
+            throw new ChannelException("Failed to open a server socket.", e);
+        }
+
+        try {
+            // Enabled by default like the server sockets of the JDK so that
+            // a port in TIME_WAIT can be bound again.
+            Native.setReuseAddress(fd, 1);
+        } catch (IOException e) {
+            try {
+                Native.close(fd);
+            } catch (IOException e2) {
+                // Ignore.
+            }
+            throw new ChannelException("Failed to configure a server socket.", e);
+        }
+        return fd;
+    }
+
+    public EpollServerSocketChannel() {
+        super(null, null, newSocket());
+        config = new EpollServerSocketChannelConfig(this);
+        nextAcceptNanos = System.nanoTime();
+    }
+
+    @Override
+    public EpollServerSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isOpen() && active;
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return null;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        bind(fd, localAddress);
+        int backlog = config.getBacklog();
+        Native.listen(fd, backlog > 0? backlog : DEFAULT_BACKLOG);
+        active = true;
+        setFlag(readFlags());
+    }
+
+    /**
+     * Returns the number of the connections accepted by this channel so far.
+     */
+    public long acceptedConnections() {
+        return acceptedConnections;
+    }
+
+    /**
+     * Returns how many times this channel stopped accepting because it
+     * accepted {@link ServerSocketChannelConfig#getMaxMessagesPerRead() maxMessagesPerRead}
+     * connections in a single wake-up.
+     */
+    public long readLimitHits() {
+        return readLimitHits;
+    }
+
+    /**
+     * Returns how many times this channel stopped accepting because the
+     * {@linkplain ServerSocketChannelConfig#getMaxAcceptRate() maximum accept rate}
+     * was reached.
+     */
+    public long throttledAccepts() {
+        return throttledAccepts;
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        if (acceptSuspended) {
+            // Keep not watching the readiness for accepting until
+            // resumeAcceptTask runs, or the event loop would spin.
+            readRequested = true;
+            return;
+        }
+        super.doBeginRead();
+    }
+
+    @Override
+    protected int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception {
+        int maxAcceptRate = config.getMaxAcceptRate();
+        if (maxAcceptRate > 0 && !acquireAcceptPermit(maxAcceptRate)) {
+            return 0;
+        }
+
+        int childFd = Native.accept(fd);
+        if (childFd < 0) {
+            return 0;
+        }
+        buf.add(new EpollSocketChannel(this, null, childFd));
+        acceptedConnections ++;
+        return 1;
+    }
+
+    @Override
+    protected void readLimitReached() {
+        readLimitHits ++;
+    }
+
+    /**
+     * Returns {@code true} if a connection can be accepted without exceeding
+     * the specified rate.  Otherwise, stops watching {@code EPOLLIN} until
+     * a connection can be accepted again.
+     */
+    private boolean acquireAcceptPermit(int maxAcceptRate) throws IOException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / maxAcceptRate;
+        long now = System.nanoTime();
+        long nextAcceptNanos = this.nextAcceptNanos;
+        if (nextAcceptNanos - now < 0) {
+            nextAcceptNanos = now;
+        }
+
+        long delayNanos = nextAcceptNanos - now - (ACCEPT_BURST_NANOS - intervalNanos);
+        if (delayNanos <= 0) {
+            this.nextAcceptNanos = nextAcceptNanos + intervalNanos;
+            return true;
+        }
+
+        throttledAccepts ++;
+        if (!acceptSuspended) {
+            acceptSuspended = true;
+            // Without auto-read, the current read request has been consumed
+            // already, so serve it again once accepting is resumed.
+            readRequested = !config().isAutoRead();
+            removeReadFlag();
+            eventLoop().schedule(resumeAcceptTask, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        return false;
+    }
+
+    // Unnecessary stuff
+    @Override
+    protected boolean doConnect(
+            SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doFinishConnect() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import static io.netty.channel.ChannelOption.*;
+import static io.netty.channel.socket.epoll.EpollChannelOption.*;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.socket.ServerSocketChannelConfig;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The {@link ServerSocketChannelConfig} of an {@link EpollServerSocketChannel},
+ * which supports {@link ChannelOption#SO_REUSEPORT} regardless of the Java
+ * version and {@link EpollChannelOption#EPOLL_EDGE_TRIGGERED}.
+ */
+public final class EpollServerSocketChannelConfig extends DefaultChannelConfig
+                                                  implements ServerSocketChannelConfig {
+
+    private final EpollServerSocketChannel channel;
+    private volatile int backlog;
+    private volatile int maxAcceptRate;
+
+    EpollServerSocketChannelConfig(EpollServerSocketChannel channel) {
+        super(channel);
+        this.channel = channel;
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(
+                super.getOptions(),
+                SO_RCVBUF, SO_REUSEADDR, SO_REUSEPORT, SO_BACKLOG, MAX_ACCEPT_RATE, EPOLL_EDGE_TRIGGERED);
+    }
+
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == SO_RCVBUF) {
+            return (T) Integer.valueOf(getReceiveBufferSize());
+        }
+        if (option == SO_REUSEADDR) {
+            return (T) Boolean.valueOf(isReuseAddress());
+        }
+        if (option == SO_REUSEPORT) {
+            return (T) Boolean.valueOf(isReusePort());
+        }
+        if (option == SO_BACKLOG) {
+            return (T) Integer.valueOf(getBacklog());
+        }
+        if (option == MAX_ACCEPT_RATE) {
+            return (T) Integer.valueOf(getMaxAcceptRate());
+        }
+        if (option == EPOLL_EDGE_TRIGGERED) {
+            return (T) Boolean.valueOf(isEdgeTriggered());
+        }
+
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == SO_RCVBUF) {
+            setReceiveBufferSize((Integer) value);
+        } else if (option == SO_REUSEADDR) {
+            setReuseAddress((Boolean) value);
+        } else if (option == SO_REUSEPORT) {
+            setReusePort((Boolean) value);
+        } else if (option == SO_BACKLOG) {
+            setBacklog((Integer) value);
+        } else if (option == MAX_ACCEPT_RATE) {
+            setMaxAcceptRate((Integer) value);
+        } else if (option == EPOLL_EDGE_TRIGGERED) {
+            setEdgeTriggered((Boolean) value);
+        } else {
+            return super.setOption(option, value);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isReuseAddress() {
+        try {
+            return Native.getReuseAddress(channel.fd) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setReuseAddress(boolean reuseAddress) {
+        try {
+            Native.setReuseAddress(channel.fd, reuseAddress? 1 : 0);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public boolean isReusePort() {
+        try {
+            return Native.getReusePort(channel.fd) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setReusePort(boolean reusePort) {
+        try {
+            Native.setReusePort(channel.fd, reusePort? 1 : 0);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public int getReceiveBufferSize() {
+        try {
+            return Native.getReceiveBufferSize(channel.fd);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        try {
+            Native.setReceiveBufferSize(channel.fd, receiveBufferSize);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public void setPerformancePreferences(int connectionTime, int latency, int bandwidth) {
+        // Not supported by the native sockets, like most JDK implementations.
+    }
+
+    @Override
+    public int getBacklog() {
+        return backlog;
+    }
+
+    @Override
+    public void setBacklog(int backlog) {
+        if (backlog < 0) {
+            throw new IllegalArgumentException("backlog: " + backlog);
+        }
+        this.backlog = backlog;
+    }
+
+    @Override
+    public int getMaxAcceptRate() {
+        return maxAcceptRate;
+    }
+
+    @Override
+    public void setMaxAcceptRate(int maxAcceptRate) {
+        if (maxAcceptRate < 0) {
+            throw new IllegalArgumentException(
+                    "maxAcceptRate: " + maxAcceptRate + " (expected: >= 0)");
+        }
+        this.maxAcceptRate = maxAcceptRate;
+    }
+
+    /**
+     * Returns {@code true} if the channel is registered to {@code epoll} in
+     * edge-triggered mode, which is the default.
+     */
+    public boolean isEdgeTriggered() {
+        return channel.isEdgeTriggered();
+    }
+
+    /**
+     * Sets whether the channel is registered to {@code epoll} in
+     * edge-triggered mode or in level-triggered mode.
+     */
+    public void setEdgeTriggered(boolean edgeTriggered) {
+        channel.setEdgeTriggered(edgeTriggered);
+    }
+}
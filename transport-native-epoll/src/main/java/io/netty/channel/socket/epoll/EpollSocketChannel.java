@@ -0,0 +1,455 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.DynamicChannelBuffer;
+import io.netty.buffer.QueueBackedChannelBuffer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelType;
+import io.netty.channel.FileRegion;
+import io.netty.channel.FileRegionTransfer;
+import io.netty.channel.ReceiveBufferSizePredictor;
+import io.netty.channel.socket.SocketChannel;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A {@link SocketChannel} which reads and writes with the system calls
+ * directly and is watched by {@code epoll}.  The readable bytes of a
+ * {@link QueueBackedChannelBuffer} are written by a single {@code writev()},
+ * and the direct and heap buffers are accessed without a copy.
+ */
+public final class EpollSocketChannel extends AbstractEpollChannel implements SocketChannel {
+
+    private static final int IOV_MAX = Epoll.isAvailable()? Native.iovMax() : 1024;
+
+    private final EpollSocketChannelConfig config;
+    private volatile boolean active;
+
+    /**
+     * The {@link FileRegion}s whose transfer has been requested but not finished yet.
+     * The outbound byte buffer is flushed only up to the checkpoint of the first one.
+     */
+    private final Queue<FileRegionTransfer> fileTransfers = new ArrayDeque<FileRegionTransfer>();
+    private WritableByteChannel fileTransferTarget;
+
+    // The number of the bytes written from the outbound byte buffer so far.
+    private long flushedBytes;
+
+    // Accessed only by the event loop.
+    private ByteBuffer readBuffer;
+
+    private static int newSocket() {
+        Epoll.ensureAvailability();
+        try {
+            return Native.socketStreamFd();
+        } catch (IOException e) {
+            throw new ChannelException("Failed to open a socket.", e);
+        }
+    }
+
+    public EpollSocketChannel() {
+        this(null, null, newSocket());
+    }
+
+    EpollSocketChannel(Channel parent, Integer id, int fd) {
+        super(parent, id, fd, Native.EPOLLIN | Native.EPOLLRDHUP);
+        config = new EpollSocketChannelConfig(this);
+        // An accepted socket is connected already.
+        active = parent != null;
+
+        closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                failFileTransfers(new ClosedChannelException());
+            }
+        });
+    }
+
+    @Override
+    public EpollSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public ChannelType type() {
+        return ChannelType.STREAM;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isOpen() && active;
+    }
+
+    @Override
+    protected Unsafe newUnsafe() {
+        return new EpollStreamUnsafe();
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        bind(fd, localAddress);
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            bind(fd, localAddress);
+        }
+
+        boolean success = false;
+        try {
+            boolean connected = connect(fd, remoteAddress);
+            if (connected) {
+                active = true;
+                setFlag(readFlags());
+            } else {
+                setFlag(Native.EPOLLOUT);
+            }
+            success = true;
+            return connected;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    @Override
+    protected void doFinishConnect() throws Exception {
+        Native.finishConnect(fd);
+        active = true;
+        clearFlag(Native.EPOLLOUT);
+        setFlag(readFlags());
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    private final class EpollStreamUnsafe extends AbstractEpollUnsafe {
+
+        private ReceiveBufferSizePredictor predictor;
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+
+            final ChannelPipeline pipeline = pipeline();
+            final ChannelBuffer byteBuf = pipeline.inboundByteBuffer();
+            boolean closed = false;
+            boolean read = false;
+            try {
+                if (!config().isAutoRead()) {
+                    // Consume the read request; the handler asks for the next read
+                    // via Channel.read() once it is ready for more data.
+                    removeReadFlag();
+                }
+
+                ReceiveBufferSizePredictor predictor = this.predictor;
+                if (predictor == null) {
+                    this.predictor = predictor = config().getReceiveBufferSizePredictorFactory().getPredictor();
+                }
+
+                // Do not read more than maxMessagesPerRead times so that the
+                // other channels of the event loop are not starved.
+                int i;
+                for (i = config().getMaxMessagesPerRead(); i > 0; i --) {
+                    byteBuf.ensureWritableBytes(predictor.nextReceiveBufferSize());
+                    final int writableBytes = byteBuf.writableBytes();
+                    final int localReadAmount = doReadBytes(byteBuf);
+                    if (localReadAmount < 0) {
+                        closed = true;
+                        break;
+                    }
+                    if (localReadAmount == 0) {
+                        break;
+                    }
+
+                    read = true;
+                    predictor.previousReceiveBufferSize(localReadAmount);
+                    if (localReadAmount < writableBytes) {
+                        // Read everything in the socket receive buffer.  The
+                        // bytes received after this read raise a new event.
+                        break;
+                    }
+                }
+
+                if (i == 0) {
+                    // Not reported again in edge-triggered mode.
+                    scheduleReadIfEdgeTriggered();
+                }
+            } catch (Throwable t) {
+                if (read) {
+                    read = false;
+                    pipeline.fireInboundBufferUpdated();
+                }
+                pipeline.fireExceptionCaught(t);
+                if (t instanceof IOException) {
+                    close(voidFuture());
+                }
+            } finally {
+                if (read) {
+                    pipeline.fireInboundBufferUpdated();
+                    trimInboundBuffer(byteBuf);
+                }
+                if (closed && isOpen()) {
+                    close(voidFuture());
+                }
+            }
+        }
+
+        /**
+         * Shrinks the inbound buffer once the handler has drained it and the
+         * predictor expects much smaller reads than the buffer can hold.
+         */
+        private void trimInboundBuffer(ChannelBuffer byteBuf) {
+            ReceiveBufferSizePredictor predictor = this.predictor;
+            if (predictor == null || !(byteBuf instanceof DynamicChannelBuffer)) {
+                return;
+            }
+
+            // Keep some slack so that a prediction which moves back and forth
+            // by one step does not reallocate the buffer on every read.
+            int nextReceiveBufferSize = predictor.nextReceiveBufferSize();
+            if (byteBuf.capacity() > nextReceiveBufferSize << 1) {
+                ((DynamicChannelBuffer) byteBuf).trim(nextReceiveBufferSize);
+            }
+        }
+    }
+
+    private int doReadBytes(ChannelBuffer byteBuf) throws IOException {
+        final int writerIndex = byteBuf.writerIndex();
+        final int writableBytes = byteBuf.writableBytes();
+        final int localReadAmount;
+        if (byteBuf.hasNioBuffer()) {
+            // Read into the buffer directly, whether it is direct or not.
+            ByteBuffer buf = byteBuf.nioBuffer(writerIndex, writableBytes);
+            localReadAmount = Native.read(fd, buf, buf.position(), buf.limit());
+            if (localReadAmount > 0) {
+                byteBuf.writerIndex(writerIndex + localReadAmount);
+            }
+        } else {
+            ByteBuffer buf = readBuffer;
+            if (buf == null || buf.capacity() < writableBytes) {
+                readBuffer = buf = ByteBuffer.allocateDirect(writableBytes);
+            }
+            localReadAmount = Native.read(fd, buf, 0, writableBytes);
+            if (localReadAmount > 0) {
+                buf.clear().limit(localReadAmount);
+                byteBuf.writeBytes(buf);
+            }
+        }
+        return localReadAmount;
+    }
+
+    @Override
+    protected void doFlushByteBuffer(ChannelBuffer buf) throws Exception {
+        try {
+            for (;;) {
+                FileRegionTransfer transfer = fileTransfers.peek();
+                if (transfer == null) {
+                    doFlushBytes(buf, buf.readableBytes());
+                    break;
+                }
+
+                // Write the bytes which were written before the region first.
+                // Both return false when EPOLLOUT has been set, so that the
+                // event loop will call flushNow() again later.
+                if (!doFlushBytes(buf, (int) (transfer.checkpoint() - flushedBytes))) {
+                    break;
+                }
+                if (!doFlushFileTransfer(transfer)) {
+                    break;
+                }
+            }
+        } finally {
+            if (!buf.readable()) {
+                // Reset reader/writerIndex to 0 if the buffer is empty.
+                buf.clear();
+            } else if (buf instanceof QueueBackedChannelBuffer) {
+                // Release the components which were written completely.
+                buf.discardReadBytes();
+            }
+        }
+    }
+
+    /**
+     * Writes the specified number of readable bytes of the specified buffer.
+     *
+     * @return {@code true} if and only if all of them were written.
+     *         {@code false} if the socket send buffer became full, in which
+     *         case {@code EPOLLOUT} is set.
+     */
+    private boolean doFlushBytes(ChannelBuffer buf, int length) throws IOException {
+        for (int i = config().getWriteSpinCount() - 1; i >= 0 && length > 0; i --) {
+            int localFlushedAmount = doWriteBytes(buf, length, i == 0);
+            flushedBytes += localFlushedAmount;
+            length -= localFlushedAmount;
+            if (length > 0 && localFlushedAmount > 0 && isFlushPending()) {
+                // Wrote only a part of the bytes because the socket send
+                // buffer is full.
+                break;
+            }
+        }
+        return length == 0;
+    }
+
+    @Override
+    protected ChannelBuffer newOutboundByteBuffer() {
+        return new QueueBackedChannelBuffer();
+    }
+
+    /**
+     * Writes at most {@code length} readable bytes of the specified buffer.
+     *
+     * @see io.netty.channel.socket.nio.NioSocketChannel
+     */
+    private int doWriteBytes(ChannelBuffer buf, int length, boolean lastSpin) throws IOException {
+        final int readerIndex = buf.readerIndex();
+        final int expectedWrittenBytes;
+        final int writtenBytes;
+        if (buf instanceof QueueBackedChannelBuffer) {
+            // Write the first IOV_MAX components with a single writev().
+            ByteBuffer[] nioBuffers = ((QueueBackedChannelBuffer) buf).nioBuffers(
+                    readerIndex, length, IOV_MAX);
+            int expected = 0;
+            for (ByteBuffer b: nioBuffers) {
+                expected += b.remaining();
+            }
+            expectedWrittenBytes = expected;
+            writtenBytes = (int) Native.writev(fd, nioBuffers, 0, nioBuffers.length);
+        } else if (buf.hasNioBuffer()) {
+            ByteBuffer nioBuf = buf.nioBuffer(readerIndex, length);
+            expectedWrittenBytes = nioBuf.remaining();
+            writtenBytes = Native.write(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+        } else {
+            byte[] data = new byte[length];
+            buf.getBytes(readerIndex, data);
+            expectedWrittenBytes = data.length;
+            writtenBytes = Native.write(fd, ByteBuffer.wrap(data), 0, data.length);
+        }
+        buf.skipBytes(writtenBytes);
+
+        if (writtenBytes == length) {
+            // Wrote the requested bytes completely - clear EPOLLOUT.
+            clearFlag(Native.EPOLLOUT);
+        } else if (writtenBytes >= expectedWrittenBytes && !lastSpin) {
+            // Wrote what was tried completely but there are more - the caller
+            // will call this method again real soon.
+            clearFlag(Native.EPOLLOUT);
+        } else if (writtenBytes > 0 || lastSpin) {
+            // Let the event loop call flushNow() once the socket is writable.
+            setFlag(Native.EPOLLOUT);
+        }
+
+        return writtenBytes;
+    }
+
+    @Override
+    protected void doFlushFileRegion(FileRegion region, ChannelFuture future) throws Exception {
+        // The region goes after the bytes in the outbound buffer and before
+        // the ones written later.
+        ChannelBuffer buf = unsafe().directOutboundContext().outboundByteBuffer();
+        fileTransfers.add(new FileRegionTransfer(region, future, flushedBytes + buf.readableBytes()) {
+            @Override
+            protected long doTransfer(FileRegion region, long position) throws Exception {
+                return doWriteFileRegion(region, position);
+            }
+        });
+        if (!isFlushPending()) {
+            unsafe().flushNow();
+        }
+    }
+
+    /**
+     * Transfers the specified {@link FileRegion}, which is the first one
+     * pending, and removes it once it has been transferred completely.
+     *
+     * @return {@code true} if and only if the region was transferred
+     *         completely.  {@code false} if the socket became unwritable, in which
+     *         case {@code EPOLLOUT} is set so that the transfer is resumed later.
+     */
+    private boolean doFlushFileTransfer(FileRegionTransfer transfer) throws Exception {
+        try {
+            if (!transfer.transfer(config().getWriteSpinCount())) {
+                setFlag(Native.EPOLLOUT);
+                return false;
+            }
+        } catch (Exception e) {
+            failFileTransfers(e);
+            throw e;
+        }
+
+        fileTransfers.remove();
+        clearFlag(Native.EPOLLOUT);
+        transfer.future().setSuccess();
+        return true;
+    }
+
+    private void failFileTransfers(Throwable cause) {
+        for (;;) {
+            FileRegionTransfer transfer = fileTransfers.poll();
+            if (transfer == null) {
+                break;
+            }
+            transfer.future().setFailure(cause);
+        }
+    }
+
+    private long doWriteFileRegion(FileRegion region, long position) throws IOException {
+        WritableByteChannel target = fileTransferTarget;
+        if (target == null) {
+            fileTransferTarget = target = new SocketWritableByteChannel();
+        }
+        return region.transferTo(target, position);
+    }
+
+    /**
+     * Lets a {@link FileRegion} write to the socket without blocking.
+     */
+    private final class SocketWritableByteChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int position = src.position();
+            int written = Native.write(fd, src, position, src.limit());
+            src.position(position + written);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return EpollSocketChannel.this.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The socket is closed by the channel.
+        }
+    }
+}
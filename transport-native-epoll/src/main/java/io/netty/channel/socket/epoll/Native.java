@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * The JNI methods of the native epoll transport.  An address is passed to
+ * the native code as its raw bytes, its scope ID and its port, and it is
+ * returned as a 24-byte array: the 16-byte IPv6 (or IPv4-mapped) address,
+ * followed by the scope ID and the port in big-endian order.
+ */
+final class Native {
+
+    static final String LIBRARY_NAME = "netty-transport-native-epoll";
+
+    // Keep in sync with <sys/epoll.h>.
+    static final int EPOLLIN = 0x001;
+    static final int EPOLLOUT = 0x004;
+    static final int EPOLLERR = 0x008;
+    static final int EPOLLHUP = 0x010;
+    static final int EPOLLRDHUP = 0x2000;
+    static final int EPOLLET = 1 << 31;
+
+    private static final int ADDRESS_LENGTH = 24;
+    private static final byte[] IPV4_MAPPED_PREFIX = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff };
+
+    static {
+        loadLibrary();
+    }
+
+    private static void loadLibrary() {
+        String os = SystemPropertyUtil.get("os.name", "").toLowerCase(Locale.US);
+        if (!os.startsWith("linux")) {
+            throw new UnsupportedOperationException("epoll is only available on Linux");
+        }
+
+        try {
+            System.loadLibrary(LIBRARY_NAME);
+            return;
+        } catch (UnsatisfiedLinkError e) {
+            // Not in java.library.path - extract the bundled one.
+        }
+
+        String fileName = System.mapLibraryName(LIBRARY_NAME);
+        InputStream in = Native.class.getClassLoader().getResourceAsStream("META-INF/native/" + fileName);
+        if (in == null) {
+            throw new UnsatisfiedLinkError("could not find " + fileName);
+        }
+
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile("lib" + LIBRARY_NAME, ".so");
+            OutputStream out = new FileOutputStream(tmpFile);
+            try {
+                byte[] buf = new byte[8192];
+                for (;;) {
+                    int n = in.read(buf);
+                    if (n < 0) {
+                        break;
+                    }
+                    out.write(buf, 0, n);
+                }
+            } finally {
+                out.close();
+            }
+            System.load(tmpFile.getPath());
+        } catch (IOException e) {
+            UnsatisfiedLinkError error = new UnsatisfiedLinkError("could not extract " + fileName);
+            error.initCause(e);
+            throw error;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Ignore.
+            }
+            if (tmpFile != null) {
+                // The loaded library stays mapped after the file is deleted.
+                tmpFile.delete();
+            }
+        }
+    }
+
+    // epoll and eventfd
+    static native int epollCreate() throws IOException;
+    static native int epollWait(int efd, long[] events, int timeoutMillis) throws IOException;
+    static native void epollCtlAdd(int efd, int fd, int flags) throws IOException;
+    static native void epollCtlMod(int efd, int fd, int flags) throws IOException;
+    static native void epollCtlDel(int efd, int fd) throws IOException;
+    static native int eventFd() throws IOException;
+    static native void eventFdWrite(int fd, long value) throws IOException;
+    static native void eventFdRead(int fd);
+    static native void close(int fd) throws IOException;
+
+    // Threads - pins the calling thread to the specified CPUs.
+    static native void schedSetAffinity(int[] cpus) throws IOException;
+
+    // I/O - the methods return 0 (or -1 for the datagram methods) if the
+    // operation would block, and read() returns -1 at the end of the stream.
+    static native int read(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    static native int write(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    static native long writev(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException;
+    static native int sendTo(
+            int fd, ByteBuffer buf, int pos, int limit, byte[] address, int scopeId, int port) throws IOException;
+    static native int recvFrom(int fd, ByteBuffer buf, int pos, int limit, byte[] address) throws IOException;
+
+    // Sockets
+    static native int socketStreamFd() throws IOException;
+    static native int socketDgramFd() throws IOException;
+    static native void bind(int fd, byte[] address, int scopeId, int port) throws IOException;
+    static native void listen(int fd, int backlog) throws IOException;
+    static native boolean connect(int fd, byte[] address, int scopeId, int port) throws IOException;
+    static native void finishConnect(int fd) throws IOException;
+    static native void disconnect(int fd) throws IOException;
+    static native int accept(int fd) throws IOException;
+    static native void shutdown(int fd, boolean read, boolean write) throws IOException;
+    static native byte[] localAddress(int fd);
+    static native byte[] remoteAddress(int fd);
+    static native int iovMax();
+
+    // Socket options
+    static native void setReuseAddress(int fd, int reuseAddress) throws IOException;
+    static native int getReuseAddress(int fd) throws IOException;
+    static native void setReusePort(int fd, int reusePort) throws IOException;
+    static native int getReusePort(int fd) throws IOException;
+    static native void setKeepAlive(int fd, int keepAlive) throws IOException;
+    static native int getKeepAlive(int fd) throws IOException;
+    static native void setBroadcast(int fd, int broadcast) throws IOException;
+    static native int getBroadcast(int fd) throws IOException;
+    static native void setReceiveBufferSize(int fd, int receiveBufferSize) throws IOException;
+    static native int getReceiveBufferSize(int fd) throws IOException;
+    static native void setSendBufferSize(int fd, int sendBufferSize) throws IOException;
+    static native int getSendBufferSize(int fd) throws IOException;
+    static native void setTcpNoDelay(int fd, int tcpNoDelay) throws IOException;
+    static native int getTcpNoDelay(int fd) throws IOException;
+    static native void setTcpCork(int fd, int tcpCork) throws IOException;
+    static native int getTcpCork(int fd) throws IOException;
+    static native void setTcpQuickAck(int fd, int tcpQuickAck) throws IOException;
+    static native int getTcpQuickAck(int fd) throws IOException;
+    static native void setTrafficClass(int fd, int trafficClass) throws IOException;
+    static native int getTrafficClass(int fd) throws IOException;
+    static native void setSoLinger(int fd, int soLinger) throws IOException;
+    static native int getSoLinger(int fd) throws IOException;
+
+    // IPv4 multicast
+    static native void setMulticastTtl(int fd, int ttl) throws IOException;
+    static native int getMulticastTtl(int fd) throws IOException;
+    static native void setMulticastLoop(int fd, int loop) throws IOException;
+    static native int getMulticastLoop(int fd) throws IOException;
+    static native void setMulticastInterface(int fd, byte[] interfaceAddress, int interfaceIndex) throws IOException;
+    static native byte[] getMulticastInterface(int fd) throws IOException;
+    static native void joinGroup(
+            int fd, byte[] group, byte[] interfaceAddress, int interfaceIndex) throws IOException;
+    static native void leaveGroup(
+            int fd, byte[] group, byte[] interfaceAddress, int interfaceIndex) throws IOException;
+
+    static int scopeId(InetAddress address) {
+        if (address instanceof Inet6Address) {
+            return ((Inet6Address) address).getScopeId();
+        }
+        return 0;
+    }
+
+    /**
+     * Decodes the address returned by the native code, which is {@code null}
+     * if the socket is not bound or not connected.
+     */
+    static InetSocketAddress decodeAddress(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        assert encoded.length == ADDRESS_LENGTH;
+
+        int scopeId = getInt(encoded, 16);
+        int port = getInt(encoded, 20);
+        try {
+            InetAddress address;
+            if (isIpv4Mapped(encoded)) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(encoded, 12, ipv4, 0, 4);
+                address = InetAddress.getByAddress(ipv4);
+            } else {
+                byte[] ipv6 = new byte[16];
+                System.arraycopy(encoded, 0, ipv6, 0, 16);
+                address = Inet6Address.getByAddress(null, ipv6, scopeId);
+            }
+            return new InetSocketAddress(address, port);
+        } catch (UnknownHostException e) {
+            // Never happens because the length of the address is valid.
+            throw new Error(e);
+        }
+    }
+
+    private static boolean isIpv4Mapped(byte[] encoded) {
+        for (int i = 0; i < IPV4_MAPPED_PREFIX.length; i ++) {
+            if (encoded[i] != IPV4_MAPPED_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xff) << 24 | (buf[offset + 1] & 0xff) << 16 |
+               (buf[offset + 2] & 0xff) << 8 | buf[offset + 3] & 0xff;
+    }
+
+    static byte[] newAddressBuffer() {
+        return new byte[ADDRESS_LENGTH];
+    }
+
+    private Native() {
+        // Unused
+    }
+}
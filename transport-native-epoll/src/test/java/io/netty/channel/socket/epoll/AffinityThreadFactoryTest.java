@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class AffinityThreadFactoryTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCpuSet() {
+        new AffinityThreadFactory(null, "0;reboot");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullCpuSet() {
+        new AffinityThreadFactory(null, "0", null);
+    }
+
+    @Test
+    public void testParseCpuList() {
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 8 }, AffinityThreadFactory.parseCpuList("0-3,8"));
+    }
+
+    @Test
+    public void testPin() throws Exception {
+        final AtomicBoolean pinned = new AtomicBoolean();
+        final AtomicReference<String> cpus = new AtomicReference<String>();
+        Thread t = new AffinityThreadFactory(null, "0").newThread(new Runnable() {
+            @Override
+            public void run() {
+                // Pinned already by the factory; pin again to see if it is supported.
+                pinned.set(AffinityThreadFactory.pin("0"));
+                cpus.set(allowedCpus());
+            }
+        });
+        t.start();
+        t.join();
+
+        // Pinning is best-effort; verify it only if the platform supports it.
+        if (pinned.get() && cpus.get() != null) {
+            assertEquals("0", cpus.get());
+        }
+    }
+
+    @Test
+    public void testNumaAware() throws Exception {
+        AffinityThreadFactory tf = AffinityThreadFactory.numaAware(null);
+        assertEquals(
+                Math.max(1, AffinityThreadFactory.numaNodeCpuSets().size()), tf.cpuSets().size());
+        Thread t = tf.newThread(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        });
+        t.start();
+        t.join();
+    }
+
+    private static String allowedCpus() {
+        try {
+            BufferedReader in = new BufferedReader(new FileReader("/proc/thread-self/status"));
+            try {
+                for (;;) {
+                    String line = in.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                    if (line.startsWith("Cpus_allowed_list:")) {
+                        return line.substring(line.indexOf(':') + 1).trim();
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
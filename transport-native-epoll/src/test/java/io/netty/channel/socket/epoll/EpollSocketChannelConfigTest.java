@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.epoll;
+
+import static org.junit.Assert.*;
+import io.netty.channel.ChannelOption;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EpollSocketChannelConfigTest {
+
+    private EpollEventLoop loop;
+    private EpollSocketChannel ch;
+
+    @Before
+    public void newChannel() throws Exception {
+        Assume.assumeTrue(Epoll.isAvailable());
+        loop = new EpollEventLoop(1);
+        ch = new EpollSocketChannel();
+        loop.register(ch).sync();
+    }
+
+    @After
+    public void closeChannel() throws Exception {
+        if (ch != null) {
+            ch.close().sync();
+        }
+        if (loop != null) {
+            loop.shutdown();
+            assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testTcpCork() {
+        assertFalse(ch.config().isTcpCork());
+        assertTrue(ch.config().setOption(EpollChannelOption.TCP_CORK, true));
+        assertTrue(ch.config().getOption(EpollChannelOption.TCP_CORK));
+        ch.config().setTcpCork(false);
+        assertFalse(ch.config().isTcpCork());
+    }
+
+    @Test
+    public void testTcpNoDelay() {
+        ch.config().setOption(ChannelOption.TCP_NODELAY, true);
+        assertTrue(ch.config().isTcpNoDelay());
+        ch.config().setTcpNoDelay(false);
+        assertFalse(ch.config().getOption(ChannelOption.TCP_NODELAY));
+    }
+
+    @Test
+    public void testSoLinger() {
+        assertEquals(-1, ch.config().getSoLinger());
+        ch.config().setSoLinger(5);
+        assertEquals(5, ch.config().getSoLinger());
+        ch.config().setSoLinger(-1);
+        assertEquals(-1, ch.config().getSoLinger());
+    }
+
+    @Test
+    public void testEdgeTriggered() {
+        assertTrue(ch.config().isEdgeTriggered());
+        assertTrue(ch.config().setOption(EpollChannelOption.EPOLL_EDGE_TRIGGERED, false));
+        assertFalse(ch.config().getOption(EpollChannelOption.EPOLL_EDGE_TRIGGERED));
+    }
+
+    @Test
+    public void testOptionsContainNativeOptions() {
+        assertTrue(ch.config().getOptions().containsKey(EpollChannelOption.TCP_CORK));
+        assertTrue(ch.config().getOptions().containsKey(EpollChannelOption.TCP_QUICKACK));
+    }
+}
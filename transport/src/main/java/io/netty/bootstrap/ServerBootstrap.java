@@ -27,6 +27,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.ServerSocketChannelConfig;
 import io.netty.logging.InternalLogger;
 import io.netty.logging.InternalLoggerFactory;
 import io.netty.util.SocketAddresses;
@@ -35,7 +36,10 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
@@ -57,6 +61,7 @@ public class ServerBootstrap {
     private EventLoop parentEventLoop;
     private EventLoop childEventLoop;
     private ServerChannel channel;
+    private List<ServerChannel> reusePortChannels = Collections.emptyList();
     private ChannelHandler handler;
     private ChannelHandler childHandler;
     private SocketAddress localAddress;
@@ -84,6 +89,37 @@ public class ServerBootstrap {
         return this;
     }
 
+    /**
+     * Specifies the additional server channels which are bound to the same
+     * local address as the {@linkplain #channel(ServerChannel) main channel}
+     * with {@link ChannelOption#SO_REUSEPORT}.  The kernel spreads the
+     * incoming connections over all the channels, and each channel accepts
+     * them in its own child event loop of the parent {@link EventLoop}, so
+     * that a single acceptor thread does not become the bottleneck.  The
+     * accepted channels are registered to the event loop of the server
+     * channel which accepted them instead of the child {@link EventLoop},
+     * which also saves the hand-off between threads.
+     * <p>
+     * The parent {@link EventLoop} needs at least as many threads as the
+     * number of the server channels, and the {@link #handler(ChannelHandler)
+     * handler}, if any, must be {@link ChannelHandler.Sharable}.  The
+     * additional channels are closed when the main channel is closed.
+     */
+    public ServerBootstrap reusePortChannels(ServerChannel... channels) {
+        if (channels == null) {
+            throw new NullPointerException("channels");
+        }
+        List<ServerChannel> list = new ArrayList<ServerChannel>(channels.length);
+        for (ServerChannel c: channels) {
+            if (c == null) {
+                throw new NullPointerException("channels contains null.");
+            }
+            list.add(c);
+        }
+        reusePortChannels = list;
+        return this;
+    }
+
     public <T> ServerBootstrap option(ChannelOption<T> parentOption, T value) {
         if (parentOption == null) {
             throw new NullPointerException("parentOption");
@@ -151,17 +187,81 @@ public class ServerBootstrap {
 
     public ChannelFuture bind(ChannelFuture future) {
         validate(future);
+        if (!reusePortChannels.isEmpty()) {
+            return bindReusePort(future);
+        }
+
+        if (!register(channel, future)) {
+            return future;
+        }
+
+        channel.bind(localAddress, future).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+
+        return future;
+    }
+
+    private ChannelFuture bindReusePort(ChannelFuture future) {
+        final List<ServerChannel> channels = new ArrayList<ServerChannel>(reusePortChannels.size() + 1);
+        channels.add(channel);
+        channels.addAll(reusePortChannels);
+        for (ServerChannel c: channels) {
+            if (!(c.config() instanceof ServerSocketChannelConfig)) {
+                future.setFailure(new ChannelException("SO_REUSEPORT not supported by " + c));
+                return future;
+            }
+            try {
+                ((ServerSocketChannelConfig) c.config()).setReusePort(true);
+            } catch (Throwable t) {
+                future.setFailure(t);
+                return future;
+            }
+        }
+
+        // Bind the main channel first to find out the port of an ephemeral address.
+        SocketAddress boundAddress = null;
+        for (ServerChannel c: channels) {
+            ChannelFuture f = c.newFuture();
+            if (register(c, f)) {
+                c.bind(boundAddress == null? localAddress : boundAddress, f).awaitUninterruptibly();
+            }
+            if (!f.isSuccess()) {
+                for (ServerChannel c2: channels) {
+                    if (c2.isRegistered()) {
+                        c2.close();
+                    }
+                }
+                future.setFailure(f.cause());
+                return future;
+            }
+            if (boundAddress == null) {
+                boundAddress = c.localAddress();
+            }
+        }
+
+        channel.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                for (ServerChannel c: channels) {
+                    c.close();
+                }
+            }
+        });
+        future.setSuccess();
+        return future;
+    }
+
+    private boolean register(ServerChannel channel, ChannelFuture future) {
         if (channel.isActive()) {
             future.setFailure(new IllegalStateException("channel already bound: " + channel));
-            return future;
+            return false;
         }
         if (channel.isRegistered()) {
             future.setFailure(new IllegalStateException("channel already registered: " + channel));
-            return future;
+            return false;
         }
         if (!channel.isOpen()) {
             future.setFailure(new ClosedChannelException());
-            return future;
+            return false;
         }
 
         ChannelPipeline p = channel.pipeline();
@@ -173,19 +273,16 @@ public class ServerBootstrap {
         ChannelFuture f = parentEventLoop.register(channel).awaitUninterruptibly();
         if (!f.isSuccess()) {
             future.setFailure(f.cause());
-            return future;
+            return false;
         }
 
         if (!channel.isOpen()) {
             // Registration was successful but the channel was closed due to some failure in
             // handler.
             future.setFailure(new ChannelException("initialization failure"));
-            return future;
+            return false;
         }
-
-        channel.bind(localAddress, future).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
-
-        return future;
+        return true;
     }
 
     public void shutdown() {
@@ -252,7 +349,12 @@ public class ServerBootstrap {
                 }
 
                 try {
-                    childEventLoop.register(child);
+                    if (reusePortChannels.isEmpty()) {
+                        childEventLoop.register(child);
+                    } else {
+                        // Serve the child in the event loop which accepted it.
+                        ctx.channel().eventLoop().register(child);
+                    }
                 } catch (Throwable t) {
                     logger.warn("Failed to register an accepted channel: " + child, t);
                 }
@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.ChannelBuffers;
 import io.netty.logging.InternalLogger;
 import io.netty.logging.InternalLoggerFactory;
 import io.netty.util.DefaultAttributeMap;
@@ -81,6 +82,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
     private volatile SocketAddress remoteAddress;
     private volatile EventLoop eventLoop;
     private volatile boolean registered;
+    private volatile boolean writable = true;
 
     private ClosedChannelException closedChannelException;
     private final Deque<FlushCheckpoint> flushCheckpoints = new ArrayDeque<FlushCheckpoint>();
@@ -193,6 +195,11 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return registered;
     }
 
+    @Override
+    public boolean isWritable() {
+        return writable;
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress) {
         return pipeline.bind(localAddress);
@@ -233,6 +240,11 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return pipeline.write(message);
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region) {
+        return pipeline.sendFile(region);
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelFuture future) {
         return pipeline.bind(localAddress, future);
@@ -278,11 +290,21 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return pipeline.flush(future);
     }
 
+    @Override
+    public void read() {
+        pipeline.read();
+    }
+
     @Override
     public ChannelFuture write(Object message, ChannelFuture future) {
         return pipeline.write(message, future);
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region, ChannelFuture future) {
+        return pipeline.sendFile(region, future);
+    }
+
     @Override
     public ChannelFuture newFuture() {
         return new DefaultChannelFuture(this, false);
@@ -546,6 +568,9 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                 } finally {
                     if (registered) {
                         registered = false;
+                        if (eventLoop instanceof SingleThreadEventLoop) {
+                            ((SingleThreadEventLoop) eventLoop).channelDeregistered();
+                        }
                         future.setSuccess();
                         pipeline.fireChannelUnregistered();
                     } else {
@@ -594,6 +619,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                             flushNow();
                         } else {
                             // Event loop will call flushNow() later by itself.
+                            updateWritability();
                         }
                     } catch (Throwable t) {
                         notifyFlushFutures(t);
@@ -658,6 +684,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                     }
                 }
 
+                updateWritability();
+
                 if (cause == null) {
                     notifyFlushFutures();
                 } else {
@@ -672,6 +700,94 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             }
         }
 
+        /**
+         * Updates {@link #isWritable()} with the number of the bytes pending
+         * in the outbound byte buffer, and triggers a
+         * {@code channelWritabilityChanged} event if it has changed.
+         * The outbound message buffer is not taken into account because the
+         * size of a message is unknown.
+         */
+        private void updateWritability() {
+            ChannelHandlerContext ctx = directOutboundContext();
+            if (!ctx.hasOutboundByteBuffer()) {
+                return;
+            }
+
+            int pendingBytes = ctx.outboundByteBuffer().readableBytes();
+            if (writable) {
+                if (pendingBytes > config().getWriteBufferHighWaterMark()) {
+                    writable = false;
+                    pipeline.fireChannelWritabilityChanged();
+                }
+            } else {
+                if (pendingBytes == 0 || pendingBytes < config().getWriteBufferLowWaterMark()) {
+                    writable = true;
+                    pipeline.fireChannelWritabilityChanged();
+                }
+            }
+        }
+
+        @Override
+        public void beginRead() {
+            if (eventLoop().inEventLoop()) {
+                if (!isActive()) {
+                    return;
+                }
+
+                try {
+                    doBeginRead();
+                } catch (Throwable t) {
+                    pipeline.fireExceptionCaught(t);
+                    close(voidFuture());
+                }
+            } else {
+                eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        beginRead();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void sendFile(final FileRegion region, final ChannelFuture future) {
+            if (eventLoop().inEventLoop()) {
+                if (region instanceof DefaultFileRegion && ((DefaultFileRegion) region).releaseAfterTransfer()) {
+                    future.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) {
+                            region.releaseExternalResources();
+                        }
+                    });
+                }
+                sendFile0(region, future);
+            } else {
+                eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendFile(region, future);
+                    }
+                });
+            }
+        }
+
+        private void sendFile0(final FileRegion region, final ChannelFuture future) {
+            if (!ensureOpen(future)) {
+                return;
+            }
+
+            try {
+                doFlushFileRegion(region, future);
+            } catch (Throwable t) {
+                future.setFailure(t);
+                pipeline.fireExceptionCaught(t);
+                if (t instanceof IOException) {
+                    close(voidFuture());
+                }
+            }
+        }
+
         protected final boolean ensureOpen(ChannelFuture future) {
             if (isOpen()) {
                 return true;
@@ -709,6 +825,27 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
     protected abstract void doDisconnect() throws Exception;
     protected abstract void doClose() throws Exception;
     protected abstract void doDeregister() throws Exception;
+
+    /**
+     * Resumes reading from the underlying transport.  It is called by
+     * {@link Unsafe#beginRead()} in the event loop only when the channel is
+     * active.
+     */
+    protected abstract void doBeginRead() throws Exception;
+
+    /**
+     * Creates the outbound byte buffer of this channel if its type is
+     * {@link ChannelType#STREAM}.  The default implementation creates a
+     * dynamic buffer.  A channel which writes the components of a
+     * {@link io.netty.buffer.QueueBackedChannelBuffer} with one gathering
+     * write creates such a buffer instead, which also lets
+     * {@link ChannelOption#WRITE_BY_REFERENCE} queue the written buffers.
+     * It is called by the constructor of this class.
+     */
+    protected ChannelBuffer newOutboundByteBuffer() {
+        return ChannelBuffers.dynamicBuffer();
+    }
+
     protected void doFlushByteBuffer(ChannelBuffer buf) throws Exception {
         throw new UnsupportedOperationException();
     }
@@ -716,6 +853,17 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Starts to transfer the specified {@link FileRegion}.  An implementation
+     * is responsible for notifying the specified {@link ChannelFuture} once
+     * the transfer is complete or has failed.  The region must be transferred
+     * after the bytes which are in the outbound byte buffer when this method
+     * is called, and before the bytes written into the buffer after them.
+     */
+    protected void doFlushFileRegion(FileRegion region, ChannelFuture future) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
     protected abstract boolean isFlushPending();
 
     private void notifyFlushFutures() {
@@ -95,10 +95,11 @@ import java.util.Queue;
  * can set or clear {@link #OP_READ}. The {@link #OP_WRITE} flag is read only
  * and provided simply as a mean to tell you if the size of pending write
  * requests exceeded a certain threshold or not so that you don't issue too many
- * pending writes that lead to an {@link OutOfMemoryError}.  For example, the
- * NIO socket transport uses the {@code writeBufferLowWaterMark} and
- * {@code writeBufferHighWaterMark} properties in {@link NioSocketChannelConfig}
- * to determine when to set or clear the {@link #OP_WRITE} flag.
+ * pending writes that lead to an {@link OutOfMemoryError}.  The
+ * {@linkplain ChannelConfig#setWriteBufferHighWaterMark(int) writeBufferHighWaterMark}
+ * and {@linkplain ChannelConfig#setWriteBufferLowWaterMark(int) writeBufferLowWaterMark}
+ * properties determine when {@link #isWritable()} changes, which is notified
+ * to {@link ChannelStateHandler#channelWritabilityChanged(ChannelHandlerContext)}.
  * </p>
  * @apiviz.landmark
  * @apiviz.composedOf io.netty.channel.ChannelConfig
@@ -140,6 +141,19 @@ public interface Channel extends AttributeMap, ChannelOutboundInvoker, ChannelFu
     boolean isRegistered();
     boolean isActive();
 
+    /**
+     * Returns {@code true} if and only if the I/O thread will perform the
+     * requested write operation immediately.  Once the number of the bytes
+     * pending in the outbound buffer exceeds the
+     * {@linkplain ChannelConfig#getWriteBufferHighWaterMark() high water mark},
+     * this method returns {@code false} until the number drops below the
+     * {@linkplain ChannelConfig#getWriteBufferLowWaterMark() low water mark}.
+     * A write request made while this method returns {@code false} is still
+     * queued, so a user should stop writing until the channel becomes writable
+     * again.
+     */
+    boolean isWritable();
+
     ChannelBuffer outboundByteBuffer();
     <T> Queue<T> outboundMessageBuffer();
 
@@ -194,5 +208,13 @@ public interface Channel extends AttributeMap, ChannelOutboundInvoker, ChannelFu
 
         void flush(ChannelFuture future);
         void flushNow();
+        void sendFile(FileRegion region, ChannelFuture future);
+
+        /**
+         * Schedules a read operation which fills the inbound buffer of the
+         * pipeline.  It does nothing if the channel is not active or a read
+         * operation has been scheduled already.
+         */
+        void beginRead();
     }
 }
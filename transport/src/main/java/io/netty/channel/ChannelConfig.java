@@ -15,6 +15,7 @@
  */
 package io.netty.channel;
 
+import io.netty.buffer.ChannelBuffer;
 import io.netty.channel.socket.SocketChannelConfig;
 
 import java.nio.ByteBuffer;
@@ -130,4 +131,114 @@ public interface ChannelConfig {
      *         if the specified value is {@code 0} or less than {@code 0}
      */
     void setWriteSpinCount(int writeSpinCount);
+
+    /**
+     * Returns {@code true} if and only if a {@link ChannelBuffer} written to
+     * the channel is queued by reference instead of being copied into the
+     * outbound buffer of the channel.  The default value is {@code false}.
+     */
+    boolean isWriteByReference();
+
+    /**
+     * Sets whether a {@link ChannelBuffer} written to the channel is queued by
+     * reference instead of being copied into the outbound buffer of the
+     * channel.  If enabled, the channel {@linkplain ChannelBuffer#retain() retains}
+     * the written buffer and {@linkplain ChannelBuffer#release() releases} it
+     * once it is flushed, so the buffer must not be modified after it is
+     * written.  Either way, the channel never releases the reference of the
+     * caller, who remains responsible for releasing it.  This option is
+     * ignored if the channel does not support it.
+     */
+    void setWriteByReference(boolean writeByReference);
+
+    /**
+     * Returns the {@link ReceiveBufferSizePredictorFactory} which creates the
+     * {@link ReceiveBufferSizePredictor} of the channel.  The predictor decides
+     * how many bytes are read from the socket at once.  The default factory
+     * creates an {@link AdaptiveReceiveBufferSizePredictor}.
+     */
+    ReceiveBufferSizePredictorFactory getReceiveBufferSizePredictorFactory();
+
+    /**
+     * Sets the {@link ReceiveBufferSizePredictorFactory} which creates the
+     * {@link ReceiveBufferSizePredictor} of the channel.  It must be set
+     * before the channel reads anything to take effect.  This option is
+     * ignored if the channel does not support it.
+     */
+    void setReceiveBufferSizePredictorFactory(ReceiveBufferSizePredictorFactory predictorFactory);
+
+    /**
+     * Returns the maximum number of read operations performed for the channel
+     * per I/O event.  Once the limit is reached, the I/O thread handles the
+     * other channels and comes back later, so that a busy channel does not
+     * starve the others.  The default value is {@code 16}.
+     */
+    int getMaxMessagesPerRead();
+
+    /**
+     * Sets the maximum number of read operations performed for the channel
+     * per I/O event.  This option is ignored if the channel does not support
+     * it.
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is {@code 0} or less than {@code 0}
+     */
+    void setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    /**
+     * Returns the high water mark of the write buffer.  If the number of bytes
+     * queued in the write buffer exceeds this value, {@link Channel#isWritable()}
+     * will start to return {@code false}.  The default value is {@code 65536}.
+     */
+    int getWriteBufferHighWaterMark();
+
+    /**
+     * Sets the high water mark of the write buffer.  If the number of bytes
+     * queued in the write buffer exceeds this value, {@link Channel#isWritable()}
+     * will start to return {@code false}.
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is less than the
+     *         {@linkplain #getWriteBufferLowWaterMark() low water mark}
+     */
+    void setWriteBufferHighWaterMark(int writeBufferHighWaterMark);
+
+    /**
+     * Returns the low water mark of the write buffer.  Once the number of bytes
+     * queued in the write buffer exceeded the
+     * {@linkplain #getWriteBufferHighWaterMark() high water mark} and then
+     * dropped down below this value, {@link Channel#isWritable()} will start to
+     * return {@code true} again.  The default value is {@code 32768}.
+     */
+    int getWriteBufferLowWaterMark();
+
+    /**
+     * Sets the low water mark of the write buffer.  Once the number of bytes
+     * queued in the write buffer exceeded the
+     * {@linkplain #getWriteBufferHighWaterMark() high water mark} and then
+     * dropped down below this value, {@link Channel#isWritable()} will start to
+     * return {@code true} again.
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is negative or greater than the
+     *         {@linkplain #getWriteBufferHighWaterMark() high water mark}
+     */
+    void setWriteBufferLowWaterMark(int writeBufferLowWaterMark);
+
+    /**
+     * Returns {@code true} if and only if the channel reads the inbound data
+     * automatically whenever it is available.  If {@code false}, the channel
+     * stops reading until {@link ChannelOutboundInvoker#read()} is requested,
+     * so that a slow consumer can apply back-pressure to the remote peer.
+     * The default value is {@code true}.
+     */
+    boolean isAutoRead();
+
+    /**
+     * Sets whether the channel reads the inbound data automatically whenever
+     * it is available.  Once disabled, the channel reads only when
+     * {@link ChannelOutboundInvoker#read()} is requested.  Enabling it again
+     * resumes reading immediately.
+     */
+    void setAutoRead(boolean autoRead);
 }
@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.buffer.ChannelBuffer;
+import io.netty.channel.ChannelHandlerMask.Skip;
 
 import java.net.SocketAddress;
 import java.util.Queue;
@@ -23,11 +24,13 @@ import java.util.Queue;
 public class ChannelHandlerAdapter extends ChannelStateHandlerAdapter implements ChannelOperationHandler {
 
     @Override
+    @Skip
     public void bind(ChannelHandlerContext ctx, SocketAddress localAddress, ChannelFuture future) throws Exception {
         ctx.bind(localAddress, future);
     }
 
     @Override
+    @Skip
     public void connect(
             ChannelHandlerContext ctx, SocketAddress remoteAddress, SocketAddress localAddress,
             ChannelFuture future) throws Exception {
@@ -35,25 +38,41 @@ public class ChannelHandlerAdapter extends ChannelStateHandlerAdapter implements
     }
 
     @Override
+    @Skip
     public void disconnect(ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
         ctx.disconnect(future);
     }
 
     @Override
+    @Skip
     public void close(ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
         ctx.close(future);
     }
 
     @Override
+    @Skip
     public void deregister(ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
         ctx.deregister(future);
     }
 
     @Override
+    @Skip
     public void flush(ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
         flush0(ctx, future);
     }
 
+    @Override
+    @Skip
+    public void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelFuture future) throws Exception {
+        ctx.sendFile(region, future);
+    }
+
+    @Override
+    @Skip
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        ctx.read();
+    }
+
     static <O> void flush0(ChannelHandlerContext ctx, ChannelFuture future) {
         if (ctx.hasOutboundMessageBuffer()) {
             Queue<O> out = ctx.outboundMessageBuffer();
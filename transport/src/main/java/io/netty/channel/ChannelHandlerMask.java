@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ConcurrentIdentityWeakKeyHashMap;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.SocketAddress;
+import java.util.Map;
+
+/**
+ * Computes which events a {@link ChannelHandler} wants to handle, so that
+ * the pipeline does not invoke the handlers which only forward an event to
+ * the next handler.
+ */
+final class ChannelHandlerMask {
+
+    static final int MASK_CHANNEL_REGISTERED = 1;
+    static final int MASK_CHANNEL_UNREGISTERED = 1 << 1;
+    static final int MASK_CHANNEL_ACTIVE = 1 << 2;
+    static final int MASK_CHANNEL_INACTIVE = 1 << 3;
+    static final int MASK_CHANNEL_WRITABILITY_CHANGED = 1 << 4;
+    static final int MASK_INBOUND_BUFFER_UPDATED = 1 << 5;
+    static final int MASK_EXCEPTION_CAUGHT = 1 << 6;
+    static final int MASK_USER_EVENT_TRIGGERED = 1 << 7;
+    static final int MASK_BIND = 1 << 8;
+    static final int MASK_CONNECT = 1 << 9;
+    static final int MASK_DISCONNECT = 1 << 10;
+    static final int MASK_CLOSE = 1 << 11;
+    static final int MASK_DEREGISTER = 1 << 12;
+    static final int MASK_READ = 1 << 13;
+    static final int MASK_FLUSH = 1 << 14;
+    static final int MASK_SEND_FILE = 1 << 15;
+
+    private static final int MASK_ALL_COMMON = MASK_EXCEPTION_CAUGHT | MASK_USER_EVENT_TRIGGERED;
+    private static final int MASK_ALL_STATE =
+            MASK_CHANNEL_REGISTERED | MASK_CHANNEL_UNREGISTERED | MASK_CHANNEL_ACTIVE | MASK_CHANNEL_INACTIVE |
+            MASK_CHANNEL_WRITABILITY_CHANGED | MASK_INBOUND_BUFFER_UPDATED;
+    static final int MASK_ALL_OPERATION =
+            MASK_BIND | MASK_CONNECT | MASK_DISCONNECT | MASK_CLOSE | MASK_DEREGISTER | MASK_READ |
+            MASK_FLUSH | MASK_SEND_FILE;
+
+    private static final Map<Class<?>, Integer> masks = new ConcurrentIdentityWeakKeyHashMap<Class<?>, Integer>();
+
+    /**
+     * Returns the events the specified handler has to be invoked for, which
+     * are all the events of its type except the ones it handles with an
+     * adapter method marked with {@link Skip}.
+     */
+    static int mask(ChannelHandler handler) {
+        Class<? extends ChannelHandler> handlerType = handler.getClass();
+        Integer mask = masks.get(handlerType);
+        if (mask == null) {
+            mask = mask0(handlerType);
+            masks.put(handlerType, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns all the events of the type of the specified handler.
+     */
+    static int fullMask(ChannelHandler handler) {
+        int mask = MASK_ALL_COMMON;
+        if (handler instanceof ChannelStateHandler) {
+            mask |= MASK_ALL_STATE;
+        }
+        if (handler instanceof ChannelOperationHandler) {
+            mask |= MASK_ALL_OPERATION;
+        }
+        return mask;
+    }
+
+    private static int mask0(Class<? extends ChannelHandler> handlerType) {
+        int mask = MASK_ALL_COMMON;
+        if (isSkippable(handlerType, "exceptionCaught", ChannelHandlerContext.class, Throwable.class)) {
+            mask &= ~MASK_EXCEPTION_CAUGHT;
+        }
+        if (isSkippable(handlerType, "userEventTriggered", ChannelHandlerContext.class, Object.class)) {
+            mask &= ~MASK_USER_EVENT_TRIGGERED;
+        }
+
+        if (ChannelStateHandler.class.isAssignableFrom(handlerType)) {
+            mask |= MASK_ALL_STATE;
+            if (isSkippable(handlerType, "channelRegistered", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_REGISTERED;
+            }
+            if (isSkippable(handlerType, "channelUnregistered", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_UNREGISTERED;
+            }
+            if (isSkippable(handlerType, "channelActive", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_ACTIVE;
+            }
+            if (isSkippable(handlerType, "channelInactive", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_INACTIVE;
+            }
+            if (isSkippable(handlerType, "channelWritabilityChanged", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_WRITABILITY_CHANGED;
+            }
+            // A handler with an inbound buffer has to move its content to the next buffer.
+            if (!ChannelInboundHandler.class.isAssignableFrom(handlerType) &&
+                isSkippable(handlerType, "inboundBufferUpdated", ChannelHandlerContext.class)) {
+                mask &= ~MASK_INBOUND_BUFFER_UPDATED;
+            }
+        }
+
+        if (ChannelOperationHandler.class.isAssignableFrom(handlerType)) {
+            mask |= MASK_ALL_OPERATION;
+            if (isSkippable(handlerType, "bind", ChannelHandlerContext.class,
+                    SocketAddress.class, ChannelFuture.class)) {
+                mask &= ~MASK_BIND;
+            }
+            if (isSkippable(handlerType, "connect", ChannelHandlerContext.class,
+                    SocketAddress.class, SocketAddress.class, ChannelFuture.class)) {
+                mask &= ~MASK_CONNECT;
+            }
+            if (isSkippable(handlerType, "disconnect", ChannelHandlerContext.class, ChannelFuture.class)) {
+                mask &= ~MASK_DISCONNECT;
+            }
+            if (isSkippable(handlerType, "close", ChannelHandlerContext.class, ChannelFuture.class)) {
+                mask &= ~MASK_CLOSE;
+            }
+            if (isSkippable(handlerType, "deregister", ChannelHandlerContext.class, ChannelFuture.class)) {
+                mask &= ~MASK_DEREGISTER;
+            }
+            if (isSkippable(handlerType, "read", ChannelHandlerContext.class)) {
+                mask &= ~MASK_READ;
+            }
+            // A handler with an outbound buffer has to move its content to the next buffer.
+            if (!ChannelOutboundHandler.class.isAssignableFrom(handlerType) &&
+                isSkippable(handlerType, "flush", ChannelHandlerContext.class, ChannelFuture.class)) {
+                mask &= ~MASK_FLUSH;
+            }
+            if (isSkippable(handlerType, "sendFile", ChannelHandlerContext.class,
+                    FileRegion.class, ChannelFuture.class)) {
+                mask &= ~MASK_SEND_FILE;
+            }
+        }
+        return mask;
+    }
+
+    private static boolean isSkippable(Class<?> handlerType, String methodName, Class<?>... paramTypes) {
+        try {
+            return handlerType.getMethod(methodName, paramTypes).isAnnotationPresent(Skip.class);
+        } catch (Exception e) {
+            // Not accessible - invoke the method to be safe.
+            return false;
+        }
+    }
+
+    private ChannelHandlerMask() {
+        // Unused
+    }
+
+    /**
+     * Indicates that the annotated adapter method only forwards the event
+     * to the next handler, so the pipeline can skip it.  A handler which
+     * overrides the method is invoked as usual.
+     */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Documented
+    @interface Skip {
+        // no value
+    }
+}
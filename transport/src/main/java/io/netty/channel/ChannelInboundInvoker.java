@@ -24,4 +24,5 @@ public interface ChannelInboundInvoker {
     void fireExceptionCaught(Throwable cause);
     void fireUserEventTriggered(Object event);
     void fireInboundBufferUpdated();
+    void fireChannelWritabilityChanged();
 }
@@ -15,6 +15,8 @@
  */
 package io.netty.channel;
 
+import io.netty.channel.ChannelHandlerMask.Skip;
+
 import java.net.SocketAddress;
 
 public class ChannelOperationHandlerAdapter implements ChannelOperationHandler {
@@ -40,50 +42,71 @@ public class ChannelOperationHandlerAdapter implements ChannelOperationHandler {
     }
 
     @Override
+    @Skip
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
             throws Exception {
         ctx.fireExceptionCaught(cause);
     }
 
     @Override
+    @Skip
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt)
             throws Exception {
         ctx.fireUserEventTriggered(evt);
     }
 
     @Override
+    @Skip
     public void bind(ChannelHandlerContext ctx, SocketAddress localAddress,
             ChannelFuture future) throws Exception {
         ctx.bind(localAddress, future);
     }
 
     @Override
+    @Skip
     public void connect(ChannelHandlerContext ctx, SocketAddress remoteAddress,
             SocketAddress localAddress, ChannelFuture future) throws Exception {
         ctx.connect(remoteAddress, localAddress, future);
     }
 
     @Override
+    @Skip
     public void disconnect(ChannelHandlerContext ctx, ChannelFuture future)
             throws Exception {
         ctx.disconnect(future);
     }
 
     @Override
+    @Skip
     public void close(ChannelHandlerContext ctx, ChannelFuture future)
             throws Exception {
         ctx.close(future);
     }
 
     @Override
+    @Skip
     public void deregister(ChannelHandlerContext ctx, ChannelFuture future)
             throws Exception {
         ctx.deregister(future);
     }
 
     @Override
+    @Skip
     public void flush(ChannelHandlerContext ctx, ChannelFuture future)
             throws Exception {
         ChannelHandlerAdapter.flush0(ctx, future);
     }
+
+    @Override
+    @Skip
+    public void sendFile(ChannelHandlerContext ctx, FileRegion region,
+            ChannelFuture future) throws Exception {
+        ctx.sendFile(region, future);
+    }
+
+    @Override
+    @Skip
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        ctx.read();
+    }
 }
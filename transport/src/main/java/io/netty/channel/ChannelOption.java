@@ -32,6 +32,18 @@ public class ChannelOption<T> extends UniqueName {
             new ChannelOption<Integer>("CONNECT_TIMEOUT_MILLIS");
     public static final ChannelOption<Integer> WRITE_SPIN_COUNT =
             new ChannelOption<Integer>("WRITE_SPIN_COUNT");
+    public static final ChannelOption<Boolean> WRITE_BY_REFERENCE =
+            new ChannelOption<Boolean>("WRITE_BY_REFERENCE");
+    public static final ChannelOption<ReceiveBufferSizePredictorFactory> RECEIVE_BUFFER_SIZE_PREDICTOR_FACTORY =
+            new ChannelOption<ReceiveBufferSizePredictorFactory>("RECEIVE_BUFFER_SIZE_PREDICTOR_FACTORY");
+    public static final ChannelOption<Integer> MAX_MESSAGES_PER_READ =
+            new ChannelOption<Integer>("MAX_MESSAGES_PER_READ");
+    public static final ChannelOption<Integer> WRITE_BUFFER_HIGH_WATER_MARK =
+            new ChannelOption<Integer>("WRITE_BUFFER_HIGH_WATER_MARK");
+    public static final ChannelOption<Integer> WRITE_BUFFER_LOW_WATER_MARK =
+            new ChannelOption<Integer>("WRITE_BUFFER_LOW_WATER_MARK");
+    public static final ChannelOption<Boolean> AUTO_READ =
+            new ChannelOption<Boolean>("AUTO_READ");
 
     public static final ChannelOption<Boolean> SO_BROADCAST =
             new ChannelOption<Boolean>("SO_BROADCAST");
@@ -43,10 +55,14 @@ public class ChannelOption<T> extends UniqueName {
             new ChannelOption<Integer>("SO_RCVBUF");
     public static final ChannelOption<Boolean> SO_REUSEADDR =
             new ChannelOption<Boolean>("SO_REUSEADDR");
+    public static final ChannelOption<Boolean> SO_REUSEPORT =
+            new ChannelOption<Boolean>("SO_REUSEPORT");
     public static final ChannelOption<Integer> SO_LINGER =
             new ChannelOption<Integer>("SO_LINGER");
     public static final ChannelOption<Integer> SO_BACKLOG =
             new ChannelOption<Integer>("SO_BACKLOG");
+    public static final ChannelOption<Integer> MAX_ACCEPT_RATE =
+            new ChannelOption<Integer>("MAX_ACCEPT_RATE");
 
     public static final ChannelOption<Integer> IP_TOS =
             new ChannelOption<Integer>("IP_TOS");
@@ -61,6 +77,10 @@ public class ChannelOption<T> extends UniqueName {
 
     public static final ChannelOption<Integer> UDP_RECEIVE_PACKET_SIZE =
             new ChannelOption<Integer>("UDP_RECEIVE_PACKET_SIZE");
+    public static final ChannelOption<Boolean> UDP_RECEIVE_BUFFER_POOLED =
+            new ChannelOption<Boolean>("UDP_RECEIVE_BUFFER_POOLED");
+    public static final ChannelOption<Integer> UDP_BATCH_SIZE =
+            new ChannelOption<Integer>("UDP_BATCH_SIZE");
 
     public static final ChannelOption<Boolean> TCP_NODELAY =
             new ChannelOption<Boolean>("TCP_NODELAY");
@@ -26,6 +26,7 @@ public interface ChannelOutboundInvoker {
     ChannelFuture deregister();
     ChannelFuture flush();
     ChannelFuture write(Object message);
+    ChannelFuture sendFile(FileRegion region);
 
     ChannelFuture bind(SocketAddress localAddress, ChannelFuture future);
     ChannelFuture connect(SocketAddress remoteAddress, ChannelFuture future);
@@ -35,4 +36,13 @@ public interface ChannelOutboundInvoker {
     ChannelFuture deregister(ChannelFuture future);
     ChannelFuture flush(ChannelFuture future);
     ChannelFuture write(Object message, ChannelFuture future);
+    ChannelFuture sendFile(FileRegion region, ChannelFuture future);
+
+    /**
+     * Requests to read data from the {@link Channel} into the inbound buffer.
+     * This is needed only when {@link ChannelConfig#isAutoRead() auto-read}
+     * is disabled; each request lets the channel read once, and the handlers
+     * are notified of the read data via {@code inboundBufferUpdated()}.
+     */
+    void read();
 }
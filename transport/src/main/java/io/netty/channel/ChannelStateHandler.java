@@ -23,4 +23,12 @@ public interface ChannelStateHandler extends ChannelHandler {
     void channelInactive(ChannelHandlerContext ctx) throws Exception;
 
     void inboundBufferUpdated(ChannelHandlerContext ctx) throws Exception;
+
+    /**
+     * Invoked when {@link Channel#isWritable()} of the {@link Channel} has
+     * changed.  A handler which generates outbound data should stop writing
+     * when the {@link Channel} is not writable, and resume when it becomes
+     * writable again.
+     */
+    void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception;
 }
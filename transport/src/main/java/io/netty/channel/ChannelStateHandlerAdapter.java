@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.buffer.ChannelBuffer;
+import io.netty.channel.ChannelHandlerMask.Skip;
 
 import java.util.Queue;
 
@@ -49,38 +50,51 @@ public class ChannelStateHandlerAdapter implements ChannelStateHandler {
     }
 
     @Override
+    @Skip
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
             throws Exception {
         ctx.fireExceptionCaught(cause);
     }
 
     @Override
+    @Skip
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt)
             throws Exception {
         ctx.fireUserEventTriggered(evt);
     }
 
     @Override
+    @Skip
     public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
         ctx.fireChannelRegistered();
     }
 
     @Override
+    @Skip
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
         ctx.fireChannelUnregistered();
     }
 
     @Override
+    @Skip
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         ctx.fireChannelActive();
     }
 
     @Override
+    @Skip
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         ctx.fireChannelInactive();
     }
 
     @Override
+    @Skip
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    @Skip
     public void inboundBufferUpdated(ChannelHandlerContext ctx) throws Exception {
         inboundBufferUpdated0(ctx);
     }
@@ -135,6 +135,11 @@ public class CombinedChannelHandler
         in.channelInactive(ctx);
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        in.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         in.exceptionCaught(ctx, cause);
@@ -188,4 +193,15 @@ public class CombinedChannelHandler
             ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
         out.flush(ctx, future);
     }
+
+    @Override
+    public void sendFile(
+            ChannelHandlerContext ctx, FileRegion region, ChannelFuture future) throws Exception {
+        out.sendFile(ctx, region, future);
+    }
+
+    @Override
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        out.read(ctx);
+    }
 }
@@ -28,13 +28,42 @@ import java.util.Map.Entry;
 public class DefaultChannelConfig implements ChannelConfig {
 
     private static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+    private static final ReceiveBufferSizePredictorFactory DEFAULT_PREDICTOR_FACTORY =
+            new AdaptiveReceiveBufferSizePredictorFactory();
 
     private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT;
     private volatile int writeSpinCount = 16;
+    private volatile boolean writeByReference;
+    private volatile ReceiveBufferSizePredictorFactory predictorFactory = DEFAULT_PREDICTOR_FACTORY;
+    private volatile int maxMessagesPerRead = 16;
+    private volatile int writeBufferHighWaterMark = 64 * 1024;
+    private volatile int writeBufferLowWaterMark = 32 * 1024;
+    private volatile boolean autoRead = true;
+
+    private final Channel channel;
+
+    /**
+     * Creates a new instance which is not bound to any {@link Channel}.
+     * Changing the {@link #setAutoRead(boolean) autoRead} property of such
+     * a configuration does not resume reading.
+     */
+    public DefaultChannelConfig() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance for the specified {@link Channel}.
+     */
+    public DefaultChannelConfig(Channel channel) {
+        this.channel = channel;
+    }
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(null, CONNECT_TIMEOUT_MILLIS, WRITE_SPIN_COUNT);
+        return getOptions(
+                null, CONNECT_TIMEOUT_MILLIS, WRITE_SPIN_COUNT, WRITE_BY_REFERENCE,
+                RECEIVE_BUFFER_SIZE_PREDICTOR_FACTORY, MAX_MESSAGES_PER_READ,
+                WRITE_BUFFER_HIGH_WATER_MARK, WRITE_BUFFER_LOW_WATER_MARK, AUTO_READ);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -74,6 +103,18 @@ public class DefaultChannelConfig implements ChannelConfig {
             return (T) Integer.valueOf(getConnectTimeoutMillis());
         } else if (option == WRITE_SPIN_COUNT) {
             return (T) Integer.valueOf(getWriteSpinCount());
+        } else if (option == WRITE_BY_REFERENCE) {
+            return (T) Boolean.valueOf(isWriteByReference());
+        } else if (option == RECEIVE_BUFFER_SIZE_PREDICTOR_FACTORY) {
+            return (T) getReceiveBufferSizePredictorFactory();
+        } else if (option == MAX_MESSAGES_PER_READ) {
+            return (T) Integer.valueOf(getMaxMessagesPerRead());
+        } else if (option == WRITE_BUFFER_HIGH_WATER_MARK) {
+            return (T) Integer.valueOf(getWriteBufferHighWaterMark());
+        } else if (option == WRITE_BUFFER_LOW_WATER_MARK) {
+            return (T) Integer.valueOf(getWriteBufferLowWaterMark());
+        } else if (option == AUTO_READ) {
+            return (T) Boolean.valueOf(isAutoRead());
         }
 
         return null;
@@ -87,6 +128,18 @@ public class DefaultChannelConfig implements ChannelConfig {
             setConnectTimeoutMillis((Integer) value);
         } else if (option == WRITE_SPIN_COUNT) {
             setWriteSpinCount((Integer) value);
+        } else if (option == WRITE_BY_REFERENCE) {
+            setWriteByReference((Boolean) value);
+        } else if (option == RECEIVE_BUFFER_SIZE_PREDICTOR_FACTORY) {
+            setReceiveBufferSizePredictorFactory((ReceiveBufferSizePredictorFactory) value);
+        } else if (option == MAX_MESSAGES_PER_READ) {
+            setMaxMessagesPerRead((Integer) value);
+        } else if (option == WRITE_BUFFER_HIGH_WATER_MARK) {
+            setWriteBufferHighWaterMark((Integer) value);
+        } else if (option == WRITE_BUFFER_LOW_WATER_MARK) {
+            setWriteBufferLowWaterMark((Integer) value);
+        } else if (option == AUTO_READ) {
+            setAutoRead((Boolean) value);
         } else {
             return false;
         }
@@ -128,4 +181,89 @@ public class DefaultChannelConfig implements ChannelConfig {
         }
         this.writeSpinCount = writeSpinCount;
     }
+
+    @Override
+    public boolean isWriteByReference() {
+        return writeByReference;
+    }
+
+    @Override
+    public void setWriteByReference(boolean writeByReference) {
+        this.writeByReference = writeByReference;
+    }
+
+    @Override
+    public ReceiveBufferSizePredictorFactory getReceiveBufferSizePredictorFactory() {
+        return predictorFactory;
+    }
+
+    @Override
+    public void setReceiveBufferSizePredictorFactory(ReceiveBufferSizePredictorFactory predictorFactory) {
+        if (predictorFactory == null) {
+            throw new NullPointerException("predictorFactory");
+        }
+        this.predictorFactory = predictorFactory;
+    }
+
+    @Override
+    public int getMaxMessagesPerRead() {
+        return maxMessagesPerRead;
+    }
+
+    @Override
+    public void setMaxMessagesPerRead(int maxMessagesPerRead) {
+        if (maxMessagesPerRead <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "maxMessagesPerRead: %d (expected: > 0)", maxMessagesPerRead));
+        }
+        this.maxMessagesPerRead = maxMessagesPerRead;
+    }
+
+    @Override
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    @Override
+    public void setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        if (writeBufferHighWaterMark < getWriteBufferLowWaterMark()) {
+            throw new IllegalArgumentException(String.format(
+                    "writeBufferHighWaterMark: %d (expected: >= writeBufferLowWaterMark (%d))",
+                    writeBufferHighWaterMark, getWriteBufferLowWaterMark()));
+        }
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    }
+
+    @Override
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    @Override
+    public void setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        if (writeBufferLowWaterMark < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "writeBufferLowWaterMark: %d (expected: >= 0)", writeBufferLowWaterMark));
+        }
+        if (writeBufferLowWaterMark > getWriteBufferHighWaterMark()) {
+            throw new IllegalArgumentException(String.format(
+                    "writeBufferLowWaterMark: %d (expected: <= writeBufferHighWaterMark (%d))",
+                    writeBufferLowWaterMark, getWriteBufferHighWaterMark()));
+        }
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    }
+
+    @Override
+    public boolean isAutoRead() {
+        return autoRead;
+    }
+
+    @Override
+    public void setAutoRead(boolean autoRead) {
+        boolean oldAutoRead = this.autoRead;
+        this.autoRead = autoRead;
+        if (autoRead && !oldAutoRead && channel != null) {
+            channel.read();
+        }
+    }
 }
@@ -15,11 +15,12 @@
  */
 package io.netty.channel;
 
+import static io.netty.channel.ChannelHandlerMask.*;
 import static io.netty.channel.DefaultChannelPipeline.*;
 import io.netty.buffer.ChannelBuffer;
-import io.netty.buffer.ChannelBuffers;
+import io.netty.buffer.QueueBackedChannelBuffer;
 import io.netty.util.DefaultAttributeMap;
-import io.netty.util.internal.QueueFactory;
+import io.netty.util.internal.SpscRingQueue;
 
 import java.net.SocketAddress;
 import java.util.ArrayDeque;
@@ -27,7 +28,6 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 final class DefaultChannelHandlerContext extends DefaultAttributeMap implements ChannelHandlerContext {
@@ -41,6 +41,8 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     EventExecutor executor; // not thread-safe but OK because it never changes once set.
     private final String name;
     final Set<ChannelHandlerType> type;
+    // The events the handler has to be invoked for.  See ChannelHandlerMask.
+    final int mask;
     private final ChannelHandler handler;
 
     final Queue<Object> inMsgBuf;
@@ -103,6 +105,17 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
             }
         }
     };
+    final Runnable fireChannelWritabilityChangedTask = new Runnable() {
+        @Override
+        public void run() {
+            DefaultChannelHandlerContext ctx = DefaultChannelHandlerContext.this;
+            try {
+                ((ChannelStateHandler) ctx.handler).channelWritabilityChanged(ctx);
+            } catch (Throwable t) {
+                pipeline.notifyHandlerException(t);
+            }
+        }
+    };
     final Runnable curCtxFireInboundBufferUpdatedTask = new Runnable() {
         @Override
         public void run() {
@@ -126,9 +139,9 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         @Override
         public void run() {
             DefaultChannelHandlerContext next = nextContext(
-                    DefaultChannelHandlerContext.this.next, ChannelHandlerType.STATE);
+                    DefaultChannelHandlerContext.this.next, MASK_INBOUND_BUFFER_UPDATED);
             if (next != null) {
-                next.fillBridge();
+                next.fillInboundBridge();
                 DefaultChannelPipeline.fireInboundBufferUpdated(next);
             }
         }
@@ -163,6 +176,10 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         }
         this.type = Collections.unmodifiableSet(type);
 
+        // Skipping a handler with its own executor could let an event
+        // overtake the events queued in that executor.
+        mask = executor == null? ChannelHandlerMask.mask(handler) : ChannelHandlerMask.fullMask(handler);
+
         this.prev = prev;
         this.next = next;
 
@@ -239,7 +256,8 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         }
     }
 
-    void fillBridge() {
+    // Called by the thread which writes into the inbound bridge, which is the only producer.
+    void fillInboundBridge() {
         if (inMsgBridge != null) {
             MessageBridge bridge = inMsgBridge.get();
             if (bridge != null) {
@@ -251,7 +269,10 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
                 bridge.fill();
             }
         }
+    }
 
+    // Called by the thread which writes into the outbound bridge, which is the only producer.
+    void fillOutboundBridge() {
         if (outMsgBridge != null) {
             MessageBridge bridge = outMsgBridge.get();
             if (bridge != null) {
@@ -421,7 +442,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public void fireChannelRegistered() {
-        DefaultChannelHandlerContext next = nextContext(this.next, ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_CHANNEL_REGISTERED);
         if (next != null) {
             DefaultChannelPipeline.fireChannelRegistered(next);
         }
@@ -429,7 +450,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public void fireChannelUnregistered() {
-        DefaultChannelHandlerContext next = nextContext(this.next, ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_CHANNEL_UNREGISTERED);
         if (next != null) {
             DefaultChannelPipeline.fireChannelUnregistered(next);
         }
@@ -437,7 +458,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public void fireChannelActive() {
-        DefaultChannelHandlerContext next = nextContext(this.next, ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_CHANNEL_ACTIVE);
         if (next != null) {
             DefaultChannelPipeline.fireChannelActive(next);
         }
@@ -445,15 +466,23 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public void fireChannelInactive() {
-        DefaultChannelHandlerContext next = nextContext(this.next, ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_CHANNEL_INACTIVE);
         if (next != null) {
             DefaultChannelPipeline.fireChannelInactive(next);
         }
     }
 
+    @Override
+    public void fireChannelWritabilityChanged() {
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_CHANNEL_WRITABILITY_CHANGED);
+        if (next != null) {
+            DefaultChannelPipeline.fireChannelWritabilityChanged(next);
+        }
+    }
+
     @Override
     public void fireExceptionCaught(Throwable cause) {
-        DefaultChannelHandlerContext next = this.next;
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_EXCEPTION_CAUGHT);
         if (next != null) {
             pipeline.fireExceptionCaught(next, cause);
         } else {
@@ -463,7 +492,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public void fireUserEventTriggered(Object event) {
-        DefaultChannelHandlerContext next = this.next;
+        DefaultChannelHandlerContext next = nextContext(this.next, MASK_USER_EVENT_TRIGGERED);
         if (next != null) {
             pipeline.fireUserEventTriggered(next, event);
         }
@@ -519,9 +548,14 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         return write(message, newFuture());
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region) {
+        return sendFile(region, newFuture());
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelFuture future) {
-        return pipeline.bind(nextContext(prev, ChannelHandlerType.OPERATION), localAddress, future);
+        return pipeline.bind(nextContext(prev, MASK_BIND), localAddress, future);
     }
 
     @Override
@@ -531,30 +565,35 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelFuture future) {
-        return pipeline.connect(nextContext(prev, ChannelHandlerType.OPERATION), remoteAddress, localAddress, future);
+        return pipeline.connect(nextContext(prev, MASK_CONNECT), remoteAddress, localAddress, future);
     }
 
     @Override
     public ChannelFuture disconnect(ChannelFuture future) {
-        return pipeline.disconnect(nextContext(prev, ChannelHandlerType.OPERATION), future);
+        return pipeline.disconnect(nextContext(prev, MASK_DISCONNECT), future);
     }
 
     @Override
     public ChannelFuture close(ChannelFuture future) {
-        return pipeline.close(nextContext(prev, ChannelHandlerType.OPERATION), future);
+        return pipeline.close(nextContext(prev, MASK_CLOSE), future);
     }
 
     @Override
     public ChannelFuture deregister(ChannelFuture future) {
-        return pipeline.deregister(nextContext(prev, ChannelHandlerType.OPERATION), future);
+        return pipeline.deregister(nextContext(prev, MASK_DEREGISTER), future);
+    }
+
+    @Override
+    public void read() {
+        pipeline.read(nextContext(prev, MASK_READ));
     }
 
     @Override
     public ChannelFuture flush(final ChannelFuture future) {
         EventExecutor executor = executor();
         if (executor.inEventLoop()) {
-            DefaultChannelHandlerContext prev = nextContext(this.prev, ChannelHandlerType.OPERATION);
-            prev.fillBridge();
+            DefaultChannelHandlerContext prev = nextContext(this.prev, MASK_FLUSH);
+            prev.fillOutboundBridge();
             pipeline.flush(prev, future);
         } else {
             executor.execute(new Runnable() {
@@ -573,6 +612,11 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         return pipeline.write(prev, message, future);
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region, ChannelFuture future) {
+        return pipeline.sendFile(nextContext(prev, MASK_SEND_FILE), region, future);
+    }
+
     @Override
     public ChannelFuture newFuture() {
         return channel.newFuture();
@@ -588,44 +632,54 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         return channel.newFailedFuture(cause);
     }
 
+    /**
+     * Passes messages from the thread of one handler to the thread of the next
+     * handler.  The writing handler adds messages to {@link #msgBuf}, which
+     * only its thread accesses, and {@link #fill()} moves them by reference
+     * into a single-producer single-consumer ring which
+     * {@link #flush(Queue)} drains into the actual buffer.
+     */
     static final class MessageBridge {
         final Queue<Object> msgBuf = new ArrayDeque<Object>();
-        final BlockingQueue<Object[]> exchangeBuf = QueueFactory.createQueue();
+        private final SpscRingQueue<Object> exchangeBuf = new SpscRingQueue<Object>();
 
         void fill() {
-            if (msgBuf.isEmpty()) {
-                return;
+            for (;;) {
+                Object m = msgBuf.poll();
+                if (m == null) {
+                    break;
+                }
+                exchangeBuf.offer(m);
             }
-            Object[] data = msgBuf.toArray();
-            msgBuf.clear();
-            exchangeBuf.add(data);
         }
 
         void flush(Queue<Object> out) {
             for (;;) {
-                Object[] data = exchangeBuf.poll();
-                if (data == null) {
+                Object m = exchangeBuf.poll();
+                if (m == null) {
                     break;
                 }
-
-                for (Object d: data) {
-                    out.add(d);
-                }
+                out.add(m);
             }
         }
     }
 
+    /**
+     * Passes bytes from the thread of one handler to the thread of the next
+     * handler.  {@link #fill()} detaches the written components of
+     * {@link #byteBuf} instead of copying them, and {@link #flush(ChannelBuffer)}
+     * appends them by reference if the actual buffer is a
+     * {@link QueueBackedChannelBuffer}.
+     */
     static final class StreamBridge {
-        final ChannelBuffer byteBuf = ChannelBuffers.dynamicBuffer();
-        final BlockingQueue<ChannelBuffer> exchangeBuf = QueueFactory.createQueue();
+        final QueueBackedChannelBuffer byteBuf = new QueueBackedChannelBuffer();
+        private final SpscRingQueue<ChannelBuffer> exchangeBuf = new SpscRingQueue<ChannelBuffer>();
 
         void fill() {
             if (!byteBuf.readable()) {
                 return;
             }
-            ChannelBuffer data = byteBuf.readBytes(byteBuf.readableBytes());
-            byteBuf.discardReadBytes();
-            exchangeBuf.add(data);
+            exchangeBuf.offer(byteBuf.detachReadableBytes());
         }
 
         void flush(ChannelBuffer out) {
@@ -635,7 +689,12 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
                     break;
                 }
 
-                out.writeBytes(data);
+                if (out instanceof QueueBackedChannelBuffer) {
+                    ((QueueBackedChannelBuffer) out).addBuffer(data);
+                } else {
+                    out.writeBytes(data);
+                    data.release();
+                }
             }
         }
     }
@@ -15,7 +15,9 @@
  */
 package io.netty.channel;
 
+import static io.netty.channel.ChannelHandlerMask.*;
 import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.QueueBackedChannelBuffer;
 import io.netty.channel.DefaultChannelHandlerContext.MessageBridge;
 import io.netty.channel.DefaultChannelHandlerContext.StreamBridge;
 import io.netty.logging.InternalLogger;
@@ -23,6 +25,7 @@ import io.netty.logging.InternalLoggerFactory;
 
 import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
@@ -47,6 +50,11 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private volatile DefaultChannelHandlerContext tail;
     private final Map<String, DefaultChannelHandlerContext> name2ctx =
         new HashMap<String, DefaultChannelHandlerContext>(4);
+    /**
+     * Immutable copy of the topology which is republished on every modification, so that the lookup
+     * methods never acquire the lock which guards {@link #name2ctx} and the links between the contexts.
+     */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
     private boolean firedChannelActive;
     private boolean fireInboundBufferUpdatedOnActivation;
 
@@ -128,6 +136,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
         head.next = newCtx;
         name2ctx.put(name, newCtx);
+        updateSnapshot();
 
         callAfterAdd(newCtx);
     }
@@ -184,9 +193,12 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             final String name, DefaultChannelHandlerContext oldTail, DefaultChannelHandlerContext newTail) {
         callBeforeAdd(newTail);
 
+        // replace() creates the new tail before removing the old one.
+        newTail.prev = oldTail;
         oldTail.next = newTail;
         tail = newTail;
         name2ctx.put(name, newTail);
+        updateSnapshot();
 
         callAfterAdd(newTail);
     }
@@ -246,6 +258,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         ctx.prev.next = newCtx;
         ctx.prev = newCtx;
         name2ctx.put(name, newCtx);
+        updateSnapshot();
 
         callAfterAdd(newCtx);
     }
@@ -310,6 +323,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         ctx.next.prev = newCtx;
         ctx.next = newCtx;
         name2ctx.put(name, newCtx);
+        updateSnapshot();
 
         callAfterAdd(newCtx);
     }
@@ -459,6 +473,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         prev.next = next;
         next.prev = prev;
         name2ctx.remove(ctx.name());
+        updateSnapshot();
 
         callAfterRemove(ctx);
     }
@@ -518,6 +533,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         oldTail.prev.next = null;
         tail = oldTail.prev;
         name2ctx.remove(oldTail.name());
+        updateSnapshot();
 
         callBeforeRemove(oldTail);
     }
@@ -630,6 +646,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             name2ctx.remove(ctx.name());
         }
         name2ctx.put(newName, newCtx);
+        updateSnapshot();
 
         ChannelHandlerLifeCycleException removeException = null;
         ChannelHandlerLifeCycleException addException = null;
@@ -729,26 +746,26 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     }
 
     @Override
-    public synchronized ChannelHandler first() {
-        DefaultChannelHandlerContext first = head.next;
-        if (first == null) {
+    public ChannelHandler first() {
+        DefaultChannelHandlerContext[] contexts = snapshot.contexts;
+        if (contexts.length == 0) {
             return null;
         }
-        return first.handler();
+        return contexts[0].handler();
     }
 
     @Override
-    public synchronized ChannelHandler last() {
-        DefaultChannelHandlerContext last = tail;
-        if (last == head || last == null) {
+    public ChannelHandler last() {
+        DefaultChannelHandlerContext[] contexts = snapshot.contexts;
+        if (contexts.length == 0) {
             return null;
         }
-        return last.handler();
+        return contexts[contexts.length - 1].handler();
     }
 
     @Override
-    public synchronized ChannelHandler get(String name) {
-        DefaultChannelHandlerContext ctx = name2ctx.get(name);
+    public ChannelHandler get(String name) {
+        ChannelHandlerContext ctx = context(name);
         if (ctx == null) {
             return null;
         } else {
@@ -757,7 +774,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     }
 
     @Override
-    public synchronized <T extends ChannelHandler> T get(Class<T> handlerType) {
+    public <T extends ChannelHandler> T get(Class<T> handlerType) {
         ChannelHandlerContext ctx = context(handlerType);
         if (ctx == null) {
             return null;
@@ -767,73 +784,46 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     }
 
     @Override
-    public synchronized ChannelHandlerContext context(String name) {
+    public ChannelHandlerContext context(String name) {
         if (name == null) {
             throw new NullPointerException("name");
         }
-        return name2ctx.get(name);
+        return snapshot.name2ctx.get(name);
     }
 
     @Override
-    public synchronized ChannelHandlerContext context(ChannelHandler handler) {
+    public ChannelHandlerContext context(ChannelHandler handler) {
         if (handler == null) {
             throw new NullPointerException("handler");
         }
-        if (name2ctx.isEmpty()) {
-            return null;
-        }
-        DefaultChannelHandlerContext ctx = head;
-        for (;;) {
+        for (DefaultChannelHandlerContext ctx: snapshot.contexts) {
             if (ctx.handler() == handler) {
                 return ctx;
             }
-
-            ctx = ctx.next;
-            if (ctx == null) {
-                break;
-            }
         }
         return null;
     }
 
     @Override
-    public synchronized ChannelHandlerContext context(
+    public ChannelHandlerContext context(
             Class<? extends ChannelHandler> handlerType) {
         if (handlerType == null) {
             throw new NullPointerException("handlerType");
         }
-
-        if (name2ctx.isEmpty()) {
-            return null;
-        }
-        DefaultChannelHandlerContext ctx = head.next;
-        for (;;) {
+        for (DefaultChannelHandlerContext ctx: snapshot.contexts) {
             if (handlerType.isAssignableFrom(ctx.handler().getClass())) {
                 return ctx;
             }
-
-            ctx = ctx.next;
-            if (ctx == null) {
-                break;
-            }
         }
         return null;
     }
 
     @Override
     public List<String> names() {
-        List<String> list = new ArrayList<String>();
-        if (name2ctx.isEmpty()) {
-            return list;
-        }
-
-        DefaultChannelHandlerContext ctx = head.next;
-        for (;;) {
+        DefaultChannelHandlerContext[] contexts = snapshot.contexts;
+        List<String> list = new ArrayList<String>(contexts.length);
+        for (DefaultChannelHandlerContext ctx: contexts) {
             list.add(ctx.name());
-            ctx = ctx.next;
-            if (ctx == null) {
-                break;
-            }
         }
         return list;
     }
@@ -841,17 +831,8 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     @Override
     public Map<String, ChannelHandler> toMap() {
         Map<String, ChannelHandler> map = new LinkedHashMap<String, ChannelHandler>();
-        if (name2ctx.isEmpty()) {
-            return map;
-        }
-
-        DefaultChannelHandlerContext ctx = head.next;
-        for (;;) {
+        for (DefaultChannelHandlerContext ctx: snapshot.contexts) {
             map.put(ctx.name(), ctx.handler());
-            ctx = ctx.next;
-            if (ctx == null) {
-                break;
-            }
         }
         return map;
     }
@@ -864,23 +845,35 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         StringBuilder buf = new StringBuilder();
         buf.append(getClass().getSimpleName());
         buf.append('{');
-        DefaultChannelHandlerContext ctx = head.next;
-        for (;;) {
+        DefaultChannelHandlerContext[] contexts = snapshot.contexts;
+        for (int i = 0; i < contexts.length; i ++) {
+            if (i != 0) {
+                buf.append(", ");
+            }
+            DefaultChannelHandlerContext ctx = contexts[i];
             buf.append('(');
             buf.append(ctx.name());
             buf.append(" = ");
             buf.append(ctx.handler().getClass().getName());
             buf.append(')');
-            ctx = ctx.next;
-            if (ctx == null) {
-                break;
-            }
-            buf.append(", ");
         }
         buf.append('}');
         return buf.toString();
     }
 
+    /**
+     * Republishes the {@link Snapshot} of the current topology.  Must be called with the lock of this
+     * pipeline held, after every modification of the links between the contexts.
+     */
+    private void updateSnapshot() {
+        DefaultChannelHandlerContext[] contexts = new DefaultChannelHandlerContext[name2ctx.size()];
+        int i = 0;
+        for (DefaultChannelHandlerContext ctx = head.next; ctx != null; ctx = ctx.next) {
+            contexts[i ++] = ctx;
+        }
+        snapshot = new Snapshot(contexts, new HashMap<String, DefaultChannelHandlerContext>(name2ctx));
+    }
+
     @Override
     public Queue<Object> inboundMessageBuffer() {
         if (channel.type() != ChannelType.MESSAGE) {
@@ -1060,7 +1053,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public void fireChannelRegistered() {
-        DefaultChannelHandlerContext ctx = firstContext(ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext ctx = firstContext(MASK_CHANNEL_REGISTERED);
         if (ctx != null) {
             fireChannelRegistered(ctx);
         }
@@ -1077,7 +1070,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public void fireChannelUnregistered() {
-        DefaultChannelHandlerContext ctx = firstContext(ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext ctx = firstContext(MASK_CHANNEL_UNREGISTERED);
         if (ctx != null) {
             fireChannelUnregistered(ctx);
         }
@@ -1094,12 +1087,20 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public void fireChannelActive() {
-        DefaultChannelHandlerContext ctx = firstContext(ChannelHandlerType.STATE);
+        if (firstContext(ChannelHandlerType.STATE) == null) {
+            return;
+        }
+
+        firedChannelActive = true;
+        DefaultChannelHandlerContext ctx = firstContext(MASK_CHANNEL_ACTIVE);
         if (ctx != null) {
-            firedChannelActive = true;
             fireChannelActive(ctx);
-            if (fireInboundBufferUpdatedOnActivation) {
-                fireInboundBufferUpdatedOnActivation = false;
+        }
+        if (fireInboundBufferUpdatedOnActivation) {
+            fireInboundBufferUpdatedOnActivation = false;
+            ctx = firstContext(MASK_INBOUND_BUFFER_UPDATED);
+            if (ctx != null) {
+                ctx.fillInboundBridge();
                 fireInboundBufferUpdated(ctx);
             }
         }
@@ -1116,7 +1117,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public void fireChannelInactive() {
-        DefaultChannelHandlerContext ctx = firstContext(ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext ctx = firstContext(MASK_CHANNEL_INACTIVE);
         if (ctx != null) {
             // Some implementations such as EmbeddedChannel can trigger inboundBufferUpdated()
             // after deactivation, so it's safe not to revert the firedChannelActive flag here.
@@ -1135,9 +1136,26 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
     }
 
+    @Override
+    public void fireChannelWritabilityChanged() {
+        DefaultChannelHandlerContext ctx = firstContext(MASK_CHANNEL_WRITABILITY_CHANGED);
+        if (ctx != null) {
+            fireChannelWritabilityChanged(ctx);
+        }
+    }
+
+    static void fireChannelWritabilityChanged(DefaultChannelHandlerContext ctx) {
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            ctx.fireChannelWritabilityChangedTask.run();
+        } else {
+            executor.execute(ctx.fireChannelWritabilityChangedTask);
+        }
+    }
+
     @Override
     public void fireExceptionCaught(Throwable cause) {
-        DefaultChannelHandlerContext ctx = head.next;
+        DefaultChannelHandlerContext ctx = nextContext(head.next, MASK_EXCEPTION_CAUGHT);
         if (ctx != null) {
             fireExceptionCaught(ctx, cause);
         } else {
@@ -1160,7 +1178,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         EventExecutor executor = ctx.executor();
         if (executor.inEventLoop()) {
             try {
-                ((ChannelInboundHandler<Object>) ctx.handler()).exceptionCaught(ctx, cause);
+                ctx.handler().exceptionCaught(ctx, cause);
             } catch (Throwable t) {
                 if (logger.isWarnEnabled()) {
                     logger.warn(
@@ -1180,7 +1198,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public void fireUserEventTriggered(Object event) {
-        DefaultChannelHandlerContext ctx = head.next;
+        DefaultChannelHandlerContext ctx = nextContext(head.next, MASK_USER_EVENT_TRIGGERED);
         if (ctx != null) {
             fireUserEventTriggered(ctx, event);
         }
@@ -1194,7 +1212,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         EventExecutor executor = ctx.executor();
         if (executor.inEventLoop()) {
             try {
-                ((ChannelInboundHandler<Object>) ctx.handler()).userEventTriggered(ctx, event);
+                ctx.handler().userEventTriggered(ctx, event);
             } catch (Throwable t) {
                 notifyHandlerException(t);
             }
@@ -1214,8 +1232,11 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             fireInboundBufferUpdatedOnActivation = true;
             return;
         }
-        DefaultChannelHandlerContext ctx = firstContext(ChannelHandlerType.STATE);
+        DefaultChannelHandlerContext ctx = firstContext(MASK_INBOUND_BUFFER_UPDATED);
         if (ctx != null) {
+            // Publish what the event loop has written into the bridge of a
+            // handler with a different executor.
+            ctx.fillInboundBridge();
             fireInboundBufferUpdated(ctx);
         }
     }
@@ -1269,9 +1290,14 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return write(message, channel.newFuture());
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region) {
+        return sendFile(region, channel.newFuture());
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelFuture future) {
-        return bind(firstContext(ChannelHandlerType.OPERATION), localAddress, future);
+        return bind(firstContext(MASK_BIND), localAddress, future);
     }
 
     ChannelFuture bind(
@@ -1306,7 +1332,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelFuture future) {
-        return connect(firstContext(ChannelHandlerType.OPERATION), remoteAddress, localAddress, future);
+        return connect(firstContext(MASK_CONNECT), remoteAddress, localAddress, future);
     }
 
     ChannelFuture connect(
@@ -1338,7 +1364,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public ChannelFuture disconnect(ChannelFuture future) {
-        return disconnect(firstContext(ChannelHandlerType.OPERATION), future);
+        return disconnect(firstContext(MASK_DISCONNECT), future);
     }
 
     ChannelFuture disconnect(final DefaultChannelHandlerContext ctx, final ChannelFuture future) {
@@ -1364,7 +1390,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public ChannelFuture close(ChannelFuture future) {
-        return close(firstContext(ChannelHandlerType.OPERATION), future);
+        return close(firstContext(MASK_CLOSE), future);
     }
 
     ChannelFuture close(final DefaultChannelHandlerContext ctx, final ChannelFuture future) {
@@ -1390,7 +1416,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     @Override
     public ChannelFuture deregister(final ChannelFuture future) {
-        return deregister(firstContext(ChannelHandlerType.OPERATION), future);
+        return deregister(firstContext(MASK_DEREGISTER), future);
     }
 
     ChannelFuture deregister(final DefaultChannelHandlerContext ctx, final ChannelFuture future) {
@@ -1414,9 +1440,32 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return future;
     }
 
+    @Override
+    public void read() {
+        read(firstContext(MASK_READ));
+    }
+
+    void read(final DefaultChannelHandlerContext ctx) {
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            try {
+                ((ChannelOperationHandler) ctx.handler()).read(ctx);
+            } catch (Throwable t) {
+                notifyHandlerException(t);
+            }
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    read(ctx);
+                }
+            });
+        }
+    }
+
     @Override
     public ChannelFuture flush(ChannelFuture future) {
-        return flush(firstContext(ChannelHandlerType.OPERATION), future);
+        return flush(firstContext(MASK_FLUSH), future);
     }
 
     ChannelFuture flush(final DefaultChannelHandlerContext ctx, final ChannelFuture future) {
@@ -1489,7 +1538,14 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 ctx.outMsgBuf.add(message);
             } else {
                 ChannelBuffer buf = (ChannelBuffer) message;
-                ctx.outByteBuf.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+                ChannelBuffer out = ctx.outByteBuf;
+                if (out instanceof QueueBackedChannelBuffer && channel.config().isWriteByReference()) {
+                    // Retain the buffer because the queue releases it once flushed
+                    // while the caller still owns its reference, as in the copy path.
+                    ((QueueBackedChannelBuffer) out).addBuffer(buf.retain());
+                } else {
+                    out.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+                }
             }
             flush0(ctx, future);
             return future;
@@ -1506,6 +1562,37 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return future;
     }
 
+    @Override
+    public ChannelFuture sendFile(FileRegion region, ChannelFuture future) {
+        return sendFile(firstContext(MASK_SEND_FILE), region, future);
+    }
+
+    ChannelFuture sendFile(
+            final DefaultChannelHandlerContext ctx, final FileRegion region, final ChannelFuture future) {
+        if (region == null) {
+            throw new NullPointerException("region");
+        }
+        validateFuture(future);
+
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            try {
+                ((ChannelOperationHandler) ctx.handler()).sendFile(ctx, region, future);
+            } catch (Throwable t) {
+                notifyHandlerException(t);
+            }
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sendFile(ctx, region, future);
+                }
+            });
+        }
+
+        return future;
+    }
+
     private void validateFuture(ChannelFuture future) {
         if (future == null) {
             throw new NullPointerException("future");
@@ -1530,6 +1617,32 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
     }
 
+    private DefaultChannelHandlerContext firstContext(int mask) {
+        if ((mask & MASK_ALL_OPERATION) == 0) {
+            return nextContext(head.next, mask);
+        } else {
+            return nextContext(tail, mask);
+        }
+    }
+
+    /**
+     * Returns the first context from the specified one which handles the
+     * event of the specified {@link ChannelHandlerMask} constant, walking
+     * towards the tail for inbound events and towards the head otherwise.
+     */
+    static DefaultChannelHandlerContext nextContext(DefaultChannelHandlerContext ctx, int mask) {
+        if ((mask & MASK_ALL_OPERATION) == 0) {
+            while (ctx != null && (ctx.mask & mask) == 0) {
+                ctx = ctx.next;
+            }
+        } else {
+            while (ctx != null && (ctx.mask & mask) == 0) {
+                ctx = ctx.prev;
+            }
+        }
+        return ctx;
+    }
+
     static DefaultChannelHandlerContext nextContext(
             DefaultChannelHandlerContext ctx, ChannelHandlerType type) {
         if (ctx == null) {
@@ -1622,12 +1735,29 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
     }
 
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(
+                new DefaultChannelHandlerContext[0], Collections.<String, DefaultChannelHandlerContext>emptyMap());
+
+        /** The contexts from the first to the last one, without the head. */
+        final DefaultChannelHandlerContext[] contexts;
+        final Map<String, DefaultChannelHandlerContext> name2ctx;
+
+        Snapshot(DefaultChannelHandlerContext[] contexts, Map<String, DefaultChannelHandlerContext> name2ctx) {
+            this.contexts = contexts;
+            this.name2ctx = name2ctx;
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     private final class HeadHandler implements ChannelOutboundHandler {
         @Override
         public ChannelBufferHolder newOutboundBuffer(ChannelHandlerContext ctx) throws Exception {
             switch (channel.type()) {
             case STREAM:
+                if (channel instanceof AbstractChannel) {
+                    return ChannelBufferHolders.byteBuffer(((AbstractChannel) channel).newOutboundByteBuffer());
+                }
                 return ChannelBufferHolders.byteBuffer();
             case MESSAGE:
                 if (channel instanceof ServerChannel) {
@@ -1695,6 +1825,16 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             unsafe.flush(future);
         }
 
+        @Override
+        public void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelFuture future) throws Exception {
+            unsafe.sendFile(region, future);
+        }
+
+        @Override
+        public void read(ChannelHandlerContext ctx) throws Exception {
+            unsafe.beginRead();
+        }
+
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
             ctx.fireExceptionCaught(cause);
@@ -19,8 +19,9 @@ import java.util.concurrent.ThreadFactory;
 
 class DefaultChildEventExecutor extends SingleThreadEventExecutor {
 
-    DefaultChildEventExecutor(ThreadFactory threadFactory) {
-        super(threadFactory);
+    DefaultChildEventExecutor(
+            ThreadFactory threadFactory, int maxPendingTasks, RejectedExecutionHandler rejectedExecutionHandler) {
+        super(threadFactory, maxPendingTasks, rejectedExecutionHandler);
     }
 
     @Override
@@ -46,4 +47,10 @@ class DefaultChildEventExecutor extends SingleThreadEventExecutor {
             interruptThread();
         }
     }
+
+    @Override
+    protected boolean addTaskWakesUp() {
+        // The task queue wakes up takeTask() by itself.
+        return true;
+    }
 }
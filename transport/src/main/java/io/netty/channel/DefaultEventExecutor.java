@@ -24,11 +24,24 @@ public class DefaultEventExecutor extends MultithreadEventExecutor {
     }
 
     public DefaultEventExecutor(int nThreads, ThreadFactory threadFactory) {
-        super(nThreads, threadFactory);
+        this(nThreads, threadFactory, Integer.MAX_VALUE, RejectedExecutionHandlers.reject());
+    }
+
+    /**
+     * Creates a new instance whose child executors hold at most
+     * {@code maxPendingTasks} tasks in their task queue.  A task submitted
+     * while the queue is full is handed to the specified
+     * {@link RejectedExecutionHandler}.
+     */
+    public DefaultEventExecutor(
+            int nThreads, ThreadFactory threadFactory,
+            int maxPendingTasks, RejectedExecutionHandler rejectedExecutionHandler) {
+        super(nThreads, threadFactory, maxPendingTasks, rejectedExecutionHandler);
     }
 
     @Override
     protected EventExecutor newChild(ThreadFactory threadFactory, Object... args) throws Exception {
-        return new DefaultChildEventExecutor(threadFactory);
+        return new DefaultChildEventExecutor(
+                threadFactory, (Integer) args[0], (RejectedExecutionHandler) args[1]);
     }
 }
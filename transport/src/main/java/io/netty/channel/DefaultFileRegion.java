@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The default {@link FileRegion} implementation which transfers a region of
+ * a {@link FileChannel} via {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ */
+public class DefaultFileRegion implements FileRegion {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(DefaultFileRegion.class);
+
+    private final FileChannel file;
+    private final long position;
+    private final long count;
+    private final boolean releaseAfterTransfer;
+
+    /**
+     * Creates a new instance which does not close the specified
+     * {@link FileChannel} once the transfer is complete.
+     */
+    public DefaultFileRegion(FileChannel file, long position, long count) {
+        this(file, position, count, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param releaseAfterTransfer
+     *        {@code true} if the specified {@link FileChannel} has to be closed
+     *        by the transport once the transfer is complete or has failed
+     */
+    public DefaultFileRegion(FileChannel file, long position, long count, boolean releaseAfterTransfer) {
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected: >= 0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected: >= 0)");
+        }
+        this.file = file;
+        this.position = position;
+        this.count = count;
+        this.releaseAfterTransfer = releaseAfterTransfer;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the underlying {@link FileChannel} is closed
+     * once the transfer is complete or has failed.
+     */
+    public boolean releaseAfterTransfer() {
+        return releaseAfterTransfer;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long position) throws IOException {
+        long count = this.count - position;
+        if (count < 0 || position < 0) {
+            throw new IllegalArgumentException(
+                    "position out of range: " + position +
+                    " (expected: 0 - " + (this.count - 1) + ')');
+        }
+        if (count == 0) {
+            return 0L;
+        }
+
+        long written = file.transferTo(this.position + position, count, target);
+        if (written == 0 && this.position + position >= file.size()) {
+            // transferTo() returns 0 at the end of the file as well as when
+            // the target is not ready, so tell them apart here.
+            throw new EOFException(
+                    "file region ended prematurely: " + position + " of " + this.count + " bytes transferred");
+        }
+        return written;
+    }
+
+    @Override
+    public void releaseExternalResources() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to close a file.", e);
+            }
+        }
+    }
+}
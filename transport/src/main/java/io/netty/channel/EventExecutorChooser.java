@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+/**
+ * Chooses the child {@link EventExecutor} of a {@link MultithreadEventExecutor}
+ * which a new {@link Channel} is registered to or a task is submitted to.
+ *
+ * @see EventExecutorChoosers
+ * @see MultithreadEventExecutor#setChooserFactory(EventExecutorChooser.Factory)
+ */
+public interface EventExecutorChooser {
+
+    /**
+     * Returns the next child executor.  This method is called by any thread
+     * and therefore must be thread-safe.
+     */
+    EventExecutor next();
+
+    /**
+     * Creates an {@link EventExecutorChooser} for the child executors of a
+     * {@link MultithreadEventExecutor}.
+     */
+    interface Factory {
+        /**
+         * Returns a new chooser which chooses one of the specified executors.
+         * The array must not be modified.
+         */
+        EventExecutorChooser newChooser(EventExecutor[] executors);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the common {@link EventExecutorChooser} implementations.
+ */
+public final class EventExecutorChoosers {
+
+    private static final EventExecutorChooser.Factory ROUND_ROBIN = new EventExecutorChooser.Factory() {
+        @Override
+        public EventExecutorChooser newChooser(EventExecutor[] executors) {
+            if (isPowerOfTwo(executors.length)) {
+                return new PowerOfTwoRoundRobinChooser(executors);
+            } else {
+                return new RoundRobinChooser(executors);
+            }
+        }
+    };
+
+    private static final EventExecutorChooser.Factory LEAST_LOADED = new EventExecutorChooser.Factory() {
+        @Override
+        public EventExecutorChooser newChooser(EventExecutor[] executors) {
+            return new LeastLoadedChooser(executors);
+        }
+    };
+
+    /**
+     * Returns a factory of the choosers which choose the child executors one
+     * after another.  If the number of the executors is a power of two, the
+     * index of the next executor is computed with a bit mask instead of a
+     * division.  This is the default.
+     */
+    public static EventExecutorChooser.Factory roundRobin() {
+        return ROUND_ROBIN;
+    }
+
+    /**
+     * Returns a factory of the choosers which choose the least loaded child
+     * executor.  The load of an executor is the number of the channels
+     * registered to it, if it is a {@link SingleThreadEventLoop}.  The ties
+     * are broken in a round-robin fashion, so the executors which are not
+     * event loops are chosen one after another.  The number of the pending
+     * tasks is not taken into account because counting them walks the whole
+     * task queue.  It scans all executors on every choice, which is fine for
+     * a small number of executors and pays off when the channels are
+     * long-lived and unevenly busy, such as the connections accepted by a
+     * busy server.
+     */
+    public static EventExecutorChooser.Factory leastLoaded() {
+        return LEAST_LOADED;
+    }
+
+    static boolean isPowerOfTwo(int val) {
+        return (val & -val) == val;
+    }
+
+    private static final class PowerOfTwoRoundRobinChooser implements EventExecutorChooser {
+        private final AtomicInteger index = new AtomicInteger();
+        private final EventExecutor[] executors;
+        private final int mask;
+
+        PowerOfTwoRoundRobinChooser(EventExecutor[] executors) {
+            this.executors = executors;
+            mask = executors.length - 1;
+        }
+
+        @Override
+        public EventExecutor next() {
+            return executors[index.getAndIncrement() & mask];
+        }
+    }
+
+    private static final class RoundRobinChooser implements EventExecutorChooser {
+        private final AtomicInteger index = new AtomicInteger();
+        private final EventExecutor[] executors;
+
+        RoundRobinChooser(EventExecutor[] executors) {
+            this.executors = executors;
+        }
+
+        @Override
+        public EventExecutor next() {
+            return executors[Math.abs(index.getAndIncrement() % executors.length)];
+        }
+    }
+
+    private static final class LeastLoadedChooser implements EventExecutorChooser {
+        private final EventExecutor[] executors;
+        // Rotates the starting point of a scan so that the ties are broken in
+        // a round-robin fashion.  A lost update does no harm.
+        private int start;
+
+        LeastLoadedChooser(EventExecutor[] executors) {
+            this.executors = executors;
+        }
+
+        @Override
+        public EventExecutor next() {
+            final EventExecutor[] executors = this.executors;
+            final int length = executors.length;
+            int start = this.start;
+            this.start = start + 1 < length? start + 1 : 0;
+            if (start >= length) {
+                start = 0;
+            }
+
+            EventExecutor best = null;
+            int bestChannels = Integer.MAX_VALUE;
+            for (int i = start, n = 0; n < length; n ++) {
+                EventExecutor e = executors[i];
+                int channels = registeredChannels(e);
+                if (channels < bestChannels) {
+                    best = e;
+                    bestChannels = channels;
+                }
+
+                if (++ i == length) {
+                    i = 0;
+                }
+            }
+            return best;
+        }
+
+        private static int registeredChannels(EventExecutor e) {
+            if (e instanceof SingleThreadEventLoop) {
+                return ((SingleThreadEventLoop) e).registeredChannels();
+            }
+            return 0;
+        }
+    }
+
+    private EventExecutorChoosers() {
+        // Unused
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+/**
+ * The progress of a {@link FileRegion} which is transferred to a non-blocking
+ * socket.  A transport keeps the pending transfers of a channel in a queue and
+ * calls {@link #transfer(int)} whenever the socket becomes writable, so that
+ * all non-blocking transports share the same transfer loop.
+ * <p>
+ * A region is transferred after the bytes which were in the outbound byte
+ * buffer when it was sent, and before the bytes written after them.  The
+ * transport tells where the region goes with a {@link #checkpoint()}.
+ */
+public abstract class FileRegionTransfer {
+
+    private final FileRegion region;
+    private final ChannelFuture future;
+    private final long checkpoint;
+    private long writtenBytes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param checkpoint the number of the bytes the transport must have
+     *                   written from its outbound byte buffer before the
+     *                   region is transferred
+     */
+    protected FileRegionTransfer(FileRegion region, ChannelFuture future, long checkpoint) {
+        if (region == null) {
+            throw new NullPointerException("region");
+        }
+        if (future == null) {
+            throw new NullPointerException("future");
+        }
+        this.region = region;
+        this.future = future;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Returns the {@link FileRegion} being transferred.
+     */
+    public FileRegion region() {
+        return region;
+    }
+
+    /**
+     * Returns the {@link ChannelFuture} which is notified of the progress of
+     * the transfer.  It is not completed by this object.
+     */
+    public ChannelFuture future() {
+        return future;
+    }
+
+    /**
+     * Returns the number of the bytes the transport must have written from
+     * its outbound byte buffer before the region is transferred.
+     */
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Transfers the remaining bytes of the region, trying at most
+     * {@code writeSpinCount} times.
+     *
+     * @return {@code true} if and only if the region was transferred
+     *         completely.  {@code false} if the socket is not ready to
+     *         accept more data.
+     * @throws java.io.EOFException
+     *         if the file ended before the whole region was transferred
+     */
+    public boolean transfer(int writeSpinCount) throws Exception {
+        final long count = region.count();
+        if (writtenBytes >= count) {
+            return true;
+        }
+
+        for (int i = writeSpinCount - 1; i >= 0; i --) {
+            long localWrittenBytes = doTransfer(region, writtenBytes);
+            if (localWrittenBytes > 0) {
+                writtenBytes += localWrittenBytes;
+                future.setProgress(localWrittenBytes, writtenBytes, count);
+                if (writtenBytes >= count) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transfers the specified region to the socket without blocking, starting
+     * from the specified relative position.
+     *
+     * @return the number of transferred bytes, which is {@code 0} if the
+     *         socket is not ready to accept more data
+     */
+    protected abstract long doTransfer(FileRegion region, long position) throws Exception;
+}
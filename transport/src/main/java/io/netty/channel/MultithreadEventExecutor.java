@@ -15,6 +15,7 @@
  */
 package io.netty.channel;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -33,11 +34,11 @@ public abstract class MultithreadEventExecutor implements EventExecutor {
     private static final AtomicInteger poolId = new AtomicInteger();
 
     private final EventExecutor[] children;
-    private final AtomicInteger childIndex = new AtomicInteger();
+    private volatile EventExecutorChooser chooser;
     private final Unsafe unsafe = new Unsafe() {
         @Override
         public EventExecutor nextChild() {
-            return children[Math.abs(childIndex.getAndIncrement() % children.length)];
+            return chooser.next();
         }
     };
 
@@ -70,10 +71,36 @@ public abstract class MultithreadEventExecutor implements EventExecutor {
                 }
             }
         }
+
+        chooser = EventExecutorChoosers.roundRobin().newChooser(children);
     }
 
     protected abstract EventExecutor newChild(ThreadFactory threadFactory, Object... args) throws Exception;
 
+    /**
+     * Returns the child executors created by {@link #newChild(ThreadFactory, Object...)}.
+     */
+    protected List<EventExecutor> children() {
+        return Collections.unmodifiableList(Arrays.asList(children));
+    }
+
+    /**
+     * Sets the factory of the {@link EventExecutorChooser} which chooses the
+     * child executor a new {@link Channel} is registered to.  The default is
+     * {@link EventExecutorChoosers#roundRobin()}.  The channels registered
+     * already stay in their executors.
+     */
+    public void setChooserFactory(EventExecutorChooser.Factory chooserFactory) {
+        if (chooserFactory == null) {
+            throw new NullPointerException("chooserFactory");
+        }
+        EventExecutorChooser chooser = chooserFactory.newChooser(children);
+        if (chooser == null) {
+            throw new NullPointerException("chooserFactory.newChooser() returned null");
+        }
+        this.chooser = chooser;
+    }
+
     @Override
     public Unsafe unsafe() {
         return unsafe;
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+import io.netty.util.internal.MpscLinkedQueue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A child executor of {@link OrderedEventExecutor}, which runs its tasks one
+ * at a time and in order, in whichever worker thread of the pool is free.
+ */
+final class OrderedChildEventExecutor extends AbstractExecutorService implements EventExecutor, Runnable {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(OrderedChildEventExecutor.class);
+
+    private final OrderedEventExecutor parent;
+    private final MpscLinkedQueue<Runnable> taskQueue = new MpscLinkedQueue<Runnable>();
+    // The number of the tasks added to taskQueue but not run yet.  The
+    // caller which increases it from 0 submits this executor to the pool,
+    // and run() submits it again only if it does not drop to 0.
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private volatile Thread thread;
+    private volatile boolean shutdown;
+
+    private final Unsafe unsafe = new Unsafe() {
+        @Override
+        public EventExecutor nextChild() {
+            return OrderedChildEventExecutor.this;
+        }
+    };
+
+    OrderedChildEventExecutor(OrderedEventExecutor parent) {
+        this.parent = parent;
+    }
+
+    OrderedEventExecutor parent() {
+        return parent;
+    }
+
+    @Override
+    public Unsafe unsafe() {
+        return unsafe;
+    }
+
+    @Override
+    public boolean inEventLoop() {
+        return inEventLoop(Thread.currentThread());
+    }
+
+    @Override
+    public boolean inEventLoop(Thread thread) {
+        return thread == this.thread;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (isShutdown()) {
+            throw new RejectedExecutionException("executor shut down");
+        }
+
+        // Count the task before adding it so that the count never drops
+        // below the number of the tasks in taskQueue.  Otherwise run() could
+        // take the task first and submit this executor once more.
+        boolean submit = pendingTasks.getAndIncrement() == 0;
+        taskQueue.add(task);
+        if (submit) {
+            try {
+                parent.submit(this);
+            } catch (RejectedExecutionException e) {
+                // The pool has been shut down - no task will run anymore.
+                taskQueue.remove(task);
+                pendingTasks.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs the pending tasks in the current worker thread.  Once it has run
+     * {@link OrderedEventExecutor#maxTasksPerRun()} tasks, it submits itself
+     * to the pool again so that the other child executors get their turn.
+     */
+    @Override
+    public void run() {
+        final int maxTasks = parent.maxTasksPerRun();
+        int runTasks = 0;
+        thread = Thread.currentThread();
+        OrderedEventExecutor.CURRENT_CHILD.set(this);
+        try {
+            while (runTasks < maxTasks) {
+                Runnable task = taskQueue.poll();
+                if (task == null) {
+                    break;
+                }
+
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.warn("A task raised an exception.", t);
+                }
+                runTasks ++;
+            }
+        } finally {
+            OrderedEventExecutor.CURRENT_CHILD.remove();
+            thread = null;
+        }
+
+        // A task which is counted but not polled yet is run in the next turn.
+        if (pendingTasks.addAndGet(-runTasks) != 0) {
+            try {
+                parent.submit(this);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Failed to run the remaining tasks because the pool has been shut down.", e);
+            }
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException("command");
+        }
+        return schedule(new ScheduledTask<Void>(command, null, 0), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (callable == null) {
+            throw new NullPointerException("callable");
+        }
+        return schedule(new ScheduledTask<V>(callable), delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException("command");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("period: %d (expected: > 0)", period));
+        }
+        return schedule(new ScheduledTask<Void>(command, null, period), initialDelay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException("command");
+        }
+        if (delay <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("delay: %d (expected: > 0)", delay));
+        }
+        return schedule(new ScheduledTask<Void>(command, null, -delay), initialDelay, unit);
+    }
+
+    private <V> ScheduledFuture<V> schedule(final ScheduledTask<V> task, long delay, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (delay < 0) {
+            throw new IllegalArgumentException(
+                    String.format("delay: %d (expected: >= 0)", delay));
+        }
+        if (isShutdown()) {
+            throw new RejectedExecutionException("executor shut down");
+        }
+
+        task.arm(unit.toNanos(delay), unit);
+        return task;
+    }
+
+    @Override
+    public void shutdown() {
+        // Shuts down only this child.  The pool is shut down by the parent.
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown || parent.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isShutdown() && pendingTasks.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (inEventLoop()) {
+            throw new IllegalStateException("cannot await termination of the current thread");
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * A scheduled task which is triggered by the scheduler of the parent and
+     * then runs in order with the other tasks of this executor.
+     */
+    private final class ScheduledTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+        /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
+        private final long period;
+        private long periodNanos;
+        private long deadlineNanos;
+        // Guarded by this - the trigger may fire before arm() returns.
+        private ScheduledFuture<?> trigger;
+
+        private final Runnable triggerTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    execute(ScheduledTask.this);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+        };
+
+        ScheduledTask(Runnable runnable, V result, long period) {
+            super(runnable, result);
+            this.period = period;
+        }
+
+        ScheduledTask(Callable<V> callable) {
+            super(callable);
+            period = 0;
+        }
+
+        synchronized void arm(long delayNanos, TimeUnit unit) {
+            periodNanos = unit.toNanos(period);
+            deadlineNanos = System.nanoTime() + delayNanos;
+            trigger = parent.scheduler().schedule(triggerTask, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (period == 0) {
+                super.run();
+                return;
+            }
+
+            if (!runAndReset()) {
+                // Failed or cancelled - stop repeating.
+                return;
+            }
+
+            synchronized (this) {
+                if (periodNanos > 0) {
+                    // Fixed rate - measured from the previous deadline.
+                    deadlineNanos += periodNanos;
+                } else {
+                    // Fixed delay - measured from the end of this run.
+                    deadlineNanos = System.nanoTime() - periodNanos;
+                }
+                try {
+                    trigger = parent.scheduler().schedule(
+                            triggerTask, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            synchronized (this) {
+                if (trigger != null) {
+                    trigger.cancel(false);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public synchronized long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (this == o) {
+                return 0;
+            }
+            long d = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+            return d < 0? -1 : d > 0? 1 : 0;
+        }
+    }
+}
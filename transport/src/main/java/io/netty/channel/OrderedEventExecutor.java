@@ -0,0 +1,267 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link EventExecutor} which runs the tasks of each child executor in
+ * order, but not in a fixed thread.
+ * <p>
+ * {@link EventExecutor.Unsafe#nextChild()} returns a new child executor,
+ * so that each {@link ChannelPipeline} which adds a handler with this
+ * executor gets its own serial task queue.  Whenever a child has pending
+ * tasks, it is submitted to a shared pool and runs its tasks in the first
+ * free worker thread.  Unlike {@link DefaultEventExecutor}, which pins a
+ * handler to one thread for its whole lifetime, a few busy channels cannot
+ * pile up on the same thread while the other threads are idle, which makes
+ * it suitable for the handlers which block, such as the ones which access
+ * a database.
+ * <p>
+ * The pool is a fixed-size {@link ThreadPoolExecutor} by default.  Any other
+ * {@link ExecutorService} can be specified instead, such as a work-stealing
+ * pool.  In either case it is shut down together with this executor.
+ */
+public class OrderedEventExecutor extends AbstractExecutorService implements EventExecutor {
+
+    static final ThreadLocal<OrderedChildEventExecutor> CURRENT_CHILD =
+            new ThreadLocal<OrderedChildEventExecutor>();
+
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    static final int DEFAULT_MAX_TASKS_PER_RUN = 64;
+
+    private final ExecutorService pool;
+    private final ThreadFactory threadFactory;
+    private final int maxTasksPerRun;
+    private final Object schedulerLock = new Object();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean shutdown;
+
+    private final Unsafe unsafe = new Unsafe() {
+        @Override
+        public EventExecutor nextChild() {
+            return new OrderedChildEventExecutor(OrderedEventExecutor.this);
+        }
+    };
+
+    /**
+     * Creates a new instance with the default number of threads.
+     */
+    public OrderedEventExecutor() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance with the specified number of threads.
+     *
+     * @param nThreads the number of the worker threads, or {@code 0} to use the default
+     */
+    public OrderedEventExecutor(int nThreads) {
+        this(nThreads, null);
+    }
+
+    /**
+     * Creates a new instance with the specified number of threads created
+     * by the specified {@link ThreadFactory}.
+     *
+     * @param nThreads the number of the worker threads, or {@code 0} to use the default
+     */
+    public OrderedEventExecutor(int nThreads, ThreadFactory threadFactory) {
+        this(newPool(nThreads, threadFactory), threadFactory, DEFAULT_MAX_TASKS_PER_RUN);
+    }
+
+    /**
+     * Creates a new instance which runs the tasks in the specified pool.
+     *
+     * @param pool           the pool which runs the child executors,
+     *                       which is shut down together with this executor
+     * @param threadFactory  the factory of the thread which triggers the
+     *                       scheduled tasks, or {@code null} to use the default
+     * @param maxTasksPerRun the maximum number of the tasks a child executor
+     *                       runs before it yields the worker thread to the other children
+     */
+    public OrderedEventExecutor(ExecutorService pool, ThreadFactory threadFactory, int maxTasksPerRun) {
+        if (pool == null) {
+            throw new NullPointerException("pool");
+        }
+        if (maxTasksPerRun <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "maxTasksPerRun: %d (expected: > 0)", maxTasksPerRun));
+        }
+        if (threadFactory == null) {
+            threadFactory = Executors.defaultThreadFactory();
+        }
+
+        this.pool = pool;
+        this.threadFactory = threadFactory;
+        this.maxTasksPerRun = maxTasksPerRun;
+    }
+
+    static ExecutorService newPool(int nThreads, ThreadFactory threadFactory) {
+        if (nThreads < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "nThreads: %d (expected: >= 0)", nThreads));
+        }
+        if (nThreads == 0) {
+            nThreads = DEFAULT_POOL_SIZE;
+        }
+        if (threadFactory == null) {
+            threadFactory = Executors.defaultThreadFactory();
+        }
+
+        // A shared queue lets the first free thread pick up the next child executor.
+        return new ThreadPoolExecutor(
+                nThreads, nThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+    }
+
+    int maxTasksPerRun() {
+        return maxTasksPerRun;
+    }
+
+    /**
+     * Submits the specified child executor which has pending tasks to the pool.
+     */
+    void submit(OrderedChildEventExecutor child) {
+        pool.execute(child);
+    }
+
+    /**
+     * Returns the executor which triggers the scheduled tasks of the child
+     * executors.  It is created on the first call.
+     */
+    ScheduledExecutorService scheduler() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null) {
+            synchronized (schedulerLock) {
+                scheduler = this.scheduler;
+                if (scheduler == null) {
+                    if (shutdown) {
+                        throw new RejectedExecutionException("executor shut down");
+                    }
+                    ScheduledThreadPoolExecutor newScheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+                    newScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                    this.scheduler = scheduler = newScheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    @Override
+    public Unsafe unsafe() {
+        return unsafe;
+    }
+
+    @Override
+    public boolean inEventLoop() {
+        OrderedChildEventExecutor child = CURRENT_CHILD.get();
+        return child != null && child.parent() == this;
+    }
+
+    @Override
+    public boolean inEventLoop(Thread thread) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("command");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("executor shut down");
+        }
+        // No ordering is required between the tasks which are not bound to a child.
+        pool.execute(command);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return unsafe.nextChild().schedule(command, delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return unsafe.nextChild().schedule(callable, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return unsafe.nextChild().scheduleAtFixedRate(command, initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return unsafe.nextChild().scheduleWithFixedDelay(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (schedulerLock) {
+            shutdown = true;
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        return shutdown && pool.isTerminated() && (scheduler == null || scheduler.isTerminated());
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null &&
+            !scheduler.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        return pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) && isTerminated();
+    }
+}
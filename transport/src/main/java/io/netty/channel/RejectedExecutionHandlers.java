@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Provides the common {@link RejectedExecutionHandler} implementations.
+ */
+public final class RejectedExecutionHandlers {
+
+    private static final RejectedExecutionHandler REJECT = new RejectedExecutionHandler() {
+        @Override
+        public void rejected(Runnable task, SingleThreadEventExecutor executor) {
+            throw new RejectedExecutionException("task queue full");
+        }
+    };
+
+    /**
+     * Returns a {@link RejectedExecutionHandler} which always throws a
+     * {@link RejectedExecutionException}.
+     */
+    public static RejectedExecutionHandler reject() {
+        return REJECT;
+    }
+
+    /**
+     * Returns a {@link RejectedExecutionHandler} which retries to add the
+     * task up to the specified number of times, waiting for the specified
+     * amount of time between each retry, and then throws a
+     * {@link RejectedExecutionException}.  The task is rejected immediately
+     * if it was submitted by the event loop thread itself, because waiting
+     * in the event loop would never free up the queue.
+     */
+    public static RejectedExecutionHandler backoff(final int retries, long backoffAmount, TimeUnit unit) {
+        if (retries <= 0) {
+            throw new IllegalArgumentException(
+                    "retries: " + retries + " (expected: > 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        final long backoffNanos = unit.toNanos(backoffAmount);
+
+        return new RejectedExecutionHandler() {
+            @Override
+            public void rejected(Runnable task, SingleThreadEventExecutor executor) {
+                if (!executor.inEventLoop()) {
+                    for (int i = 0; i < retries; i ++) {
+                        // Make sure the event loop is awake to consume its tasks.
+                        executor.wakeup(false);
+
+                        LockSupport.parkNanos(backoffNanos);
+                        if (executor.offerTask(task)) {
+                            return;
+                        }
+                    }
+                }
+                throw new RejectedExecutionException("task queue full");
+            }
+        };
+    }
+
+    private RejectedExecutionHandlers() {
+        // Unused
+    }
+}
@@ -17,19 +17,18 @@ package io.netty.channel;
 
 import io.netty.logging.InternalLogger;
 import io.netty.logging.InternalLoggerFactory;
-import io.netty.util.internal.QueueFactory;
+import io.netty.util.internal.MpscLinkedQueue;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.AbstractExecutorService;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
@@ -44,7 +43,6 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
     private static final InternalLogger logger =
             InternalLoggerFactory.getInstance(SingleThreadEventExecutor.class);
 
-    private static final long SCHEDULE_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
     private static final long SCHEDULE_PURGE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
     private static final long START_TIME = System.nanoTime();
     private static final AtomicLong nextTaskId = new AtomicLong();
@@ -71,19 +69,49 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
         }
     };
 
-    private final BlockingQueue<Runnable> taskQueue = QueueFactory.createQueue();
+    private final MpscLinkedQueue<Runnable> taskQueue;
+    private final RejectedExecutionHandler rejectedExecutionHandler;
     private final Thread thread;
     private final Object stateLock = new Object();
     private final Semaphore threadLock = new Semaphore(0);
-    // TODO: Use PriorityQueue to reduce the locking overhead of DelayQueue.
-    private final Queue<ScheduledFutureTask<?>> scheduledTasks = new DelayQueue<ScheduledFutureTask<?>>();
+    // Accessed only by the event loop thread.  Other threads hand off their
+    // scheduled tasks via taskQueue.
+    private final Queue<ScheduledFutureTask<?>> scheduledTasks = new PriorityQueue<ScheduledFutureTask<?>>();
     private final Set<Runnable> shutdownHooks = new LinkedHashSet<Runnable>();
     /** 0 - not started, 1 - started, 2 - shut down, 3 - terminated */
     private volatile int state;
-    private long lastCheckTimeNanos;
     private long lastPurgeTimeNanos;
 
+    /**
+     * Creates a new instance whose task queue is unbounded.
+     */
     protected SingleThreadEventExecutor(ThreadFactory threadFactory) {
+        this(threadFactory, Integer.MAX_VALUE, RejectedExecutionHandlers.reject());
+    }
+
+    /**
+     * Creates a new instance whose task queue holds at most the specified
+     * number of tasks.
+     *
+     * @param maxPendingTasks the capacity of the task queue
+     * @param rejectedExecutionHandler the handler of the tasks submitted while
+     *                                 the task queue is full
+     */
+    protected SingleThreadEventExecutor(
+            ThreadFactory threadFactory, int maxPendingTasks, RejectedExecutionHandler rejectedExecutionHandler) {
+        if (threadFactory == null) {
+            throw new NullPointerException("threadFactory");
+        }
+        if (maxPendingTasks <= 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingTasks: " + maxPendingTasks + " (expected: > 0)");
+        }
+        if (rejectedExecutionHandler == null) {
+            throw new NullPointerException("rejectedExecutionHandler");
+        }
+
+        taskQueue = new MpscLinkedQueue<Runnable>(maxPendingTasks);
+        this.rejectedExecutionHandler = rejectedExecutionHandler;
         thread = threadFactory.newThread(new Runnable() {
             @Override
             public void run() {
@@ -136,7 +164,20 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
         assert inEventLoop();
 
         for (;;) {
-            Runnable task = taskQueue.poll(SCHEDULE_CHECK_INTERVAL * 2 / 3, TimeUnit.NANOSECONDS);
+            // Wait until the deadline of the next scheduled task.
+            Runnable task;
+            ScheduledFutureTask<?> nextScheduledTask = scheduledTasks.peek();
+            if (nextScheduledTask == null) {
+                task = taskQueue.take();
+            } else {
+                long delayNanos = nextScheduledTask.delayNanos();
+                if (delayNanos > 0) {
+                    task = taskQueue.poll(delayNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    task = null;
+                }
+            }
+
             if (task != null) {
                 return task;
             }
@@ -148,6 +189,22 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
         }
     }
 
+    /**
+     * Returns the amount of time left until the next scheduled task is due,
+     * which is how long the event loop can block waiting for I/O.  If there is
+     * no scheduled task, an arbitrary delay is returned, so that the event loop
+     * still wakes up periodically.
+     */
+    protected long delayNanos() {
+        assert inEventLoop();
+
+        ScheduledFutureTask<?> nextScheduledTask = scheduledTasks.peek();
+        if (nextScheduledTask == null) {
+            return SCHEDULE_PURGE_INTERVAL;
+        }
+        return nextScheduledTask.delayNanos();
+    }
+
     protected Runnable peekTask() {
         assert inEventLoop();
 
@@ -186,7 +243,30 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
         if (isShutdown()) {
             reject();
         }
-        taskQueue.add(task);
+        if (!taskQueue.offer(task)) {
+            rejectedExecutionHandler.rejected(task, this);
+        }
+    }
+
+    /**
+     * Adds the specified task to the task queue without invoking the
+     * {@link RejectedExecutionHandler}.
+     *
+     * @return {@code false} if the task queue is full
+     */
+    final boolean offerTask(Runnable task) {
+        if (isShutdown()) {
+            reject();
+        }
+        return taskQueue.offer(task);
+    }
+
+    /**
+     * Returns the number of the tasks which are waiting to be executed.
+     * Note that this operation can be expensive if the task queue is unbounded.
+     */
+    public int pendingTasks() {
+        return taskQueue.size();
     }
 
     protected boolean removeTask(Runnable task) {
@@ -196,7 +276,13 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
         return taskQueue.remove(task);
     }
 
-    protected void runAllTasks() {
+    /**
+     * Runs all pending tasks.
+     *
+     * @return the number of the tasks run
+     */
+    protected int runAllTasks() {
+        int runTasks = 0;
         for (;;) {
             final Runnable task = pollTask();
             if (task == null) {
@@ -204,7 +290,35 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
             }
 
             task.run();
+            runTasks ++;
         }
+        return runTasks;
+    }
+
+    /**
+     * Runs the pending tasks until there is no pending task or the specified
+     * amount of time elapses.  The remaining tasks are left in the task queue.
+     *
+     * @return the number of the tasks run
+     */
+    protected int runAllTasks(long timeoutNanos) {
+        final long deadline = nanoTime() + timeoutNanos;
+        int runTasks = 0;
+        for (;;) {
+            final Runnable task = pollTask();
+            if (task == null) {
+                break;
+            }
+
+            task.run();
+            runTasks ++;
+
+            // Check the time every 64 tasks because nanoTime() is relatively expensive.
+            if ((runTasks & 0x3F) == 0 && nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        return runTasks;
     }
 
     protected abstract void run();
@@ -215,6 +329,16 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
 
     protected abstract void wakeup(boolean inEventLoop);
 
+    /**
+     * Returns {@code true} if the thread of this executor waits only in
+     * {@link #takeTask()}, which returns as soon as a task is added, so that
+     * {@link #execute(Runnable)} does not need to call {@link #wakeup(boolean)}.
+     * {@link #shutdown()} calls it regardless.
+     */
+    protected boolean addTaskWakesUp() {
+        return false;
+    }
+
     @Override
     public boolean inEventLoop() {
         return inEventLoop(Thread.currentThread());
@@ -343,17 +467,21 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
             addTask(task);
             wakeup(true);
         } else {
-            synchronized (stateLock) {
-                if (state == 0) {
-                    state = 1;
-                    thread.start();
+            if (state == 0) {
+                synchronized (stateLock) {
+                    if (state == 0) {
+                        state = 1;
+                        thread.start();
+                    }
                 }
             }
             addTask(task);
             if (isShutdown() && removeTask(task)) {
                 reject();
             }
-            wakeup(false);
+            if (!addTaskWakesUp()) {
+                wakeup(false);
+            }
         }
     }
 
@@ -433,29 +561,31 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
                 command, null, deadlineNanos(unit.toNanos(initialDelay)), -unit.toNanos(delay)));
     }
 
-    private <V> ScheduledFuture<V> schedule(ScheduledFutureTask<V> task) {
-        if (isShutdown()) {
-            reject();
-        }
-        scheduledTasks.add(task);
-        if (isShutdown()) {
-            task.cancel(false);
-        }
-
-        if (!inEventLoop()) {
-            synchronized (stateLock) {
-                if (state == 0) {
-                    state = 1;
-                    thread.start();
-                }
+    private <V> ScheduledFuture<V> schedule(final ScheduledFutureTask<V> task) {
+        if (inEventLoop()) {
+            if (isShutdown()) {
+                reject();
             }
+            scheduledTasks.add(task);
         } else {
-            fetchScheduledTasks();
+            // Hand off the task to the event loop thread which owns scheduledTasks.
+            // execute() starts the thread and wakes it up as necessary.
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    scheduledTasks.add(task);
+                }
+            });
         }
 
         return task;
     }
 
+    /**
+     * Moves the scheduled tasks whose deadline has passed to the task queue.
+     *
+     * @return {@code true} if at least one task has been moved
+     */
     private boolean fetchScheduledTasks() {
         if (scheduledTasks.isEmpty()) {
             return false;
@@ -463,6 +593,7 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
 
         long nanoTime = nanoTime();
         if (nanoTime - lastPurgeTimeNanos >= SCHEDULE_PURGE_INTERVAL) {
+            lastPurgeTimeNanos = nanoTime;
             for (Iterator<ScheduledFutureTask<?>> i = scheduledTasks.iterator(); i.hasNext();) {
                 ScheduledFutureTask<?> task = i.next();
                 if (task.isCancelled()) {
@@ -471,27 +602,26 @@ public abstract class SingleThreadEventExecutor extends AbstractExecutorService
             }
         }
 
-        if (nanoTime - lastCheckTimeNanos >= SCHEDULE_CHECK_INTERVAL) {
-            boolean added = false;
-            for (;;) {
-                ScheduledFutureTask<?> task = scheduledTasks.poll();
-                if (task == null) {
-                    break;
-                }
-
-                if (!task.isCancelled()) {
-                    if (isShutdown()) {
-                        task.cancel(false);
-                    } else {
-                        taskQueue.add(task);
-                        added = true;
-                    }
-                }
+        boolean added = false;
+        for (;;) {
+            ScheduledFutureTask<?> task = scheduledTasks.peek();
+            if (task == null || task.deadlineNanos() > nanoTime) {
+                break;
+            }
+            if (task.isCancelled()) {
+                scheduledTasks.remove();
+            } else if (isShutdown()) {
+                scheduledTasks.remove();
+                task.cancel(false);
+            } else if (taskQueue.offer(task)) {
+                scheduledTasks.remove();
+                added = true;
+            } else {
+                // The task queue is full; try again later.
+                break;
             }
-            return added;
         }
-
-        return false;
+        return added;
     }
 
     private void cancelScheduledTasks() {
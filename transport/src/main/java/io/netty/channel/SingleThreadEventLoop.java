@@ -16,13 +16,29 @@
 package io.netty.channel;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor implements EventLoop {
 
+    private final AtomicInteger registeredChannels = new AtomicInteger();
+    private final ChannelFutureListener registrationListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            if (!future.isSuccess()) {
+                registeredChannels.decrementAndGet();
+            }
+        }
+    };
+
     protected SingleThreadEventLoop(ThreadFactory threadFactory) {
         super(threadFactory);
     }
 
+    protected SingleThreadEventLoop(
+            ThreadFactory threadFactory, int maxPendingTasks, RejectedExecutionHandler rejectedExecutionHandler) {
+        super(threadFactory, maxPendingTasks, rejectedExecutionHandler);
+    }
+
     @Override
     public ChannelFuture register(Channel channel) {
         if (channel == null) {
@@ -31,8 +47,28 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return register(channel, channel.newFuture());
     }
 
+    /**
+     * Returns the number of the {@link Channel}s registered to this event loop.
+     * A channel is counted as soon as its registration is requested, so that
+     * a burst of registrations is spread evenly by
+     * {@link EventExecutorChoosers#leastLoaded()}.
+     */
+    public int registeredChannels() {
+        return registeredChannels.get();
+    }
+
+    /**
+     * Called by {@link AbstractChannel} when a channel is deregistered from
+     * this event loop.
+     */
+    void channelDeregistered() {
+        registeredChannels.decrementAndGet();
+    }
+
     @Override
     public ChannelFuture register(final Channel channel, final ChannelFuture future) {
+        registeredChannels.incrementAndGet();
+        future.addListener(registrationListener);
         if (inEventLoop()) {
             channel.unsafe().register(this, future);
         } else {
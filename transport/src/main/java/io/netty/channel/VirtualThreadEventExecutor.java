@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.logging.InternalLogger;
+import io.netty.logging.InternalLoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An {@link OrderedEventExecutor} which runs the tasks of each child
+ * executor in a virtual thread, so that the handlers which block, such as
+ * the ones which access a database, do not need a large pool of platform
+ * threads.  The events of a {@link ChannelHandlerContext} are still handled
+ * one at a time and in order.
+ * <p>
+ * Virtual threads are available since Java 21.  In an older runtime, this
+ * executor falls back to a fixed number of platform threads, which behaves
+ * the same as {@link OrderedEventExecutor}.  {@link #isSupported()} tells
+ * which one is used.
+ */
+public class VirtualThreadEventExecutor extends OrderedEventExecutor {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(VirtualThreadEventExecutor.class);
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method method = null;
+        try {
+            method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // Fails in a runtime where virtual threads are a preview feature.
+            ((ExecutorService) method.invoke(null)).shutdown();
+        } catch (Throwable t) {
+            logger.debug("Virtual threads are not available; using platform threads instead.", t);
+            method = null;
+        }
+        NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = method;
+    }
+
+    /**
+     * Returns {@code true} if and only if the current runtime supports
+     * virtual threads.
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates a new instance.
+     */
+    public VirtualThreadEventExecutor() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nThreads the number of the platform threads used when virtual
+     *                 threads are not supported, or {@code 0} to use the default
+     */
+    public VirtualThreadEventExecutor(int nThreads) {
+        this(nThreads, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nThreads      the number of the platform threads used when virtual
+     *                      threads are not supported, or {@code 0} to use the default
+     * @param threadFactory the factory of the platform threads, which trigger
+     *                      the scheduled tasks, or {@code null} to use the default
+     */
+    public VirtualThreadEventExecutor(int nThreads, ThreadFactory threadFactory) {
+        super(newVirtualThreadPool(nThreads, threadFactory), threadFactory, DEFAULT_MAX_TASKS_PER_RUN);
+    }
+
+    private static ExecutorService newVirtualThreadPool(int nThreads, ThreadFactory threadFactory) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            if (nThreads < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "nThreads: %d (expected: >= 0)", nThreads));
+            }
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (Exception e) {
+                throw new ChannelException("failed to create a virtual thread executor", e);
+            }
+        }
+        return OrderedEventExecutor.newPool(nThreads, threadFactory);
+    }
+}
@@ -43,7 +43,7 @@ public abstract class AbstractEmbeddedChannel extends AbstractChannel {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractEmbeddedChannel.class);
 
     private final EmbeddedEventLoop loop = new EmbeddedEventLoop();
-    private final ChannelConfig config = new DefaultChannelConfig();
+    private final ChannelConfig config = new DefaultChannelConfig(this);
     private final SocketAddress localAddress = new EmbeddedSocketAddress();
     private final SocketAddress remoteAddress = new EmbeddedSocketAddress();
     private final Queue<Object> lastInboundMessageBuffer = new ArrayDeque<Object>();
@@ -180,6 +180,11 @@ public abstract class AbstractEmbeddedChannel extends AbstractChannel {
         // NOOP
     }
 
+    @Override
+    protected void doBeginRead() throws Exception {
+        // NOOP
+    }
+
     @Override
     protected Unsafe newUnsafe() {
         return new DefaultUnsafe();
@@ -30,6 +30,7 @@ import java.nio.channels.AlreadyConnectedException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
+import java.util.Collections;
 import java.util.Queue;
 
 /**
@@ -37,7 +38,7 @@ import java.util.Queue;
  */
 public class LocalChannel extends AbstractChannel {
 
-    private final ChannelConfig config = new DefaultChannelConfig();
+    private final ChannelConfig config = new DefaultChannelConfig(this);
     private final Runnable shutdownHook = new Runnable() {
         @Override
         public void run() {
@@ -188,6 +189,11 @@ public class LocalChannel extends AbstractChannel {
         }
     }
 
+    @Override
+    protected void doBeginRead() throws Exception {
+        // NOOP - the peer writes into the inbound buffer directly.
+    }
+
     @Override
     protected void doDeregister() throws Exception {
         if (isOpen()) {
@@ -208,18 +214,15 @@ public class LocalChannel extends AbstractChannel {
         final LocalChannel peer = this.peer;
         assert peer != null;
 
-        Queue<Object> out = peer.pipeline().inboundMessageBuffer();
-        for (;;) {
-            Object msg = buf.poll();
-            if (msg == null) {
-                break;
-            }
-            out.add(msg);
-        }
-
+        // Hand the messages over in the event loop of the peer, which owns
+        // its inbound buffer.
+        final Object[] msgs = buf.toArray();
+        buf.clear();
         peer.eventLoop().execute(new Runnable() {
             @Override
             public void run() {
+                Queue<Object> out = peer.pipeline().inboundMessageBuffer();
+                Collections.addAll(out, msgs);
                 peer.pipeline().fireInboundBufferUpdated();
             }
         });
@@ -48,4 +48,10 @@ final class LocalChildEventLoop extends SingleThreadEventLoop {
             interruptThread();
         }
     }
+
+    @Override
+    protected boolean addTaskWakesUp() {
+        // The task queue wakes up takeTask() by itself.
+        return true;
+    }
 }
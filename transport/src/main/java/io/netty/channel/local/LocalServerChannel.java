@@ -29,7 +29,7 @@ import java.net.SocketAddress;
  */
 public class LocalServerChannel extends AbstractServerChannel {
 
-    private final ChannelConfig config = new DefaultChannelConfig();
+    private final ChannelConfig config = new DefaultChannelConfig(this);
     private final Runnable shutdownHook = new Runnable() {
         @Override
         public void run() {
@@ -107,6 +107,11 @@ public class LocalServerChannel extends AbstractServerChannel {
         state = 2;
     }
 
+    @Override
+    protected void doBeginRead() throws Exception {
+        // NOOP - accepted channels are delivered by the connecting peers.
+    }
+
     @Override
     protected void doDeregister() throws Exception {
         ((SingleThreadEventLoop) eventLoop()).removeShutdownHook(shutdownHook);
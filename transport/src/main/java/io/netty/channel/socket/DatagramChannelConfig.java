@@ -79,6 +79,41 @@ public interface DatagramChannelConfig extends ChannelConfig {
 
     void setReceivePacketSize(int receivePacketSize);
 
+    /**
+     * Returns {@code true} if and only if the received datagrams are read into
+     * pooled direct buffers.  The default value is {@code false}.
+     */
+    boolean isReceiveBufferPooled();
+
+    /**
+     * Sets whether the received datagrams are read into pooled direct buffers
+     * instead of newly allocated heap buffers.  If enabled, the data of a
+     * received {@link DatagramPacket} is a slice of a larger buffer allocated
+     * from {@link io.netty.buffer.PooledChannelBufferFactory}, and the handler
+     * which consumes the packet must {@linkplain io.netty.buffer.ChannelBuffer#release() release}
+     * its data, or the pooled memory is never reused.  This option is ignored
+     * if the channel does not support it.
+     */
+    void setReceiveBufferPooled(boolean receiveBufferPooled);
+
+    /**
+     * Returns the maximum number of datagrams which are received or sent in
+     * one batch.  The default value is {@code 16}.
+     */
+    int getBatchSize();
+
+    /**
+     * Sets the maximum number of datagrams which are received or sent in one
+     * batch, with a single system call where the transport supports it,
+     * which amortizes the cost of a system call over many packets.
+     * {@code 1} disables batching.  A channel receives one batch after
+     * another until no datagram is pending or it has received
+     * {@link #getMaxMessagesPerRead() maxMessagesPerRead} datagrams in the
+     * current readiness event, and sends one batch after another until
+     * nothing is left to flush or the socket is not writable.
+     */
+    void setBatchSize(int batchSize);
+
     /**
      * Gets the {@link StandardSocketOptions#IP_TOS} option.
      */
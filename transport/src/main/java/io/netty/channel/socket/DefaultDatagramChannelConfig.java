@@ -16,6 +16,7 @@
 package io.netty.channel.socket;
 
 import static io.netty.channel.ChannelOption.*;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
@@ -34,14 +35,25 @@ import java.util.Map;
 public class DefaultDatagramChannelConfig extends DefaultChannelConfig implements DatagramChannelConfig {
 
     private static int DEFAULT_RECEIVE_PACKET_SIZE = 2048;
+    private static final int DEFAULT_BATCH_SIZE = 16;
 
     private final DatagramSocket socket;
     private volatile int receivePacketSize = DEFAULT_RECEIVE_PACKET_SIZE;
+    private volatile boolean receiveBufferPooled;
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
 
     /**
      * Creates a new instance.
      */
     public DefaultDatagramChannelConfig(DatagramSocket socket) {
+        this(null, socket);
+    }
+
+    /**
+     * Creates a new instance for the specified {@link Channel}.
+     */
+    public DefaultDatagramChannelConfig(Channel channel, DatagramSocket socket) {
+        super(channel);
         if (socket == null) {
             throw new NullPointerException("socket");
         }
@@ -53,7 +65,8 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         return getOptions(
                 super.getOptions(),
                 SO_BROADCAST, SO_RCVBUF, SO_SNDBUF, SO_REUSEADDR, IP_MULTICAST_LOOP_DISABLED,
-                IP_MULTICAST_ADDR, IP_MULTICAST_IF, IP_MULTICAST_TTL, IP_TOS, UDP_RECEIVE_PACKET_SIZE);
+                IP_MULTICAST_ADDR, IP_MULTICAST_IF, IP_MULTICAST_TTL, IP_TOS, UDP_RECEIVE_PACKET_SIZE,
+                UDP_RECEIVE_BUFFER_POOLED, UDP_BATCH_SIZE);
     }
 
     @Override
@@ -70,6 +83,12 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         if (option == UDP_RECEIVE_PACKET_SIZE) {
             return (T) Integer.valueOf(getReceivePacketSize());
         }
+        if (option == UDP_RECEIVE_BUFFER_POOLED) {
+            return (T) Boolean.valueOf(isReceiveBufferPooled());
+        }
+        if (option == UDP_BATCH_SIZE) {
+            return (T) Integer.valueOf(getBatchSize());
+        }
         if (option == SO_REUSEADDR) {
             return (T) Boolean.valueOf(isReuseAddress());
         }
@@ -118,6 +137,12 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
             setTimeToLive((Integer) value);
         } else if (option == IP_TOS) {
             setTrafficClass((Integer) value);
+        } else if (option == UDP_RECEIVE_PACKET_SIZE) {
+            setReceivePacketSize((Integer) value);
+        } else if (option == UDP_RECEIVE_BUFFER_POOLED) {
+            setReceiveBufferPooled((Boolean) value);
+        } else if (option == UDP_BATCH_SIZE) {
+            setBatchSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -289,6 +314,30 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         this.receivePacketSize = receivePacketSize;
     }
 
+    @Override
+    public boolean isReceiveBufferPooled() {
+        return receiveBufferPooled;
+    }
+
+    @Override
+    public void setReceiveBufferPooled(boolean receiveBufferPooled) {
+        this.receiveBufferPooled = receiveBufferPooled;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("batchSize: %d (expected: > 0)", batchSize));
+        }
+        this.batchSize = batchSize;
+    }
+
     @Override
     public int getTimeToLive() {
         if (socket instanceof MulticastSocket) {
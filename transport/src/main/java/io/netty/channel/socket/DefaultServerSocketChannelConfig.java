@@ -16,12 +16,16 @@
 package io.netty.channel.socket;
 
 import static io.netty.channel.ChannelOption.*;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Map;
 
 /**
@@ -30,22 +34,85 @@ import java.util.Map;
 public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
                                               implements ServerSocketChannelConfig {
 
+    private static final Object SO_REUSEPORT_OPTION;
+    private static final Method SOCKET_GET_OPTION;
+    private static final Method SOCKET_SET_OPTION;
+    private static final Method CHANNEL_GET_OPTION;
+    private static final Method CHANNEL_SET_OPTION;
+
+    static {
+        Object reusePort = null;
+        Method socketGetOption = null;
+        Method socketSetOption = null;
+        Method channelGetOption = null;
+        Method channelSetOption = null;
+        try {
+            // Java 9+
+            Class<?> socketOptionType = Class.forName("java.net.SocketOption");
+            Class<?> stdSocketOptionType = Class.forName("java.net.StandardSocketOptions");
+            Class<?> networkChannelType = Class.forName("java.nio.channels.NetworkChannel");
+            reusePort = stdSocketOptionType.getDeclaredField("SO_REUSEPORT").get(null);
+            socketGetOption = ServerSocket.class.getMethod("getOption", socketOptionType);
+            socketSetOption = ServerSocket.class.getMethod("setOption", socketOptionType, Object.class);
+            channelGetOption = networkChannelType.getMethod("getOption", socketOptionType);
+            channelSetOption = networkChannelType.getMethod("setOption", socketOptionType, Object.class);
+        } catch (Exception e) {
+            reusePort = null;
+            socketGetOption = null;
+            socketSetOption = null;
+            channelGetOption = null;
+            channelSetOption = null;
+        }
+        SO_REUSEPORT_OPTION = reusePort;
+        SOCKET_GET_OPTION = socketGetOption;
+        SOCKET_SET_OPTION = socketSetOption;
+        CHANNEL_GET_OPTION = channelGetOption;
+        CHANNEL_SET_OPTION = channelSetOption;
+    }
+
     private final ServerSocket socket;
+    private final ServerSocketChannel javaChannel;
     private volatile int backlog;
+    private volatile int maxAcceptRate;
 
     /**
      * Creates a new instance.
      */
     public DefaultServerSocketChannelConfig(ServerSocket socket) {
+        this(null, socket);
+    }
+
+    /**
+     * Creates a new instance for the specified {@link Channel}.
+     */
+    public DefaultServerSocketChannelConfig(Channel channel, ServerSocket socket) {
+        super(channel);
         if (socket == null) {
             throw new NullPointerException("socket");
         }
         this.socket = socket;
+        javaChannel = null;
+    }
+
+    /**
+     * Creates a new instance for the specified {@link Channel} which is
+     * backed by the specified {@link ServerSocketChannel}.
+     * {@code SO_REUSEPORT} is applied to the {@link ServerSocketChannel}
+     * itself because its {@link ServerSocket} adaptor does not pass the
+     * option down to the socket on some Java versions.
+     */
+    public DefaultServerSocketChannelConfig(Channel channel, ServerSocketChannel javaChannel) {
+        super(channel);
+        if (javaChannel == null) {
+            throw new NullPointerException("javaChannel");
+        }
+        socket = javaChannel.socket();
+        this.javaChannel = javaChannel;
     }
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG);
+        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_REUSEPORT, SO_BACKLOG, MAX_ACCEPT_RATE);
     }
 
     @Override
@@ -56,9 +123,15 @@ public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
         if (option == SO_REUSEADDR) {
             return (T) Boolean.valueOf(isReuseAddress());
         }
+        if (option == SO_REUSEPORT) {
+            return (T) Boolean.valueOf(isReusePort());
+        }
         if (option == SO_BACKLOG) {
             return (T) Integer.valueOf(getBacklog());
         }
+        if (option == MAX_ACCEPT_RATE) {
+            return (T) Integer.valueOf(getMaxAcceptRate());
+        }
 
         return super.getOption(option);
     }
@@ -71,8 +144,12 @@ public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
             setReceiveBufferSize((Integer) value);
         } else if (option == SO_REUSEADDR) {
             setReuseAddress((Boolean) value);
+        } else if (option == SO_REUSEPORT) {
+            setReusePort((Boolean) value);
         } else if (option == SO_BACKLOG) {
             setBacklog((Integer) value);
+        } else if (option == MAX_ACCEPT_RATE) {
+            setMaxAcceptRate((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -98,6 +175,40 @@ public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
         }
     }
 
+    @Override
+    public boolean isReusePort() {
+        if (SO_REUSEPORT_OPTION == null) {
+            return false;
+        }
+        try {
+            if (javaChannel != null) {
+                return (Boolean) CHANNEL_GET_OPTION.invoke(javaChannel, SO_REUSEPORT_OPTION);
+            }
+            return (Boolean) SOCKET_GET_OPTION.invoke(socket, SO_REUSEPORT_OPTION);
+        } catch (Exception e) {
+            // Not supported by the operating system.
+            return false;
+        }
+    }
+
+    @Override
+    public void setReusePort(boolean reusePort) {
+        if (SO_REUSEPORT_OPTION == null) {
+            throw new ChannelException("SO_REUSEPORT requires Java 9 or above.");
+        }
+        try {
+            if (javaChannel != null) {
+                CHANNEL_SET_OPTION.invoke(javaChannel, SO_REUSEPORT_OPTION, reusePort);
+            } else {
+                SOCKET_SET_OPTION.invoke(socket, SO_REUSEPORT_OPTION, reusePort);
+            }
+        } catch (InvocationTargetException e) {
+            throw new ChannelException(e.getCause());
+        } catch (Exception e) {
+            throw new ChannelException(e);
+        }
+    }
+
     @Override
     public int getReceiveBufferSize() {
         try {
@@ -133,4 +244,18 @@ public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
         }
         this.backlog = backlog;
     }
+
+    @Override
+    public int getMaxAcceptRate() {
+        return maxAcceptRate;
+    }
+
+    @Override
+    public void setMaxAcceptRate(int maxAcceptRate) {
+        if (maxAcceptRate < 0) {
+            throw new IllegalArgumentException(
+                    "maxAcceptRate: " + maxAcceptRate + " (expected: >= 0)");
+        }
+        this.maxAcceptRate = maxAcceptRate;
+    }
 }
@@ -16,6 +16,7 @@
 package io.netty.channel.socket;
 
 import static io.netty.channel.ChannelOption.*;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
@@ -36,6 +37,14 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
      * Creates a new instance.
      */
     public DefaultSocketChannelConfig(Socket socket) {
+        this(null, socket);
+    }
+
+    /**
+     * Creates a new instance for the specified {@link Channel}.
+     */
+    public DefaultSocketChannelConfig(Channel channel, Socket socket) {
+        super(channel);
         if (socket == null) {
             throw new NullPointerException("socket");
         }
@@ -35,8 +35,12 @@ import java.net.StandardSocketOptions;
  * </tr><tr>
  * <td>{@code "backlog"}</td><td>{@link #setBacklog(int)}</td>
  * </tr><tr>
+ * <td>{@code "maxAcceptRate"}</td><td>{@link #setMaxAcceptRate(int)}</td>
+ * </tr><tr>
  * <td>{@code "reuseAddress"}</td><td>{@link #setReuseAddress(boolean)}</td>
  * </tr><tr>
+ * <td>{@code "reusePort"}</td><td>{@link #setReusePort(boolean)}</td>
+ * </tr><tr>
  * <td>{@code "receiveBufferSize"}</td><td>{@link #setReceiveBufferSize(int)}</td>
  * </tr>
  * </table>
@@ -55,6 +59,27 @@ public interface ServerSocketChannelConfig extends ChannelConfig {
      */
     void setBacklog(int backlog);
 
+    /**
+     * Returns the maximum number of the connections accepted per second, or
+     * {@code 0} if unlimited.  The default value is {@code 0}.
+     */
+    int getMaxAcceptRate();
+
+    /**
+     * Sets the maximum number of the connections accepted per second.  Once
+     * the limit is reached, the channel stops accepting for a while and leaves
+     * the connections in the backlog of the operating system, so that a flood
+     * of connection attempts does not monopolize the event loop.  Bursts of up
+     * to one second worth of connections are allowed.  This option is ignored
+     * if the channel does not support it.
+     *
+     * @param maxAcceptRate the maximum rate, or {@code 0} to disable the limit
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is negative
+     */
+    void setMaxAcceptRate(int maxAcceptRate);
+
     /**
      * Gets the {@link StandardSocketOptions#SO_REUSEADDR} option.
      */
@@ -65,6 +90,24 @@ public interface ServerSocketChannelConfig extends ChannelConfig {
      */
     void setReuseAddress(boolean reuseAddress);
 
+    /**
+     * Gets the {@code SO_REUSEPORT} option.  Returns {@code false} if the
+     * platform does not support the option.
+     */
+    boolean isReusePort();
+
+    /**
+     * Sets the {@code SO_REUSEPORT} option, which allows more than one server
+     * socket to bind to the same address and lets the kernel spread the
+     * incoming connections over them.  It must be set before the channel is
+     * bound.  The option requires Java 9 or above and an operating system
+     * which supports it, such as Linux 3.9 or above.
+     *
+     * @throws io.netty.channel.ChannelException
+     *         if the option is not supported
+     */
+    void setReusePort(boolean reusePort);
+
     /**
      * Gets the {@link StandardSocketOptions#SO_RCVBUF} option.
      */
@@ -39,7 +39,7 @@ public abstract class AbstractNioChannel extends AbstractChannel {
 
     private final SelectableChannel ch;
     private final int defaultInterestOps;
-    private volatile SelectionKey selectionKey;
+    volatile SelectionKey selectionKey;
 
     /**
      * The future of the current connection attempt.  If not null, subsequent
@@ -100,6 +100,31 @@ public abstract class AbstractNioChannel extends AbstractChannel {
         return selectionKey;
     }
 
+    /**
+     * Returns the interest set this channel reads with, which is empty if
+     * {@linkplain io.netty.channel.ChannelConfig#isAutoRead() auto-read} is
+     * disabled.
+     */
+    protected final int readInterestOps() {
+        return config().isAutoRead()? defaultInterestOps : 0;
+    }
+
+    /**
+     * Stops watching the readiness for reading until {@link #doBeginRead()}
+     * is called, so that the remote peer is throttled by the flow control of
+     * the transport while the inbound data is not consumed.
+     */
+    protected final void removeReadOp() {
+        SelectionKey key = selectionKey;
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        int interestOps = key.interestOps();
+        if ((interestOps & defaultInterestOps) != 0) {
+            key.interestOps(interestOps & ~defaultInterestOps);
+        }
+    }
+
     public interface NioUnsafe extends Unsafe {
         java.nio.channels.Channel ch();
         void finishConnect();
@@ -208,7 +233,7 @@ public abstract class AbstractNioChannel extends AbstractChannel {
     protected Runnable doRegister() throws Exception {
         NioChildEventLoop loop = (NioChildEventLoop) eventLoop();
         selectionKey = javaChannel().register(
-                loop.selector, isActive()? defaultInterestOps : 0, this);
+                loop.selector, isActive()? readInterestOps() : 0, this);
         return null;
     }
 
@@ -217,6 +242,18 @@ public abstract class AbstractNioChannel extends AbstractChannel {
         ((NioChildEventLoop) eventLoop()).cancel(selectionKey());
     }
 
+    @Override
+    protected void doBeginRead() throws Exception {
+        SelectionKey key = selectionKey;
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        int interestOps = key.interestOps();
+        if ((interestOps & defaultInterestOps) == 0) {
+            key.interestOps(interestOps | defaultInterestOps);
+        }
+    }
+
     protected abstract boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception;
     protected abstract void doFinishConnect() throws Exception;
 }
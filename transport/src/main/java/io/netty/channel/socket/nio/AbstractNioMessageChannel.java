@@ -45,15 +45,31 @@ abstract class AbstractNioMessageChannel extends AbstractNioChannel {
         public void read() {
             assert eventLoop().inEventLoop();
 
+            if (!config().isAutoRead()) {
+                // Consume the read request; the handler asks for the next read
+                // via Channel.read() once it is ready for more messages.
+                removeReadOp();
+            }
+
             final ChannelPipeline pipeline = pipeline();
             final Queue<Object> msgBuf = pipeline.inboundMessageBuffer();
             boolean closed = false;
             boolean read = false;
             try {
+                // Do not read more than maxMessagesPerRead messages so that
+                // the other channels of the event loop are not starved.  The
+                // selector will report the remaining messages again.
+                int maxMessagesPerRead = config().getMaxMessagesPerRead();
+                int totalReadAmount = 0;
                 for (;;) {
-                    int localReadAmount = doReadMessages(msgBuf);
+                    int localReadAmount = doReadMessages(msgBuf, maxMessagesPerRead - totalReadAmount);
                     if (localReadAmount > 0) {
                         read = true;
+                        totalReadAmount += localReadAmount;
+                        if (totalReadAmount >= maxMessagesPerRead) {
+                            readLimitReached();
+                            break;
+                        }
                     } else if (localReadAmount == 0) {
                         break;
                     } else if (localReadAmount < 0) {
@@ -100,6 +116,24 @@ abstract class AbstractNioMessageChannel extends AbstractNioChannel {
         }
     }
 
-    protected abstract int doReadMessages(Queue<Object> buf) throws Exception;
+    /**
+     * Invoked when a read operation stopped because it read
+     * {@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead() maxMessagesPerRead}
+     * messages, which usually means more messages are pending.
+     */
+    protected void readLimitReached() {
+        // NOOP
+    }
+
+    /**
+     * Reads messages into the specified buffer.
+     *
+     * @param maxMessages the number of the messages which can still be read
+     *                    in the current read operation, which is at least {@code 1}
+     * @return the number of the read messages, which must not exceed
+     *         {@code maxMessages}, {@code 0} if no message is pending, or
+     *         {@code -1} if the channel has been closed
+     */
+    protected abstract int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception;
     protected abstract int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception;
 }
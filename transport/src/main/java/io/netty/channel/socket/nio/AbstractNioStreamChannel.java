@@ -16,19 +16,47 @@
 package io.netty.channel.socket.nio;
 
 import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.DynamicChannelBuffer;
+import io.netty.buffer.QueueBackedChannelBuffer;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelType;
+import io.netty.channel.FileRegion;
+import io.netty.channel.FileRegionTransfer;
+import io.netty.channel.ReceiveBufferSizePredictor;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 abstract class AbstractNioStreamChannel extends AbstractNioChannel {
 
+    /**
+     * The {@link FileRegion}s whose transfer has been requested but not finished yet.
+     * The outbound byte buffer is flushed only up to the checkpoint of the first one.
+     */
+    private final Queue<FileRegionTransfer> fileTransfers = new ArrayDeque<FileRegionTransfer>();
+
+    /**
+     * The number of the bytes written from the outbound byte buffer so far.
+     */
+    private long flushedBytes;
+
     protected AbstractNioStreamChannel(
             Channel parent, Integer id, SelectableChannel ch) {
         super(parent, id, ch, SelectionKey.OP_READ);
+
+        closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                failFileTransfers(new ClosedChannelException());
+            }
+        });
     }
 
     @Override
@@ -42,25 +70,48 @@ abstract class AbstractNioStreamChannel extends AbstractNioChannel {
     }
 
     private class NioStreamUnsafe extends AbstractNioUnsafe {
+
+        private ReceiveBufferSizePredictor predictor;
+
         @Override
         public void read() {
             assert eventLoop().inEventLoop();
 
+            if (!config().isAutoRead()) {
+                // Consume the read request; the handler asks for the next read
+                // via Channel.read() once it is ready for more data.
+                removeReadOp();
+            }
+
             final ChannelPipeline pipeline = pipeline();
             final ChannelBuffer byteBuf = pipeline.inboundByteBuffer();
             boolean closed = false;
             boolean read = false;
             try {
-                expandReadBuffer(byteBuf);
-                for (;;) {
-                    int localReadAmount = doReadBytes(byteBuf);
-                    if (localReadAmount > 0) {
-                        read = true;
-                    } else if (localReadAmount < 0) {
+                ReceiveBufferSizePredictor predictor = this.predictor;
+                if (predictor == null) {
+                    this.predictor = predictor = config().getReceiveBufferSizePredictorFactory().getPredictor();
+                }
+
+                // Do not read more than maxMessagesPerRead times so that the
+                // other channels of the event loop are not starved.  The
+                // selector will report the remaining bytes again.
+                for (int i = config().getMaxMessagesPerRead(); i > 0; i --) {
+                    byteBuf.ensureWritableBytes(predictor.nextReceiveBufferSize());
+                    final int writableBytes = byteBuf.writableBytes();
+                    final int localReadAmount = doReadBytes(byteBuf);
+                    if (localReadAmount < 0) {
                         closed = true;
                         break;
                     }
-                    if (!expandReadBuffer(byteBuf)) {
+                    if (localReadAmount == 0) {
+                        break;
+                    }
+
+                    read = true;
+                    predictor.previousReceiveBufferSize(localReadAmount);
+                    if (localReadAmount < writableBytes) {
+                        // Read everything in the socket receive buffer.
                         break;
                     }
                 }
@@ -76,45 +127,175 @@ abstract class AbstractNioStreamChannel extends AbstractNioChannel {
             } finally {
                 if (read) {
                     pipeline.fireInboundBufferUpdated();
+                    trimInboundBuffer(byteBuf);
                 }
                 if (closed && isOpen()) {
                     close(voidFuture());
                 }
             }
         }
+
+        /**
+         * Shrinks the inbound buffer once the handler has drained it and the
+         * predictor expects much smaller reads than the buffer can hold.
+         */
+        private void trimInboundBuffer(ChannelBuffer byteBuf) {
+            ReceiveBufferSizePredictor predictor = this.predictor;
+            if (predictor == null || !(byteBuf instanceof DynamicChannelBuffer)) {
+                return;
+            }
+
+            // Keep some slack so that a prediction which moves back and forth
+            // by one step does not reallocate the buffer on every read.
+            int nextReceiveBufferSize = predictor.nextReceiveBufferSize();
+            if (byteBuf.capacity() > nextReceiveBufferSize << 1) {
+                ((DynamicChannelBuffer) byteBuf).trim(nextReceiveBufferSize);
+            }
+        }
     }
 
     @Override
     protected void doFlushByteBuffer(ChannelBuffer buf) throws Exception {
-        if (!buf.readable()) {
-            // Reset reader/writerIndex to 0 if the buffer is empty.
-            buf.clear();
-            return;
-        }
+        try {
+            for (;;) {
+                FileRegionTransfer transfer = fileTransfers.peek();
+                if (transfer == null) {
+                    doFlushBytes(buf, buf.readableBytes());
+                    break;
+                }
 
-        for (int i = config().getWriteSpinCount() - 1; i >= 0; i --) {
-            int localFlushedAmount = doWriteBytes(buf, i == 0);
-            if (localFlushedAmount > 0) {
-                break;
+                // Write the bytes which were written before the region first.
+                // Both return false when OP_WRITE has been set, so that the
+                // event loop will call flushNow() again later.
+                if (!doFlushBytes(buf, (int) (transfer.checkpoint() - flushedBytes))) {
+                    break;
+                }
+                if (!doFlushFileTransfer(transfer)) {
+                    break;
+                }
             }
+        } finally {
             if (!buf.readable()) {
                 // Reset reader/writerIndex to 0 if the buffer is empty.
                 buf.clear();
+            } else if (buf instanceof QueueBackedChannelBuffer) {
+                // Release the components which were written completely rather
+                // than keeping them until the whole buffer is written.  It does
+                // not copy anything unlike other buffers.
+                buf.discardReadBytes();
+            }
+        }
+    }
+
+    /**
+     * Writes the specified number of readable bytes of the specified buffer.
+     *
+     * @return {@code true} if and only if all of them were written.
+     *         {@code false} if the socket send buffer became full, in which
+     *         case {@code OP_WRITE} is set.
+     */
+    private boolean doFlushBytes(ChannelBuffer buf, int length) throws Exception {
+        for (int i = config().getWriteSpinCount() - 1; i >= 0 && length > 0; i --) {
+            int localFlushedAmount = doWriteBytes(buf, length, i == 0);
+            flushedBytes += localFlushedAmount;
+            length -= localFlushedAmount;
+            if (length > 0 && localFlushedAmount > 0 && isFlushPending()) {
+                // Wrote only a part of the bytes because the socket send
+                // buffer is full.  doWriteBytes() has set OP_WRITE.
                 break;
             }
         }
+        return length == 0;
     }
 
-    protected abstract int doReadBytes(ChannelBuffer buf) throws Exception;
-    protected abstract int doWriteBytes(ChannelBuffer buf, boolean lastSpin) throws Exception;
+    @Override
+    protected void doFlushFileRegion(FileRegion region, ChannelFuture future) throws Exception {
+        // The region goes after the bytes in the outbound buffer and before
+        // the ones written later.
+        ChannelBuffer buf = unsafe().directOutboundContext().outboundByteBuffer();
+        fileTransfers.add(new FileRegionTransfer(region, future, flushedBytes + buf.readableBytes()) {
+            @Override
+            protected long doTransfer(FileRegion region, long position) throws Exception {
+                return doWriteFileRegion(region, position);
+            }
+        });
+        if (!isFlushPending()) {
+            unsafe().flushNow();
+        }
+    }
+
+    /**
+     * Transfers the specified {@link FileRegion}, which is the first one
+     * pending, and removes it once it has been transferred completely.
+     *
+     * @return {@code true} if and only if the region was transferred
+     *         completely.  {@code false} if the socket became unwritable, in which
+     *         case {@code OP_WRITE} is set so that the transfer is resumed later.
+     */
+    private boolean doFlushFileTransfer(FileRegionTransfer transfer) throws Exception {
+        try {
+            if (!transfer.transfer(config().getWriteSpinCount())) {
+                setOpWrite();
+                return false;
+            }
+        } catch (Exception e) {
+            failFileTransfers(e);
+            throw e;
+        }
+
+        fileTransfers.remove();
+        clearOpWrite();
+        transfer.future().setSuccess();
+        return true;
+    }
+
+    private void failFileTransfers(Throwable cause) {
+        for (;;) {
+            FileRegionTransfer transfer = fileTransfers.poll();
+            if (transfer == null) {
+                break;
+            }
+            transfer.future().setFailure(cause);
+        }
+    }
 
-    private static boolean expandReadBuffer(ChannelBuffer byteBuf) {
-        if (!byteBuf.writable()) {
-            // FIXME: Magic number
-            byteBuf.ensureWritableBytes(4096);
-            return true;
+    protected final void setOpWrite() {
+        final SelectionKey key = selectionKey();
+        final int interestOps = key.interestOps();
+        if ((interestOps & SelectionKey.OP_WRITE) == 0) {
+            key.interestOps(interestOps | SelectionKey.OP_WRITE);
         }
+    }
 
-        return false;
+    protected final void clearOpWrite() {
+        final SelectionKey key = selectionKey();
+        final int interestOps = key.interestOps();
+        if ((interestOps & SelectionKey.OP_WRITE) != 0) {
+            key.interestOps(interestOps & ~SelectionKey.OP_WRITE);
+        }
     }
+
+    protected abstract int doReadBytes(ChannelBuffer buf) throws Exception;
+
+    /**
+     * Writes at most {@code length} readable bytes of the specified buffer.
+     * An implementation may write only a part of them at once, such as the
+     * first few components of a {@link QueueBackedChannelBuffer}.  If the
+     * socket send buffer became full, or if {@code lastSpin} is {@code true}
+     * and some of the bytes are left unwritten, the implementation must set
+     * {@code OP_WRITE} so that the event loop resumes the flush later.
+     * Otherwise, it must clear {@code OP_WRITE}.
+     *
+     * @return the number of written bytes
+     */
+    protected abstract int doWriteBytes(ChannelBuffer buf, int length, boolean lastSpin) throws Exception;
+
+    /**
+     * Transfers the specified {@link FileRegion} to the underlying socket
+     * without blocking.
+     *
+     * @return the number of transferred bytes, which is {@code 0} if the
+     *         socket is not ready to accept more data
+     */
+    protected abstract long doWriteFileRegion(FileRegion region, long position) throws Exception;
 }
@@ -21,8 +21,10 @@ import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.socket.nio.AbstractNioChannel.NioUnsafe;
 import io.netty.logging.InternalLogger;
 import io.netty.logging.InternalLoggerFactory;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -44,19 +46,47 @@ final class NioChildEventLoop extends SingleThreadEventLoop {
 
     static final int CLEANUP_INTERVAL = 256; // XXX Hard-coded value, but won't need customization.
 
+    private static final boolean DISABLE_KEYSET_OPTIMIZATION =
+            Boolean.parseBoolean(SystemPropertyUtil.get("io.netty.noKeySetOptimization", "false"));
+
+    /**
+     * The number of consecutive premature returns of {@link Selector#select(long)}
+     * after which the {@link Selector} is rebuilt.  {@code 0} disables the rebuild.
+     */
+    private static final int SELECTOR_AUTO_REBUILD_THRESHOLD =
+            SystemPropertyUtil.get("io.netty.selectorAutoRebuildThreshold", 512);
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("io.netty.noKeySetOptimization: " + DISABLE_KEYSET_OPTIMIZATION);
+            logger.debug("io.netty.selectorAutoRebuildThreshold: " + SELECTOR_AUTO_REBUILD_THRESHOLD);
+        }
+    }
+
+    private final SelectorProvider provider;
+
+    /**
+     * The NIO {@link Selector}.  Replaced by a new one when the JDK epoll
+     * bug makes it spin.
+     */
+    volatile Selector selector;
+
     /**
-     * The NIO {@link Selector}.
+     * The selected-key set of {@link #selector}, or {@code null} if the
+     * {@link Selector} could not be instrumented with it.
      */
-    protected final Selector selector;
+    private SelectedSelectionKeySet selectedKeys;
 
     /**
      * Boolean that controls determines if a blocked Selector.select should
-     * break out of its selection process. In our case we use a timeone for
-     * the select method and the select method will block for that time unless
-     * waken up.
+     * break out of its selection process. In our case we use a timeout for
+     * the select method which is the delay until the next scheduled task is
+     * due, and the select method will block for that time unless waken up.
      */
     protected final AtomicBoolean wakenUp = new AtomicBoolean();
 
+    private final NioEventLoopCounters counters = new NioEventLoopCounters();
+    private volatile int ioRatio = 50;
     private int cancelledKeys;
     private boolean cleanedCancelledKeys;
 
@@ -65,26 +95,85 @@ final class NioChildEventLoop extends SingleThreadEventLoop {
         if (selectorProvider == null) {
             throw new NullPointerException("selectorProvider");
         }
-        selector = openSelector(selectorProvider);
+        provider = selectorProvider;
+        selector = openSelector();
     }
 
-    private static Selector openSelector(SelectorProvider provider) {
+    private Selector openSelector() {
+        final Selector selector;
         try {
-            return provider.openSelector();
+            selector = provider.openSelector();
         } catch (IOException e) {
             throw new ChannelException("failed to open a new selector", e);
         }
+
+        selectedKeys = null;
+        if (DISABLE_KEYSET_OPTIMIZATION) {
+            return selector;
+        }
+
+        // Replace the HashSet of the selected keys with an array-backed set.
+        try {
+            Class<?> selectorImplClass =
+                    Class.forName("sun.nio.ch.SelectorImpl", false, ClassLoader.getSystemClassLoader());
+            if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
+                return selector;
+            }
+
+            Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+
+            SelectedSelectionKeySet selectedKeySet = new SelectedSelectionKeySet();
+            selectedKeysField.set(selector, selectedKeySet);
+            publicSelectedKeysField.set(selector, selectedKeySet);
+            selectedKeys = selectedKeySet;
+        } catch (Throwable t) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to replace the selected-key set of a Selector: " + selector, t);
+            }
+        }
+        return selector;
     }
 
     @Override
     protected void run() {
-        Selector selector = this.selector;
+        int prematureSelects = 0;
         for (;;) {
 
             wakenUp.set(false);
 
             try {
-                SelectorUtil.select(selector);
+                Selector selector = this.selector;
+                if (hasTasks()) {
+                    // Do not block if there are pending tasks.
+                    selector.selectNow();
+                    prematureSelects = 0;
+                } else {
+                    // Block until the next scheduled task is due.
+                    long timeoutNanos = delayNanos();
+                    long startTimeNanos = System.nanoTime();
+                    int selected = SelectorUtil.select(selector, timeoutNanos);
+                    if (selected == 0 && !wakenUp.get() &&
+                        System.nanoTime() - startTimeNanos < timeoutNanos >>> 1) {
+                        // Returned nothing well before the timeout without
+                        // being waken up - the JDK epoll bug makes the
+                        // Selector spin if this happens again and again.
+                        prematureSelects ++;
+                        if (SELECTOR_AUTO_REBUILD_THRESHOLD > 0 &&
+                            prematureSelects >= SELECTOR_AUTO_REBUILD_THRESHOLD) {
+                            logger.warn(
+                                    "Selector.select() returned prematurely " + prematureSelects +
+                                    " times in a row; rebuilding the Selector.");
+                            rebuildSelector();
+                            selector = this.selector;
+                            prematureSelects = 0;
+                        }
+                    } else {
+                        prematureSelects = 0;
+                    }
+                }
 
                 // 'wakenUp.compareAndSet(false, true)' is always evaluated
                 // before calling 'selector.wakeup()' to reduce the wake-up
@@ -119,8 +208,23 @@ final class NioChildEventLoop extends SingleThreadEventLoop {
                 }
 
                 cancelledKeys = 0;
-                runAllTasks();
-                processSelectedKeys();
+
+                final long ioStartTime = System.nanoTime();
+                final int processedKeys = processSelectedKeys();
+                final long ioTime = System.nanoTime() - ioStartTime;
+                counters.recordIo(processedKeys, ioTime);
+
+                final int ioRatio = this.ioRatio;
+                final long taskStartTime = System.nanoTime();
+                final int runTasks;
+                if (ioRatio == 100) {
+                    runTasks = runAllTasks();
+                } else {
+                    // Give the non-I/O tasks as much time as the I/O took,
+                    // scaled by the ratio.
+                    runTasks = runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                }
+                counters.recordTasks(runTasks, System.nanoTime() - taskStartTime);
 
                 if (isShutdown()) {
                     closeAll();
@@ -143,6 +247,33 @@ final class NioChildEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in
+     * this event loop.
+     */
+    int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in this
+     * event loop.  The non-I/O tasks are run for at most
+     * {@code ioTime * (100 - ioRatio) / ioRatio} after each round of I/O,
+     * and the remaining tasks are run in the next round.  {@code 100} runs
+     * all pending tasks in every round.
+     */
+    void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException(
+                    String.format("ioRatio: %d (expected: 0 < ioRatio <= 100)", ioRatio));
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    NioEventLoopCounters counters() {
+        return counters;
+    }
+
     @Override
     protected void cleanup() {
         try {
@@ -163,53 +294,135 @@ final class NioChildEventLoop extends SingleThreadEventLoop {
         }
     }
 
-    private void processSelectedKeys() {
-        Set<SelectionKey> selectedKeys = selector.selectedKeys();
-        if (selectedKeys.isEmpty()) {
+    /**
+     * Replaces the current {@link Selector} with a new one, moving all
+     * registered channels to the new one.
+     */
+    private void rebuildSelector() {
+        final Selector oldSelector = selector;
+        final Selector newSelector;
+        try {
+            newSelector = openSelector();
+        } catch (ChannelException e) {
+            logger.warn("Failed to create a new Selector.", e);
             return;
         }
 
+        int nChannels = 0;
+        for (SelectionKey key: oldSelector.keys()) {
+            AbstractNioChannel ch = (AbstractNioChannel) key.attachment();
+            try {
+                if (!key.isValid() || key.channel().keyFor(newSelector) != null) {
+                    continue;
+                }
+
+                int interestOps = key.interestOps();
+                key.cancel();
+                ch.selectionKey = ch.javaChannel().register(newSelector, interestOps, ch);
+                nChannels ++;
+            } catch (Exception e) {
+                logger.warn("Failed to re-register a Channel to the new Selector.", e);
+                ch.unsafe().close(ch.unsafe().voidFuture());
+            }
+        }
+
+        selector = newSelector;
+        try {
+            oldSelector.close();
+        } catch (Throwable t) {
+            logger.warn("Failed to close the old Selector.", t);
+        }
+
+        logger.info("Migrated " + nChannels + " channel(s) to the new Selector.");
+    }
+
+    /**
+     * Processes the selected keys.
+     *
+     * @return the number of the processed keys
+     */
+    private int processSelectedKeys() {
+        SelectedSelectionKeySet selectedKeys = this.selectedKeys;
+        if (selectedKeys != null) {
+            return processSelectedKeysOptimized(selectedKeys);
+        }
+
+        Set<SelectionKey> selectedKeySet = selector.selectedKeys();
+        if (selectedKeySet.isEmpty()) {
+            return 0;
+        }
+
+        int processedKeys = 0;
         Iterator<SelectionKey> i;
         cleanedCancelledKeys = false;
         boolean clearSelectedKeys = true;
         try {
-            for (i = selectedKeys.iterator(); i.hasNext();) {
-                final SelectionKey k = i.next();
-                final AbstractNioChannel ch = (AbstractNioChannel) k.attachment();
-                final NioUnsafe unsafe = ch.unsafe();
-                try {
-                    int readyOps = k.readyOps();
-                    if ((readyOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0 || readyOps == 0) {
-                        unsafe.read();
-                        if (!ch.isOpen()) {
-                            // Connection already closed - no need to handle write.
-                            continue;
-                        }
-                    }
-                    if ((readyOps & SelectionKey.OP_WRITE) != 0) {
-                        unsafe.flushNow();
-                    }
-                    if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
-                        unsafe.finishConnect();
-                    }
-                } catch (CancelledKeyException ignored) {
-                    unsafe.close(unsafe.voidFuture());
-                }
+            for (i = selectedKeySet.iterator(); i.hasNext();) {
+                processSelectedKey(i.next());
+                processedKeys ++;
 
                 if (cleanedCancelledKeys) {
                     // Create the iterator again to avoid ConcurrentModificationException
-                    if (selectedKeys.isEmpty()) {
+                    if (selectedKeySet.isEmpty()) {
                         clearSelectedKeys = false;
                         break;
                     } else {
-                        i = selectedKeys.iterator();
+                        i = selectedKeySet.iterator();
                     }
                 }
             }
         } finally {
             if (clearSelectedKeys) {
-                selectedKeys.clear();
+                selectedKeySet.clear();
+            }
+        }
+        return processedKeys;
+    }
+
+    private int processSelectedKeysOptimized(SelectedSelectionKeySet selectedKeys) {
+        int processedKeys = 0;
+        cleanedCancelledKeys = false;
+        try {
+            for (int i = 0; i < selectedKeys.size(); i ++) {
+                processSelectedKey(selectedKeys.get(i));
+                processedKeys ++;
+
+                if (cleanedCancelledKeys) {
+                    // cancel() selected again, which appended the ready keys to
+                    // the set, including the ones handled already.  Start over
+                    // with the keys which are ready now.
+                    cleanedCancelledKeys = false;
+                    selectedKeys.reset();
+                    SelectorUtil.cleanupKeys(selector);
+                    i = -1;
+                }
+            }
+        } finally {
+            selectedKeys.reset();
+        }
+        return processedKeys;
+    }
+
+    private static void processSelectedKey(SelectionKey k) {
+        final AbstractNioChannel ch = (AbstractNioChannel) k.attachment();
+        final NioUnsafe unsafe = ch.unsafe();
+        try {
+            int readyOps = k.readyOps();
+            if ((readyOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0 || readyOps == 0) {
+                unsafe.read();
+                if (!ch.isOpen()) {
+                    // Connection already closed - no need to handle write.
+                    return;
+                }
+            }
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                unsafe.flushNow();
+            }
+            if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+                unsafe.finishConnect();
             }
+        } catch (CancelledKeyException ignored) {
+            unsafe.close(unsafe.voidFuture());
         }
     }
 
@@ -17,6 +17,7 @@ package io.netty.channel.socket.nio;
 
 import io.netty.buffer.ChannelBuffer;
 import io.netty.buffer.ChannelBuffers;
+import io.netty.buffer.PooledChannelBufferFactory;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.socket.DatagramChannelConfig;
@@ -47,10 +48,21 @@ import java.util.Queue;
 public final class NioDatagramChannel
         extends AbstractNioMessageChannel implements io.netty.channel.socket.DatagramChannel {
 
+    /**
+     * The size of the pooled buffer which many received datagrams are sliced
+     * from when {@link DatagramChannelConfig#isReceiveBufferPooled()} is enabled.
+     */
+    private static final int POOLED_RECEIVE_BUFFER_SIZE = 65536;
+
     private final DatagramChannelConfig config;
     private final Map<InetAddress, List<MembershipKey>> memberships =
             new HashMap<InetAddress, List<MembershipKey>>();
 
+    // Accessed only by the event loop.
+    private ByteBuffer receiveBuffer;
+    private ChannelBuffer pooledReceiveBuffer;
+    private ByteBuffer sendBuffer;
+
     private static DatagramChannel newSocket() {
         try {
             return DatagramChannel.open();
@@ -89,7 +101,7 @@ public final class NioDatagramChannel
 
     public NioDatagramChannel(Integer id, DatagramChannel socket) {
         super(null, id, socket, SelectionKey.OP_READ);
-        config = new NioDatagramChannelConfig(socket);
+        config = new NioDatagramChannelConfig(this, socket);
     }
 
     @Override
@@ -121,7 +133,7 @@ public final class NioDatagramChannel
     @Override
     protected void doBind(SocketAddress localAddress) throws Exception {
         javaChannel().socket().bind(localAddress);
-        selectionKey().interestOps(SelectionKey.OP_READ);
+        selectionKey().interestOps(readInterestOps());
     }
 
     @Override
@@ -134,7 +146,7 @@ public final class NioDatagramChannel
         boolean success = false;
         try {
             javaChannel().connect(remoteAddress);
-            selectionKey().interestOps(selectionKey().interestOps() | SelectionKey.OP_READ);
+            selectionKey().interestOps(selectionKey().interestOps() | readInterestOps());
             success = true;
             return true;
         } finally {
@@ -157,40 +169,106 @@ public final class NioDatagramChannel
     @Override
     protected void doClose() throws Exception {
         javaChannel().close();
+
+        ChannelBuffer pooled = pooledReceiveBuffer;
+        if (pooled != null) {
+            pooledReceiveBuffer = null;
+            pooled.release();
+        }
     }
 
     @Override
-    protected int doReadMessages(Queue<Object> buf) throws Exception {
-        DatagramChannel ch = javaChannel();
-        ByteBuffer data = ByteBuffer.allocate(config().getReceivePacketSize());
-        InetSocketAddress remoteAddress = (InetSocketAddress) ch.receive(data);
+    protected int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception {
+        // Do not read more than the read loop allows per readiness event.
+        return receiveBatch(buf, Math.min(config().getBatchSize(), maxMessages));
+    }
+
+    /**
+     * Receives at most {@code maxPackets} datagrams into the specified buffer
+     * and returns the number of the received datagrams.  The default
+     * implementation calls {@link DatagramChannel#receive(ByteBuffer)} once
+     * per datagram until no datagram is pending.  A transport with access to
+     * {@code recvmmsg()} can override this method to receive the whole batch
+     * with a single system call.
+     */
+    protected int receiveBatch(Queue<Object> buf, int maxPackets) throws Exception {
+        boolean pooled = config().isReceiveBufferPooled();
+        int packetSize = config().getReceivePacketSize();
+        int receivedPackets = 0;
+        while (receivedPackets < maxPackets) {
+            boolean received;
+            if (pooled) {
+                received = receivePooled(buf, packetSize);
+            } else {
+                received = receive(buf, packetSize);
+            }
+            if (!received) {
+                break;
+            }
+            receivedPackets ++;
+        }
+        return receivedPackets;
+    }
+
+    private boolean receive(Queue<Object> buf, int packetSize) throws IOException {
+        // Receive into a reusable direct buffer to avoid the temporary direct
+        // buffer of the JDK, and copy only the received bytes to the heap.
+        ByteBuffer data = receiveBuffer;
+        if (data == null || data.capacity() != packetSize) {
+            receiveBuffer = data = ByteBuffer.allocateDirect(packetSize);
+        }
+        data.clear();
+
+        InetSocketAddress remoteAddress = (InetSocketAddress) javaChannel().receive(data);
         if (remoteAddress == null) {
-            return 0;
+            return false;
         }
 
         data.flip();
-        buf.add(new DatagramPacket(ChannelBuffers.wrappedBuffer(data), remoteAddress));
-        return 1;
-    }
+        ChannelBuffer content = ChannelBuffers.buffer(data.remaining());
+        content.writeBytes(data);
+        buf.add(new DatagramPacket(content, remoteAddress));
+        return true;
+    }
+
+    private boolean receivePooled(Queue<Object> buf, int packetSize) throws IOException {
+        ChannelBuffer pooled = pooledReceiveBuffer;
+        if (pooled == null || pooled.writableBytes() < packetSize) {
+            if (pooled != null) {
+                // The datagrams sliced from the buffer keep it until they are released.
+                pooled.release();
+            }
+            pooledReceiveBuffer = pooled = PooledChannelBufferFactory.getDirectInstance().getBuffer(
+                    Math.max(packetSize, POOLED_RECEIVE_BUFFER_SIZE));
+        }
 
-    @Override
-    protected int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception {
-        DatagramPacket packet = (DatagramPacket) buf.peek();
-        ChannelBuffer data = packet.data();
-        ByteBuffer nioData;
-        if (data.hasNioBuffer()) {
-            nioData = data.nioBuffer();
+        int index = pooled.writerIndex();
+        ByteBuffer data = pooled.nioBuffer(index, packetSize);
+        int start = data.position();
+        InetSocketAddress remoteAddress = (InetSocketAddress) javaChannel().receive(data);
+        if (remoteAddress == null) {
+            return false;
+        }
+
+        int length = data.position() - start;
+        ChannelBuffer content;
+        if (length == 0) {
+            content = ChannelBuffers.EMPTY_BUFFER;
         } else {
-            nioData = ByteBuffer.allocate(data.readableBytes());
-            data.getBytes(data.readerIndex(), nioData);
-            nioData.flip();
+            pooled.writerIndex(index + length);
+            content = pooled.slice(index, length).retain();
         }
+        buf.add(new DatagramPacket(content, remoteAddress));
+        return true;
+    }
 
-        final int writtenBytes = javaChannel().send(nioData, packet.remoteAddress());
+    @Override
+    protected int doWriteMessages(Queue<Object> buf, boolean lastSpin) throws Exception {
+        final int writtenPackets = sendBatch(buf, config().getBatchSize());
 
         final SelectionKey key = selectionKey();
         final int interestOps = key.interestOps();
-        if (writtenBytes <= 0) {
+        if (writtenPackets == 0) {
             // Did not write a packet.
             // 1) If 'lastSpin' is false, the caller will call this method again real soon.
             //    - Do not update OP_WRITE.
@@ -204,15 +282,56 @@ public final class NioDatagramChannel
             return 0;
         }
 
-        // Wrote a packet.
-        buf.remove();
+        // Wrote one or more packets.
         if (buf.isEmpty()) {
             // Wrote the outbound buffer completely - clear OP_WRITE.
             if ((interestOps & SelectionKey.OP_WRITE) != 0) {
                 key.interestOps(interestOps & ~SelectionKey.OP_WRITE);
             }
         }
-        return 1;
+        return writtenPackets;
+    }
+
+    /**
+     * Sends at most {@code maxPackets} datagrams from the head of the
+     * specified buffer, removes the sent datagrams from the buffer, and
+     * returns the number of the sent datagrams.  The default implementation
+     * calls {@link DatagramChannel#send(ByteBuffer, SocketAddress)} once per
+     * datagram until the socket send buffer is full.  A transport with access
+     * to {@code sendmmsg()} can override this method to send the whole batch
+     * with a single system call.
+     */
+    protected int sendBatch(Queue<Object> buf, int maxPackets) throws Exception {
+        int writtenPackets = 0;
+        while (writtenPackets < maxPackets) {
+            DatagramPacket packet = (DatagramPacket) buf.peek();
+            if (packet == null || !send(packet)) {
+                break;
+            }
+            buf.remove();
+            writtenPackets ++;
+        }
+        return writtenPackets;
+    }
+
+    private boolean send(DatagramPacket packet) throws IOException {
+        ChannelBuffer data = packet.data();
+        ByteBuffer nioData;
+        if (data.hasNioBuffer()) {
+            nioData = data.nioBuffer();
+        } else {
+            int length = data.readableBytes();
+            nioData = sendBuffer;
+            if (nioData == null || nioData.capacity() < length) {
+                sendBuffer = nioData = ByteBuffer.allocateDirect(
+                        Math.max(length, config().getReceivePacketSize()));
+            }
+            nioData.clear().limit(length);
+            data.getBytes(data.readerIndex(), nioData);
+            nioData.flip();
+        }
+
+        return javaChannel().send(nioData, packet.remoteAddress()) > 0;
     }
 
     @Override
@@ -98,8 +98,8 @@ class NioDatagramChannelConfig extends DefaultDatagramChannelConfig {
 
     private final DatagramChannel channel;
 
-    NioDatagramChannelConfig(DatagramChannel channel) {
-        super(channel.socket());
+    NioDatagramChannelConfig(NioDatagramChannel nettyChannel, DatagramChannel channel) {
+        super(nettyChannel, channel.socket());
         this.channel = channel;
     }
 
@@ -19,6 +19,8 @@ import io.netty.channel.EventExecutor;
 import io.netty.channel.MultithreadEventLoop;
 
 import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadFactory;
 
 public class NioEventLoop extends MultithreadEventLoop {
@@ -39,6 +41,44 @@ public class NioEventLoop extends MultithreadEventLoop {
         super(nThreads, threadFactory, selectorProvider);
     }
 
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in
+     * the child event loops.  The default value is {@code 50}.
+     */
+    public int getIoRatio() {
+        return ((NioChildEventLoop) children().get(0)).getIoRatio();
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the
+     * child event loops.  After processing the selected keys, a child event
+     * loop runs its non-I/O tasks for at most
+     * {@code ioTime * (100 - ioRatio) / ioRatio}, and leaves the remaining
+     * tasks to the next round, so that a flood of tasks does not starve I/O.
+     * {@code 100} disables the limit and runs all pending tasks in every round.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException(
+                    String.format("ioRatio: %d (expected: 0 < ioRatio <= 100)", ioRatio));
+        }
+        for (EventExecutor child: children()) {
+            ((NioChildEventLoop) child).setIoRatio(ioRatio);
+        }
+    }
+
+    /**
+     * Returns the counters of the child event loops, one for each thread.
+     */
+    public List<NioEventLoopCounters> counters() {
+        List<EventExecutor> children = children();
+        List<NioEventLoopCounters> counters = new ArrayList<NioEventLoopCounters>(children.size());
+        for (EventExecutor child: children) {
+            counters.add(((NioChildEventLoop) child).counters());
+        }
+        return counters;
+    }
+
     @Override
     protected EventExecutor newChild(ThreadFactory threadFactory, Object... args) throws Exception {
         SelectorProvider selectorProvider;
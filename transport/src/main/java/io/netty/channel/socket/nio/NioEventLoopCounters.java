@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.nio;
+
+/**
+ * The counters of a single thread of a {@link NioEventLoop}, which help to
+ * tune its {@linkplain NioEventLoop#setIoRatio(int) I/O ratio}.  The
+ * counters are updated only by the event loop thread, and they are reset
+ * only when the event loop is created.
+ */
+public final class NioEventLoopCounters {
+
+    private volatile long ioTimeNanos;
+    private volatile long taskTimeNanos;
+    private volatile long processedKeys;
+    private volatile long runTasks;
+
+    NioEventLoopCounters() {
+        // Only NioChildEventLoop creates an instance.
+    }
+
+    /**
+     * Returns the total amount of time spent for processing the selected keys.
+     */
+    public long ioTimeNanos() {
+        return ioTimeNanos;
+    }
+
+    /**
+     * Returns the total amount of time spent for running the non-I/O tasks.
+     */
+    public long taskTimeNanos() {
+        return taskTimeNanos;
+    }
+
+    /**
+     * Returns the total number of the processed selected keys.
+     */
+    public long processedKeys() {
+        return processedKeys;
+    }
+
+    /**
+     * Returns the total number of the non-I/O tasks run.
+     */
+    public long runTasks() {
+        return runTasks;
+    }
+
+    void recordIo(int processedKeys, long ioTimeNanos) {
+        // Written only by the event loop thread, hence no atomic operations.
+        this.processedKeys += processedKeys;
+        this.ioTimeNanos += ioTimeNanos;
+    }
+
+    void recordTasks(int runTasks, long taskTimeNanos) {
+        this.runTasks += runTasks;
+        this.taskTimeNanos += taskTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "(ioTimeNanos: " + ioTimeNanos +
+                ", taskTimeNanos: " + taskTimeNanos +
+                ", processedKeys: " + processedKeys +
+                ", runTasks: " + runTasks + ')';
+    }
+}
@@ -25,6 +25,7 @@ import java.net.SocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 public class NioServerSocketChannel extends AbstractNioMessageChannel
                              implements io.netty.channel.socket.ServerSocketChannel {
@@ -38,11 +39,39 @@ public class NioServerSocketChannel extends AbstractNioMessageChannel
         }
     }
 
+    private static final long ACCEPT_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final ServerSocketChannelConfig config;
 
+    // Written only by the event loop.
+    private volatile long acceptedConnections;
+    private volatile long readLimitHits;
+    private volatile long throttledAccepts;
+
+    /**
+     * The theoretical time the next connection is accepted at when the accept
+     * rate is limited, which may be up to {@link #ACCEPT_BURST_NANOS} ahead of
+     * the current time if a burst was accepted.
+     */
+    private long nextAcceptNanos;
+    private boolean acceptSuspended;
+    // true if a read was requested while accepting is suspended.
+    private boolean readRequested;
+    private final Runnable resumeAcceptTask = new Runnable() {
+        @Override
+        public void run() {
+            acceptSuspended = false;
+            if (config().isAutoRead() || readRequested) {
+                readRequested = false;
+                unsafe().beginRead();
+            }
+        }
+    };
+
     public NioServerSocketChannel() {
         super(null, null, newSocket(), SelectionKey.OP_ACCEPT);
-        config = new DefaultServerSocketChannelConfig(javaChannel().socket());
+        config = new DefaultServerSocketChannelConfig(this, javaChannel());
+        nextAcceptNanos = System.nanoTime();
     }
 
     @Override
@@ -74,7 +103,18 @@ public class NioServerSocketChannel extends AbstractNioMessageChannel
     protected void doBind(SocketAddress localAddress) throws Exception {
         javaChannel().socket().bind(localAddress);
         SelectionKey selectionKey = selectionKey();
-        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_ACCEPT);
+        selectionKey.interestOps(selectionKey.interestOps() | readInterestOps());
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        if (acceptSuspended) {
+            // Keep not watching the readiness for accepting until
+            // resumeAcceptTask runs, or the event loop would spin.
+            readRequested = true;
+            return;
+        }
+        super.doBeginRead();
     }
 
     @Override
@@ -82,16 +122,85 @@ public class NioServerSocketChannel extends AbstractNioMessageChannel
         javaChannel().close();
     }
 
+    /**
+     * Returns the number of the connections accepted by this channel so far.
+     */
+    public long acceptedConnections() {
+        return acceptedConnections;
+    }
+
+    /**
+     * Returns how many times this channel stopped accepting because it
+     * accepted {@link ServerSocketChannelConfig#getMaxMessagesPerRead() maxMessagesPerRead}
+     * connections in a single wake-up.  A number which keeps growing means
+     * the backlog is rarely drained - the connections arrive faster than the
+     * event loop accepts them.
+     */
+    public long readLimitHits() {
+        return readLimitHits;
+    }
+
+    /**
+     * Returns how many times this channel stopped accepting because the
+     * {@linkplain ServerSocketChannelConfig#getMaxAcceptRate() maximum accept rate}
+     * was reached.
+     */
+    public long throttledAccepts() {
+        return throttledAccepts;
+    }
+
     @Override
-    protected int doReadMessages(Queue<Object> buf) throws Exception {
+    protected int doReadMessages(Queue<Object> buf, int maxMessages) throws Exception {
+        int maxAcceptRate = config.getMaxAcceptRate();
+        if (maxAcceptRate > 0 && !acquireAcceptPermit(maxAcceptRate)) {
+            return 0;
+        }
+
         java.nio.channels.SocketChannel ch = javaChannel().accept();
         if (ch == null) {
             return 0;
         }
         buf.add(new NioSocketChannel(this, null, ch));
+        acceptedConnections ++;
         return 1;
     }
 
+    @Override
+    protected void readLimitReached() {
+        readLimitHits ++;
+    }
+
+    /**
+     * Returns {@code true} if a connection can be accepted without exceeding
+     * the specified rate.  Otherwise, stops watching {@code OP_ACCEPT} until
+     * a connection can be accepted again.
+     */
+    private boolean acquireAcceptPermit(int maxAcceptRate) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / maxAcceptRate;
+        long now = System.nanoTime();
+        long nextAcceptNanos = this.nextAcceptNanos;
+        if (nextAcceptNanos - now < 0) {
+            nextAcceptNanos = now;
+        }
+
+        long delayNanos = nextAcceptNanos - now - (ACCEPT_BURST_NANOS - intervalNanos);
+        if (delayNanos <= 0) {
+            this.nextAcceptNanos = nextAcceptNanos + intervalNanos;
+            return true;
+        }
+
+        throttledAccepts ++;
+        if (!acceptSuspended) {
+            acceptSuspended = true;
+            // Without auto-read, the current read request has been consumed
+            // already, so serve it again once accepting is resumed.
+            readRequested = !config().isAutoRead();
+            removeReadOp();
+            eventLoop().schedule(resumeAcceptTask, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        return false;
+    }
+
     // Unnecessary stuff
     @Override
     protected boolean doConnect(
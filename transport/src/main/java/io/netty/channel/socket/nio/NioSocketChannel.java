@@ -16,15 +16,19 @@
 package io.netty.channel.socket.nio;
 
 import io.netty.buffer.ChannelBuffer;
+import io.netty.buffer.QueueBackedChannelBuffer;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
+import io.netty.channel.FileRegion;
 import io.netty.channel.socket.DefaultSocketChannelConfig;
 import io.netty.channel.socket.SocketChannelConfig;
 import io.netty.logging.InternalLogger;
 import io.netty.logging.InternalLoggerFactory;
+import io.netty.util.internal.DetectionUtil;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 
@@ -32,6 +36,12 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(NioSocketChannel.class);
 
+    /**
+     * The maximum number of the buffers written by a single gathering write,
+     * which is the {@code IOV_MAX} of most platforms.
+     */
+    private static final int MAX_GATHERING_WRITE_BUFFERS = 1024;
+
     private final SocketChannelConfig config;
 
     private static SocketChannel newSocket() {
@@ -68,7 +78,7 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
             throw new ChannelException("Failed to enter non-blocking mode.", e);
         }
 
-        config = new DefaultSocketChannelConfig(socket.socket());
+        config = new DefaultSocketChannelConfig(this, socket.socket());
     }
 
     @Override
@@ -112,7 +122,7 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
         try {
             boolean connected = javaChannel().connect(remoteAddress);
             if (connected) {
-                selectionKey().interestOps(SelectionKey.OP_READ);
+                selectionKey().interestOps(readInterestOps());
             } else {
                 selectionKey().interestOps(SelectionKey.OP_CONNECT);
             }
@@ -130,7 +140,7 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
         if (!javaChannel().finishConnect()) {
             throw new Error();
         }
-        selectionKey().interestOps(SelectionKey.OP_READ);
+        selectionKey().interestOps(readInterestOps());
     }
 
     @Override
@@ -143,27 +153,55 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
         javaChannel().close();
     }
 
+    @Override
+    protected ChannelBuffer newOutboundByteBuffer() {
+        // The components are written with one gathering write only since Java 7.
+        if (DetectionUtil.javaVersion() >= 7) {
+            return new QueueBackedChannelBuffer();
+        }
+        return super.newOutboundByteBuffer();
+    }
+
     @Override
     protected int doReadBytes(ChannelBuffer byteBuf) throws Exception {
         return byteBuf.writeBytes(javaChannel(), byteBuf.writableBytes());
     }
 
     @Override
-    protected int doWriteBytes(ChannelBuffer buf, boolean lastSpin) throws Exception {
-        final int expectedWrittenBytes = buf.readableBytes();
-
-        // FIXME: This is not as efficient as Netty 3's SendBufferPool if heap buffer is used
-        //        because of potentially unwanted repetitive memory copy in case of
-        //        a slow connection or a large output buffer that triggers OP_WRITE.
-        final int writtenBytes = buf.readBytes(javaChannel(), expectedWrittenBytes);
-
-        final SelectionKey key = selectionKey();
-        final int interestOps = key.interestOps();
-        if (writtenBytes >= expectedWrittenBytes) {
-            // Wrote the outbound buffer completely - clear OP_WRITE.
-            if ((interestOps & SelectionKey.OP_WRITE) != 0) {
-                key.interestOps(interestOps & ~SelectionKey.OP_WRITE);
+    protected int doWriteBytes(ChannelBuffer buf, int length, boolean lastSpin) throws Exception {
+        final int expectedWrittenBytes;
+        final int writtenBytes;
+        if (buf instanceof QueueBackedChannelBuffer && DetectionUtil.javaVersion() >= 7) {
+            // Write the first MAX_GATHERING_WRITE_BUFFERS components with a
+            // single gathering write.  The rest are written by the next spin.
+            ByteBuffer[] nioBuffers = ((QueueBackedChannelBuffer) buf).nioBuffers(
+                    buf.readerIndex(), length, MAX_GATHERING_WRITE_BUFFERS);
+            int expected = 0;
+            for (ByteBuffer b: nioBuffers) {
+                expected += b.remaining();
             }
+            expectedWrittenBytes = expected;
+            writtenBytes = (int) javaChannel().write(nioBuffers);
+
+            // A partially written component is sliced when the written
+            // components are discarded.
+            buf.skipBytes(writtenBytes);
+        } else {
+            // FIXME: This is not as efficient as Netty 3's SendBufferPool if heap buffer is used
+            //        because of potentially unwanted repetitive memory copy in case of
+            //        a slow connection or a large output buffer that triggers OP_WRITE.
+            expectedWrittenBytes = length;
+            writtenBytes = buf.readBytes(javaChannel(), expectedWrittenBytes);
+        }
+
+        if (writtenBytes == length) {
+            // Wrote the requested bytes completely - clear OP_WRITE.
+            clearOpWrite();
+        } else if (writtenBytes >= expectedWrittenBytes && !lastSpin) {
+            // Wrote what was tried completely but there are more - the caller
+            // will call this method again real soon.  Clear OP_WRITE so that
+            // the caller knows the socket is still writable.
+            clearOpWrite();
         } else {
             // Wrote something or nothing.
             // a) If wrote something, the caller will not retry.
@@ -174,12 +212,15 @@ public class NioSocketChannel extends AbstractNioStreamChannel implements io.net
             //    2) If 'lastSpin' is true, the caller will not retry.
             //       - Set OP_WRITE so that the event loop calls flushForcibly() later.
             if (writtenBytes > 0 || lastSpin) {
-                if ((interestOps & SelectionKey.OP_WRITE) == 0) {
-                    key.interestOps(interestOps | SelectionKey.OP_WRITE);
-                }
+                setOpWrite();
             }
         }
 
         return writtenBytes;
     }
+
+    @Override
+    protected long doWriteFileRegion(FileRegion region, long position) throws Exception {
+        return region.transferTo(javaChannel(), position);
+    }
 }
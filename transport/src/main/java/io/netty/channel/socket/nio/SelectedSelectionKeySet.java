@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.nio;
+
+import java.nio.channels.SelectionKey;
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * An array-backed {@link java.util.Set} which replaces the selected-key set
+ * of a {@link java.nio.channels.Selector} so that the selected keys are
+ * iterated without creating an {@link Iterator}.  The {@link java.nio.channels.Selector}
+ * only adds keys to the set, so the set supports {@link #add(SelectionKey)}
+ * only, and {@link #contains(Object)} always returns {@code false}.  A key
+ * selected again before the set is reset is simply added twice, so the
+ * event loop resets the set before it selects again while it is processing
+ * the selected keys.
+ */
+final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
+
+    private SelectionKey[] keys = new SelectionKey[1024];
+    private int size;
+
+    @Override
+    public boolean add(SelectionKey o) {
+        if (o == null) {
+            return false;
+        }
+
+        if (size == keys.length) {
+            SelectionKey[] newKeys = new SelectionKey[size << 1];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            keys = newKeys;
+        }
+        keys[size ++] = o;
+        return true;
+    }
+
+    /**
+     * Returns the key at the specified position.
+     */
+    SelectionKey get(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Removes all keys, clearing the references so that the keys of the
+     * closed channels can be garbage-collected.
+     */
+    void reset() {
+        for (int i = 0; i < size; i ++) {
+            keys[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
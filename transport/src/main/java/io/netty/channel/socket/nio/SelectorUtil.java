@@ -45,9 +45,21 @@ final class SelectorUtil {
         }
     }
 
-    static void select(Selector selector) throws IOException {
+    /**
+     * Selects with the specified timeout.
+     *
+     * @return the number of the selected keys, or {@code -1} if the
+     *         {@link Selector} raised a {@link CancelledKeyException}
+     */
+    static int select(Selector selector, long timeoutNanos) throws IOException {
+        // Round up so that the selector does not wake up right before the deadline.
+        long timeoutMillis = (timeoutNanos + 999999) / 1000000;
         try {
-            selector.select(10);
+            if (timeoutMillis <= 0) {
+                return selector.selectNow();
+            } else {
+                return selector.select(timeoutMillis);
+            }
         } catch (CancelledKeyException e) {
             if (logger.isDebugEnabled()) {
                 logger.debug(
@@ -55,6 +67,7 @@ final class SelectorUtil {
                         " raised by a Selector - JDK bug?", e);
             }
             // Harmless exception - log anyway
+            return -1;
         }
     }
 
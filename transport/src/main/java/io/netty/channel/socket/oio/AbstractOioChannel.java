@@ -27,6 +27,14 @@ abstract class AbstractOioChannel extends AbstractChannel {
 
     static final int SO_TIMEOUT = 1000;
 
+    /**
+     * {@code true} if a read has been requested via {@link #read()} while
+     * auto-read is disabled.  Cleared once a read has delivered data, or the
+     * channel has been closed.  A read which timed out without any data
+     * leaves it set, so that the event loop tries again.
+     */
+    volatile boolean readPending;
+
     protected AbstractOioChannel(Channel parent, Integer id) {
         super(parent, id);
     }
@@ -100,6 +108,19 @@ abstract class AbstractOioChannel extends AbstractChannel {
         // NOOP
     }
 
+    @Override
+    protected void doBeginRead() throws Exception {
+        readPending = true;
+    }
+
+    /**
+     * Returns {@code true} if the event loop should read from this channel,
+     * which is either because auto-read is enabled or a read is pending.
+     */
+    boolean isReadRequested() {
+        return config().isAutoRead() || readPending;
+    }
+
     @Override
     protected boolean isFlushPending() {
         return false;
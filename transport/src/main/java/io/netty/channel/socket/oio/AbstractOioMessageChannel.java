@@ -65,11 +65,17 @@ abstract class AbstractOioMessageChannel extends AbstractOioChannel {
                 }
             } finally {
                 if (read) {
+                    // The requested read is done.  Clear it before the handlers
+                    // are notified so that they can request another one.
+                    readPending = false;
                     pipeline.fireInboundBufferUpdated();
                 }
                 if (closed && isOpen()) {
                     close(voidFuture());
                 }
+                if (!isOpen()) {
+                    readPending = false;
+                }
             }
         }
     }
@@ -17,10 +17,14 @@ package io.netty.channel.socket.oio;
 
 import io.netty.buffer.ChannelBuffer;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelType;
+import io.netty.channel.FileRegion;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 
 abstract class AbstractOioStreamChannel extends AbstractOioChannel {
 
@@ -66,11 +70,17 @@ abstract class AbstractOioStreamChannel extends AbstractOioChannel {
                 }
             } finally {
                 if (read) {
+                    // The requested read is done.  Clear it before the handlers
+                    // are notified so that they can request another one.
+                    readPending = false;
                     pipeline.fireInboundBufferUpdated();
                 }
                 if (closed && isOpen()) {
                     close(voidFuture());
                 }
+                if (!isOpen()) {
+                    readPending = false;
+                }
             }
         }
     }
@@ -83,9 +93,36 @@ abstract class AbstractOioStreamChannel extends AbstractOioChannel {
         buf.clear();
     }
 
+    @Override
+    protected void doFlushFileRegion(FileRegion region, ChannelFuture future) throws Exception {
+        // Write the bytes which were written before the region first.
+        ChannelBuffer buf = unsafe().directOutboundContext().outboundByteBuffer();
+        if (buf.readable()) {
+            unsafe().flushNow();
+            if (buf.readable()) {
+                // The flush failed and closed the channel.
+                throw new ClosedChannelException();
+            }
+        }
+
+        final long count = region.count();
+        long writtenBytes = 0;
+        while (writtenBytes < count) {
+            long localWrittenBytes = doWriteFileRegion(region, writtenBytes);
+            if (localWrittenBytes <= 0) {
+                throw new EOFException(
+                        "file region ended prematurely: " + writtenBytes + " of " + count + " bytes transferred");
+            }
+            writtenBytes += localWrittenBytes;
+            future.setProgress(localWrittenBytes, writtenBytes, count);
+        }
+        future.setSuccess();
+    }
+
     protected abstract int available();
     protected abstract int doReadBytes(ChannelBuffer buf) throws Exception;
     protected abstract int doWriteBytes(ChannelBuffer buf) throws Exception;
+    protected abstract long doWriteFileRegion(FileRegion region, long position) throws Exception;
 
     private void expandReadBuffer(ChannelBuffer byteBuf) {
         int available = available();
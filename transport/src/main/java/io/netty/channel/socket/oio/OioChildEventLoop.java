@@ -24,7 +24,7 @@ import io.netty.channel.SingleThreadEventLoop;
 class OioChildEventLoop extends SingleThreadEventLoop {
 
     private final OioEventLoop parent;
-    private AbstractOioChannel ch;
+    private volatile AbstractOioChannel ch;
 
     OioChildEventLoop(OioEventLoop parent) {
         super(parent.threadFactory);
@@ -49,7 +49,9 @@ class OioChildEventLoop extends SingleThreadEventLoop {
     protected void run() {
         for (;;) {
             AbstractOioChannel ch = OioChildEventLoop.this.ch;
-            if (ch == null || !ch.isActive()) {
+            if (ch == null || !ch.isActive() || !ch.isReadRequested()) {
+                // Wait for a task; reading is suspended until Channel.read()
+                // is requested if auto-read is disabled.
                 Runnable task;
                 try {
                     task = takeTask();
@@ -58,6 +60,10 @@ class OioChildEventLoop extends SingleThreadEventLoop {
                     // Waken up by interruptThread()
                 }
             } else {
+                // Clear the interrupt status which might have been set by wakeup()
+                // before the channel became active.
+                Thread.interrupted();
+
                 long startTime = System.nanoTime();
                 for (;;) {
                     final Runnable task = pollTask();
@@ -95,7 +101,17 @@ class OioChildEventLoop extends SingleThreadEventLoop {
 
     @Override
     protected void wakeup(boolean inEventLoop) {
-        interruptThread();
+        // Interrupt the thread only when it waits for a task in takeTask(),
+        // which is also the case when reading is suspended.
+        // Interrupting it while the channel is active is useless because a blocking
+        // socket read is not interruptible, and it closes any interruptible channel
+        // in use at the moment, such as the FileChannel of a FileRegion being sent.
+        if (!inEventLoop) {
+            AbstractOioChannel ch = this.ch;
+            if (ch == null || !ch.isActive() || !ch.isReadRequested()) {
+                interruptThread();
+            }
+        }
     }
 
     private void deregister() {
@@ -47,6 +47,7 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
     private final MulticastSocket socket;
     private final DatagramChannelConfig config;
     private final java.net.DatagramPacket tmpPacket = new java.net.DatagramPacket(EMPTY_DATA, 0);
+    private byte[] sendBuffer = EMPTY_DATA;
 
     private static MulticastSocket newSocket() {
         try {
@@ -82,7 +83,7 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
         }
 
         this.socket = socket;
-        config = new DefaultDatagramChannelConfig(socket);
+        config = new DefaultDatagramChannelConfig(this, socket);
     }
 
     @Override
@@ -174,20 +175,35 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
 
     @Override
     protected int doWriteMessages(Queue<Object> buf) throws Exception {
-        DatagramPacket p = (DatagramPacket) buf.poll();
-        ChannelBuffer data = p.data();
-        int length = data.readableBytes();
-        tmpPacket.setSocketAddress(p.remoteAddress());
-        if (data.hasArray()) {
-            tmpPacket.setData(data.array(), data.arrayOffset() + data.readerIndex(), length);
-        } else {
-            byte[] tmp = new byte[length];
-            data.getBytes(data.readerIndex(), tmp);
-            tmpPacket.setData(tmp);
-        }
+        // Send up to batchSize packets before returning to the flush loop.
+        // A blocking socket offers no vectored send, so each packet is still
+        // one send() call, but the packets share one scratch array.
+        int maxPackets = config().getBatchSize();
+        int writtenPackets = 0;
+        while (writtenPackets < maxPackets) {
+            DatagramPacket p = (DatagramPacket) buf.poll();
+            if (p == null) {
+                break;
+            }
+
+            ChannelBuffer data = p.data();
+            int length = data.readableBytes();
+            tmpPacket.setSocketAddress(p.remoteAddress());
+            if (data.hasArray()) {
+                tmpPacket.setData(data.array(), data.arrayOffset() + data.readerIndex(), length);
+            } else {
+                byte[] tmp = sendBuffer;
+                if (tmp.length < length) {
+                    sendBuffer = tmp = new byte[length];
+                }
+                data.getBytes(data.readerIndex(), tmp, 0, length);
+                tmpPacket.setData(tmp, 0, length);
+            }
 
-        socket.send(tmpPacket);
-        return 1;
+            socket.send(tmpPacket);
+            writtenPackets ++;
+        }
+        return writtenPackets;
     }
 
     @Override
@@ -18,6 +18,7 @@ package io.netty.channel.socket.oio;
 import io.netty.buffer.ChannelBuffer;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
+import io.netty.channel.FileRegion;
 import io.netty.channel.socket.DefaultSocketChannelConfig;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
@@ -30,7 +31,9 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
 import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.WritableByteChannel;
 
 public class OioSocketChannel extends AbstractOioStreamChannel
                               implements SocketChannel {
@@ -42,6 +45,7 @@ public class OioSocketChannel extends AbstractOioStreamChannel
     private final SocketChannelConfig config;
     private InputStream is;
     private OutputStream os;
+    private WritableByteChannel outChannel;
 
     public OioSocketChannel() {
         this(new Socket());
@@ -54,7 +58,7 @@ public class OioSocketChannel extends AbstractOioStreamChannel
     public OioSocketChannel(Channel parent, Integer id, Socket socket) {
         super(parent, id);
         this.socket = socket;
-        config = new DefaultSocketChannelConfig(socket);
+        config = new DefaultSocketChannelConfig(this, socket);
 
         boolean success = false;
         try {
@@ -168,4 +172,16 @@ public class OioSocketChannel extends AbstractOioStreamChannel
         buf.readBytes(os, length);
         return length;
     }
+
+    @Override
+    protected long doWriteFileRegion(FileRegion region, long position) throws Exception {
+        OutputStream os = this.os;
+        if (os == null) {
+            throw new NotYetConnectedException();
+        }
+        if (outChannel == null) {
+            outChannel = Channels.newChannel(os);
+        }
+        return region.transferTo(outChannel, position);
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AdaptiveReceiveBufferSizePredictorTest {
+
+    @Test
+    public void shouldGrowFast() {
+        ReceiveBufferSizePredictor predictor = new AdaptiveReceiveBufferSizePredictor(64, 1024, 65536);
+        assertEquals(1024, predictor.nextReceiveBufferSize());
+
+        predictor.previousReceiveBufferSize(1024);
+        assertEquals(16384, predictor.nextReceiveBufferSize());
+        predictor.previousReceiveBufferSize(16384);
+        assertEquals(65536, predictor.nextReceiveBufferSize());
+
+        // Never grows above the maximum.
+        predictor.previousReceiveBufferSize(65536);
+        assertEquals(65536, predictor.nextReceiveBufferSize());
+    }
+
+    @Test
+    public void shouldShrinkLazily() {
+        ReceiveBufferSizePredictor predictor = new AdaptiveReceiveBufferSizePredictor(64, 1024, 65536);
+
+        // A single small read does not shrink the buffer.
+        predictor.previousReceiveBufferSize(10);
+        assertEquals(1024, predictor.nextReceiveBufferSize());
+
+        // A large read in between resets the decision.
+        predictor.previousReceiveBufferSize(1000);
+        predictor.previousReceiveBufferSize(10);
+        assertEquals(1024, predictor.nextReceiveBufferSize());
+
+        // Two small reads in a row shrink the buffer by one step.
+        predictor.previousReceiveBufferSize(10);
+        assertEquals(512, predictor.nextReceiveBufferSize());
+
+        // Never shrinks below the minimum.
+        for (int i = 0; i < 100; i ++) {
+            predictor.previousReceiveBufferSize(0);
+        }
+        assertEquals(64, predictor.nextReceiveBufferSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidRange() {
+        new AdaptiveReceiveBufferSizePredictorFactory(1024, 64, 65536);
+    }
+}
@@ -15,10 +15,14 @@
  */
 package io.netty.channel;
 
+import static io.netty.channel.ChannelHandlerMask.*;
 import static org.junit.Assert.*;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.local.LocalChannel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import org.junit.Test;
 
 public class DefaultChannelPipelineTest {
@@ -47,6 +51,85 @@ public class DefaultChannelPipelineTest {
         assertTrue(pipeline.get("handler2") == newHandler2);
     }
 
+    @Test
+    public void testHandlerMask() {
+        // An adapter which overrides nothing is skipped for every event.
+        assertEquals(0, ChannelHandlerMask.mask(new TestHandler()));
+
+        assertEquals(MASK_CHANNEL_ACTIVE | MASK_CLOSE, ChannelHandlerMask.mask(new ChannelHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                ctx.fireChannelActive();
+            }
+
+            @Override
+            public void close(ChannelHandlerContext ctx, ChannelFuture future) throws Exception {
+                ctx.close(future);
+            }
+        }));
+
+        // A handler with a buffer always moves the content of its buffer.
+        assertEquals(MASK_INBOUND_BUFFER_UPDATED,
+                ChannelHandlerMask.mask(new ChannelInboundMessageHandlerAdapter<Object>()));
+        assertEquals(MASK_FLUSH,
+                ChannelHandlerMask.mask(new ChannelOutboundMessageHandlerAdapter<Object>()));
+    }
+
+    @Test
+    public void testHandlerWithExecutorIsNotSkipped() {
+        DefaultChannelPipeline pipeline = new DefaultChannelPipeline(new LocalChannel());
+        EventExecutor executor = new DefaultEventExecutor(1);
+        try {
+            pipeline.addLast("handler1", newHandler());
+            pipeline.addLast(executor, "handler2", newHandler());
+            assertEquals(0, ((DefaultChannelHandlerContext) pipeline.context("handler1")).mask);
+            assertEquals(
+                    ChannelHandlerMask.fullMask(newHandler()),
+                    ((DefaultChannelHandlerContext) pipeline.context("handler2")).mask);
+            assertSame(
+                    pipeline.context("handler2"),
+                    DefaultChannelPipeline.nextContext(
+                            (DefaultChannelHandlerContext) pipeline.context("handler1"), MASK_CHANNEL_ACTIVE));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLookupFollowsModification() {
+        DefaultChannelPipeline pipeline = new DefaultChannelPipeline(new LocalChannel());
+        assertNull(pipeline.first());
+        assertNull(pipeline.last());
+        assertTrue(pipeline.names().isEmpty());
+
+        ChannelHandler handler1 = newHandler();
+        ChannelHandler handler2 = newHandler();
+        ChannelHandler handler3 = newHandler();
+        pipeline.addLast("handler2", handler2);
+        pipeline.addFirst("handler1", handler1);
+        pipeline.addAfter("handler2", "handler3", handler3);
+        assertSame(handler1, pipeline.first());
+        assertSame(handler3, pipeline.last());
+        assertSame(handler2, pipeline.get("handler2"));
+        assertSame(pipeline.context("handler3"), pipeline.context(handler3));
+        assertEquals(Arrays.asList("handler1", "handler2", "handler3"), pipeline.names());
+
+        pipeline.remove("handler2");
+        assertNull(pipeline.get("handler2"));
+        assertNull(pipeline.context(handler2));
+        assertEquals(Arrays.asList("handler1", "handler3"), pipeline.names());
+
+        pipeline.replace("handler3", "handler4", handler2);
+        assertNull(pipeline.get("handler3"));
+        assertSame(handler2, pipeline.last());
+        assertEquals(Arrays.asList("handler1", "handler4"), new ArrayList<String>(pipeline.toMap().keySet()));
+
+        pipeline.removeLast();
+        pipeline.removeFirst();
+        assertNull(pipeline.first());
+        assertTrue(pipeline.toMap().isEmpty());
+    }
+
     private static ChannelHandler newHandler() {
         return new TestHandler();
     }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import static org.junit.Assert.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalEventLoop;
+import io.netty.channel.local.LocalServerChannel;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class EventExecutorChoosersTest {
+
+    @Test
+    public void testPowerOfTwo() {
+        assertTrue(EventExecutorChoosers.isPowerOfTwo(1));
+        assertTrue(EventExecutorChoosers.isPowerOfTwo(2));
+        assertTrue(EventExecutorChoosers.isPowerOfTwo(64));
+        assertFalse(EventExecutorChoosers.isPowerOfTwo(3));
+        assertFalse(EventExecutorChoosers.isPowerOfTwo(6));
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        testRoundRobin(4);
+        testRoundRobin(3);
+    }
+
+    private static void testRoundRobin(int nThreads) throws Exception {
+        LocalEventLoop loop = new LocalEventLoop(nThreads);
+        try {
+            List<EventExecutor> chosen = new ArrayList<EventExecutor>();
+            for (int i = 0; i < nThreads * 3; i ++) {
+                chosen.add(loop.unsafe().nextChild());
+            }
+            for (int i = 0; i < nThreads; i ++) {
+                assertSame(chosen.get(i), chosen.get(i + nThreads));
+                assertSame(chosen.get(i), chosen.get(i + nThreads * 2));
+                for (int j = 0; j < i; j ++) {
+                    assertNotSame(chosen.get(i), chosen.get(j));
+                }
+            }
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    public void testLeastLoaded() throws Exception {
+        LocalEventLoop loop = new LocalEventLoop(4);
+        loop.setChooserFactory(EventExecutorChoosers.leastLoaded());
+        try {
+            // Skew the round-robin order first; the chooser must not be fooled by it.
+            loop.unsafe().nextChild();
+
+            List<Channel> channels = new ArrayList<Channel>();
+            for (int i = 0; i < 8; i ++) {
+                Channel ch = new LocalServerChannel();
+                loop.register(ch).sync();
+                channels.add(ch);
+            }
+
+            Map<EventLoop, Integer> counts = new IdentityHashMap<EventLoop, Integer>();
+            for (Channel ch: channels) {
+                Integer count = counts.get(ch.eventLoop());
+                counts.put(ch.eventLoop(), count == null? 1 : count + 1);
+            }
+            assertEquals(4, counts.size());
+            for (Integer count: counts.values()) {
+                assertEquals(2, count.intValue());
+            }
+
+            // A channel must go to the event loop which lost a channel.
+            Channel closed = channels.get(5);
+            closed.bind(new LocalAddress("EventExecutorChoosersTest")).sync();
+            closed.close().sync();
+            // The close future is notified before the channel is deregistered.
+            closed.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).get();
+            Channel ch = new LocalServerChannel();
+            loop.register(ch).sync();
+            assertSame(closed.eventLoop(), ch.eventLoop());
+            assertEquals(2, ((SingleThreadEventLoop) ch.eventLoop()).registeredChannels());
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    public void testLeastLoadedWithoutChannels() throws Exception {
+        // The executors which are not event loops are chosen one after another.
+        DefaultEventExecutor executor = new DefaultEventExecutor(3);
+        executor.setChooserFactory(EventExecutorChoosers.leastLoaded());
+        try {
+            List<EventExecutor> chosen = new ArrayList<EventExecutor>();
+            for (int i = 0; i < 6; i ++) {
+                chosen.add(executor.unsafe().nextChild());
+            }
+            for (int i = 0; i < 3; i ++) {
+                assertSame(chosen.get(i), chosen.get(i + 3));
+                for (int j = 0; j < i; j ++) {
+                    assertNotSame(chosen.get(i), chosen.get(j));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
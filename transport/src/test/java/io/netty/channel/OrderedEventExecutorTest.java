@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OrderedEventExecutorTest {
+
+    private OrderedEventExecutor executor;
+
+    @Before
+    public void newExecutor() {
+        executor = new OrderedEventExecutor(4);
+    }
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNextChildReturnsNewChild() {
+        EventExecutor a = executor.unsafe().nextChild();
+        EventExecutor b = executor.unsafe().nextChild();
+        assertNotSame(a, b);
+        assertSame(a, a.unsafe().nextChild());
+    }
+
+    @Test(timeout = 10000)
+    public void testTasksRunInOrder() throws Exception {
+        final int children = 8;
+        final int tasks = 1000;
+        final CountDownLatch latch = new CountDownLatch(children * tasks);
+        final List<List<Integer>> results = new ArrayList<List<Integer>>();
+        final AtomicBoolean concurrent = new AtomicBoolean();
+
+        for (int i = 0; i < children; i ++) {
+            final List<Integer> result = Collections.synchronizedList(new ArrayList<Integer>());
+            final AtomicInteger running = new AtomicInteger();
+            results.add(result);
+            EventExecutor child = executor.unsafe().nextChild();
+            for (int j = 0; j < tasks; j ++) {
+                final int id = j;
+                child.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (running.incrementAndGet() != 1) {
+                            concurrent.set(true);
+                        }
+                        result.add(id);
+                        running.decrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+
+        latch.await();
+        assertFalse(concurrent.get());
+        for (List<Integer> result: results) {
+            assertEquals(tasks, result.size());
+            for (int i = 0; i < tasks; i ++) {
+                assertEquals(i, result.get(i).intValue());
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockedChildDoesNotBlockOthers() throws Exception {
+        // Even if every child was created by the same pipeline thread, a
+        // blocked child must not hold up the tasks of the other children.
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        executor.unsafe().nextChild().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+            }
+        });
+
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        for (int i = 0; i < 3; i ++) {
+            executor.unsafe().nextChild().execute(new Runnable() {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        blocker.countDown();
+        assertFalse(threads.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testInEventLoop() throws Exception {
+        final EventExecutor child = executor.unsafe().nextChild();
+        final EventExecutor other = executor.unsafe().nextChild();
+        assertFalse(child.inEventLoop());
+        assertFalse(executor.inEventLoop());
+
+        final AtomicBoolean[] results = new AtomicBoolean[3];
+        for (int i = 0; i < results.length; i ++) {
+            results[i] = new AtomicBoolean();
+        }
+        child.submit(new Runnable() {
+            @Override
+            public void run() {
+                results[0].set(child.inEventLoop());
+                results[1].set(other.inEventLoop());
+                results[2].set(executor.inEventLoop());
+            }
+        }).get();
+
+        assertTrue(results[0].get());
+        assertFalse(results[1].get());
+        assertTrue(results[2].get());
+    }
+
+    @Test(timeout = 10000)
+    public void testSchedule() throws Exception {
+        EventExecutor child = executor.unsafe().nextChild();
+        long startTime = System.nanoTime();
+        ScheduledFuture<Integer> f = child.schedule(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertEquals(42, f.get().intValue());
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleAtFixedRate() throws Exception {
+        final EventExecutor child = executor.unsafe().nextChild();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final AtomicBoolean inEventLoop = new AtomicBoolean(true);
+        ScheduledFuture<?> f = child.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (!child.inEventLoop()) {
+                    inEventLoop.set(false);
+                }
+                latch.countDown();
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        latch.await();
+        assertTrue(f.cancel(false));
+        assertTrue(inEventLoop.get());
+    }
+
+    @Test
+    public void testShutdownChild() throws Exception {
+        EventExecutor child = executor.unsafe().nextChild();
+        child.shutdown();
+        assertTrue(child.isShutdown());
+        assertTrue(child.awaitTermination(1, TimeUnit.SECONDS));
+        try {
+            child.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+
+        // Shutting down a child does not affect the others.
+        assertFalse(executor.isShutdown());
+        executor.unsafe().nextChild().submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).get();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecuteAfterShutdown() {
+        EventExecutor child = executor.unsafe().nextChild();
+        executor.shutdown();
+        child.execute(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        });
+    }
+}
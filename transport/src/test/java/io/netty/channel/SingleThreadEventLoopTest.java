@@ -21,6 +21,7 @@ import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -111,6 +112,102 @@ public class SingleThreadEventLoopTest {
         assertTrue(endTime.get() - startTime >= TimeUnit.MILLISECONDS.toNanos(500));
     }
 
+    @Test
+    public void rejectTaskWhenTaskQueueIsFull() throws Exception {
+        loop.shutdown();
+        loop = new SingleThreadEventLoopImpl(2);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                // Keep the queue full; execute() interrupts this thread.
+                for (;;) {
+                    try {
+                        latch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            }
+        });
+        started.await();
+
+        final AtomicInteger ranTasks = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                ranTasks.incrementAndGet();
+            }
+        };
+        loop.execute(task);
+        loop.execute(task);
+        assertEquals(2, loop.pendingTasks());
+        try {
+            loop.execute(task);
+            fail();
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+
+        latch.countDown();
+        loop.shutdown();
+        loop.awaitTermination(5, TimeUnit.SECONDS);
+        assertEquals(2, ranTasks.get());
+    }
+
+    @Test
+    public void scheduleTasksInDeadlineOrder() throws Exception {
+        final Queue<Integer> order = new LinkedBlockingQueue<Integer>();
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        // Scheduled from a non-event-loop thread.
+        loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                order.add(3);
+                latch.countDown();
+            }
+        }, 300, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> cancelled = loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                order.add(-1);
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+        cancelled.cancel(false);
+
+        // Scheduled from the event loop thread.
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                loop.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add(2);
+                        latch.countDown();
+                    }
+                }, 200, TimeUnit.MILLISECONDS);
+                loop.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add(1);
+                        latch.countDown();
+                    }
+                }, 100, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, (int) order.poll());
+        assertEquals(2, (int) order.poll());
+        assertEquals(3, (int) order.poll());
+        assertTrue(order.isEmpty());
+    }
+
     @Test
     public void scheduleTaskAtFixedRate() throws Exception {
         final Queue<Long> timestamps = new LinkedBlockingQueue<Long>();
@@ -266,6 +363,10 @@ public class SingleThreadEventLoopTest {
             super(Executors.defaultThreadFactory());
         }
 
+        SingleThreadEventLoopImpl(int maxPendingTasks) {
+            super(Executors.defaultThreadFactory(), maxPendingTasks, RejectedExecutionHandlers.reject());
+        }
+
         @Override
         protected void run() {
             for (;;) {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.nio;
+
+import static org.junit.Assert.*;
+import io.netty.channel.EventExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioEventLoopTest {
+
+    private NioEventLoop loop;
+
+    @Before
+    public void newEventLoop() {
+        loop = new NioEventLoop(1);
+    }
+
+    @After
+    public void stopEventLoop() throws Exception {
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIoRatio() {
+        assertEquals(50, loop.getIoRatio());
+        loop.setIoRatio(100);
+        assertEquals(100, loop.getIoRatio());
+
+        try {
+            loop.setIoRatio(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            loop.setIoRatio(101);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testTasksRunWithLowIoRatio() throws Exception {
+        loop.setIoRatio(1);
+
+        // Even if no I/O happens, all tasks must run eventually.
+        final int numTasks = 10000;
+        final CountDownLatch latch = new CountDownLatch(numTasks);
+        EventExecutor child = loop.unsafe().nextChild();
+        for (int i = 0; i < numTasks; i ++) {
+            child.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, loop.counters().size());
+        NioEventLoopCounters counters = loop.counters().get(0);
+        // The counters are updated after the tasks are run.
+        for (int i = 0; i < 100 && counters.runTasks() < numTasks; i ++) {
+            Thread.sleep(10);
+        }
+        assertEquals(numTasks, counters.runTasks());
+        assertTrue(counters.taskTimeNanos() > 0);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.nio;
+
+import static org.junit.Assert.*;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.util.SocketAddresses;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class NioServerSocketChannelTest {
+
+    private final ServerBootstrap sb = new ServerBootstrap();
+    private final List<Socket> clients = new ArrayList<Socket>();
+
+    @After
+    public void shutdown() throws Exception {
+        for (Socket s: clients) {
+            s.close();
+        }
+        sb.shutdown();
+    }
+
+    private NioServerSocketChannel bind() throws Exception {
+        NioServerSocketChannel ch = new NioServerSocketChannel();
+        sb.eventLoop(new NioEventLoop(1), new NioEventLoop(1))
+          .channel(ch)
+          .localAddress(new InetSocketAddress(SocketAddresses.LOCALHOST, 0))
+          .childHandler(new ChannelInitializer<Channel>() {
+              @Override
+              public void initChannel(Channel ch) throws Exception {
+                  // NOOP
+              }
+          });
+        sb.bind().sync();
+        return ch;
+    }
+
+    private void connect(NioServerSocketChannel ch, int numClients) throws Exception {
+        for (int i = 0; i < numClients; i ++) {
+            clients.add(new Socket(ch.localAddress().getAddress(), ch.localAddress().getPort()));
+        }
+    }
+
+    private static void awaitAccepted(NioServerSocketChannel ch, int expected) throws Exception {
+        for (int i = 0; i < 500 && ch.acceptedConnections() < expected; i ++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, ch.acceptedConnections());
+    }
+
+    @Test
+    public void testMaxMessagesPerRead() throws Exception {
+        NioServerSocketChannel ch = bind();
+        ch.config().setMaxMessagesPerRead(2);
+
+        // Fill the backlog before the event loop wakes up for the first connection.
+        ch.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // Ignore.
+                }
+            }
+        });
+        connect(ch, 10);
+
+        awaitAccepted(ch, 10);
+        assertTrue(ch.readLimitHits() > 0);
+        assertEquals(0, ch.throttledAccepts());
+    }
+
+    @Test
+    public void testMaxAcceptRate() throws Exception {
+        NioServerSocketChannel ch = bind();
+        ch.config().setMaxAcceptRate(5);
+        assertEquals(5, (int) ch.config().getOption(ChannelOption.MAX_ACCEPT_RATE));
+
+        long startTime = System.nanoTime();
+        connect(ch, 10);
+
+        // A burst of up to 5 connections is accepted immediately, and the others later.
+        awaitAccepted(ch, 10);
+        assertTrue(System.nanoTime() - startTime >= 500000000L);
+        assertTrue(ch.throttledAccepts() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxAcceptRate() {
+        new NioServerSocketChannel().config().setMaxAcceptRate(-1);
+    }
+}